@@ -0,0 +1,86 @@
+package com.chessapp.api.archive
+
+import com.chessapp.api.board.Fen
+import com.chessapp.api.board.LegalMoveGenerator
+import com.chessapp.api.board.MoveList
+import org.openjdk.jmh.annotations.Benchmark
+import org.openjdk.jmh.annotations.BenchmarkMode
+import org.openjdk.jmh.annotations.Level
+import org.openjdk.jmh.annotations.Mode
+import org.openjdk.jmh.annotations.OutputTimeUnit
+import org.openjdk.jmh.annotations.Param
+import org.openjdk.jmh.annotations.Scope
+import org.openjdk.jmh.annotations.Setup
+import org.openjdk.jmh.annotations.State
+import org.openjdk.jmh.annotations.TearDown
+import java.nio.file.Files
+import java.nio.file.Path
+import kotlin.random.Random
+
+/**
+ * Position index lookups over an archive of random games: the common starting position, which
+ * has a long posting list, and keys picked from the middle of games, which mostly have one
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(java.util.concurrent.TimeUnit.NANOSECONDS)
+open class PositionIndexBenchmark {
+
+    @Param("10000")
+    var games = 0
+
+    private lateinit var archive: Path
+    private lateinit var indexFile: Path
+    private lateinit var index: PositionIndex
+    private lateinit var keys: LongArray
+    private var startingKey = 0L
+    private var next = 0
+
+    @Setup(Level.Trial)
+    fun setup() {
+        archive = Files.createTempFile("games", ".chga")
+        indexFile = Files.createTempFile("positions", ".chpi")
+        val random = Random(1)
+        val moves = MoveList()
+        val sampled = mutableListOf<Long>()
+        GameArchiveWriter(archive).use { writer ->
+            repeat(games) {
+                val board = Fen.toBitboardPosition(Fen.STARTING_POSITION)
+                val generator = LegalMoveGenerator(board)
+                val played = mutableListOf<Int>()
+                repeat(80) {
+                    generator.generateLegalMoves(moves)
+                    if (moves.isEmpty()) return@repeat
+                    val move = moves[random.nextInt(moves.size)]
+                    board.makeMove(move)
+                    played.add(move)
+                }
+                sampled.add(board.zobristKey())
+                writer.append(Fen.STARTING_POSITION, played.toIntArray(), "*")
+            }
+        }
+        PositionIndexBuilder().build(archive, indexFile)
+        index = PositionIndex(indexFile)
+        keys = sampled.toLongArray()
+        startingKey = Fen.toBitboardPosition(Fen.STARTING_POSITION).zobristKey()
+    }
+
+    @TearDown(Level.Trial)
+    fun tearDown() {
+        index.close()
+        Files.deleteIfExists(archive)
+        Files.deleteIfExists(indexFile)
+    }
+
+    @Benchmark
+    fun countStartingPosition(): Int = index.count(startingKey)
+
+    @Benchmark
+    fun lookupRareKey(): LongArray {
+        next = (next + 1) % keys.size
+        return index.lookup(keys[next])
+    }
+
+    @Benchmark
+    fun lookupStartingPosition(): LongArray = index.lookup(startingKey)
+}
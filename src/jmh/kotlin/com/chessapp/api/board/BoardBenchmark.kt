@@ -0,0 +1,70 @@
+package com.chessapp.api.board
+
+import com.chessapp.api.pieces.piece.ChessPiece
+import com.chessapp.api.pieces.piece.DefaultPieces
+import org.openjdk.jmh.annotations.Benchmark
+import org.openjdk.jmh.annotations.BenchmarkMode
+import org.openjdk.jmh.annotations.Mode
+import org.openjdk.jmh.annotations.OutputTimeUnit
+import org.openjdk.jmh.annotations.Param
+import org.openjdk.jmh.annotations.Scope
+import org.openjdk.jmh.annotations.Setup
+import org.openjdk.jmh.annotations.State
+import org.openjdk.jmh.infra.Blackhole
+import java.util.concurrent.TimeUnit
+
+/**
+ * Square lookups and piece moves on each board backend
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+open class BoardBenchmark {
+
+    @Param("array", "bitboard")
+    lateinit var backend: String
+
+    private lateinit var board: Board
+    private lateinit var knight: ChessPiece
+
+    @Setup
+    fun setup() {
+        board = if (backend == "array") BoardPosition() else BitboardPosition()
+        DefaultPieces.allPieces().forEach { board.occupyPosition(it) }
+        knight = board.getPieceAtPosition(File.G, 1)!!
+    }
+
+    @Benchmark
+    fun getPieceAtPositionAllSquares(blackhole: Blackhole) {
+        for (file in File.entries) {
+            for (rank in 1..8) {
+                blackhole.consume(board.getPieceAtPosition(file, rank))
+            }
+        }
+    }
+
+    @Benchmark
+    fun pieceCodeAtAllSquares(blackhole: Blackhole) {
+        for (square in 0 until 64) {
+            blackhole.consume(board.pieceCodeAt(square))
+        }
+    }
+
+    @Benchmark
+    fun isPositionOccupiedAllSquares(blackhole: Blackhole) {
+        for (file in File.entries) {
+            for (rank in 1..8) {
+                blackhole.consume(board.isPositionOccupiedByPiece(file, rank))
+            }
+        }
+    }
+
+    @Benchmark
+    fun movePieceThereAndBack() {
+        board.movePiece(knight, File.F, 3)
+        board.movePiece(knight, File.G, 1)
+    }
+
+    @Benchmark
+    fun isInCheck(): Boolean = AttackDetector.isInCheck(board, PieceCodes.WHITE)
+}
@@ -0,0 +1,55 @@
+package com.chessapp.api.board
+
+import org.openjdk.jmh.annotations.Benchmark
+import org.openjdk.jmh.annotations.BenchmarkMode
+import org.openjdk.jmh.annotations.Mode
+import org.openjdk.jmh.annotations.OutputTimeUnit
+import org.openjdk.jmh.annotations.Param
+import org.openjdk.jmh.annotations.Scope
+import org.openjdk.jmh.annotations.Setup
+import org.openjdk.jmh.annotations.State
+import java.util.concurrent.TimeUnit
+
+/**
+ * Reading FEN into a reused board and writing it back out
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+open class FenBenchmark {
+
+    @Param(
+        Fen.STARTING_POSITION,
+        MoveGenerationBenchmark.KIWIPETE,
+        "8/2p5/3p4/KP5r/1R3p1k/8/4P1P1/8 w - - 0 1"
+    )
+    lateinit var fen: String
+
+    private val bitboardPosition = BitboardPosition()
+    private val arrayPosition = BoardPosition()
+    private val out = StringBuilder()
+
+    @Setup
+    fun setup() {
+        Fen.read(fen, bitboardPosition)
+    }
+
+    @Benchmark
+    fun readIntoBitboardPosition(): Long {
+        Fen.read(fen, bitboardPosition)
+        return bitboardPosition.zobristKey()
+    }
+
+    @Benchmark
+    fun readIntoBoardPosition(): Long {
+        Fen.read(fen, arrayPosition)
+        return arrayPosition.zobristKey()
+    }
+
+    @Benchmark
+    fun write(): Int {
+        out.setLength(0)
+        Fen.write(bitboardPosition, out)
+        return out.length
+    }
+}
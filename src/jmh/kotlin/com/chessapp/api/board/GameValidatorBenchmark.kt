@@ -0,0 +1,61 @@
+package com.chessapp.api.board
+
+import org.openjdk.jmh.annotations.Benchmark
+import org.openjdk.jmh.annotations.BenchmarkMode
+import org.openjdk.jmh.annotations.Mode
+import org.openjdk.jmh.annotations.OutputTimeUnit
+import org.openjdk.jmh.annotations.Scope
+import org.openjdk.jmh.annotations.Setup
+import org.openjdk.jmh.annotations.State
+import java.util.concurrent.TimeUnit
+import kotlin.random.Random
+
+/**
+ * Validating a batch of random 100-ply games, one by one on one validator and spread over the
+ * common ForkJoinPool
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+open class GameValidatorBenchmark {
+
+    private lateinit var games: List<IntArray>
+    private lateinit var startPositions: List<String>
+    private val validator = GameValidator()
+
+    @Setup
+    fun setup() {
+        val random = Random(42)
+        val board = BitboardPosition()
+        val generator = LegalMoveGenerator(board)
+        val moves = MoveList()
+        games = List(GAMES) {
+            Fen.read(Fen.STARTING_POSITION, board)
+            val played = ArrayList<Int>()
+            while (played.size < PLIES) {
+                generator.generateLegalMoves(moves)
+                if (moves.isEmpty()) break
+                val move = moves[random.nextInt(moves.size)]
+                board.makeMove(move)
+                played.add(move)
+            }
+            played.toIntArray()
+        }
+        startPositions = List(GAMES) { Fen.STARTING_POSITION }
+    }
+
+    @Benchmark
+    fun validateOneByOne(): Int {
+        var plies = 0
+        for (game in games) plies += validator.validateGame(Fen.STARTING_POSITION, game).legalPlies
+        return plies
+    }
+
+    @Benchmark
+    fun validateBatch(): Int = GameValidator.validateGames(startPositions, games).sumOf { it.legalPlies }
+
+    companion object {
+        private const val GAMES = 1000
+        private const val PLIES = 100
+    }
+}
@@ -0,0 +1,63 @@
+package com.chessapp.api.board
+
+import com.chessapp.api.pieces.piece.ChessPiece
+import org.openjdk.jmh.annotations.Benchmark
+import org.openjdk.jmh.annotations.BenchmarkMode
+import org.openjdk.jmh.annotations.Mode
+import org.openjdk.jmh.annotations.OutputTimeUnit
+import org.openjdk.jmh.annotations.Param
+import org.openjdk.jmh.annotations.Scope
+import org.openjdk.jmh.annotations.Setup
+import org.openjdk.jmh.annotations.State
+import java.util.concurrent.TimeUnit
+
+/**
+ * Per-piece move generation through the Set and MoveList APIs, on a busy middlegame position
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+open class MoveGenerationBenchmark {
+
+    @Param("PAWN", "KNIGHT", "BISHOP", "ROOK", "QUEEN", "KING")
+    lateinit var pieceType: String
+
+    @Param("array", "bitboard")
+    lateinit var backend: String
+
+    private lateinit var calculator: PossibleMoveCalculator
+    private lateinit var piece: ChessPiece
+    private val moves = MoveList()
+
+    @Setup
+    fun setup() {
+        val source = BitboardPosition.fromFen(KIWIPETE)
+        val board: Board = if (backend == "array") BoardPosition() else BitboardPosition()
+        var square = -1
+        for (s in 0 until 64) {
+            val pieceCode = source.pieceCodeAt(s)
+            if (pieceCode == PieceCodes.NONE) continue
+            val onSquare = source.getPieceAtPosition(PositionUtils.getFileFromSquare(s), PositionUtils.getRankFromSquare(s))!!
+            board.occupyPosition(onSquare)
+            if (square < 0 && PieceCodes.colorOf(pieceCode) == PieceCodes.WHITE && PieceCodes.pieceName(pieceCode).name == pieceType) {
+                square = s
+                piece = onSquare
+            }
+        }
+        calculator = PossibleMoveCalculator(board)
+    }
+
+    @Benchmark
+    fun getPossibleMovesForPiece(): Set<Pair<File, Int>>? = calculator.getPossibleMovesForPiece(piece)
+
+    @Benchmark
+    fun generateMovesForPiece(): Int {
+        moves.clear()
+        calculator.generateMovesForPiece(piece, moves)
+        return moves.size
+    }
+
+    companion object {
+        const val KIWIPETE = "r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1"
+    }
+}
@@ -0,0 +1,73 @@
+package com.chessapp.api.board
+
+import org.openjdk.jmh.annotations.Benchmark
+import org.openjdk.jmh.annotations.BenchmarkMode
+import org.openjdk.jmh.annotations.Mode
+import org.openjdk.jmh.annotations.OutputTimeUnit
+import org.openjdk.jmh.annotations.Param
+import org.openjdk.jmh.annotations.Scope
+import org.openjdk.jmh.annotations.Setup
+import org.openjdk.jmh.annotations.State
+import java.util.concurrent.TimeUnit
+
+/**
+ * Whole-position move generation and check detection, plus a small perft as a throughput figure
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+open class PositionMoveGenerationBenchmark {
+
+    @Param(
+        Perft.STARTING_POSITION_FEN,
+        MoveGenerationBenchmark.KIWIPETE,
+        "8/2p5/3p4/KP5r/1R3p1k/8/4P1P1/8 w - - 0 1"
+    )
+    lateinit var fen: String
+
+    private lateinit var board: BitboardPosition
+    private lateinit var pseudoLegal: PossibleMoveCalculator
+    private lateinit var legal: LegalMoveGenerator
+    private lateinit var perft: Perft
+    private val moves = MoveList()
+
+    @Setup
+    fun setup() {
+        board = BitboardPosition.fromFen(fen)
+        pseudoLegal = PossibleMoveCalculator(board)
+        legal = LegalMoveGenerator(board)
+        perft = Perft(board)
+    }
+
+    @Benchmark
+    fun generatePseudoLegalMoves(): Int {
+        moves.clear()
+        pseudoLegal.generateAllMoves(board.sideToMove, moves)
+        return moves.size
+    }
+
+    @Benchmark
+    fun generateLegalMoves(): Int {
+        legal.generateLegalMoves(moves)
+        return moves.size
+    }
+
+    @Benchmark
+    fun makeAndUnmakeAllMoves(): Long {
+        legal.generateLegalMoves(moves)
+        var keys = 0L
+        for (i in 0 until moves.size) {
+            board.makeMove(moves[i])
+            keys = keys xor board.zobristKey()
+            board.unmakeMove()
+        }
+        return keys
+    }
+
+    @Benchmark
+    fun isInCheck(): Boolean = AttackDetector.isInCheck(board, board.sideToMove)
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    fun perftDepth3(): Long = perft.count(3)
+}
@@ -0,0 +1,46 @@
+package com.chessapp.api.board
+
+import org.openjdk.jmh.annotations.Benchmark
+import org.openjdk.jmh.annotations.BenchmarkMode
+import org.openjdk.jmh.annotations.Mode
+import org.openjdk.jmh.annotations.OutputTimeUnit
+import org.openjdk.jmh.annotations.Scope
+import org.openjdk.jmh.annotations.State
+import org.openjdk.jmh.infra.Blackhole
+import java.util.concurrent.TimeUnit
+
+/**
+ * The square conversions in PositionUtils, with and without an intermediate Pair
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+open class PositionUtilsBenchmark {
+
+    @Benchmark
+    fun getCoordinatesFromFileRank(blackhole: Blackhole) {
+        for (file in File.entries) {
+            for (rank in 1..8) {
+                blackhole.consume(PositionUtils.getCoordinatesFromFileRank(file, rank))
+            }
+        }
+    }
+
+    @Benchmark
+    fun getFileRankFromCoordinates(blackhole: Blackhole) {
+        for (x in 0 until 8) {
+            for (y in 0 until 8) {
+                blackhole.consume(PositionUtils.getFileRankFromCoordinates(x, y))
+            }
+        }
+    }
+
+    @Benchmark
+    fun getSquareFromFileRank(blackhole: Blackhole) {
+        for (file in File.entries) {
+            for (rank in 1..8) {
+                blackhole.consume(PositionUtils.getSquareFromFileRank(file, rank))
+            }
+        }
+    }
+}
@@ -0,0 +1,72 @@
+package com.chessapp.api.book
+
+import com.chessapp.api.board.BitboardPosition
+import com.chessapp.api.board.Fen
+import com.chessapp.api.board.LegalMoveGenerator
+import com.chessapp.api.board.MoveList
+import org.openjdk.jmh.annotations.Benchmark
+import org.openjdk.jmh.annotations.BenchmarkMode
+import org.openjdk.jmh.annotations.Mode
+import org.openjdk.jmh.annotations.OutputTimeUnit
+import org.openjdk.jmh.annotations.Scope
+import org.openjdk.jmh.annotations.Setup
+import org.openjdk.jmh.annotations.State
+import org.openjdk.jmh.annotations.TearDown
+import java.nio.ByteBuffer
+import java.nio.file.Files
+import java.nio.file.Path
+import java.util.concurrent.TimeUnit
+import kotlin.random.Random
+
+/**
+ * Probing a book of a million random entries plus the starting position, which should not allocate
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+open class PolyglotBookBenchmark {
+
+    private lateinit var file: Path
+    private lateinit var book: PolyglotBook
+    private val board = BitboardPosition()
+    private val legalMoves = MoveList()
+    private val random = Random(1)
+
+    @Setup
+    fun setup() {
+        Fen.read(Fen.STARTING_POSITION, board)
+        LegalMoveGenerator(board).generateLegalMoves(legalMoves)
+        val startKey = PolyglotKeys.DEFAULT.key(board)
+
+        val keys = LongArray(ENTRIES) { random.nextLong() }
+        keys[0] = startKey
+        keys[1] = startKey
+        val sorted = keys.map { it xor Long.MIN_VALUE }.sorted().map { it xor Long.MIN_VALUE }
+        val buffer = ByteBuffer.allocate(ENTRIES * PolyglotBook.ENTRY_SIZE)
+        var startEntries = 0
+        for (key in sorted) {
+            // e2e4 and d2d4 for the starting position, anything for the rest
+            val move = if (key == startKey) (if (startEntries++ == 0) 28 or (12 shl 6) else 27 or (11 shl 6)) else 1
+            buffer.putLong(key).putShort(move.toShort()).putShort(10).putInt(0)
+        }
+        file = Files.createTempFile("book", ".bin")
+        Files.write(file, buffer.array())
+        book = PolyglotBook(file)
+    }
+
+    @TearDown
+    fun tearDown() {
+        book.close()
+        Files.deleteIfExists(file)
+    }
+
+    @Benchmark
+    fun pickMove(): Int = book.pickMove(board, legalMoves, random)
+
+    @Benchmark
+    fun key(): Long = book.keys.key(board)
+
+    companion object {
+        private const val ENTRIES = 1_000_000
+    }
+}
@@ -0,0 +1,42 @@
+package com.chessapp.engine
+
+import com.chessapp.api.board.BitboardPosition
+import org.openjdk.jmh.annotations.Benchmark
+import org.openjdk.jmh.annotations.BenchmarkMode
+import org.openjdk.jmh.annotations.Mode
+import org.openjdk.jmh.annotations.OutputTimeUnit
+import org.openjdk.jmh.annotations.Param
+import org.openjdk.jmh.annotations.Scope
+import org.openjdk.jmh.annotations.Setup
+import org.openjdk.jmh.annotations.State
+import org.openjdk.jmh.infra.Blackhole
+import java.util.concurrent.TimeUnit
+
+/**
+ * Time to a fixed depth at different thread counts, from an empty transposition table.
+ * With Lazy SMP the extra threads speed the main search up through the shared table, so the
+ * ratio of scores between thread counts is the speedup
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+open class SearchBenchmark {
+
+    @Param("1", "2", "4", "8")
+    var threads = 1
+
+    private lateinit var engine: Engine
+    private lateinit var position: BitboardPosition
+
+    @Setup
+    fun setup() {
+        engine = Engine(threads, hashSizeMb = 64)
+        position = BitboardPosition.fromFen("r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1")
+    }
+
+    @Benchmark
+    fun searchFixedDepth(blackhole: Blackhole) {
+        engine.clear()
+        blackhole.consume(engine.search(position, SearchLimits(depth = 6)))
+    }
+}
@@ -0,0 +1,68 @@
+package com.chessapp.engine.nnue
+
+import com.chessapp.api.board.BitboardPosition
+import com.chessapp.api.board.LegalMoveGenerator
+import com.chessapp.api.board.MoveList
+import com.chessapp.engine.Evaluation
+import org.openjdk.jmh.annotations.Benchmark
+import org.openjdk.jmh.annotations.BenchmarkMode
+import org.openjdk.jmh.annotations.Level
+import org.openjdk.jmh.annotations.Mode
+import org.openjdk.jmh.annotations.OutputTimeUnit
+import org.openjdk.jmh.annotations.Param
+import org.openjdk.jmh.annotations.Scope
+import org.openjdk.jmh.annotations.Setup
+import org.openjdk.jmh.annotations.State
+import java.nio.file.Files
+import java.util.concurrent.TimeUnit
+
+/**
+ * Evaluations per second with a full-size network, loaded from a mapped file, on the Vector API
+ * kernels and on the scalar fallback, next to the handcrafted evaluation. makeEvaluateUnmake
+ * includes the incremental accumulator updates of a move and its takeback, as a search pays them.
+ * The vector kernels need the jdk.incubator.vector module, see jmh.jvmArgsAppend in build.gradle
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+open class NnueBenchmark {
+
+    @Param("vector", "scalar")
+    lateinit var kernels: String
+
+    private val board = BitboardPosition()
+    private lateinit var accumulator: NnueAccumulator
+    private val moves = MoveList()
+    private var next = 0
+
+    @Setup(Level.Trial)
+    fun setup() {
+        val file = Files.createTempFile("network", ".nnue")
+        NnueNetwork.random(1).writeTo(file)
+        val network = NnueNetwork.load(file)
+        Files.delete(file)
+
+        board.copyFrom(BitboardPosition.fromFen(MIDDLEGAME))
+        accumulator = NnueAccumulator(network, board, if (kernels == "vector") VectorKernels else ScalarKernels)
+        LegalMoveGenerator(board).generateLegalMoves(moves)
+    }
+
+    @Benchmark
+    fun evaluate(): Int? = accumulator.evaluate()
+
+    @Benchmark
+    fun makeEvaluateUnmake(): Int? {
+        board.makeMove(moves[next])
+        next = (next + 1) % moves.size
+        val score = accumulator.evaluate()
+        board.unmakeMove()
+        return score
+    }
+
+    @Benchmark
+    fun handcraftedEvaluate(): Int = Evaluation.evaluate(board)
+
+    companion object {
+        private const val MIDDLEGAME = "r1bq1rk1/pp2bppp/2n1pn2/3p4/2PP4/2N1PN2/PP2BPPP/R2QKB1R w KQ - 0 1"
+    }
+}
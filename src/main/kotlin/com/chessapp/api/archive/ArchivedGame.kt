@@ -0,0 +1,8 @@
+package com.chessapp.api.archive
+
+/**
+ * A game read back from an archive: where it started, its moves as packed Move ints and its result
+ */
+class ArchivedGame(val number: Long, val startingFen: String, val moves: IntArray, val result: String) {
+    override fun toString(): String = "ArchivedGame(number=$number, moves=${moves.size}, result=$result)"
+}
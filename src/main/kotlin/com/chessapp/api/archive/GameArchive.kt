@@ -0,0 +1,41 @@
+package com.chessapp.api.archive
+
+/**
+ * The layout of a game archive file.
+ *
+ * The file starts with a fixed header:
+ *  - magic "CHGA" and format version (4 bytes each)
+ *  - games per block (int)
+ *  - number of games (long), and the file offset of the block index (long), both written on close
+ *  - 4 reserved bytes
+ *
+ * Game records follow, one after another. Each record is its length in bytes (varint, not
+ * counting itself), then the move count (varint), a flags byte (result in the low two bits,
+ * FLAG_FEN if the game has its own starting position), the starting FEN if flagged (varint length
+ * and ASCII bytes), and finally the moves as a bitstream. Each move is stored as its index in the
+ * list LegalMoveGenerator produces for the position, in just enough bits to index that list, so a
+ * typical move takes 5 or 6 bits and a forced move none at all.
+ *
+ * The block index at the end holds the file offset of every gamesPerBlock-th record, so game N is
+ * found by one index lookup and skipping at most gamesPerBlock - 1 records by their lengths
+ */
+object GameArchive {
+    const val MAGIC = 0x43484741 // "CHGA"
+    const val VERSION = 1
+    const val HEADER_SIZE = 32
+    const val DEFAULT_GAMES_PER_BLOCK = 64
+
+    internal const val GAME_COUNT_OFFSET = 12L
+    internal const val FLAG_FEN = 4
+
+    private val RESULTS = arrayOf("*", "1-0", "0-1", "1/2-1/2")
+
+    internal fun resultCode(result: String): Int = RESULTS.indexOf(result).coerceAtLeast(0)
+
+    internal fun result(code: Int): String = RESULTS[code and 3]
+
+    /**
+     * Bits needed to store an index into a list of the given size
+     */
+    internal fun bitsFor(size: Int): Int = if (size <= 1) 0 else 32 - Integer.numberOfLeadingZeros(size - 1)
+}
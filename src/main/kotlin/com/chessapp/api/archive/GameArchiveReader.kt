@@ -0,0 +1,172 @@
+package com.chessapp.api.archive
+
+import com.chessapp.api.board.BitboardPosition
+import com.chessapp.api.board.Fen
+import com.chessapp.api.board.LegalMoveGenerator
+import com.chessapp.api.board.MoveList
+import java.io.Closeable
+import java.io.IOException
+import java.nio.ByteBuffer
+import java.nio.channels.FileChannel
+import java.nio.file.Path
+import java.nio.file.StandardOpenOption
+
+/**
+ * Reads games back from an archive written by GameArchiveWriter, by game number or in order.
+ * Records are read with positional FileChannel reads into a direct buffer and decoded by
+ * replaying the stored legal-move indexes. A reader is not thread safe; open one per thread
+ */
+class GameArchiveReader(path: Path) : Closeable {
+
+    private val channel = FileChannel.open(path, StandardOpenOption.READ)
+    private val fileSize = channel.size()
+    private var buffer = ByteBuffer.allocateDirect(INITIAL_BUFFER_SIZE)
+
+    val gameCount: Long
+    private val gamesPerBlock: Int
+    private val blockOffsets: LongArray
+
+    private val board = BitboardPosition()
+    private val generator = LegalMoveGenerator(board)
+    private val legalMoves = MoveList()
+
+    // Where the record after the last one read starts, for reading in order
+    private var nextGame = 0L
+    private var nextOffset = 0L
+
+    init {
+        try {
+            readFully(0L, GameArchive.HEADER_SIZE)
+            if (buffer.getInt() != GameArchive.MAGIC) throw IOException("$path is not a game archive")
+            val version = buffer.getInt()
+            if (version != GameArchive.VERSION) throw IOException("Unsupported game archive version $version in $path")
+            gamesPerBlock = buffer.getInt()
+            gameCount = buffer.getLong()
+            val indexOffset = buffer.getLong()
+
+            val blocks = ((gameCount + gamesPerBlock - 1) / gamesPerBlock).toInt()
+            blockOffsets = LongArray(blocks)
+            readFully(indexOffset, blocks * 8)
+            buffer.asLongBuffer().get(blockOffsets)
+        } catch (e: Exception) {
+            channel.close()
+            throw e
+        }
+    }
+
+    /**
+     * The game with the given number, counting from 0 in the order the games were written
+     */
+    fun read(number: Long): ArchivedGame {
+        require(number in 0 until gameCount) { "Game number $number out of range, the archive has $gameCount games" }
+        var offset: Long
+        var current: Long
+        if (number == nextGame && number % gamesPerBlock != 0L) {
+            offset = nextOffset
+            current = number
+        } else {
+            offset = blockOffsets[(number / gamesPerBlock).toInt()]
+            current = number - number % gamesPerBlock
+        }
+        while (current < number) {
+            readFully(offset, minOf(MAX_VARINT_BYTES.toLong(), fileSize - offset).toInt())
+            val length = readVarint()
+            offset += buffer.position() + length
+            current++
+        }
+        return readRecord(number, offset)
+    }
+
+    /**
+     * Calls the action with every game in the archive, in order
+     */
+    fun forEach(action: (ArchivedGame) -> Unit) {
+        var offset = if (gameCount > 0) blockOffsets[0] else 0L
+        for (number in 0 until gameCount) {
+            action(readRecord(number, offset))
+            offset = nextOffset
+        }
+    }
+
+    override fun close() {
+        channel.close()
+    }
+
+    private fun readRecord(number: Long, offset: Long): ArchivedGame {
+        readFully(offset, minOf(MAX_VARINT_BYTES.toLong(), fileSize - offset).toInt())
+        val length = readVarint()
+        val recordStart = offset + buffer.position()
+        readFully(recordStart, length)
+
+        val moveCount = readVarint()
+        val flags = buffer.get().toInt() and 0xFF
+        val startingFen = if ((flags and GameArchive.FLAG_FEN) != 0) {
+            val fenLength = readVarint()
+            val chars = CharArray(fenLength) { (buffer.get().toInt() and 0xFF).toChar() }
+            String(chars)
+        } else {
+            Fen.STARTING_POSITION
+        }
+
+        Fen.read(startingFen, board)
+        val moves = IntArray(moveCount)
+        val bits = BitReader(buffer)
+        for (i in 0 until moveCount) {
+            generator.generateLegalMoves(legalMoves)
+            val index = bits.read(GameArchive.bitsFor(legalMoves.size))
+            if (index >= legalMoves.size) throw IOException("Corrupt record for game $number: move index $index out of range")
+            moves[i] = legalMoves[index]
+            board.makeMove(moves[i])
+        }
+
+        nextGame = number + 1
+        nextOffset = recordStart + length
+        return ArchivedGame(number, startingFen, moves, GameArchive.result(flags))
+    }
+
+    private fun readVarint(): Int {
+        var value = 0
+        var shift = 0
+        while (true) {
+            val b = buffer.get().toInt()
+            value = value or ((b and 0x7F) shl shift)
+            if (b >= 0) return value
+            shift += 7
+        }
+    }
+
+    // Reads length bytes from the file position into the buffer, ready for getting
+    private fun readFully(position: Long, length: Int) {
+        if (buffer.capacity() < length) buffer = ByteBuffer.allocateDirect(Integer.highestOneBit(length) shl 1)
+        buffer.clear().limit(length)
+        var read = 0
+        while (read < length) {
+            val n = channel.read(buffer, position + read)
+            if (n < 0) throw IOException("Unexpected end of archive at ${position + read}")
+            read += n
+        }
+        buffer.flip()
+    }
+
+    /**
+     * Reads a bitstream most significant bit first, starting at the buffer's position
+     */
+    private class BitReader(private val buffer: ByteBuffer) {
+        private var bitBuffer = 0L
+        private var bitCount = 0
+
+        fun read(bits: Int): Int {
+            while (bitCount < bits) {
+                bitBuffer = (bitBuffer shl 8) or (buffer.get().toLong() and 0xFF)
+                bitCount += 8
+            }
+            bitCount -= bits
+            return ((bitBuffer ushr bitCount) and ((1L shl bits) - 1)).toInt()
+        }
+    }
+
+    companion object {
+        private const val INITIAL_BUFFER_SIZE = 1 shl 16
+        private const val MAX_VARINT_BYTES = 5
+    }
+}
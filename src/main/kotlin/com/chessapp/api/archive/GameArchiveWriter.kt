@@ -0,0 +1,192 @@
+package com.chessapp.api.archive
+
+import com.chessapp.api.board.BitboardPosition
+import com.chessapp.api.board.Fen
+import com.chessapp.api.board.LegalMoveGenerator
+import com.chessapp.api.board.Move
+import com.chessapp.api.board.MoveList
+import com.chessapp.api.pgn.ValidatedGame
+import java.io.Closeable
+import java.nio.ByteBuffer
+import java.nio.channels.FileChannel
+import java.nio.file.Path
+import java.nio.file.StandardOpenOption
+
+/**
+ * Writes games to a new archive file, see GameArchive for the format. Records are built in a
+ * scratch array and collected in a direct buffer that is written to the channel when it fills;
+ * the block index and the header totals are written by close. A writer is not thread safe
+ */
+class GameArchiveWriter(
+    path: Path,
+    private val gamesPerBlock: Int = GameArchive.DEFAULT_GAMES_PER_BLOCK,
+    bufferSize: Int = DEFAULT_BUFFER_SIZE
+) : Closeable {
+
+    init {
+        // before the file is opened, so a bad argument neither truncates it nor leaves it open
+        require(gamesPerBlock >= 1) { "Games per block must be positive, got: $gamesPerBlock" }
+    }
+
+    private val out = ByteBuffer.allocateDirect(bufferSize)
+    private val channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)
+    private var filePosition = 0L
+
+    private var blockOffsets = LongArray(1024)
+    private var gameCount = 0L
+
+    private val board = BitboardPosition()
+    private val generator = LegalMoveGenerator(board)
+    private val legalMoves = MoveList()
+    private val record = BitWriter()
+
+    init {
+        out.putInt(GameArchive.MAGIC).putInt(GameArchive.VERSION).putInt(gamesPerBlock)
+        out.putLong(0L).putLong(0L).putInt(0)
+    }
+
+    val gamesWritten: Long get() = gameCount
+
+    fun append(game: ValidatedGame) {
+        require(game.isValid) { "Game ${game.game.id} did not validate: ${game.error}" }
+        append(game.game.startingFen, game.moves, game.game.result)
+    }
+
+    /**
+     * Appends a game given as moves played from a starting position. Each move must be legal in
+     * the position it is played in
+     */
+    fun append(startingFen: String, moves: IntArray, result: String = "*") {
+        Fen.readChecked(startingFen, board)
+        record.reset()
+        record.writeVarint(moves.size)
+        val customStart = startingFen != Fen.STARTING_POSITION
+        record.writeByte(GameArchive.resultCode(result) or (if (customStart) GameArchive.FLAG_FEN else 0))
+        if (customStart) {
+            record.writeVarint(startingFen.length)
+            for (c in startingFen) record.writeByte(c.code)
+        }
+
+        for (move in moves) {
+            generator.generateLegalMoves(legalMoves)
+            var index = -1
+            for (i in 0 until legalMoves.size) {
+                if (legalMoves[i] == move) {
+                    index = i
+                    break
+                }
+            }
+            require(index >= 0) { "${Move.toUci(move)} is not legal in ${Fen.write(board)}" }
+            record.writeBits(index, GameArchive.bitsFor(legalMoves.size))
+            board.makeMove(move)
+        }
+        record.alignToByte()
+
+        if (gameCount % gamesPerBlock == 0L) addBlockOffset(filePosition + out.position())
+        writeVarint(record.size)
+        write(record.bytes, record.size)
+        gameCount++
+    }
+
+    override fun close() {
+        channel.use {
+            val indexOffset = filePosition + out.position()
+            val blocks = ((gameCount + gamesPerBlock - 1) / gamesPerBlock).toInt()
+            for (i in 0 until blocks) {
+                ensureRoom(8)
+                out.putLong(blockOffsets[i])
+            }
+            flush()
+
+            val totals = ByteBuffer.allocate(16).putLong(gameCount).putLong(indexOffset).flip()
+            var position = GameArchive.GAME_COUNT_OFFSET
+            while (totals.hasRemaining()) position += channel.write(totals, position)
+        }
+    }
+
+    private fun addBlockOffset(offset: Long) {
+        val block = (gameCount / gamesPerBlock).toInt()
+        if (block == blockOffsets.size) blockOffsets = blockOffsets.copyOf(blockOffsets.size * 2)
+        blockOffsets[block] = offset
+    }
+
+    private fun writeVarint(value: Int) {
+        ensureRoom(5)
+        var remaining = value
+        while (remaining >= 0x80) {
+            out.put(((remaining and 0x7F) or 0x80).toByte())
+            remaining = remaining ushr 7
+        }
+        out.put(remaining.toByte())
+    }
+
+    private fun write(bytes: ByteArray, length: Int) {
+        var offset = 0
+        while (offset < length) {
+            if (!out.hasRemaining()) flush()
+            val chunk = minOf(out.remaining(), length - offset)
+            out.put(bytes, offset, chunk)
+            offset += chunk
+        }
+    }
+
+    private fun ensureRoom(bytes: Int) {
+        if (out.remaining() < bytes) flush()
+    }
+
+    private fun flush() {
+        out.flip()
+        filePosition += out.remaining()
+        while (out.hasRemaining()) channel.write(out)
+        out.clear()
+    }
+
+    /**
+     * A growable byte array written a few bits at a time, most significant bit first
+     */
+    private class BitWriter {
+        var bytes = ByteArray(256)
+        var size = 0
+        private var bitBuffer = 0L
+        private var bitCount = 0
+
+        fun reset() {
+            size = 0
+            bitBuffer = 0L
+            bitCount = 0
+        }
+
+        fun writeByte(value: Int) = writeBits(value and 0xFF, 8)
+
+        fun writeVarint(value: Int) {
+            var remaining = value
+            while (remaining >= 0x80) {
+                writeByte((remaining and 0x7F) or 0x80)
+                remaining = remaining ushr 7
+            }
+            writeByte(remaining)
+        }
+
+        fun writeBits(value: Int, bits: Int) {
+            bitBuffer = (bitBuffer shl bits) or value.toLong()
+            bitCount += bits
+            while (bitCount >= 8) {
+                bitCount -= 8
+                put((bitBuffer ushr bitCount).toInt())
+            }
+        }
+
+        fun alignToByte() {
+            if (bitCount > 0) writeBits(0, 8 - bitCount)
+        }
+
+        private fun put(value: Int) {
+            if (size == bytes.size) bytes = bytes.copyOf(bytes.size * 2)
+            bytes[size++] = value.toByte()
+        }
+    }
+
+    companion object {
+        const val DEFAULT_BUFFER_SIZE = 1 shl 16
+    }
+}
@@ -0,0 +1,64 @@
+package com.chessapp.api.archive
+
+/**
+ * Sorts two parallel LongArrays together, by the first as unsigned keys and then by the second
+ * as signed values, without boxing or an index permutation. Used to order postings and book
+ * entries by position key, where keys use all 64 bits
+ */
+internal object LongPairSort {
+
+    /**
+     * Sorts the pairs in [from, to)
+     */
+    fun sort(keys: LongArray, values: LongArray, from: Int, to: Int) {
+        quicksort(keys, values, from, to - 1)
+    }
+
+    private fun quicksort(keys: LongArray, values: LongArray, from: Int, to: Int) {
+        var low = from
+        var high = to
+        while (high - low > INSERTION_SORT_THRESHOLD) {
+            val mid = (low + high) ushr 1
+            val pivotKey = keys[mid]
+            val pivotValue = values[mid]
+            var i = low
+            var j = high
+            while (i <= j) {
+                while (compare(keys[i], values[i], pivotKey, pivotValue) < 0) i++
+                while (compare(keys[j], values[j], pivotKey, pivotValue) > 0) j--
+                if (i <= j) swap(keys, values, i++, j--)
+            }
+            // recurse into the smaller side, loop on the larger
+            if (j - low < high - i) {
+                quicksort(keys, values, low, j)
+                low = i
+            } else {
+                quicksort(keys, values, i, high)
+                high = j
+            }
+        }
+        for (i in low + 1..high) {
+            var j = i
+            while (j > low && compare(keys[j - 1], values[j - 1], keys[j], values[j]) > 0) {
+                swap(keys, values, j - 1, j)
+                j--
+            }
+        }
+    }
+
+    fun compare(key: Long, value: Long, otherKey: Long, otherValue: Long): Int {
+        val byKey = java.lang.Long.compareUnsigned(key, otherKey)
+        return if (byKey != 0) byKey else java.lang.Long.compare(value, otherValue)
+    }
+
+    private fun swap(keys: LongArray, values: LongArray, i: Int, j: Int) {
+        val key = keys[i]
+        keys[i] = keys[j]
+        keys[j] = key
+        val value = values[i]
+        values[i] = values[j]
+        values[j] = value
+    }
+
+    private const val INSERTION_SORT_THRESHOLD = 16
+}
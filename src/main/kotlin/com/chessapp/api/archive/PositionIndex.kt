@@ -0,0 +1,152 @@
+package com.chessapp.api.archive
+
+import java.io.Closeable
+import java.io.IOException
+import java.nio.MappedByteBuffer
+import java.nio.channels.FileChannel
+import java.nio.file.Path
+import java.nio.file.StandardOpenOption
+
+/**
+ * An on-disk index from position keys (see Zobrist) to the games and plies that reached them,
+ * built by PositionIndexBuilder and read through a memory mapping.
+ *
+ * Layout:
+ *  - header: magic "CHPI", version (ints), key count, posting count, key table offset and
+ *    postings offset (longs), padded to HEADER_SIZE
+ *  - key table: one 16-byte entry per distinct key, in unsigned key order: the key, then the
+ *    offset of its posting list relative to the postings area
+ *  - postings: per key, the posting count (varint) and then its (game, ply) postings in order,
+ *    delta-encoded as varints: the game number minus the previous one, then the ply, or the
+ *    ply minus the previous ply when the game is the same
+ *
+ * A lookup is a binary search over the mapped key table and a decode of one posting list.
+ * Postings are packed into one long each, see game and ply. The index can be shared between
+ * threads
+ */
+class PositionIndex(path: Path) : Closeable {
+
+    private val channel = FileChannel.open(path, StandardOpenOption.READ)
+    private val segments: Array<MappedByteBuffer>
+
+    val keyCount: Long
+    val postingCount: Long
+    private val keyTableOffset: Long
+    private val postingsOffset: Long
+
+    init {
+        try {
+            val size = channel.size()
+            segments = Array(((size + SEGMENT_SIZE - 1) / SEGMENT_SIZE).toInt()) { i ->
+                val start = i * SEGMENT_SIZE
+                channel.map(FileChannel.MapMode.READ_ONLY, start, minOf(SEGMENT_SIZE, size - start))
+            }
+            if (size < HEADER_SIZE || segments[0].getInt(0) != MAGIC) throw IOException("$path is not a position index")
+            val version = segments[0].getInt(4)
+            if (version != VERSION) throw IOException("Unsupported position index version $version in $path")
+            keyCount = segments[0].getLong(8)
+            postingCount = segments[0].getLong(16)
+            keyTableOffset = segments[0].getLong(24)
+            postingsOffset = segments[0].getLong(32)
+        } catch (e: Exception) {
+            channel.close()
+            throw e
+        }
+    }
+
+    /**
+     * How many times the position with the given key was reached across all indexed games
+     */
+    fun count(key: Long): Int {
+        val entry = find(key)
+        if (entry < 0) return 0
+        return PostingCursor(postingsOffset + longAt(entryOffset(entry) + 8)).readVarint().toInt()
+    }
+
+    /**
+     * Every (game, ply) at which the position with the given key was reached, as packed postings
+     * in game and ply order; empty if the position was never reached
+     */
+    fun lookup(key: Long): LongArray {
+        val entry = find(key)
+        if (entry < 0) return EMPTY
+        val cursor = PostingCursor(postingsOffset + longAt(entryOffset(entry) + 8))
+        val postings = LongArray(cursor.readVarint().toInt())
+        var game = 0L
+        var ply = 0
+        for (i in postings.indices) {
+            val gameDelta = cursor.readVarint()
+            val plyValue = cursor.readVarint().toInt()
+            ply = if (gameDelta == 0L && i > 0) ply + plyValue else plyValue
+            game += gameDelta
+            postings[i] = posting(game, ply)
+        }
+        return postings
+    }
+
+    override fun close() {
+        channel.close()
+    }
+
+    // Binary search over the key table in unsigned order; the entry number, or -1 if absent
+    private fun find(key: Long): Long {
+        var low = 0L
+        var high = keyCount - 1
+        while (low <= high) {
+            val mid = (low + high) ushr 1
+            val comparison = java.lang.Long.compareUnsigned(longAt(entryOffset(mid)), key)
+            when {
+                comparison < 0 -> low = mid + 1
+                comparison > 0 -> high = mid - 1
+                else -> return mid
+            }
+        }
+        return -1
+    }
+
+    private fun entryOffset(entry: Long): Long = keyTableOffset + entry * KEY_ENTRY_SIZE
+
+    private fun longAt(position: Long): Long =
+        segments[(position / SEGMENT_SIZE).toInt()].getLong((position % SEGMENT_SIZE).toInt())
+
+    // Reads varints from the postings, moving on to the next segment when one runs out
+    private inner class PostingCursor(start: Long) {
+        private var segmentIndex = (start / SEGMENT_SIZE).toInt()
+        private var position = (start % SEGMENT_SIZE).toInt()
+        private var current = segments[segmentIndex]
+
+        fun readVarint(): Long {
+            var value = 0L
+            var shift = 0
+            while (true) {
+                if (position >= SEGMENT_SIZE) {
+                    segmentIndex++
+                    position -= SEGMENT_SIZE.toInt()
+                    current = segments[segmentIndex]
+                }
+                val b = current.get(position++).toInt()
+                value = value or ((b and 0x7F).toLong() shl shift)
+                if (b >= 0) return value
+                shift += 7
+            }
+        }
+    }
+
+    companion object {
+        const val MAGIC = 0x43485049 // "CHPI"
+        const val VERSION = 1
+        const val HEADER_SIZE = 64
+        const val KEY_ENTRY_SIZE = 16
+
+        // Files are mapped in 1 GB segments, since one mapping cannot exceed 2 GB. Key table
+        // entries are 16-byte aligned, so none straddles two segments
+        private const val SEGMENT_SIZE = 1L shl 30
+        private val EMPTY = LongArray(0)
+
+        fun posting(game: Long, ply: Int): Long = (game shl 16) or ply.toLong()
+
+        fun game(posting: Long): Long = posting ushr 16
+
+        fun ply(posting: Long): Int = (posting and 0xFFFF).toInt()
+    }
+}
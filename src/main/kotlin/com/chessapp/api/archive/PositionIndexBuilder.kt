@@ -0,0 +1,212 @@
+package com.chessapp.api.archive
+
+import com.chessapp.api.board.BitboardPosition
+import com.chessapp.api.board.Fen
+import java.nio.ByteBuffer
+import java.nio.channels.FileChannel
+import java.nio.file.Path
+import java.nio.file.StandardOpenOption
+import java.util.concurrent.Callable
+import java.util.concurrent.ExecutionException
+import java.util.concurrent.Executors
+
+/**
+ * Builds a PositionIndex from a game archive.
+ *
+ * Replay is split across threads by game number, each thread with its own archive reader.
+ * Every position reached, including the starting one, becomes a (key, game, ply) posting, filed
+ * by its top key bits into one of a number of partitions. Partitions cover ascending key ranges,
+ * so once each has been sorted and encoded, on the same threads, they are written out in
+ * partition order to give a key table sorted across the whole file.
+ *
+ * Postings are collected in memory, about 16 bytes each, before being written
+ */
+class PositionIndexBuilder(
+    private val threads: Int = Runtime.getRuntime().availableProcessors(),
+    private val partitionBits: Int = DEFAULT_PARTITION_BITS
+) {
+
+    init {
+        require(threads >= 1) { "At least one thread is needed, got: $threads" }
+        require(partitionBits in 0..16) { "Partition bits must be between 0 and 16, got: $partitionBits" }
+    }
+
+    /**
+     * Indexes every game in the archive into the output file and returns the number of postings written
+     */
+    fun build(archive: Path, output: Path): Long {
+        val gameCount = GameArchiveReader(archive).use { it.gameCount }
+        val partitionCount = 1 shl partitionBits
+        val executor = Executors.newFixedThreadPool(threads) { task -> Thread(task, "position-indexer").apply { isDaemon = true } }
+        try {
+            // replay, each thread filling its own set of partitions
+            val gamesPerThread = (gameCount + threads - 1) / threads
+            val collected = executor.invokeAll((0 until threads).map { thread ->
+                Callable {
+                    val first = thread * gamesPerThread
+                    val last = minOf(gameCount, first + gamesPerThread)
+                    val partitions = Array(partitionCount) { PostingBuffer() }
+                    if (first < last) GameArchiveReader(archive).use { collect(it, first, last, partitions) }
+                    partitions
+                }
+            }).map { getOrThrow { it.get() } }
+
+            // sort and encode each partition
+            val encoded = executor.invokeAll((0 until partitionCount).map { partition ->
+                Callable { encode(collected.map { it[partition] }) }
+            }).map { getOrThrow { it.get() } }
+
+            return write(output, encoded)
+        } finally {
+            executor.shutdownNow()
+        }
+    }
+
+    private fun collect(reader: GameArchiveReader, first: Long, last: Long, partitions: Array<PostingBuffer>) {
+        val board = BitboardPosition()
+        val shift = 64 - partitionBits
+        fun add(key: Long, game: Long, ply: Int) {
+            val partition = if (partitionBits == 0) 0 else (key ushr shift).toInt()
+            partitions[partition].add(key, PositionIndex.posting(game, ply))
+        }
+
+        for (number in first until last) {
+            val game = reader.read(number)
+            Fen.read(game.startingFen, board)
+            add(board.zobristKey(), number, 0)
+            for (ply in game.moves.indices) {
+                board.makeMove(game.moves[ply])
+                add(board.zobristKey(), number, ply + 1)
+            }
+        }
+    }
+
+    /**
+     * Sorts the postings of one partition by key, then game and ply, and encodes them
+     */
+    private fun encode(parts: List<PostingBuffer>): EncodedPartition {
+        val size = parts.sumOf { it.size }
+        val keys = LongArray(size)
+        val postings = LongArray(size)
+        var offset = 0
+        for (part in parts) {
+            part.keys.copyInto(keys, offset, 0, part.size)
+            part.postings.copyInto(postings, offset, 0, part.size)
+            offset += part.size
+        }
+        LongPairSort.sort(keys, postings, 0, size)
+
+        val distinctKeys = LongArray(size)
+        val listOffsets = LongArray(size)
+        var keyCount = 0
+        val out = VarintBuffer()
+        var i = 0
+        while (i < size) {
+            val key = keys[i]
+            var end = i
+            while (end < size && keys[end] == key) end++
+
+            distinctKeys[keyCount] = key
+            listOffsets[keyCount++] = out.size.toLong()
+            out.writeVarint((end - i).toLong())
+            var previousGame = 0L
+            var previousPly = 0
+            for (j in i until end) {
+                val game = PositionIndex.game(postings[j])
+                val ply = PositionIndex.ply(postings[j])
+                out.writeVarint(game - previousGame)
+                out.writeVarint(if (game == previousGame && j > i) (ply - previousPly).toLong() else ply.toLong())
+                previousGame = game
+                previousPly = ply
+            }
+            i = end
+        }
+        return EncodedPartition(distinctKeys.copyOf(keyCount), listOffsets.copyOf(keyCount), out, size.toLong())
+    }
+
+    private fun write(output: Path, partitions: List<EncodedPartition>): Long {
+        val keyCount = partitions.sumOf { it.keys.size.toLong() }
+        val postingCount = partitions.sumOf { it.postingCount }
+        val keyTableOffset = PositionIndex.HEADER_SIZE.toLong()
+        val postingsOffset = keyTableOffset + keyCount * PositionIndex.KEY_ENTRY_SIZE
+
+        FileChannel.open(output, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE).use { channel ->
+            val buffer = ByteBuffer.allocateDirect(WRITE_BUFFER_SIZE)
+            fun flushIfFull(needed: Int) {
+                if (buffer.remaining() < needed) {
+                    buffer.flip()
+                    while (buffer.hasRemaining()) channel.write(buffer)
+                    buffer.clear()
+                }
+            }
+
+            buffer.putInt(PositionIndex.MAGIC).putInt(PositionIndex.VERSION)
+            buffer.putLong(keyCount).putLong(postingCount).putLong(keyTableOffset).putLong(postingsOffset)
+            buffer.position(PositionIndex.HEADER_SIZE)
+
+            var partitionBase = 0L
+            for (partition in partitions) {
+                for (k in partition.keys.indices) {
+                    flushIfFull(PositionIndex.KEY_ENTRY_SIZE)
+                    buffer.putLong(partition.keys[k]).putLong(partitionBase + partition.listOffsets[k])
+                }
+                partitionBase += partition.postings.size
+            }
+            for (partition in partitions) {
+                var written = 0
+                while (written < partition.postings.size) {
+                    flushIfFull(1)
+                    val chunk = minOf(buffer.remaining(), partition.postings.size - written)
+                    buffer.put(partition.postings.bytes, written, chunk)
+                    written += chunk
+                }
+            }
+            flushIfFull(Int.MAX_VALUE)
+        }
+        return postingCount
+    }
+
+    private class PostingBuffer {
+        var keys = LongArray(1024)
+        var postings = LongArray(1024)
+        var size = 0
+
+        fun add(key: Long, posting: Long) {
+            if (size == keys.size) {
+                keys = keys.copyOf(size * 2)
+                postings = postings.copyOf(size * 2)
+            }
+            keys[size] = key
+            postings[size++] = posting
+        }
+    }
+
+    private class VarintBuffer {
+        var bytes = ByteArray(1024)
+        var size = 0
+
+        fun writeVarint(value: Long) {
+            if (size + 10 > bytes.size) bytes = bytes.copyOf(bytes.size * 2)
+            var remaining = value
+            while ((remaining and 0x7FL.inv()) != 0L) {
+                bytes[size++] = ((remaining and 0x7F) or 0x80).toByte()
+                remaining = remaining ushr 7
+            }
+            bytes[size++] = remaining.toByte()
+        }
+    }
+
+    private class EncodedPartition(val keys: LongArray, val listOffsets: LongArray, val postings: VarintBuffer, val postingCount: Long)
+
+    companion object {
+        const val DEFAULT_PARTITION_BITS = 6
+        private const val WRITE_BUFFER_SIZE = 1 shl 20
+
+        private inline fun <T> getOrThrow(get: () -> T): T =
+            try {
+                get()
+            } catch (e: ExecutionException) {
+                throw e.cause ?: e
+            }
+    }
+}
@@ -0,0 +1,76 @@
+package com.chessapp.api.board
+
+import com.chessapp.api.pieces.piece.ChessPiece
+
+/**
+ * Check detection over the square based Board API, so it runs on any board backend.
+ * Rather than walking outwards from every enemy piece, it looks outwards from the
+ * target square and asks whether an enemy piece of the matching type is found there
+ */
+object AttackDetector {
+
+    /**
+     * Whether any piece of the given PieceCodes color attacks the square
+     */
+    fun isSquareAttacked(board: Board, square: Int, byColor: Int): Boolean {
+        val pawns = board.pieceBitboard(PieceCodes.code(byColor, PieceCodes.PAWN))
+        if ((Bitboards.PAWN_ATTACKS[PieceCodes.opposite(byColor)][square] and pawns) != 0L) return true
+
+        val knights = board.pieceBitboard(PieceCodes.code(byColor, PieceCodes.KNIGHT))
+        if ((Bitboards.KNIGHT_ATTACKS[square] and knights) != 0L) return true
+
+        val kings = board.pieceBitboard(PieceCodes.code(byColor, PieceCodes.KING))
+        if ((Bitboards.KING_ATTACKS[square] and kings) != 0L) return true
+
+        val occupancy = board.occupancy()
+        val queens = board.pieceBitboard(PieceCodes.code(byColor, PieceCodes.QUEEN))
+        val rooksAndQueens = board.pieceBitboard(PieceCodes.code(byColor, PieceCodes.ROOK)) or queens
+        if ((SlidingAttacks.rookAttacks(square, occupancy) and rooksAndQueens) != 0L) return true
+
+        val bishopsAndQueens = board.pieceBitboard(PieceCodes.code(byColor, PieceCodes.BISHOP)) or queens
+        return (SlidingAttacks.bishopAttacks(square, occupancy) and bishopsAndQueens) != 0L
+    }
+
+    /**
+     * Every piece of either color on the occupancy that attacks the square, in one bitboard.
+     * Sliders are seen through the given occupancy rather than the board's, so lifting pieces
+     * off it reveals the x-ray attackers behind them; pieces not on it are left out
+     */
+    fun attackersTo(board: Board, square: Int, occupancy: Long = board.occupancy()): Long {
+        val queens = board.pieceBitboard(PieceCodes.code(PieceCodes.WHITE, PieceCodes.QUEEN)) or
+            board.pieceBitboard(PieceCodes.code(PieceCodes.BLACK, PieceCodes.QUEEN))
+        val rooksAndQueens = board.pieceBitboard(PieceCodes.code(PieceCodes.WHITE, PieceCodes.ROOK)) or
+            board.pieceBitboard(PieceCodes.code(PieceCodes.BLACK, PieceCodes.ROOK)) or queens
+        val bishopsAndQueens = board.pieceBitboard(PieceCodes.code(PieceCodes.WHITE, PieceCodes.BISHOP)) or
+            board.pieceBitboard(PieceCodes.code(PieceCodes.BLACK, PieceCodes.BISHOP)) or queens
+        val knights = board.pieceBitboard(PieceCodes.code(PieceCodes.WHITE, PieceCodes.KNIGHT)) or
+            board.pieceBitboard(PieceCodes.code(PieceCodes.BLACK, PieceCodes.KNIGHT))
+        val kings = board.pieceBitboard(PieceCodes.code(PieceCodes.WHITE, PieceCodes.KING)) or
+            board.pieceBitboard(PieceCodes.code(PieceCodes.BLACK, PieceCodes.KING))
+
+        // a white pawn attacks the square if a black pawn on it would attack the pawn, and the other way round
+        val attackers = (Bitboards.PAWN_ATTACKS[PieceCodes.BLACK][square] and board.pieceBitboard(PieceCodes.code(PieceCodes.WHITE, PieceCodes.PAWN))) or
+            (Bitboards.PAWN_ATTACKS[PieceCodes.WHITE][square] and board.pieceBitboard(PieceCodes.code(PieceCodes.BLACK, PieceCodes.PAWN))) or
+            (Bitboards.KNIGHT_ATTACKS[square] and knights) or
+            (Bitboards.KING_ATTACKS[square] and kings) or
+            (SlidingAttacks.rookAttacks(square, occupancy) and rooksAndQueens) or
+            (SlidingAttacks.bishopAttacks(square, occupancy) and bishopsAndQueens)
+        return attackers and occupancy
+    }
+
+    /**
+     * Whether the king of the given PieceCodes color is attacked. A side without a king is never in check
+     */
+    fun isInCheck(board: Board, color: Int): Boolean {
+        val king = board.pieceBitboard(PieceCodes.code(color, PieceCodes.KING))
+        if (king == Bitboards.EMPTY) return false
+        return isSquareAttacked(board, Bitboards.lowestSquare(king), PieceCodes.opposite(color))
+    }
+
+    fun isInCheck(board: Board, king: ChessPiece): Boolean =
+        isSquareAttacked(
+            board,
+            PositionUtils.getSquareFromFileRank(king.file(), king.rank()),
+            PieceCodes.opposite(PieceCodes.colorOf(king.color()))
+        )
+}
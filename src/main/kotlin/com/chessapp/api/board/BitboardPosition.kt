@@ -0,0 +1,384 @@
+package com.chessapp.api.board
+
+import com.chessapp.api.pieces.piece.ChessPiece
+import com.chessapp.api.pieces.piece.PieceUtils
+import com.chessapp.api.pieces.utils.InvalidPositionException
+
+/**
+ * A board backend built on twelve piece bitboards plus per-color and total occupancy masks.
+ * A square-indexed array of piece codes sits alongside the bitboards so that "what is on
+ * this square" is a single array read. Pieces are stored as PieceCodes; ChessPiece objects
+ * are only created when asked for through the ChessPiece based methods.
+ *
+ * Moves can be played with makeMove and taken back with unmakeMove. Each makeMove pushes the
+ * state a move cannot be reversed from (castling rights, en passant square, halfmove clock and
+ * the key) onto an undo stack of primitive arrays, so playing and taking back moves does not allocate
+ */
+class BitboardPosition : Board {
+
+    private val pieceBitboards = LongArray(PieceCodes.PIECE_CODE_COUNT)
+    private val colorOccupancy = LongArray(2)
+    private var allOccupancy = Bitboards.EMPTY
+    private val squares = IntArray(64) { PieceCodes.NONE }
+    private var key = 0L
+    private var pawnKey = 0L
+    private var pieceSquareScore = 0
+    private var phase = 0
+
+    // Game state that the piece placement alone does not capture; the setters keep the key in step
+    override var sideToMove = PieceCodes.WHITE
+        set(value) {
+            if (value != field) key = key xor Zobrist.SIDE_TO_MOVE
+            field = value
+        }
+
+    override var castlingRights = CastlingRights.NONE
+        set(value) {
+            key = key xor Zobrist.castling(field) xor Zobrist.castling(value)
+            field = value
+        }
+
+    override var enPassantSquare = NO_SQUARE
+        set(value) {
+            key = key xor Zobrist.enPassant(field) xor Zobrist.enPassant(value)
+            field = value
+        }
+
+    override var halfmoveClock = 0
+
+    override var fullmoveNumber = 1
+
+    // Undo stack: the move made at each ply, and the state from before it
+    private var undoMoves = IntArray(INITIAL_UNDO_CAPACITY)
+    private var undoStates = IntArray(INITIAL_UNDO_CAPACITY)
+    private var undoKeys = LongArray(INITIAL_UNDO_CAPACITY)
+
+    /**
+     * Told about every piece put, removed or moved, if set; see BoardListener
+     */
+    var listener: BoardListener? = null
+
+    /**
+     * The number of moves made with makeMove that can still be taken back
+     */
+    var undoDepth = 0
+        private set
+
+    override fun getPieceAtPosition(file: File, rank: Int): ChessPiece? {
+        val code = squares[PositionUtils.getSquareFromFileRank(file, rank)]
+        if (code == PieceCodes.NONE) return null
+        return PieceUtils.createPiece(PieceCodes.pieceName(code), PieceCodes.pieceColor(code), file, rank)
+    }
+
+    override fun isPositionOccupiedByPiece(file: File, rank: Int): Boolean =
+        Bitboards.isSet(allOccupancy, PositionUtils.getSquareFromFileRank(file, rank))
+
+    override fun occupyPosition(piece: ChessPiece) {
+        val square = PositionUtils.getSquareFromFileRank(piece.file(), piece.rank())
+        if (squares[square] != PieceCodes.NONE) {
+            throw InvalidPositionException("Square ${piece.file()}${piece.rank()} is already occupied by another piece")
+        }
+        putPiece(square, PieceCodes.codeOf(piece))
+    }
+
+    override fun movePiece(piece: ChessPiece, newFile: File, newRank: Int) {
+        val from = PositionUtils.getSquareFromFileRank(piece.file(), piece.rank())
+        val to = PositionUtils.getSquareFromFileRank(newFile, newRank)
+        if (squares[from] != PieceCodes.codeOf(piece)) {
+            throw InvalidPositionException("Piece internal coordinates do not line up with board position: $piece has position ${piece.file()}${piece.rank()}, " +
+                    "whereas piece at this position on the board is ${getPieceAtPosition(piece.file(), piece.rank())}")
+        }
+        if (squares[to] != PieceCodes.NONE) {
+            throw InvalidPositionException("Square $newFile$newRank is already occupied by another piece")
+        }
+
+        relocatePiece(from, to)
+        piece.setPos(newFile, newRank)
+    }
+
+    override fun removePiece(piece: ChessPiece): ChessPiece? {
+        val removed = getPieceAtPosition(piece.file(), piece.rank())
+        clearSquare(PositionUtils.getSquareFromFileRank(piece.file(), piece.rank()))
+        return removed
+    }
+
+    override fun pieceCodeAt(square: Int): Int = squares[square]
+
+    override fun pieceBitboard(pieceCode: Int): Long = pieceBitboards[pieceCode]
+
+    override fun occupancy(color: Int): Long = colorOccupancy[color]
+
+    override fun occupancy(): Long = allOccupancy
+
+    override fun zobristKey(): Long = key
+
+    override fun pawnKey(): Long = pawnKey
+
+    override fun pieceSquareScore(): Int = pieceSquareScore
+
+    override fun phase(): Int = phase
+
+    /**
+     * The square of the king of the given PieceCodes color, or 64 if that side has no king
+     */
+    fun kingSquare(color: Int): Int = Bitboards.lowestSquare(pieceBitboards[PieceCodes.code(color, PieceCodes.KING)])
+
+    override fun putPiece(square: Int, pieceCode: Int) {
+        val bit = Bitboards.squareBit(square)
+        squares[square] = pieceCode
+        pieceBitboards[pieceCode] = pieceBitboards[pieceCode] or bit
+        colorOccupancy[PieceCodes.colorOf(pieceCode)] = colorOccupancy[PieceCodes.colorOf(pieceCode)] or bit
+        allOccupancy = allOccupancy or bit
+        key = key xor Zobrist.pieceSquare(pieceCode, square)
+        pawnKey = pawnKey xor Zobrist.pawnSquare(pieceCode, square)
+        pieceSquareScore += PieceSquareTables.score(pieceCode, square)
+        phase += PieceSquareTables.phase(pieceCode)
+        listener?.piecePut(pieceCode, square)
+    }
+
+    override fun clear() {
+        pieceBitboards.fill(Bitboards.EMPTY)
+        colorOccupancy.fill(Bitboards.EMPTY)
+        allOccupancy = Bitboards.EMPTY
+        squares.fill(PieceCodes.NONE)
+        sideToMove = PieceCodes.WHITE
+        castlingRights = CastlingRights.NONE
+        enPassantSquare = NO_SQUARE
+        halfmoveClock = 0
+        fullmoveNumber = 1
+        key = 0L
+        pawnKey = 0L
+        pieceSquareScore = 0
+        phase = 0
+        undoDepth = 0
+        listener?.boardReset()
+    }
+
+    /**
+     * Empties a square, returning the code of the piece that was on it
+     */
+    fun clearSquare(square: Int): Int {
+        val pieceCode = squares[square]
+        if (pieceCode == PieceCodes.NONE) return pieceCode
+        val mask = Bitboards.squareBit(square).inv()
+        squares[square] = PieceCodes.NONE
+        pieceBitboards[pieceCode] = pieceBitboards[pieceCode] and mask
+        colorOccupancy[PieceCodes.colorOf(pieceCode)] = colorOccupancy[PieceCodes.colorOf(pieceCode)] and mask
+        allOccupancy = allOccupancy and mask
+        key = key xor Zobrist.pieceSquare(pieceCode, square)
+        pawnKey = pawnKey xor Zobrist.pawnSquare(pieceCode, square)
+        pieceSquareScore -= PieceSquareTables.score(pieceCode, square)
+        phase -= PieceSquareTables.phase(pieceCode)
+        listener?.pieceRemoved(pieceCode, square)
+        return pieceCode
+    }
+
+    /**
+     * Moves the piece on one square to another, empty, square
+     */
+    fun relocatePiece(from: Int, to: Int) {
+        val pieceCode = squares[from]
+        val fromTo = Bitboards.squareBit(from) or Bitboards.squareBit(to)
+        squares[from] = PieceCodes.NONE
+        squares[to] = pieceCode
+        pieceBitboards[pieceCode] = pieceBitboards[pieceCode] xor fromTo
+        colorOccupancy[PieceCodes.colorOf(pieceCode)] = colorOccupancy[PieceCodes.colorOf(pieceCode)] xor fromTo
+        allOccupancy = allOccupancy xor fromTo
+        key = key xor Zobrist.pieceSquare(pieceCode, from) xor Zobrist.pieceSquare(pieceCode, to)
+        pawnKey = pawnKey xor Zobrist.pawnSquare(pieceCode, from) xor Zobrist.pawnSquare(pieceCode, to)
+        pieceSquareScore += PieceSquareTables.score(pieceCode, to) - PieceSquareTables.score(pieceCode, from)
+        listener?.pieceMoved(pieceCode, from, to)
+    }
+
+    /**
+     * Plays a move generated for this position, updating castling rights, the en passant
+     * square and the side to move. A double push sets the en passant square only when an enemy
+     * pawn could capture on it
+     */
+    fun applyMove(move: Int) {
+        val from = Move.from(move)
+        val to = Move.to(move)
+        val us = sideToMove
+
+        if (Move.hasFlag(move, Move.FLAG_EN_PASSANT)) {
+            clearSquare(if (us == PieceCodes.WHITE) to - 8 else to + 8)
+        } else if (Move.isCapture(move)) {
+            clearSquare(to)
+        }
+        relocatePiece(from, to)
+
+        if (Move.isPromotion(move)) {
+            clearSquare(to)
+            putPiece(to, PieceCodes.code(us, Move.promotion(move)))
+        } else if (Move.hasFlag(move, Move.FLAG_CASTLING)) {
+            // the king has already moved two squares; bring the rook over to its other side
+            if (to > from) relocatePiece(to + 1, to - 1) else relocatePiece(to - 2, to + 1)
+        }
+
+        castlingRights = castlingRights and CASTLING_RIGHTS_KEPT[from] and CASTLING_RIGHTS_KEPT[to]
+        enPassantSquare = if (Move.hasFlag(move, Move.FLAG_DOUBLE_PUSH) && canBeTakenEnPassant((from + to) / 2, us)) (from + to) / 2 else NO_SQUARE
+        halfmoveClock = if (Move.isCapture(move) || PieceCodes.typeOf(Move.piece(move)) == PieceCodes.PAWN) 0 else halfmoveClock + 1
+        if (us == PieceCodes.BLACK) fullmoveNumber++
+        sideToMove = PieceCodes.opposite(us)
+    }
+
+    // Only an en passant square an enemy pawn stands ready to capture on is kept, so that a position
+    // has one key whichever move order led to it
+    private fun canBeTakenEnPassant(square: Int, mover: Int): Boolean =
+        (Bitboards.PAWN_ATTACKS[mover][square] and pieceBitboards[PieceCodes.code(PieceCodes.opposite(mover), PieceCodes.PAWN)]) != 0L
+
+    /**
+     * Plays a move generated for this position so that unmakeMove can take it back
+     */
+    fun makeMove(move: Int) {
+        if (undoDepth == undoMoves.size) growUndoStack()
+        undoMoves[undoDepth] = move
+        undoStates[undoDepth] = packUndoState(castlingRights, enPassantSquare, halfmoveClock)
+        undoKeys[undoDepth] = key
+        undoDepth++
+        applyMove(move)
+    }
+
+    /**
+     * Takes back the last move played with makeMove
+     */
+    fun unmakeMove() {
+        check(undoDepth > 0) { "No move to unmake" }
+        undoDepth--
+        val move = undoMoves[undoDepth]
+        val from = Move.from(move)
+        val to = Move.to(move)
+        val us = PieceCodes.opposite(sideToMove)
+
+        if (Move.isPromotion(move)) {
+            clearSquare(to)
+            putPiece(from, Move.piece(move))
+        } else {
+            relocatePiece(to, from)
+            if (Move.hasFlag(move, Move.FLAG_CASTLING)) {
+                if (to > from) relocatePiece(to - 1, to + 1) else relocatePiece(to + 1, to - 2)
+            }
+        }
+
+        if (Move.hasFlag(move, Move.FLAG_EN_PASSANT)) {
+            putPiece(if (us == PieceCodes.WHITE) to - 8 else to + 8, Move.captured(move))
+        } else if (Move.isCapture(move)) {
+            putPiece(to, Move.captured(move))
+        }
+
+        val state = undoStates[undoDepth]
+        sideToMove = us
+        castlingRights = state and 0xF
+        enPassantSquare = ((state ushr 4) and 0x7F) - 1
+        halfmoveClock = state ushr 11
+        if (us == PieceCodes.BLACK) fullmoveNumber--
+        key = undoKeys[undoDepth]
+    }
+
+    /**
+     * The move at the given depth of the undo stack, 0 being the first move made
+     */
+    fun moveAt(depth: Int): Int {
+        require(depth in 0 until undoDepth) { "No move at undo depth $depth" }
+        return undoMoves[depth]
+    }
+
+    /**
+     * The key of the position before the move at the given depth of the undo stack was made
+     */
+    fun keyBefore(depth: Int): Long {
+        require(depth in 0 until undoDepth) { "No move at undo depth $depth" }
+        return undoKeys[depth]
+    }
+
+    /**
+     * Whether the position has occurred before, looking back through the moves on the undo stack
+     * as far as the last capture or pawn move
+     */
+    fun isRepetition(): Boolean {
+        val earliest = maxOf(0, undoDepth - halfmoveClock)
+        var depth = undoDepth - 4
+        while (depth >= earliest) {
+            if (undoKeys[depth] == key) return true
+            depth -= 2
+        }
+        return false
+    }
+
+    private fun growUndoStack() {
+        undoMoves = undoMoves.copyOf(undoMoves.size * 2)
+        undoStates = undoStates.copyOf(undoStates.size * 2)
+        undoKeys = undoKeys.copyOf(undoKeys.size * 2)
+    }
+
+    /**
+     * Overwrites this board with the contents of another, including its undo stack, so moves
+     * made before the copy can be taken back and are seen by isRepetition
+     */
+    fun copyFrom(other: BitboardPosition) {
+        other.pieceBitboards.copyInto(pieceBitboards)
+        other.colorOccupancy.copyInto(colorOccupancy)
+        other.squares.copyInto(squares)
+        allOccupancy = other.allOccupancy
+        sideToMove = other.sideToMove
+        castlingRights = other.castlingRights
+        enPassantSquare = other.enPassantSquare
+        halfmoveClock = other.halfmoveClock
+        fullmoveNumber = other.fullmoveNumber
+        key = other.key
+        pawnKey = other.pawnKey
+        pieceSquareScore = other.pieceSquareScore
+        phase = other.phase
+        while (undoMoves.size < other.undoDepth) growUndoStack()
+        other.undoMoves.copyInto(undoMoves, endIndex = other.undoDepth)
+        other.undoStates.copyInto(undoStates, endIndex = other.undoDepth)
+        other.undoKeys.copyInto(undoKeys, endIndex = other.undoDepth)
+        undoDepth = other.undoDepth
+        listener?.boardReset()
+    }
+
+    override fun toString(): String = renderBoard(this)
+
+    companion object {
+        const val NO_SQUARE = -1
+
+        private const val INITIAL_UNDO_CAPACITY = 256
+
+        // Castling rights in bits 0-3, en passant square + 1 in bits 4-10, halfmove clock above
+        private fun packUndoState(castlingRights: Int, enPassantSquare: Int, halfmoveClock: Int): Int =
+            castlingRights or ((enPassantSquare + 1) shl 4) or (halfmoveClock shl 11)
+
+        // Castling rights that survive a move touching each square: moving a king or rook, or capturing a rook, loses them
+        private val CASTLING_RIGHTS_KEPT = IntArray(64) { CastlingRights.ALL }.apply {
+            this[0] = CastlingRights.ALL and CastlingRights.WHITE_QUEENSIDE.inv()
+            this[4] = CastlingRights.ALL and (CastlingRights.WHITE_KINGSIDE or CastlingRights.WHITE_QUEENSIDE).inv()
+            this[7] = CastlingRights.ALL and CastlingRights.WHITE_KINGSIDE.inv()
+            this[56] = CastlingRights.ALL and CastlingRights.BLACK_QUEENSIDE.inv()
+            this[60] = CastlingRights.ALL and (CastlingRights.BLACK_KINGSIDE or CastlingRights.BLACK_QUEENSIDE).inv()
+            this[63] = CastlingRights.ALL and CastlingRights.BLACK_KINGSIDE.inv()
+        }
+
+        private val BACK_RANK = intArrayOf(
+            PieceCodes.ROOK, PieceCodes.KNIGHT, PieceCodes.BISHOP, PieceCodes.QUEEN,
+            PieceCodes.KING, PieceCodes.BISHOP, PieceCodes.KNIGHT, PieceCodes.ROOK
+        )
+
+        /**
+         * A board set up for the start of a game, white to move with all castling rights
+         */
+        fun startingPosition(): BitboardPosition = BitboardPosition().apply {
+            for (x in 0 until 8) {
+                putPiece(x, PieceCodes.code(PieceCodes.WHITE, BACK_RANK[x]))
+                putPiece(8 + x, PieceCodes.code(PieceCodes.WHITE, PieceCodes.PAWN))
+                putPiece(48 + x, PieceCodes.code(PieceCodes.BLACK, PieceCodes.PAWN))
+                putPiece(56 + x, PieceCodes.code(PieceCodes.BLACK, BACK_RANK[x]))
+            }
+            castlingRights = CastlingRights.ALL
+        }
+
+        /**
+         * A board set up from a FEN string, see Fen
+         */
+        fun fromFen(fen: String): BitboardPosition = Fen.toBitboardPosition(fen)
+    }
+}
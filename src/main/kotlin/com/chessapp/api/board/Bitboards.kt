@@ -0,0 +1,110 @@
+package com.chessapp.api.board
+
+/**
+ * Helpers and precomputed attack tables for 64-bit bitboards.
+ * Bit n of a bitboard corresponds to square n as numbered by PositionUtils.getSquareFromFileRank
+ */
+object Bitboards {
+    const val EMPTY = 0L
+    const val ALL = -1L
+
+    const val FILE_A = 0x0101010101010101L
+    const val FILE_B = FILE_A shl 1
+    const val FILE_G = FILE_A shl 6
+    const val FILE_H = FILE_A shl 7
+
+    const val RANK_1 = 0xFFL
+    const val RANK_2 = RANK_1 shl 8
+    const val RANK_3 = RANK_1 shl 16
+    const val RANK_4 = RANK_1 shl 24
+    const val RANK_5 = RANK_1 shl 32
+    const val RANK_6 = RANK_1 shl 40
+    const val RANK_7 = RANK_1 shl 48
+    const val RANK_8 = RANK_1 shl 56
+
+    // Squares a king, knight or pawn attacks from each square
+    val KNIGHT_ATTACKS = LongArray(64) { leaperAttacks(it, KNIGHT_OFFSETS) }
+    val KING_ATTACKS = LongArray(64) { leaperAttacks(it, KING_OFFSETS) }
+    val PAWN_ATTACKS = arrayOf(
+        LongArray(64) { leaperAttacks(it, WHITE_PAWN_OFFSETS) },
+        LongArray(64) { leaperAttacks(it, BLACK_PAWN_OFFSETS) }
+    )
+
+    // Squares strictly between two squares on a shared rank, file or diagonal, empty if they share none
+    val BETWEEN = Array(64) { from -> LongArray(64) { to -> squaresBetween(from, to) } }
+
+    fun squareBit(square: Int) = 1L shl square
+
+    fun isSet(bitboard: Long, square: Int) = ((bitboard ushr square) and 1L) != 0L
+
+    fun lowestSquare(bitboard: Long) = java.lang.Long.numberOfTrailingZeros(bitboard)
+
+    fun count(bitboard: Long) = java.lang.Long.bitCount(bitboard)
+
+    /**
+     * Rook attacks from a square, found by walking each ray until it hits an occupied square
+     */
+    fun rookAttacksByRayWalk(square: Int, occupancy: Long): Long =
+        rayAttacks(square, occupancy, 1, 0) or rayAttacks(square, occupancy, -1, 0) or
+            rayAttacks(square, occupancy, 0, 1) or rayAttacks(square, occupancy, 0, -1)
+
+    /**
+     * Bishop attacks from a square, found by walking each ray until it hits an occupied square
+     */
+    fun bishopAttacksByRayWalk(square: Int, occupancy: Long): Long =
+        rayAttacks(square, occupancy, 1, 1) or rayAttacks(square, occupancy, 1, -1) or
+            rayAttacks(square, occupancy, -1, 1) or rayAttacks(square, occupancy, -1, -1)
+
+    private fun rayAttacks(square: Int, occupancy: Long, stepX: Int, stepY: Int): Long {
+        var attacks = EMPTY
+        var x = (square and 7) + stepX
+        var y = (square ushr 3) + stepY
+        while (x in 0..7 && y in 0..7) {
+            val bit = squareBit(y * 8 + x)
+            attacks = attacks or bit
+            if ((occupancy and bit) != 0L) break
+            x += stepX
+            y += stepY
+        }
+        return attacks
+    }
+
+    private fun squaresBetween(from: Int, to: Int): Long {
+        val dx = (to and 7) - (from and 7)
+        val dy = (to ushr 3) - (from ushr 3)
+        if (from == to || (dx != 0 && dy != 0 && dx != dy && dx != -dy)) return EMPTY
+
+        val stepX = Integer.signum(dx)
+        val stepY = Integer.signum(dy)
+        var between = EMPTY
+        var square = from + stepY * 8 + stepX
+        while (square != to) {
+            between = between or squareBit(square)
+            square += stepY * 8 + stepX
+        }
+        return between
+    }
+
+    private fun leaperAttacks(square: Int, offsets: Array<IntArray>): Long {
+        val x = square and 7
+        val y = square ushr 3
+        var attacks = EMPTY
+        for ((dx, dy) in offsets) {
+            if (x + dx in 0..7 && y + dy in 0..7) {
+                attacks = attacks or squareBit((y + dy) * 8 + x + dx)
+            }
+        }
+        return attacks
+    }
+}
+
+private val KNIGHT_OFFSETS = arrayOf(
+    intArrayOf(2, 1), intArrayOf(2, -1), intArrayOf(-2, 1), intArrayOf(-2, -1),
+    intArrayOf(1, 2), intArrayOf(1, -2), intArrayOf(-1, 2), intArrayOf(-1, -2)
+)
+private val KING_OFFSETS = arrayOf(
+    intArrayOf(1, 0), intArrayOf(1, 1), intArrayOf(1, -1), intArrayOf(-1, 0),
+    intArrayOf(-1, 1), intArrayOf(-1, -1), intArrayOf(0, 1), intArrayOf(0, -1)
+)
+private val WHITE_PAWN_OFFSETS = arrayOf(intArrayOf(-1, 1), intArrayOf(1, 1))
+private val BLACK_PAWN_OFFSETS = arrayOf(intArrayOf(-1, -1), intArrayOf(1, -1))
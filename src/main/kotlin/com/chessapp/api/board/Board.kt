@@ -0,0 +1,134 @@
+package com.chessapp.api.board
+
+import com.chessapp.BOARD_SIZE
+import com.chessapp.api.pieces.piece.ChessPiece
+
+/**
+ * The common interface of the board backends. The ChessPiece based methods are the
+ * original board API; the square based methods address squares as 0 (A1) to 63 (H8)
+ * and pieces as PieceCodes, and are what the move generators and check detection use.
+ *
+ * Every backend keeps a Zobrist key of its position, updated as pieces and game state change,
+ * and likewise the piece-square score and game phase the evaluation is built from
+ */
+interface Board {
+    /**
+     * The PieceCodes color whose turn it is
+     */
+    var sideToMove: Int
+
+    /**
+     * The CastlingRights still available to both sides
+     */
+    var castlingRights: Int
+
+    /**
+     * The square a pawn can be captured on en passant, or BitboardPosition.NO_SQUARE
+     */
+    var enPassantSquare: Int
+
+    /**
+     * Plies since the last capture or pawn move, for the fifty-move rule
+     */
+    var halfmoveClock: Int
+
+    /**
+     * The number of the current move, starting at 1 and incremented after each black move
+     */
+    var fullmoveNumber: Int
+
+    fun getPieceAtPosition(file: File, rank: Int): ChessPiece?
+
+    fun isPositionOccupiedByPiece(file: File, rank: Int): Boolean
+
+    fun occupyPosition(piece: ChessPiece)
+
+    fun movePiece(piece: ChessPiece, newFile: File, newRank: Int)
+
+    fun removePiece(piece: ChessPiece): ChessPiece?
+
+    /**
+     * Places a piece, given by its PieceCodes code, on an empty square. Unlike the ChessPiece
+     * constructors this does not check that the piece could have started the game there
+     */
+    fun putPiece(square: Int, pieceCode: Int)
+
+    /**
+     * Removes every piece and resets the game state to white to move, with no castling rights,
+     * no en passant square and the clocks at the start of a game
+     */
+    fun clear()
+
+    /**
+     * The code of the piece on the square, or PieceCodes.NONE if the square is empty
+     */
+    fun pieceCodeAt(square: Int): Int
+
+    /**
+     * The squares occupied by pieces with the given code
+     */
+    fun pieceBitboard(pieceCode: Int): Long
+
+    /**
+     * The squares occupied by pieces of the given PieceCodes color
+     */
+    fun occupancy(color: Int): Long
+
+    /**
+     * The squares occupied by any piece
+     */
+    fun occupancy(): Long
+
+    /**
+     * The Zobrist key of the position, covering piece placement, side to move, castling rights
+     * and the en passant file. See Zobrist.computeKey for the same key computed from scratch
+     */
+    fun zobristKey(): Long
+
+    /**
+     * A key of the pawns alone, for caching pawn structure evaluation; see Zobrist.pawnSquare
+     */
+    fun pawnKey(): Long
+
+    /**
+     * Material and piece-square values of white's pieces minus black's, packed as by
+     * PieceSquareTables.pack and kept up to date like the key
+     */
+    fun pieceSquareScore(): Int
+
+    /**
+     * The game phase of the pieces on the board, PieceSquareTables.MAX_PHASE at the start of a
+     * game down to 0 with only kings and pawns left
+     */
+    fun phase(): Int
+}
+
+/**
+ * Renders the board with rank 8 at the top, white pieces in uppercase and black pieces in lowercase
+ */
+internal fun renderBoard(board: Board): String {
+    // Column labels (A to H)
+    val columnLabels = ('A' until 'A' + BOARD_SIZE).joinToString(" ") { it.toString() }
+
+    // Building the board with row numbers (8 to 1) and columns (A to H)
+    return buildString {
+        append("  ") // Leading spaces for row number alignment
+        append(columnLabels)
+        appendLine()
+
+        for (rank in BOARD_SIZE downTo 1) {
+            append(rank)
+            append(" ")
+            for (x in 0 until BOARD_SIZE) {
+                if (x > 0) append(" ")
+                append(PieceCodes.toChar(board.pieceCodeAt(PositionUtils.getSquareFromCoordinates(x, rank - 1))))
+            }
+            append(" ")
+            append(rank)
+            appendLine()
+        }
+
+        append("  ") // Leading spaces for alignment
+        append(columnLabels) // Bottom column labels
+    }
+}
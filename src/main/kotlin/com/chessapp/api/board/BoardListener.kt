@@ -0,0 +1,20 @@
+package com.chessapp.api.board
+
+/**
+ * Told about every change to the pieces of a BitboardPosition, after the change is made, for
+ * state that has to follow the board's piece placement, such as an evaluator's incrementally
+ * updated accumulator. Moves made and taken back arrive as the individual piece changes they
+ * are made of
+ */
+interface BoardListener {
+    fun piecePut(pieceCode: Int, square: Int)
+
+    fun pieceRemoved(pieceCode: Int, square: Int)
+
+    fun pieceMoved(pieceCode: Int, from: Int, to: Int)
+
+    /**
+     * The whole placement changed at once, by clear or copyFrom
+     */
+    fun boardReset()
+}
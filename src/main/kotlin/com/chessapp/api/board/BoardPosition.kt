@@ -2,35 +2,63 @@ package com.chessapp.api.board
 
 import com.chessapp.BOARD_SIZE
 import com.chessapp.api.pieces.piece.ChessPiece
-import com.chessapp.api.pieces.piece.PieceColor
+import com.chessapp.api.pieces.piece.PieceUtils
 import com.chessapp.api.pieces.utils.InvalidPositionException
 
 /**
  * The board position manager, used to manage
  * the positions of all the Chess pieces
  */
-class BoardPosition {
+class BoardPosition : Board {
 
     // The internal array used to keep track of the location of pieces
     private val positions: Array<Array<ChessPiece?>> = Array(BOARD_SIZE) { arrayOfNulls(BOARD_SIZE) }
 
-    fun getPieceAtPosition(file: File, rank: Int): ChessPiece? {
+    // Zobrist key of everything below, kept up to date on every change
+    private var key = 0L
+    private var pawnKey = 0L
+    private var pieceSquareScore = 0
+    private var phase = 0
+
+    override var sideToMove = PieceCodes.WHITE
+        set(value) {
+            if (value != field) key = key xor Zobrist.SIDE_TO_MOVE
+            field = value
+        }
+
+    override var castlingRights = CastlingRights.NONE
+        set(value) {
+            key = key xor Zobrist.castling(field) xor Zobrist.castling(value)
+            field = value
+        }
+
+    override var enPassantSquare = BitboardPosition.NO_SQUARE
+        set(value) {
+            key = key xor Zobrist.enPassant(field) xor Zobrist.enPassant(value)
+            field = value
+        }
+
+    override var halfmoveClock = 0
+
+    override var fullmoveNumber = 1
+
+    override fun getPieceAtPosition(file: File, rank: Int): ChessPiece? {
         val (x, y) = PositionUtils.getCoordinatesFromFileRank(file, rank)
         return positions[x][y]
     }
 
-    fun isPositionOccupiedByPiece(rank: File, file: Int): Boolean {
-        val (x, y) = PositionUtils.getCoordinatesFromFileRank(rank, file)
+    override fun isPositionOccupiedByPiece(file: File, rank: Int): Boolean {
+        val (x, y) = PositionUtils.getCoordinatesFromFileRank(file, rank)
         return positions[x][y] != null
     }
 
-    fun occupyPosition(piece: ChessPiece) {
+    override fun occupyPosition(piece: ChessPiece) {
         val rank = piece.rank()
         val file = piece.file()
         occupyPosition(file, rank, piece)
     }
 
-    fun movePiece(piece: ChessPiece, newFile: File, newRank: Int) {
+    override fun movePiece(piece: ChessPiece, newFile: File, newRank: Int) {
         val gotPiece = getPieceAtPosition(piece.file(), piece.rank())
         if (gotPiece != piece) {
             throw InvalidPositionException("Piece internal coordinates do not line up with board position: $piece is has position ${piece.file()}${piece.rank()}, " +
@@ -53,52 +81,75 @@ class BoardPosition {
 
         val (x, y) = PositionUtils.getCoordinatesFromFileRank(file, rank)
         positions[x][y] = piece
+        val code = PieceCodes.codeOf(piece)
+        val square = PositionUtils.getSquareFromCoordinates(x, y)
+        key = key xor Zobrist.pieceSquare(code, square)
+        pawnKey = pawnKey xor Zobrist.pawnSquare(code, square)
+        pieceSquareScore += PieceSquareTables.score(code, square)
+        phase += PieceSquareTables.phase(code)
     }
 
-    fun removePiece(piece: ChessPiece): ChessPiece? = removePiece(piece.file(), piece.rank())
+    override fun removePiece(piece: ChessPiece): ChessPiece? = removePiece(piece.file(), piece.rank())
 
-    private fun removePiece(rank: File, file: Int): ChessPiece? {
-        val (x, y) = PositionUtils.getCoordinatesFromFileRank(rank, file)
-        return positions[x][y].also { positions[x][y] = null }
+    private fun removePiece(file: File, rank: Int): ChessPiece? {
+        val (x, y) = PositionUtils.getCoordinatesFromFileRank(file, rank)
+        val removed = positions[x][y] ?: return null
+        positions[x][y] = null
+        val code = PieceCodes.codeOf(removed)
+        val square = PositionUtils.getSquareFromCoordinates(x, y)
+        key = key xor Zobrist.pieceSquare(code, square)
+        pawnKey = pawnKey xor Zobrist.pawnSquare(code, square)
+        pieceSquareScore -= PieceSquareTables.score(code, square)
+        phase -= PieceSquareTables.phase(code)
+        return removed
     }
 
-    override fun toString(): String {
-        val size = BOARD_SIZE
-        val rotatedArray = Array(size) { Array<ChessPiece?>(size) { null } }
+    override fun putPiece(square: Int, pieceCode: Int) {
+        occupyPosition(PieceUtils.createPiece(PieceCodes.pieceName(pieceCode), PieceCodes.pieceColor(pieceCode),
+            PositionUtils.getFileFromSquare(square), PositionUtils.getRankFromSquare(square)))
+    }
 
-        // Rotating the array 90 degrees counterclockwise
-        for (i in 0 until size) {
-            for (j in 0 until size) {
-                rotatedArray[size - j - 1][i] = positions[i][j]
-            }
-        }
+    override fun clear() {
+        positions.forEach { it.fill(null) }
+        sideToMove = PieceCodes.WHITE
+        castlingRights = CastlingRights.NONE
+        enPassantSquare = BitboardPosition.NO_SQUARE
+        halfmoveClock = 0
+        fullmoveNumber = 1
+        key = 0L
+        pawnKey = 0L
+        pieceSquareScore = 0
+        phase = 0
+    }
 
-        // Column labels (A to H)
-        val columnLabels = ('A' until 'A' + size).joinToString(" ") { it.toString() }
+    override fun pieceCodeAt(square: Int): Int =
+        positions[square % BOARD_SIZE][square / BOARD_SIZE]?.let(PieceCodes::codeOf) ?: PieceCodes.NONE
 
-        // Building the board with row numbers (8 to 1) and columns (A to H)
-        return buildString {
-            append("  ") // Leading spaces for row number alignment
-            append(columnLabels)
-            appendLine()
+    // The array backend has no bitboards of its own, so these are built by scanning the board
+    override fun pieceBitboard(pieceCode: Int): Long = collectSquares { it == pieceCode }
 
-            for (i in 0 until size) {
-                append(8 - i) // Row numbers (8 to 1)
-                append(" ") // Space between row number and the row itself
+    override fun occupancy(color: Int): Long =
+        collectSquares { it != PieceCodes.NONE && PieceCodes.colorOf(it) == color }
 
-                append(rotatedArray[i].joinToString(" ") { piece ->
-                    piece?.let {
-                        if (it.color() == PieceColor.WHITE) it.toString().uppercase() else it.toString().lowercase()
-                    } ?: "."
-                })
+    override fun occupancy(): Long = collectSquares { it != PieceCodes.NONE }
 
-                append(" ") // Space between the row and the row number
-                append(BOARD_SIZE - i) // Repeat row number at the end of the row
-                appendLine()
-            }
+    override fun zobristKey(): Long = key
 
-            append("  ") // Leading spaces for alignment
-            append(columnLabels) // Bottom column labels
+    override fun pawnKey(): Long = pawnKey
+
+    override fun pieceSquareScore(): Int = pieceSquareScore
+
+    override fun phase(): Int = phase
+
+    private inline fun collectSquares(predicate: (Int) -> Boolean): Long {
+        var bitboard = Bitboards.EMPTY
+        for (square in 0 until BOARD_SIZE * BOARD_SIZE) {
+            if (predicate(pieceCodeAt(square))) {
+                bitboard = bitboard or Bitboards.squareBit(square)
+            }
         }
+        return bitboard
     }
+
+    override fun toString(): String = renderBoard(this)
 }
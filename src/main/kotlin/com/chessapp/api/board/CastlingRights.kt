@@ -0,0 +1,17 @@
+package com.chessapp.api.board
+
+/**
+ * Castling rights as a 4-bit set, one bit per side and wing
+ */
+object CastlingRights {
+    const val NONE = 0
+    const val WHITE_KINGSIDE = 1
+    const val WHITE_QUEENSIDE = 2
+    const val BLACK_KINGSIDE = 4
+    const val BLACK_QUEENSIDE = 8
+    const val ALL = 15
+
+    fun kingside(color: Int) = if (color == PieceCodes.WHITE) WHITE_KINGSIDE else BLACK_KINGSIDE
+
+    fun queenside(color: Int) = if (color == PieceCodes.WHITE) WHITE_QUEENSIDE else BLACK_QUEENSIDE
+}
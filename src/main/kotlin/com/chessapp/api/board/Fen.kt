@@ -0,0 +1,232 @@
+package com.chessapp.api.board
+
+/**
+ * Reads and writes positions in Forsyth-Edwards Notation.
+ *
+ * The reader walks the string once, character by character, and places pieces straight onto the
+ * board as square codes, so it neither splits the string nor creates pieces through the ChessPiece
+ * constructors and their starting-square checks. Any legal or illegal arrangement of pieces can be
+ * loaded by read, which only checks the syntax of the string; readChecked also rejects positions
+ * that cannot come up in a game, as anything loading positions from outside should. The move
+ * clocks are optional on reading and default to 0 and 1
+ */
+object Fen {
+    const val STARTING_POSITION = "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 1"
+
+    fun toBoardPosition(fen: CharSequence): BoardPosition = BoardPosition().also { read(fen, it) }
+
+    fun toBitboardPosition(fen: CharSequence): BitboardPosition = BitboardPosition().also { read(fen, it) }
+
+    /**
+     * Clears the board and sets it up from the FEN string. Reusing one board across many
+     * strings avoids allocating a board per position
+     */
+    fun read(fen: CharSequence, board: Board) {
+        board.clear()
+        val end = fen.length
+        var i = skipSpaces(fen, 0)
+
+        // Placement, from rank 8 down to rank 1
+        var rank = 7
+        var file = 0
+        while (i < end && fen[i] != ' ') {
+            val c = fen[i++]
+            when (c) {
+                '/' -> {
+                    if (file != 8 || rank == 0) invalid(fen, "rank ${rank + 1} does not have 8 squares")
+                    rank--
+                    file = 0
+                }
+                in '1'..'8' -> {
+                    file += c - '0'
+                    if (file > 8) invalid(fen, "rank ${rank + 1} has more than 8 squares")
+                }
+                else -> {
+                    val pieceCode = PieceCodes.fromChar(c)
+                    if (pieceCode == PieceCodes.NONE) invalid(fen, "unexpected character '$c' in the placement")
+                    if (file > 7) invalid(fen, "rank ${rank + 1} has more than 8 squares")
+                    board.putPiece(rank * 8 + file, pieceCode)
+                    file++
+                }
+            }
+        }
+        if (rank != 0 || file != 8) invalid(fen, "the placement does not cover all 64 squares")
+
+        // Side to move
+        i = skipSpaces(fen, i)
+        if (i >= end) invalid(fen, "missing side to move")
+        board.sideToMove = when (fen[i++]) {
+            'w' -> PieceCodes.WHITE
+            'b' -> PieceCodes.BLACK
+            else -> invalid(fen, "side to move must be 'w' or 'b'")
+        }
+        i = expectFieldEnd(fen, i)
+
+        // Castling rights
+        i = skipSpaces(fen, i)
+        if (i >= end) invalid(fen, "missing castling rights")
+        var castlingRights = CastlingRights.NONE
+        if (fen[i] == '-') {
+            i++
+        } else {
+            while (i < end && fen[i] != ' ') {
+                castlingRights = castlingRights or when (fen[i++]) {
+                    'K' -> CastlingRights.WHITE_KINGSIDE
+                    'Q' -> CastlingRights.WHITE_QUEENSIDE
+                    'k' -> CastlingRights.BLACK_KINGSIDE
+                    'q' -> CastlingRights.BLACK_QUEENSIDE
+                    else -> invalid(fen, "unexpected character in castling rights")
+                }
+            }
+        }
+        board.castlingRights = castlingRights
+        i = expectFieldEnd(fen, i)
+
+        // En passant target square
+        i = skipSpaces(fen, i)
+        if (i >= end) invalid(fen, "missing en passant square")
+        if (fen[i] == '-') {
+            i++
+        } else {
+            if (i + 1 >= end || fen[i] !in 'a'..'h' || (fen[i + 1] != '3' && fen[i + 1] != '6')) {
+                invalid(fen, "en passant square must be '-' or a square on rank 3 or 6")
+            }
+            board.enPassantSquare = (fen[i] - 'a') + (fen[i + 1] - '1') * 8
+            i += 2
+        }
+        i = expectFieldEnd(fen, i)
+
+        // Halfmove clock and fullmove number, both optional
+        i = skipSpaces(fen, i)
+        if (i < end) {
+            var halfmoveClock = 0
+            i = readNumber(fen, i) { halfmoveClock = it }
+            board.halfmoveClock = halfmoveClock
+            i = expectFieldEnd(fen, i)
+            i = skipSpaces(fen, i)
+            if (i < end) {
+                var fullmoveNumber = 1
+                i = readNumber(fen, i) { fullmoveNumber = it }
+                board.fullmoveNumber = fullmoveNumber
+                i = skipSpaces(fen, i)
+                if (i < end) invalid(fen, "unexpected text after the fullmove number")
+            }
+        }
+    }
+
+    /**
+     * Like read, but also rejects a position that cannot come up in a game and that move
+     * generation cannot handle, see positionError. The board is left with the rejected position
+     */
+    fun readChecked(fen: CharSequence, board: Board) {
+        read(fen, board)
+        positionError(board)?.let { invalid(fen, it) }
+    }
+
+    /**
+     * What makes the position on the board impossible in a game, or null if nothing does: each
+     * side must have exactly one king, no pawn may stand on the first or last rank, the side
+     * that has just moved must not be left in check, and an en passant square must be one a
+     * pawn of the side that has just moved has passed with a double push
+     */
+    fun positionError(board: Board): String? {
+        for (color in PieceCodes.WHITE..PieceCodes.BLACK) {
+            val kings = Bitboards.count(board.pieceBitboard(PieceCodes.code(color, PieceCodes.KING)))
+            if (kings != 1) return "${if (color == PieceCodes.WHITE) "white" else "black"} has $kings kings"
+        }
+        val pawns = board.pieceBitboard(PieceCodes.code(PieceCodes.WHITE, PieceCodes.PAWN)) or
+            board.pieceBitboard(PieceCodes.code(PieceCodes.BLACK, PieceCodes.PAWN))
+        if ((pawns and (Bitboards.RANK_1 or Bitboards.RANK_8)) != Bitboards.EMPTY) return "a pawn stands on the first or last rank"
+        if (AttackDetector.isInCheck(board, PieceCodes.opposite(board.sideToMove))) return "the side not to move is in check"
+        val enPassantSquare = board.enPassantSquare
+        if (enPassantSquare != BitboardPosition.NO_SQUARE && !isEnPassantPossible(board, enPassantSquare)) {
+            return "no pawn has just passed the en passant square ${'a' + (enPassantSquare and 7)}${'1' + (enPassantSquare ushr 3)}"
+        }
+        return null
+    }
+
+    // The square must be on the third rank of the side that has just moved, with that side's pawn
+    // in front of it and both the square and the one the pawn came from empty
+    private fun isEnPassantPossible(board: Board, square: Int): Boolean {
+        val mover = PieceCodes.opposite(board.sideToMove)
+        val white = mover == PieceCodes.WHITE
+        if ((square ushr 3) != (if (white) 2 else 5)) return false
+        val pawnSquare = if (white) square + 8 else square - 8
+        val startSquare = if (white) square - 8 else square + 8
+        return board.pieceCodeAt(pawnSquare) == PieceCodes.code(mover, PieceCodes.PAWN) &&
+            board.pieceCodeAt(square) == PieceCodes.NONE && board.pieceCodeAt(startSquare) == PieceCodes.NONE
+    }
+
+    fun write(board: Board): String = StringBuilder(MAX_LENGTH).also { write(board, it) }.toString()
+
+    /**
+     * Appends the FEN of the board to the builder, so that many positions can be written into
+     * one buffer
+     */
+    fun write(board: Board, out: StringBuilder) {
+        for (rank in 7 downTo 0) {
+            var empty = 0
+            for (file in 0 until 8) {
+                val pieceCode = board.pieceCodeAt(rank * 8 + file)
+                if (pieceCode == PieceCodes.NONE) {
+                    empty++
+                } else {
+                    if (empty > 0) out.append(('0' + empty))
+                    empty = 0
+                    out.append(PieceCodes.toChar(pieceCode))
+                }
+            }
+            if (empty > 0) out.append(('0' + empty))
+            if (rank > 0) out.append('/')
+        }
+
+        out.append(' ').append(if (board.sideToMove == PieceCodes.WHITE) 'w' else 'b').append(' ')
+
+        val castlingRights = board.castlingRights
+        if (castlingRights == CastlingRights.NONE) out.append('-')
+        if ((castlingRights and CastlingRights.WHITE_KINGSIDE) != 0) out.append('K')
+        if ((castlingRights and CastlingRights.WHITE_QUEENSIDE) != 0) out.append('Q')
+        if ((castlingRights and CastlingRights.BLACK_KINGSIDE) != 0) out.append('k')
+        if ((castlingRights and CastlingRights.BLACK_QUEENSIDE) != 0) out.append('q')
+
+        out.append(' ')
+        val enPassantSquare = board.enPassantSquare
+        if (enPassantSquare == BitboardPosition.NO_SQUARE) {
+            out.append('-')
+        } else {
+            out.append('a' + (enPassantSquare and 7)).append('1' + (enPassantSquare ushr 3))
+        }
+
+        out.append(' ').append(board.halfmoveClock).append(' ').append(board.fullmoveNumber)
+    }
+
+    private fun skipSpaces(fen: CharSequence, start: Int): Int {
+        var i = start
+        while (i < fen.length && fen[i] == ' ') i++
+        return i
+    }
+
+    private fun expectFieldEnd(fen: CharSequence, i: Int): Int {
+        if (i < fen.length && fen[i] != ' ') invalid(fen, "unexpected character '${fen[i]}'")
+        return i
+    }
+
+    private inline fun readNumber(fen: CharSequence, start: Int, onNumber: (Int) -> Unit): Int {
+        var i = start
+        var number = 0
+        while (i < fen.length && fen[i] in '0'..'9') {
+            number = number * 10 + (fen[i++] - '0')
+            if (number > MAX_CLOCK) invalid(fen, "move clock out of range")
+        }
+        if (i == start) invalid(fen, "expected a number")
+        onNumber(number)
+        return i
+    }
+
+    private fun invalid(fen: CharSequence, reason: String): Nothing =
+        throw IllegalArgumentException("Invalid FEN, $reason: $fen")
+
+    // Longest possible FEN: 64 pieces with 7 separators, plus the state fields
+    private const val MAX_LENGTH = 92
+    private const val MAX_CLOCK = 100_000
+}
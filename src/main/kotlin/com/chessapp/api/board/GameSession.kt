@@ -0,0 +1,121 @@
+package com.chessapp.api.board
+
+import com.chessapp.api.pieces.piece.ChessPiece
+import com.chessapp.api.pieces.utils.InvalidPositionException
+import java.util.concurrent.atomic.AtomicLong
+
+/**
+ * The state of one game: its own bitboard board, the side to move and the moves played so far.
+ * Sessions share nothing, so any number of games can run side by side, each on the thread that
+ * handles it; a single session is not thread safe.
+ *
+ * Moves are played with BitboardPosition.makeMove, so the board's undo stack is the game's
+ * history and playing, taking back and resetting allocate nothing once the stack has grown.
+ * Sessions are usually taken from a GameSessionFactory, which resets and recycles them
+ */
+class GameSession {
+
+    /**
+     * Unique among all games in this JVM: a session gets a new id every time it is reset, so a
+     * session recycled by a pool never carries the id of the game it played before
+     */
+    var id: Long = 0L
+        private set
+
+    private val position = BitboardPosition()
+
+    init {
+        reset()
+    }
+
+    /**
+     * The pieces now on the board, as new ChessPiece objects
+     */
+    fun allPieces(): List<ChessPiece> {
+        val pieces = ArrayList<ChessPiece>(Bitboards.count(position.occupancy()))
+        var occupied = position.occupancy()
+        while (occupied != 0L) {
+            val square = Bitboards.lowestSquare(occupied)
+            pieces.add(position.getPieceAtPosition(PositionUtils.getFileFromSquare(square), PositionUtils.getRankFromSquare(square))!!)
+            occupied = occupied and (occupied - 1)
+        }
+        return pieces
+    }
+
+    fun boardPosition(): BitboardPosition = position
+
+    val sideToMove: Int get() = position.sideToMove
+
+    /**
+     * The number of moves played since the start of the game
+     */
+    val moveCount: Int get() = position.undoDepth
+
+    /**
+     * The moves played since the start of the game, oldest first
+     */
+    fun history(): IntArray = IntArray(position.undoDepth) { position.moveAt(it) }
+
+    /**
+     * Sets up the starting position, forgets the moves played and gives the session a new id,
+     * for a new game
+     */
+    fun reset() {
+        position.copyFrom(START)
+        id = nextId.getAndIncrement()
+    }
+
+    /**
+     * Moves a piece of the side to move, records the move and passes the turn
+     */
+    fun movePiece(piece: ChessPiece, newFile: File, newRank: Int) {
+        val from = PositionUtils.getSquareFromFileRank(piece.file(), piece.rank())
+        val to = PositionUtils.getSquareFromFileRank(newFile, newRank)
+        play(Move.encode(from, to, PieceCodes.codeOf(piece), position.pieceCodeAt(to)))
+    }
+
+    /**
+     * Plays a move of the side to move, e.g. one from LegalMoveGenerator or PossibleMoveCalculator:
+     * the piece on its from square goes to its to square, taking whatever stands there and
+     * promoting if the move says so. The move is recorded and the turn passes
+     */
+    fun play(move: Int) {
+        val from = Move.from(move)
+        val to = Move.to(move)
+        val piece = position.pieceCodeAt(from)
+        if (piece == PieceCodes.NONE) throw InvalidPositionException("No piece on ${Move.toUci(move).substring(0, 2)} to move")
+        if (PieceCodes.colorOf(piece) != position.sideToMove) {
+            throw InvalidPositionException("It is not ${PieceCodes.pieceColor(piece)}'s turn to move")
+        }
+        val target = position.pieceCodeAt(to)
+        if (target != PieceCodes.NONE && PieceCodes.colorOf(target) == PieceCodes.colorOf(piece)) {
+            throw InvalidPositionException("Square ${Move.toUci(move).substring(2, 4)} is already occupied by a piece of the same color")
+        }
+        // Re-encode with what actually stands on the squares, as unmakeMove puts back what the move says
+        val captured = if (Move.hasFlag(move, Move.FLAG_EN_PASSANT)) Move.captured(move) else target
+        position.makeMove(Move.encode(from, to, piece, captured, Move.promotion(move), Move.flags(move)))
+    }
+
+    /**
+     * Takes back the last move played and returns it, or Move.NONE if none was
+     */
+    fun undo(): Int {
+        if (position.undoDepth == 0) return Move.NONE
+        val move = position.moveAt(position.undoDepth - 1)
+        position.unmakeMove()
+        return move
+    }
+
+    /**
+     * Whether the side to move still has its king; the pieces' movement rules alone let a king
+     * be taken, and the game is over when it is
+     */
+    fun hasKing(): Boolean = position.pieceBitboard(PieceCodes.code(position.sideToMove, PieceCodes.KING)) != Bitboards.EMPTY
+
+    private companion object {
+        val nextId = AtomicLong()
+
+        // Copied into a session on reset; never changed itself
+        val START = BitboardPosition.startingPosition()
+    }
+}
@@ -0,0 +1,41 @@
+package com.chessapp.api.board
+
+import java.util.concurrent.ArrayBlockingQueue
+
+/**
+ * Hands out GameSessions and takes back finished ones for reuse, so a server running many
+ * short games does not build a new board and set of pieces for every one of them.
+ *
+ * Up to poolSize released sessions are kept; beyond that they are left to the garbage collector.
+ * A released session is reset before it is handed out again, and must no longer be used by
+ * whoever released it. The factory can be shared between threads
+ */
+class GameSessionFactory(poolSize: Int = DEFAULT_POOL_SIZE) {
+
+    init {
+        require(poolSize >= 1) { "Pool size must be at least 1, got: $poolSize" }
+    }
+
+    private val pool = ArrayBlockingQueue<GameSession>(poolSize)
+
+    /**
+     * A session at the starting position, recycled from the pool when one is available
+     */
+    fun acquire(): GameSession = pool.poll()?.apply { reset() } ?: GameSession()
+
+    /**
+     * Gives a finished session back to the pool
+     */
+    fun release(session: GameSession) {
+        pool.offer(session)
+    }
+
+    /**
+     * The number of sessions waiting in the pool
+     */
+    val pooled: Int get() = pool.size
+
+    companion object {
+        const val DEFAULT_POOL_SIZE = 1024
+    }
+}
@@ -0,0 +1,94 @@
+package com.chessapp.api.board
+
+import java.util.concurrent.ForkJoinPool
+import java.util.concurrent.RecursiveAction
+
+/**
+ * Checks whole games at once: the moves are replayed on one board with makeMove, each checked
+ * against the legal moves of the position it is played in, so the cost is one move generation
+ * per ply and nothing is allocated per move.
+ *
+ * A move matches a legal move with the same from and to squares and promotion; the piece,
+ * capture and flag bits of the given moves are not looked at, so moves from any encoder that
+ * fills in just the squares and promotion validate too. A validator reuses its board and should
+ * be used by one thread at a time; validateGames spreads a batch over a ForkJoinPool
+ */
+class GameValidator {
+    private val board = BitboardPosition()
+    private val generator = LegalMoveGenerator(board)
+    private val legalMoves = MoveList()
+
+    /**
+     * Replays the moves from the position given as FEN and reports the first one that is not
+     * legal. A FEN that does not parse, or whose position cannot come up in a game (see
+     * Fen.positionError), is reported at ply 0
+     */
+    fun validateGame(startPosition: String, moves: IntArray): ValidationResult {
+        try {
+            Fen.readChecked(startPosition, board)
+        } catch (e: IllegalArgumentException) {
+            return ValidationResult(0, 0, e.message)
+        }
+
+        for (ply in moves.indices) {
+            val move = moves[ply]
+            generator.generateLegalMoves(legalMoves)
+            val legal = findLegal(move)
+            if (legal == Move.NONE) {
+                return ValidationResult(ply, ply, "${Move.toUci(move)} is not a legal move in ${Fen.write(board)}")
+            }
+            board.makeMove(legal)
+        }
+        return ValidationResult(moves.size)
+    }
+
+    private fun findLegal(move: Int): Int {
+        val key = matchKey(move)
+        for (i in 0 until legalMoves.size) {
+            if (matchKey(legalMoves[i]) == key) return legalMoves[i]
+        }
+        return Move.NONE
+    }
+
+    private fun matchKey(move: Int): Int = Move.from(move) or (Move.to(move) shl 6) or (Move.promotion(move) shl 12)
+
+    companion object {
+        // Games per task; below this a batch is validated on the current thread
+        private const val SPLIT_THRESHOLD = 64
+
+        /**
+         * Validates a batch of games, game i starting from startPositions[i] with moves[i], on the
+         * pool's threads; the results are in the same order as the games
+         */
+        fun validateGames(
+            startPositions: List<String>,
+            moves: List<IntArray>,
+            pool: ForkJoinPool = ForkJoinPool.commonPool()
+        ): Array<ValidationResult> {
+            require(startPositions.size == moves.size) {
+                "Got ${startPositions.size} start positions for ${moves.size} games"
+            }
+            val results = arrayOfNulls<ValidationResult>(moves.size)
+            pool.invoke(Batch(startPositions, moves, results, 0, moves.size))
+            return results.requireNoNulls()
+        }
+
+        private class Batch(
+            private val startPositions: List<String>,
+            private val moves: List<IntArray>,
+            private val results: Array<ValidationResult?>,
+            private val from: Int,
+            private val to: Int
+        ) : RecursiveAction() {
+            override fun compute() {
+                if (to - from <= SPLIT_THRESHOLD) {
+                    val validator = GameValidator()
+                    for (i in from until to) results[i] = validator.validateGame(startPositions[i], moves[i])
+                    return
+                }
+                val middle = (from + to) ushr 1
+                invokeAll(Batch(startPositions, moves, results, from, middle), Batch(startPositions, moves, results, middle, to))
+            }
+        }
+    }
+}
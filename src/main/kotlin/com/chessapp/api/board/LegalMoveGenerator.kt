@@ -0,0 +1,296 @@
+package com.chessapp.api.board
+
+/**
+ * Generates only legal moves for the side to move, without making any move on the board.
+ *
+ * Before generating, it works out which enemy pieces give check, which squares a non-king move
+ * must land on to resolve a check, and along which ray each pinned piece may still move. Every
+ * piece's targets are then masked by those up front, so no move has to be tried and taken back.
+ * Checkmate and stalemate fall out of the same pass: no legal moves, with or without checkers.
+ *
+ * A generator reuses internal buffers and should not be shared between threads
+ */
+class LegalMoveGenerator(private val board: BitboardPosition) {
+
+    // Per-square ray a pinned piece must stay on; ALL for pieces that are not pinned
+    private val pinRays = LongArray(64)
+
+    private val scratchMoves = MoveList()
+
+    /**
+     * The enemy pieces giving check, as of the last call that generated moves
+     */
+    var checkers = Bitboards.EMPTY
+        private set
+
+    /**
+     * Clears the move list and fills it with the legal moves of the side to move
+     */
+    fun generateLegalMoves(moves: MoveList) = generate(moves, NOISY or QUIET, Bitboards.ALL)
+
+    /**
+     * Clears the move list and fills it with the legal captures, en passant included, and
+     * promotions of the side to move. Together with generateQuiets this is every legal move,
+     * for a search that wants to look at the captures before paying for the rest
+     */
+    fun generateNoisy(moves: MoveList) = generate(moves, NOISY, Bitboards.ALL)
+
+    /**
+     * Clears the move list and fills it with the legal moves that neither capture nor promote,
+     * castling included
+     */
+    fun generateQuiets(moves: MoveList) = generate(moves, QUIET, Bitboards.ALL)
+
+    /**
+     * Whether the move is legal for the side to move, e.g. a move remembered from another
+     * position. Only the moves of the piece on its from square are generated to find out
+     */
+    fun isLegal(move: Int): Boolean {
+        if (move == Move.NONE) return false
+        val from = Move.from(move)
+        val piece = Move.piece(move)
+        if (board.pieceCodeAt(from) != piece || PieceCodes.colorOf(piece) != board.sideToMove) return false
+        generate(scratchMoves, NOISY or QUIET, Bitboards.squareBit(from))
+        return scratchMoves.contains(move)
+    }
+
+    // Generates the moves of the given kinds for the pieces on fromMask
+    private fun generate(moves: MoveList, kinds: Int, fromMask: Long) {
+        moves.clear()
+
+        val us = board.sideToMove
+        val them = PieceCodes.opposite(us)
+        val kingSquare = board.kingSquare(us)
+        val occupancy = board.occupancy()
+        val own = board.occupancy(us)
+        val enemies = board.occupancy(them)
+
+        // Captures land on enemy pieces and every other move on an empty square
+        val kindMask = (if ((kinds and NOISY) != 0) enemies else Bitboards.EMPTY) or
+            (if ((kinds and QUIET) != 0) occupancy.inv() else Bitboards.EMPTY)
+
+        checkers = attackersOf(kingSquare, occupancy, them)
+        if (Bitboards.isSet(fromMask, kingSquare)) generateKingMoves(kingSquare, them, own.inv() and kindMask, moves)
+        if (Bitboards.count(checkers) > 1) return // only the king can answer a double check
+
+        // With one checker, other pieces must capture it or block the line between it and the king
+        val checkMask = if (checkers == Bitboards.EMPTY) {
+            Bitboards.ALL
+        } else {
+            checkers or Bitboards.BETWEEN[kingSquare][Bitboards.lowestSquare(checkers)]
+        }
+        computePins(kingSquare, us, them, occupancy, own)
+
+        val targetMask = own.inv() and checkMask and kindMask
+        var knights = board.pieceBitboard(PieceCodes.code(us, PieceCodes.KNIGHT)) and fromMask
+        while (knights != 0L) {
+            val from = Bitboards.lowestSquare(knights)
+            addMoves(from, Bitboards.KNIGHT_ATTACKS[from] and targetMask and pinRays[from], moves)
+            knights = knights and (knights - 1)
+        }
+
+        val queens = board.pieceBitboard(PieceCodes.code(us, PieceCodes.QUEEN))
+        var diagonalSliders = (board.pieceBitboard(PieceCodes.code(us, PieceCodes.BISHOP)) or queens) and fromMask
+        while (diagonalSliders != 0L) {
+            val from = Bitboards.lowestSquare(diagonalSliders)
+            addMoves(from, SlidingAttacks.bishopAttacks(from, occupancy) and targetMask and pinRays[from], moves)
+            diagonalSliders = diagonalSliders and (diagonalSliders - 1)
+        }
+        var lateralSliders = (board.pieceBitboard(PieceCodes.code(us, PieceCodes.ROOK)) or queens) and fromMask
+        while (lateralSliders != 0L) {
+            val from = Bitboards.lowestSquare(lateralSliders)
+            addMoves(from, SlidingAttacks.rookAttacks(from, occupancy) and targetMask and pinRays[from], moves)
+            lateralSliders = lateralSliders and (lateralSliders - 1)
+        }
+
+        generatePawnMoves(kingSquare, us, them, occupancy, enemies, checkMask, kinds, fromMask, moves)
+
+        if ((kinds and QUIET) != 0 && checkers == Bitboards.EMPTY && Bitboards.isSet(fromMask, kingSquare)) {
+            generateCastlingMoves(kingSquare, us, them, occupancy, moves)
+        }
+    }
+
+    /**
+     * Whether the side to move has at least one legal move
+     */
+    fun hasLegalMoves(): Boolean {
+        generateLegalMoves(scratchMoves)
+        return !scratchMoves.isEmpty()
+    }
+
+    fun isCheckmate(): Boolean = !hasLegalMoves() && checkers != Bitboards.EMPTY
+
+    fun isStalemate(): Boolean = !hasLegalMoves() && checkers == Bitboards.EMPTY
+
+    private fun generateKingMoves(kingSquare: Int, them: Int, targetMask: Long, moves: MoveList) {
+        // The king must not be counted as a blocker, or it could step back along a checking ray
+        val occupancyWithoutKing = board.occupancy() and Bitboards.squareBit(kingSquare).inv()
+        val king = board.pieceCodeAt(kingSquare)
+        var targets = Bitboards.KING_ATTACKS[kingSquare] and targetMask
+        while (targets != 0L) {
+            val to = Bitboards.lowestSquare(targets)
+            if (attackersOf(to, occupancyWithoutKing, them) == Bitboards.EMPTY) {
+                moves.add(Move.encode(kingSquare, to, king, board.pieceCodeAt(to)))
+            }
+            targets = targets and (targets - 1)
+        }
+    }
+
+    private fun generateCastlingMoves(kingSquare: Int, us: Int, them: Int, occupancy: Long, moves: MoveList) {
+        val homeSquare = if (us == PieceCodes.WHITE) 4 else 60
+        if (kingSquare != homeSquare) return
+        val king = PieceCodes.code(us, PieceCodes.KING)
+        val rook = PieceCodes.code(us, PieceCodes.ROOK)
+
+        if ((board.castlingRights and CastlingRights.kingside(us)) != 0 &&
+            board.pieceCodeAt(homeSquare + 3) == rook &&
+            (occupancy and (Bitboards.squareBit(homeSquare + 1) or Bitboards.squareBit(homeSquare + 2))) == 0L &&
+            attackersOf(homeSquare + 1, occupancy, them) == Bitboards.EMPTY &&
+            attackersOf(homeSquare + 2, occupancy, them) == Bitboards.EMPTY
+        ) {
+            moves.add(Move.encode(homeSquare, homeSquare + 2, king, flags = Move.FLAG_CASTLING))
+        }
+
+        if ((board.castlingRights and CastlingRights.queenside(us)) != 0 &&
+            board.pieceCodeAt(homeSquare - 4) == rook &&
+            (occupancy and (Bitboards.squareBit(homeSquare - 1) or Bitboards.squareBit(homeSquare - 2) or
+                Bitboards.squareBit(homeSquare - 3))) == 0L &&
+            attackersOf(homeSquare - 1, occupancy, them) == Bitboards.EMPTY &&
+            attackersOf(homeSquare - 2, occupancy, them) == Bitboards.EMPTY
+        ) {
+            moves.add(Move.encode(homeSquare, homeSquare - 2, king, flags = Move.FLAG_CASTLING))
+        }
+    }
+
+    private fun generatePawnMoves(
+        kingSquare: Int,
+        us: Int,
+        them: Int,
+        occupancy: Long,
+        enemies: Long,
+        checkMask: Long,
+        kinds: Int,
+        fromMask: Long,
+        moves: MoveList
+    ) {
+        val pawn = PieceCodes.code(us, PieceCodes.PAWN)
+        val forward = if (us == PieceCodes.WHITE) 8 else -8
+        val startRank = if (us == PieceCodes.WHITE) Bitboards.RANK_2 else Bitboards.RANK_7
+        val noisy = (kinds and NOISY) != 0
+        val quiet = (kinds and QUIET) != 0
+
+        var pawns = board.pieceBitboard(pawn) and fromMask
+        while (pawns != 0L) {
+            val from = Bitboards.lowestSquare(pawns)
+            pawns = pawns and (pawns - 1)
+            val allowed = checkMask and pinRays[from]
+
+            // A push is quiet unless it promotes
+            val oneStep = from + forward
+            if (!Bitboards.isSet(occupancy, oneStep)) {
+                val promotes = Bitboards.isSet(Bitboards.RANK_1 or Bitboards.RANK_8, oneStep)
+                if (Bitboards.isSet(allowed, oneStep) && (if (promotes) noisy else quiet)) {
+                    addPawnMove(from, oneStep, pawn, PieceCodes.NONE, moves)
+                }
+                val twoSteps = oneStep + forward
+                if (quiet && Bitboards.isSet(startRank, from) && !Bitboards.isSet(occupancy, twoSteps) && Bitboards.isSet(allowed, twoSteps)) {
+                    moves.add(Move.encode(from, twoSteps, pawn, flags = Move.FLAG_DOUBLE_PUSH))
+                }
+            }
+            if (!noisy) continue
+
+            var captures = Bitboards.PAWN_ATTACKS[us][from] and enemies and allowed
+            while (captures != 0L) {
+                val to = Bitboards.lowestSquare(captures)
+                addPawnMove(from, to, pawn, board.pieceCodeAt(to), moves)
+                captures = captures and (captures - 1)
+            }
+
+            val enPassant = board.enPassantSquare
+            if (enPassant != BitboardPosition.NO_SQUARE && Bitboards.isSet(Bitboards.PAWN_ATTACKS[us][from], enPassant) &&
+                isEnPassantLegal(kingSquare, from, enPassant, enPassant - forward, them, occupancy, checkMask)
+            ) {
+                moves.add(Move.encode(from, enPassant, pawn, PieceCodes.code(them, PieceCodes.PAWN), flags = Move.FLAG_EN_PASSANT))
+            }
+        }
+    }
+
+    // En passant removes two pieces from one line at once, which pin rays cannot describe,
+    // so check it directly against the occupancy it leaves behind
+    private fun isEnPassantLegal(
+        kingSquare: Int,
+        from: Int,
+        to: Int,
+        capturedSquare: Int,
+        them: Int,
+        occupancy: Long,
+        checkMask: Long
+    ): Boolean {
+        if (!Bitboards.isSet(checkMask, to) && !Bitboards.isSet(checkers, capturedSquare)) return false
+
+        val after = (occupancy xor Bitboards.squareBit(from) xor Bitboards.squareBit(capturedSquare)) or Bitboards.squareBit(to)
+        val queens = board.pieceBitboard(PieceCodes.code(them, PieceCodes.QUEEN))
+        val rooks = board.pieceBitboard(PieceCodes.code(them, PieceCodes.ROOK)) or queens
+        val bishops = board.pieceBitboard(PieceCodes.code(them, PieceCodes.BISHOP)) or queens
+        return (SlidingAttacks.rookAttacks(kingSquare, after) and rooks) == 0L &&
+            (SlidingAttacks.bishopAttacks(kingSquare, after) and bishops) == 0L
+    }
+
+    private fun computePins(kingSquare: Int, us: Int, them: Int, occupancy: Long, own: Long) {
+        pinRays.fill(Bitboards.ALL)
+
+        // Enemy sliders that would attack the king if our own pieces were not in the way
+        val enemies = board.occupancy(them)
+        val queens = board.pieceBitboard(PieceCodes.code(them, PieceCodes.QUEEN))
+        var snipers = (SlidingAttacks.rookAttacks(kingSquare, enemies) and
+            (board.pieceBitboard(PieceCodes.code(them, PieceCodes.ROOK)) or queens)) or
+            (SlidingAttacks.bishopAttacks(kingSquare, enemies) and
+                (board.pieceBitboard(PieceCodes.code(them, PieceCodes.BISHOP)) or queens))
+
+        while (snipers != 0L) {
+            val sniper = Bitboards.lowestSquare(snipers)
+            snipers = snipers and (snipers - 1)
+
+            val between = Bitboards.BETWEEN[kingSquare][sniper]
+            val blockers = between and occupancy
+            if (Bitboards.count(blockers) == 1 && (blockers and own) != 0L) {
+                pinRays[Bitboards.lowestSquare(blockers)] = between or Bitboards.squareBit(sniper)
+            }
+        }
+    }
+
+    private fun attackersOf(square: Int, occupancy: Long, color: Int): Long {
+        val queens = board.pieceBitboard(PieceCodes.code(color, PieceCodes.QUEEN))
+        return (Bitboards.PAWN_ATTACKS[PieceCodes.opposite(color)][square] and board.pieceBitboard(PieceCodes.code(color, PieceCodes.PAWN))) or
+            (Bitboards.KNIGHT_ATTACKS[square] and board.pieceBitboard(PieceCodes.code(color, PieceCodes.KNIGHT))) or
+            (Bitboards.KING_ATTACKS[square] and board.pieceBitboard(PieceCodes.code(color, PieceCodes.KING))) or
+            (SlidingAttacks.rookAttacks(square, occupancy) and (board.pieceBitboard(PieceCodes.code(color, PieceCodes.ROOK)) or queens)) or
+            (SlidingAttacks.bishopAttacks(square, occupancy) and (board.pieceBitboard(PieceCodes.code(color, PieceCodes.BISHOP)) or queens))
+    }
+
+    private fun addPawnMove(from: Int, to: Int, pawn: Int, captured: Int, moves: MoveList) {
+        if (Bitboards.isSet(Bitboards.RANK_1 or Bitboards.RANK_8, to)) {
+            for (promotion in PieceCodes.QUEEN downTo PieceCodes.KNIGHT) {
+                moves.add(Move.encode(from, to, pawn, captured, promotion))
+            }
+        } else {
+            moves.add(Move.encode(from, to, pawn, captured))
+        }
+    }
+
+    private fun addMoves(from: Int, targets: Long, moves: MoveList) {
+        val pieceCode = board.pieceCodeAt(from)
+        var remaining = targets
+        while (remaining != 0L) {
+            val to = Bitboards.lowestSquare(remaining)
+            moves.add(Move.encode(from, to, pieceCode, board.pieceCodeAt(to)))
+            remaining = remaining and (remaining - 1)
+        }
+    }
+
+    companion object {
+        // Kinds of moves to generate
+        private const val NOISY = 1
+        private const val QUIET = 2
+    }
+}
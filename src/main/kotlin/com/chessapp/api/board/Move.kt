@@ -0,0 +1,61 @@
+package com.chessapp.api.board
+
+/**
+ * Moves packed into a single Int, so that generating and storing them never allocates.
+ *
+ * Layout, from the lowest bit:
+ *  - bits 0-5: from square
+ *  - bits 6-11: to square
+ *  - bits 12-15: code of the moving piece
+ *  - bits 16-19: code of the captured piece, PieceCodes.NONE if nothing is captured
+ *  - bits 20-22: piece type promoted to, 0 if the move is not a promotion
+ *  - bits 23-25: flags
+ */
+object Move {
+    // No real move encodes to 0, since its from and to squares would be the same
+    const val NONE = 0
+
+    const val FLAG_DOUBLE_PUSH = 1
+    const val FLAG_EN_PASSANT = 2
+    const val FLAG_CASTLING = 4
+
+    private const val TO_SHIFT = 6
+    private const val PIECE_SHIFT = 12
+    private const val CAPTURED_SHIFT = 16
+    private const val PROMOTION_SHIFT = 20
+    private const val FLAGS_SHIFT = 23
+
+    fun encode(from: Int, to: Int, piece: Int, captured: Int = PieceCodes.NONE, promotion: Int = 0, flags: Int = 0): Int =
+        from or (to shl TO_SHIFT) or (piece shl PIECE_SHIFT) or (captured shl CAPTURED_SHIFT) or
+            (promotion shl PROMOTION_SHIFT) or (flags shl FLAGS_SHIFT)
+
+    fun from(move: Int) = move and 0x3F
+
+    fun to(move: Int) = (move ushr TO_SHIFT) and 0x3F
+
+    fun piece(move: Int) = (move ushr PIECE_SHIFT) and 0xF
+
+    fun captured(move: Int) = (move ushr CAPTURED_SHIFT) and 0xF
+
+    fun promotion(move: Int) = (move ushr PROMOTION_SHIFT) and 0x7
+
+    fun flags(move: Int) = (move ushr FLAGS_SHIFT) and 0x7
+
+    fun isCapture(move: Int) = captured(move) != PieceCodes.NONE
+
+    fun isPromotion(move: Int) = promotion(move) != 0
+
+    fun hasFlag(move: Int, flag: Int) = (flags(move) and flag) != 0
+
+    /**
+     * The move in long algebraic notation, e.g. "e2e4" or "e7e8q"
+     */
+    fun toUci(move: Int): String = buildString {
+        append(squareName(Move.from(move)))
+        append(squareName(Move.to(move)))
+        if (isPromotion(move)) append(PieceCodes.toChar(PieceCodes.code(PieceCodes.BLACK, promotion(move))))
+    }
+
+    fun squareName(square: Int): String =
+        "${'a' + (square and 7)}${PositionUtils.getRankFromSquare(square)}"
+}
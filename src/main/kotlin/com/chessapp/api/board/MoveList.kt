@@ -0,0 +1,48 @@
+package com.chessapp.api.board
+
+/**
+ * A caller-owned buffer of packed moves (see Move). Clearing and refilling the same list
+ * keeps move generation free of allocation
+ */
+class MoveList(capacity: Int = MAX_MOVES) {
+    private val moves = IntArray(capacity)
+
+    var size = 0
+        private set
+
+    fun add(move: Int) {
+        moves[size++] = move
+    }
+
+    operator fun get(index: Int): Int = moves[index]
+
+    operator fun set(index: Int, move: Int) {
+        moves[index] = move
+    }
+
+    fun clear() {
+        size = 0
+    }
+
+    fun isEmpty() = size == 0
+
+    fun contains(move: Int): Boolean {
+        for (i in 0 until size) {
+            if (moves[i] == move) return true
+        }
+        return false
+    }
+
+    fun swap(i: Int, j: Int) {
+        val move = moves[i]
+        moves[i] = moves[j]
+        moves[j] = move
+    }
+
+    override fun toString(): String = (0 until size).joinToString(prefix = "[", postfix = "]") { Move.toUci(moves[it]) }
+
+    companion object {
+        // No legal chess position has more than 218 moves
+        const val MAX_MOVES = 256
+    }
+}
@@ -0,0 +1,89 @@
+package com.chessapp.api.board
+
+/**
+ * Perft ("performance test") counts the leaf nodes of the legal move tree to a fixed depth.
+ * The counts for well-known positions are published, which makes perft the correctness check
+ * for the move generator, and nodes per second is its throughput number.
+ *
+ * In bulk-counting mode the last ply is counted straight from the size of the generated move
+ * list, without playing those moves. Moves are played on a single working copy of the root with
+ * makeMove and taken back with unmakeMove, and the move lists for every ply are allocated up
+ * front, so a run does not allocate per node
+ */
+class Perft(private val root: BitboardPosition) {
+
+    private val board = BitboardPosition()
+    private val generator = LegalMoveGenerator(board)
+    private val moveLists = Array(MAX_DEPTH + 1) { MoveList() }
+
+    fun count(depth: Int, bulk: Boolean = true): Long {
+        require(depth in 0..MAX_DEPTH) { "Perft depth must be between 0 and $MAX_DEPTH, got: $depth" }
+        board.copyFrom(root)
+        return countNodes(0, depth, bulk)
+    }
+
+    /**
+     * The node count below each root move, keyed by the move in long algebraic notation
+     */
+    fun divide(depth: Int, bulk: Boolean = true): Map<String, Long> {
+        require(depth in 1..MAX_DEPTH) { "Perft depth must be between 1 and $MAX_DEPTH, got: $depth" }
+        board.copyFrom(root)
+        val rootMoves = moveLists[0]
+        generator.generateLegalMoves(rootMoves)
+
+        val counts = LinkedHashMap<String, Long>()
+        for (i in 0 until rootMoves.size) {
+            board.makeMove(rootMoves[i])
+            counts[Move.toUci(rootMoves[i])] = countNodes(1, depth - 1, bulk)
+            board.unmakeMove()
+        }
+        return counts
+    }
+
+    private fun countNodes(ply: Int, depth: Int, bulk: Boolean): Long {
+        if (depth == 0) return 1L
+
+        val moves = moveLists[ply]
+        generator.generateLegalMoves(moves)
+        if (bulk && depth == 1) return moves.size.toLong()
+
+        var nodes = 0L
+        for (i in 0 until moves.size) {
+            board.makeMove(moves[i])
+            nodes += countNodes(ply + 1, depth - 1, bulk)
+            board.unmakeMove()
+        }
+        return nodes
+    }
+
+    companion object {
+        const val MAX_DEPTH = 16
+        const val STARTING_POSITION_FEN = "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 1"
+    }
+}
+
+/**
+ * Runs perft from the command line: `<depth> [fen] [--divide] [--full]`.
+ * --divide prints the count below each root move, --full plays the leaf moves instead of bulk counting
+ */
+fun main(args: Array<String>) {
+    val flags = args.filter { it.startsWith("--") }.toSet()
+    val positional = args.filterNot { it.startsWith("--") }
+    val depth = positional.firstOrNull()?.toIntOrNull() ?: 5
+    val fen = positional.drop(1).joinToString(" ").ifBlank { Perft.STARTING_POSITION_FEN }
+    val bulk = "--full" !in flags
+
+    val perft = Perft(BitboardPosition.fromFen(fen))
+    val start = System.nanoTime()
+    val nodes = if ("--divide" in flags) {
+        perft.divide(depth, bulk).onEach { (move, count) -> println("$move: $count") }.values.sum()
+    } else {
+        perft.count(depth, bulk)
+    }
+    val elapsedNanos = (System.nanoTime() - start).coerceAtLeast(1)
+
+    println()
+    println("Nodes: $nodes")
+    println("Time: ${elapsedNanos / 1_000_000} ms")
+    println("NPS: ${nodes * 1_000_000_000 / elapsedNanos}")
+}
@@ -0,0 +1,75 @@
+package com.chessapp.api.board
+
+import com.chessapp.api.pieces.piece.ChessPiece
+import com.chessapp.api.pieces.piece.PieceColor
+import com.chessapp.api.pieces.piece.PieceName
+
+/**
+ * Compact integer encoding of pieces, used by the board backends and the move generators
+ * so that hot paths never have to touch ChessPiece objects.
+ * A piece code is color * 6 + type, giving codes 0 (white pawn) to 11 (black king)
+ */
+object PieceCodes {
+    const val WHITE = 0
+    const val BLACK = 1
+
+    const val PAWN = 0
+    const val KNIGHT = 1
+    const val BISHOP = 2
+    const val ROOK = 3
+    const val QUEEN = 4
+    const val KING = 5
+
+    const val PIECE_TYPE_COUNT = 6
+    const val PIECE_CODE_COUNT = 12
+
+    // Marker for an empty square
+    const val NONE = 12
+
+    private const val PIECE_CHARS = "PNBRQKpnbrqk"
+
+    fun code(color: Int, type: Int) = color * PIECE_TYPE_COUNT + type
+
+    fun colorOf(code: Int) = code / PIECE_TYPE_COUNT
+
+    fun typeOf(code: Int) = code % PIECE_TYPE_COUNT
+
+    fun opposite(color: Int) = color xor 1
+
+    fun codeOf(piece: ChessPiece) = code(colorOf(piece.color()), typeOf(piece.name()))
+
+    fun colorOf(color: PieceColor) = when (color) {
+        PieceColor.WHITE -> WHITE
+        PieceColor.BLACK -> BLACK
+    }
+
+    fun typeOf(name: PieceName) = when (name) {
+        PieceName.PAWN -> PAWN
+        PieceName.KNIGHT -> KNIGHT
+        PieceName.BISHOP -> BISHOP
+        PieceName.ROOK -> ROOK
+        PieceName.QUEEN -> QUEEN
+        PieceName.KING -> KING
+    }
+
+    fun pieceColor(code: Int) = if (colorOf(code) == WHITE) PieceColor.WHITE else PieceColor.BLACK
+
+    fun pieceName(code: Int) = when (typeOf(code)) {
+        PAWN -> PieceName.PAWN
+        KNIGHT -> PieceName.KNIGHT
+        BISHOP -> PieceName.BISHOP
+        ROOK -> PieceName.ROOK
+        QUEEN -> PieceName.QUEEN
+        else -> PieceName.KING
+    }
+
+    /**
+     * The FEN-style character for a piece code: uppercase for white, lowercase for black
+     */
+    fun toChar(code: Int) = if (code == NONE) '.' else PIECE_CHARS[code]
+
+    /**
+     * The piece code for a FEN-style character, or NONE if the character is not a piece
+     */
+    fun fromChar(c: Char): Int = PIECE_CHARS.indexOf(c).let { if (it < 0) NONE else it }
+}
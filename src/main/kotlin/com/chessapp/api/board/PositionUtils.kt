@@ -21,6 +21,20 @@ object PositionUtils {
     fun isValidCoordinates(coords: Pair<Int, Int>): Boolean {
         return coords.first in (0 until BOARD_SIZE) && coords.second in (0 until BOARD_SIZE)
     }
+
+    /**
+     * Squares are numbered 0 (A1) to 63 (H8), going along each rank before moving up to the next
+     */
+    fun getSquareFromFileRank(file: File, rank: Int): Int {
+        require(rank in 1..8) { "Invalid file with value $rank: must be between 1 and 8" }
+        return (rank - 1) * BOARD_SIZE + file.ordinal
+    }
+
+    fun getSquareFromCoordinates(xPos: Int, yPos: Int): Int = yPos * BOARD_SIZE + xPos
+
+    fun getFileFromSquare(square: Int): File = File.entries[square and 7]
+
+    fun getRankFromSquare(square: Int): Int = (square ushr 3) + 1
 }
 
 enum class File {
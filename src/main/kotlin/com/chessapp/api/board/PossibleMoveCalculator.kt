@@ -1,177 +1,112 @@
 package com.chessapp.api.board
 
-import com.chessapp.BOARD_SIZE
-import com.chessapp.api.pieces.piece.Bishop
 import com.chessapp.api.pieces.piece.ChessPiece
-import com.chessapp.api.pieces.piece.King
-import com.chessapp.api.pieces.piece.Knight
-import com.chessapp.api.pieces.piece.Pawn
-import com.chessapp.api.pieces.piece.PieceColor
-import com.chessapp.api.pieces.piece.PieceName
-import com.chessapp.api.pieces.piece.Queen
-import com.chessapp.api.pieces.piece.Rook
 
 /**
  * PossibleMoveCalculator computes possible moves, i.e. the potential valid moves that each piece can make,
- * without assumption of any game conditions such as pins or checks
+ * without assumption of any game conditions such as pins or checks.
+ *
+ * Moves are generated as packed ints (see Move) into a caller-owned MoveList; the Set based
+ * getPossibleMovesForPiece is a thin adapter over that. A calculator reuses an internal buffer
+ * for the adapter, so a single instance should not be shared between threads
  */
-class PossibleMoveCalculator(private val boardPosition: BoardPosition) {
+class PossibleMoveCalculator(private val board: Board) {
 
-    fun getPossibleMovesForPiece(piece: ChessPiece): Set<Pair<File, Int>>? =
-        when (piece.name()) {
-            PieceName.ROOK -> (piece as? Rook)?.let { computeLateralMoves(it) }
-            PieceName.KNIGHT -> (piece as? Knight)?.let { computeMovesForKnight(it) }
-            PieceName.BISHOP ->  (piece as? Bishop)?.let { computeDiagonalMoves(it) }
-            PieceName.QUEEN -> (piece as? Queen)?.let { computeMovesForQueen(it) }
-            PieceName.KING -> (piece as? King)?.let { computeMovesForKing(it) }
-            PieceName.PAWN -> (piece as? Pawn)?.let { computeMovesForPawn(it) }
-        }
-
-    private fun computeLateralMoves(piece: ChessPiece): Set<Pair<File, Int>> {
-        val (rank, file) = piece.run { rank() to file() }
-        val (x, y) = PositionUtils.getCoordinatesFromFileRank(file, rank)
-
-        val xForwardMoves = (x + 1 until BOARD_SIZE).map { newX -> newX to y }.toMutableList()
-        val xBackwardMoves = (x - 1 downTo 0).map { newX -> newX to y }.toMutableList()
-        val yForwardMoves = (y + 1 until BOARD_SIZE).map { newY -> x to newY }.toMutableList()
-        val yBackwardMoves = (y - 1 downTo 0).map { newY -> x to newY }.toMutableList()
-
-        removeMovesAfterBlockingPieces(piece, xForwardMoves)
-        removeMovesAfterBlockingPieces(piece, xBackwardMoves)
-        removeMovesAfterBlockingPieces(piece, yForwardMoves)
-        removeMovesAfterBlockingPieces(piece, yBackwardMoves)
+    // Reused by getPossibleMovesForPiece so that only the returned set is allocated
+    private val scratchMoves = MoveList()
 
-        val possibleLegalMoves = xForwardMoves + xBackwardMoves + yForwardMoves + yBackwardMoves
+    fun getPossibleMovesForPiece(piece: ChessPiece): Set<Pair<File, Int>>? {
+        scratchMoves.clear()
+        generateMovesForPiece(piece, scratchMoves)
 
-        return getValidMovesFromPossibleMoves(piece, possibleLegalMoves)
+        val targets = LinkedHashSet<Pair<File, Int>>()
+        for (i in 0 until scratchMoves.size) {
+            val to = Move.to(scratchMoves[i])
+            targets.add(PositionUtils.getFileFromSquare(to) to PositionUtils.getRankFromSquare(to))
+        }
+        return targets
     }
 
-    private fun computeMovesForKnight(knight: Knight): Set<Pair<File, Int>> {
-        val (rank, file) = knight.run { rank() to file() }
-        val (x, y) = PositionUtils.getCoordinatesFromFileRank(file, rank)
-        val possibleLegalMoves = listOf(
-            x + 2 to y + 1,
-            x + 2 to y - 1,
-            x - 2 to y + 1,
-            x - 2 to y - 1,
-            x + 1 to y + 2,
-            x + 1 to y - 2,
-            x - 1 to y + 2,
-            x - 1 to y - 2,
-        )
-
-        return getValidMovesFromPossibleMoves(knight, possibleLegalMoves)
+    /**
+     * Adds the possible moves of the piece, from the square it says it is on, to the move list
+     */
+    fun generateMovesForPiece(piece: ChessPiece, moves: MoveList) {
+        generateMoves(PositionUtils.getSquareFromFileRank(piece.file(), piece.rank()), PieceCodes.codeOf(piece), moves)
     }
 
-    private fun computeDiagonalMoves(piece: ChessPiece): Set<Pair<File, Int>> {
-        val (rank, file) = piece.run { rank() to file() }
-        val (x, y) = PositionUtils.getCoordinatesFromFileRank(file, rank)
-
-        fun generateDiagonalMoves(startX: Int, startY: Int, stepX: Int, stepY: Int): Sequence<Pair<Int, Int>> = sequence {
-            var currX = startX + stepX
-            var currY = startY + stepY
-            while (PositionUtils.isValidCoordinates(currX to currY)) {
-                yield(currX to currY) // Add the move
-                currX += stepX
-                currY += stepY
-            }
+    /**
+     * Adds the possible moves of the piece on the square, if any, to the move list
+     */
+    fun generateMovesForSquare(square: Int, moves: MoveList) {
+        val pieceCode = board.pieceCodeAt(square)
+        if (pieceCode != PieceCodes.NONE) {
+            generateMoves(square, pieceCode, moves)
         }
-
-        // Get diagonal moves in all 4 directions
-        val upperRightMoves = generateDiagonalMoves(x, y, 1, 1).toMutableList()
-        val lowerRightMoves = generateDiagonalMoves(x, y, 1, -1).toMutableList()
-        val upperLeftMoves = generateDiagonalMoves(x, y, -1, 1).toMutableList()
-        val lowerLeftMoves = generateDiagonalMoves(x, y, -1, -1).toMutableList()
-
-        // Remove moves after encountering blocking pieces
-        removeMovesAfterBlockingPieces(piece, upperRightMoves)
-        removeMovesAfterBlockingPieces(piece, lowerRightMoves)
-        removeMovesAfterBlockingPieces(piece, upperLeftMoves)
-        removeMovesAfterBlockingPieces(piece, lowerLeftMoves)
-
-        val possibleLegalMoves = upperRightMoves + lowerRightMoves + upperLeftMoves + lowerLeftMoves
-        return getValidMovesFromPossibleMoves(piece, possibleLegalMoves)
     }
 
-    private fun computeMovesForQueen(queen: Queen): Set<Pair<File, Int>> =
-        computeDiagonalMoves(queen) union computeLateralMoves(queen)
-
-    private fun computeMovesForKing(king: King): Set<Pair<File, Int>> {
-        val (x, y) = PositionUtils.getCoordinatesFromFileRank(king.file(), king.rank())
-
-        val possibleMoves = listOf(
-            x + 1 to y,
-            x + 1 to y + 1,
-            x + 1 to y - 1,
-            x - 1 to y,
-            x - 1 to y + 1,
-            x - 1 to y - 1,
-            x to y + 1,
-            x to y - 1,
-        )
-
-        return getValidMovesFromPossibleMoves(king, possibleMoves)
+    /**
+     * Adds the possible moves of every piece of the given PieceCodes color to the move list
+     */
+    fun generateAllMoves(color: Int, moves: MoveList) {
+        var pieces = board.occupancy(color)
+        while (pieces != 0L) {
+            val square = Bitboards.lowestSquare(pieces)
+            generateMoves(square, board.pieceCodeAt(square), moves)
+            pieces = pieces and (pieces - 1)
+        }
     }
 
-    private fun computeMovesForPawn(pawn: Pawn): Set<Pair<File, Int>> {
-        val (x, y) = PositionUtils.getCoordinatesFromFileRank(pawn.file(), pawn.rank())
-
-        val possibleMoves = mutableListOf<Pair<Int, Int>>().apply {
-            when (pawn.color()) {
-                PieceColor.WHITE -> {
-                    add(x to y + 1)
-                    getPossiblePawnCaptureMove(x - 1, y + 1, pawn)?.let(::add)
-                    getPossiblePawnCaptureMove(x + 1, y + 1, pawn)?.let(::add)
-                    if (!pawn.hasMovedOnce()) add(x to y + 2)
-                }
-                PieceColor.BLACK -> {
-                    add(x to y - 1)
-                    getPossiblePawnCaptureMove(x - 1, y - 1, pawn)?.let(::add)
-                    getPossiblePawnCaptureMove(x + 1, y - 1, pawn)?.let(::add)
-                    if (!pawn.hasMovedOnce()) add(x to y - 2)
-                }
-            }
+    private fun generateMoves(square: Int, pieceCode: Int, moves: MoveList) {
+        val notOwn = board.occupancy(PieceCodes.colorOf(pieceCode)).inv()
+        when (PieceCodes.typeOf(pieceCode)) {
+            PieceCodes.PAWN -> computeMovesForPawn(square, pieceCode, moves)
+            PieceCodes.KNIGHT -> addMoves(square, pieceCode, Bitboards.KNIGHT_ATTACKS[square] and notOwn, moves)
+            PieceCodes.BISHOP -> addMoves(square, pieceCode, SlidingAttacks.bishopAttacks(square, board.occupancy()) and notOwn, moves)
+            PieceCodes.ROOK -> addMoves(square, pieceCode, SlidingAttacks.rookAttacks(square, board.occupancy()) and notOwn, moves)
+            PieceCodes.QUEEN -> addMoves(square, pieceCode, SlidingAttacks.queenAttacks(square, board.occupancy()) and notOwn, moves)
+            PieceCodes.KING -> addMoves(square, pieceCode, Bitboards.KING_ATTACKS[square] and notOwn, moves)
         }
-
-        return getValidMovesFromPossibleMoves(pawn, possibleMoves)
     }
 
-    private fun getPossiblePawnCaptureMove(x: Int, y: Int, pawn: Pawn): Pair<Int, Int>? {
-        return if (PositionUtils.isValidCoordinates(x to y)) {
-            val (file, rank) = PositionUtils.getFileRankFromCoordinates(x, y)
-            boardPosition.getPieceAtPosition(file, rank)?.takeIf { it.color() != pawn.color() }?.run {
-                x to y
+    private fun computeMovesForPawn(square: Int, pawn: Int, moves: MoveList) {
+        val color = PieceCodes.colorOf(pawn)
+        val empty = board.occupancy().inv()
+        val forward = if (color == PieceCodes.WHITE) 8 else -8
+        val startRank = if (color == PieceCodes.WHITE) Bitboards.RANK_2 else Bitboards.RANK_7
+
+        val oneStep = square + forward
+        if (oneStep in 0 until 64 && Bitboards.isSet(empty, oneStep)) {
+            addPawnMove(square, oneStep, pawn, PieceCodes.NONE, moves)
+            val twoSteps = oneStep + forward
+            if (Bitboards.isSet(startRank, square) && Bitboards.isSet(empty, twoSteps)) {
+                moves.add(Move.encode(square, twoSteps, pawn, flags = Move.FLAG_DOUBLE_PUSH))
             }
-        } else null
-    }
+        }
 
-    private fun getValidMovesFromPossibleMoves(piece: ChessPiece, possibleMoves: List<Pair<Int, Int>>): Set<Pair<File, Int>> {
-        return possibleMoves.filter(PositionUtils::isValidCoordinates)
-            .filter { (x, y) -> !sameColorPieceOccupiesPosition(piece, x to y) }
-            .map { (x, y) -> PositionUtils.getFileRankFromCoordinates(x, y) }
-            .toSet()
+        var captures = Bitboards.PAWN_ATTACKS[color][square] and board.occupancy(PieceCodes.opposite(color))
+        while (captures != 0L) {
+            val to = Bitboards.lowestSquare(captures)
+            addPawnMove(square, to, pawn, board.pieceCodeAt(to), moves)
+            captures = captures and (captures - 1)
+        }
     }
 
-    private fun sameColorPieceOccupiesPosition(piece: ChessPiece, position: Pair<Int, Int>): Boolean {
-        val (rank, file) = PositionUtils.getFileRankFromCoordinates(position.first, position.second)
-        return boardPosition.getPieceAtPosition(rank, file)?.color() == piece.color()
+    private fun addPawnMove(from: Int, to: Int, pawn: Int, captured: Int, moves: MoveList) {
+        if (Bitboards.isSet(Bitboards.RANK_1 or Bitboards.RANK_8, to)) {
+            for (promotion in PieceCodes.QUEEN downTo PieceCodes.KNIGHT) {
+                moves.add(Move.encode(from, to, pawn, captured, promotion))
+            }
+        } else {
+            moves.add(Move.encode(from, to, pawn, captured))
+        }
     }
 
-    private fun removeMovesAfterBlockingPieces(piece: ChessPiece, moves: MutableList<Pair<Int, Int>>) {
-        var blockingPiece: ChessPiece? = null
-        var index = moves.indexOfFirst { (newX, newY) ->
-            val (file, rank) = PositionUtils.getFileRankFromCoordinates(newX, newY)
-            val pieceAtPosition = boardPosition.getPieceAtPosition(file, rank)
-            if (pieceAtPosition != null) {
-                blockingPiece = pieceAtPosition
-                true
-            } else false
-        }
-        if (blockingPiece?.let { it.color() != piece.color() } == true) {
-           index++
-        }
-        if (index in (0 until BOARD_SIZE)) {
-            moves.subList(index, moves.size).clear()
+    private fun addMoves(from: Int, pieceCode: Int, targets: Long, moves: MoveList) {
+        var remaining = targets
+        while (remaining != 0L) {
+            val to = Bitboards.lowestSquare(remaining)
+            moves.add(Move.encode(from, to, pieceCode, board.pieceCodeAt(to)))
+            remaining = remaining and (remaining - 1)
         }
     }
-}
\ No newline at end of file
+}
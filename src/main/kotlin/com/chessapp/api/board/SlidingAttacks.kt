@@ -0,0 +1,127 @@
+package com.chessapp.api.board
+
+/**
+ * Rook, bishop and queen attack lookups using magic bitboards.
+ *
+ * For every square, the occupancy of the squares a slider could be blocked on is multiplied by
+ * a "magic" number so that the top bits of the product form a collision-free index into a
+ * table of precomputed attack sets. The tables are filled in once, when the object is first
+ * used; after that an attack set is a mask, a multiply, a shift and an array read.
+ */
+object SlidingAttacks {
+
+    // Found with a seeded search over sparse random numbers; buildTable checks each one is collision-free
+    private val ROOK_MAGICS = longArrayOf(
+        0x008000908064C000L, 0x0040200040001000L, 0x0180100080A0010AL, 0x8880041000800800uL.toLong(),
+        0x1200100201200804L, 0x0200020004011008L, 0x2180010000800600L, 0x0200005088210204L,
+        0x0400800040008021L, 0x0400400020005000L, 0x8240801000200080uL.toLong(), 0x8611001004200900uL.toLong(),
+        0x008180800C001800L, 0x0100800200800400L, 0x0A02000102000408L, 0x8020802300104280uL.toLong(),
+        0x0080004000402000L, 0xE010104000402000uL.toLong(), 0x0800808010002000L, 0xA280210008100100uL.toLong(),
+        0x0001818014000800L, 0xA002010100080400uL.toLong(), 0x0080240001020870L, 0x0001020004048845L,
+        0x0081826280004004L, 0x2020810900284000L, 0x0200100080802000L, 0x0200080080100080L,
+        0x8083080100100500uL.toLong(), 0x4406000901000400L, 0x0005020080800100L, 0x0090204200008114L,
+        0x0010400094800420L, 0x0900804000802002L, 0x0201001841002000L, 0x4100080080801000L,
+        0x4540040080800800L, 0x0002001004040020L, 0x0281195814001002L, 0x1240800040800100L,
+        0x0880042000524004L, 0x02C080410206002CL, 0x0801200241050010L, 0x8400080010008080uL.toLong(),
+        0x0008000500090010L, 0x0082009084020008L, 0x4012000108020004L, 0x9000104D08860004uL.toLong(),
+        0x2004204114800100L, 0x0148802112400300L, 0x0202842000100880L, 0x001B080080900080L,
+        0x001A002008100600L, 0x0004008004020080L, 0x5181000600040300L, 0x0000044401128A00L,
+        0x8044110480002441uL.toLong(), 0x2008110084402202L, 0x90806005090010C1uL.toLong(), 0x000420310A004A42L,
+        0x0023001004020801L, 0x0882001008040102L, 0x000230088118020CL, 0x0000019025040042L
+    )
+
+    private val BISHOP_MAGICS = longArrayOf(
+        0x0045010808008680L, 0x2002080204004898L, 0x0210009A10400006L, 0x0824050200810200L,
+        0x0006061105004090L, 0x00010108C0000000L, 0x0814040282104004L, 0x0012012201106800L,
+        0x10823014100C1040L, 0x0080C2088802808CL, 0x0281108410404000L, 0x0101212041826200L,
+        0x0020141028221058L, 0x2201020202200202L, 0x000082A801482000L, 0x0000008401411044L,
+        0x0007103014300404L, 0x0002091110010100L, 0x42140012040C0808L, 0x0800808802004020L,
+        0x90C4004210140000uL.toLong(), 0x0800200900A01000L, 0x00D0400201108810L, 0x80820183814412A0uL.toLong(),
+        0x00A01008202202B4L, 0x01C2021A09500402L, 0x0084440208042400L, 0x800400400C090100uL.toLong(),
+        0xBA10040010802100uL.toLong(), 0xD182009006005000uL.toLong(), 0x5011021001009004L, 0x0020420200510400L,
+        0x0292104000468800L, 0x00043009091C0500L, 0x0280441000020025L, 0x0042820080080080L,
+        0x0440101010010040L, 0x1000900100808080L, 0x0108108120089800L, 0x0044010200012682L,
+        0xC002500420900400uL.toLong(), 0x0040482210710800L, 0x0002060024000200L, 0x0281020A44000800L,
+        0xA0021200A4000200uL.toLong(), 0x0001301000840840L, 0x2868500108444220L, 0x0004111041000200L,
+        0x8044020842080200uL.toLong(), 0x0000220104210200L, 0x0000021201044000L, 0x0000280884040028L,
+        0x4012114010858003L, 0x0000081004082B88L, 0x3892700508208002L, 0x00220A041B060400L,
+        0x0812020284014881L, 0x010434A282103100L, 0x0490400824020800L, 0x4A20002C00208800L,
+        0x000000A011020200L, 0x4002940A02482202L, 0x5100100202140406L, 0x02102000840540C1L
+    )
+
+    private val rookMasks = LongArray(64)
+    private val rookShifts = IntArray(64)
+    private val rookOffsets = IntArray(64)
+    private val rookTable: LongArray
+
+    private val bishopMasks = LongArray(64)
+    private val bishopShifts = IntArray(64)
+    private val bishopOffsets = IntArray(64)
+    private val bishopTable: LongArray
+
+    init {
+        rookTable = buildTable(rookMasks, ROOK_MAGICS, rookShifts, rookOffsets, ::rookMask, Bitboards::rookAttacksByRayWalk)
+        bishopTable = buildTable(bishopMasks, BISHOP_MAGICS, bishopShifts, bishopOffsets, ::bishopMask, Bitboards::bishopAttacksByRayWalk)
+    }
+
+    fun rookAttacks(square: Int, occupancy: Long): Long {
+        val index = ((occupancy and rookMasks[square]) * ROOK_MAGICS[square]) ushr rookShifts[square]
+        return rookTable[rookOffsets[square] + index.toInt()]
+    }
+
+    fun bishopAttacks(square: Int, occupancy: Long): Long {
+        val index = ((occupancy and bishopMasks[square]) * BISHOP_MAGICS[square]) ushr bishopShifts[square]
+        return bishopTable[bishopOffsets[square] + index.toInt()]
+    }
+
+    fun queenAttacks(square: Int, occupancy: Long): Long = rookAttacks(square, occupancy) or bishopAttacks(square, occupancy)
+
+    // The squares whose occupancy affects a rook's attacks: its rays, minus the last square of each ray
+    private fun rookMask(square: Int): Long {
+        val rank = Bitboards.RANK_1 shl (square and 56)
+        val file = Bitboards.FILE_A shl (square and 7)
+        val edges = ((Bitboards.RANK_1 or Bitboards.RANK_8) and rank.inv()) or
+            ((Bitboards.FILE_A or Bitboards.FILE_H) and file.inv())
+        return Bitboards.rookAttacksByRayWalk(square, Bitboards.EMPTY) and edges.inv()
+    }
+
+    private fun bishopMask(square: Int): Long {
+        val edges = Bitboards.RANK_1 or Bitboards.RANK_8 or Bitboards.FILE_A or Bitboards.FILE_H
+        return Bitboards.bishopAttacksByRayWalk(square, Bitboards.EMPTY) and edges.inv()
+    }
+
+    private fun buildTable(
+        masks: LongArray,
+        magics: LongArray,
+        shifts: IntArray,
+        offsets: IntArray,
+        maskFor: (Int) -> Long,
+        attacksFor: (Int, Long) -> Long
+    ): LongArray {
+        var size = 0
+        for (square in 0 until 64) {
+            masks[square] = maskFor(square)
+            shifts[square] = 64 - Bitboards.count(masks[square])
+            offsets[square] = size
+            size += 1 shl Bitboards.count(masks[square])
+        }
+
+        val table = LongArray(size)
+        val filled = BooleanArray(size)
+        for (square in 0 until 64) {
+            val mask = masks[square]
+
+            // enumerate every subset of the mask with the carry-rippler trick
+            var subset = 0L
+            do {
+                val attacks = attacksFor(square, subset)
+                val slot = offsets[square] + ((subset * magics[square]) ushr shifts[square]).toInt()
+                check(!filled[slot] || table[slot] == attacks) { "Magic for square $square maps two attack sets to one slot" }
+                filled[slot] = true
+                table[slot] = attacks
+                subset = (subset - mask) and mask
+            } while (subset != 0L)
+        }
+        return table
+    }
+}
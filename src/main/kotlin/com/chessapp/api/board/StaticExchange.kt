@@ -0,0 +1,86 @@
+package com.chessapp.api.board
+
+/**
+ * Static exchange evaluation: what a move wins or loses once both sides have captured back and
+ * forth on its to square, each always with its least valuable attacker and each free to stop
+ * when recapturing would lose. Nothing is played on the board. The exchange is run on a copy of
+ * the occupancy from AttackDetector.attackersTo: every capture lifts the capturer off it, and the
+ * sliders it uncovers behind it join the attackers, so batteries and x-rays are counted.
+ *
+ * Pins are not: a pinned piece may still recapture. Castling exchanges nothing
+ */
+object StaticExchange {
+
+    /**
+     * Piece values in centipawns, by PieceCodes type. The king's only matters when it is the
+     * piece moving, in which case it is lost if the square is attacked at all
+     */
+    val PIECE_VALUES = intArrayOf(100, 320, 330, 500, 900, 20000)
+
+    /**
+     * Whether the move wins at least threshold centipawns for the side making it once the
+     * exchange on its to square is over, e.g. see(board, move, 0) for a move that does not
+     * lose material. The move must be one of the side to move's, made from the position on
+     * the board; it need not be legal
+     */
+    fun see(board: Board, move: Int, threshold: Int): Boolean {
+        if (Move.hasFlag(move, Move.FLAG_CASTLING)) return threshold <= 0
+
+        val from = Move.from(move)
+        val to = Move.to(move)
+        val piece = Move.piece(move)
+        val promoted = Move.isPromotion(move)
+
+        // What the move itself wins, and from here on what the piece left on the square is worth
+        var balance = (if (Move.isCapture(move)) PIECE_VALUES[PieceCodes.typeOf(Move.captured(move))] else 0) - threshold
+        if (promoted) balance += PIECE_VALUES[Move.promotion(move)] - PIECE_VALUES[PieceCodes.PAWN]
+        if (balance < 0) return false
+        balance = (if (promoted) PIECE_VALUES[Move.promotion(move)] else PIECE_VALUES[PieceCodes.typeOf(piece)]) - balance
+        if (balance <= 0) return true // even losing the piece keeps us at the threshold
+
+        var occupancy = (board.occupancy() xor Bitboards.squareBit(from)) or Bitboards.squareBit(to)
+        if (Move.hasFlag(move, Move.FLAG_EN_PASSANT)) {
+            occupancy = occupancy xor Bitboards.squareBit(if (PieceCodes.colorOf(piece) == PieceCodes.WHITE) to - 8 else to + 8)
+        }
+        val diagonalSliders = sliders(board, PieceCodes.BISHOP)
+        val lateralSliders = sliders(board, PieceCodes.ROOK)
+        var attackers = AttackDetector.attackersTo(board, to, occupancy)
+
+        // result is 1 while the side that made the move is ahead of the threshold
+        var side = PieceCodes.colorOf(piece)
+        var result = 1
+        while (true) {
+            side = PieceCodes.opposite(side)
+            attackers = attackers and occupancy
+            val ownAttackers = attackers and board.occupancy(side)
+            if (ownAttackers == Bitboards.EMPTY) break
+            result = result xor 1
+
+            var type = PieceCodes.PAWN
+            while ((ownAttackers and board.pieceBitboard(PieceCodes.code(side, type))) == Bitboards.EMPTY) type++
+            if (type == PieceCodes.KING) {
+                // the king may only take last: if anything still attacks the square, the capture is illegal
+                return (if ((attackers and board.occupancy(PieceCodes.opposite(side))) != Bitboards.EMPTY) result xor 1 else result) == 1
+            }
+
+            balance = PIECE_VALUES[type] - balance
+            if (balance < result) break
+            occupancy = occupancy xor Bitboards.squareBit(
+                Bitboards.lowestSquare(ownAttackers and board.pieceBitboard(PieceCodes.code(side, type)))
+            )
+            if (type == PieceCodes.PAWN || type == PieceCodes.BISHOP || type == PieceCodes.QUEEN) {
+                attackers = attackers or (SlidingAttacks.bishopAttacks(to, occupancy) and diagonalSliders)
+            }
+            if (type == PieceCodes.ROOK || type == PieceCodes.QUEEN) {
+                attackers = attackers or (SlidingAttacks.rookAttacks(to, occupancy) and lateralSliders)
+            }
+        }
+        return result == 1
+    }
+
+    // The sliders of both colors that move like the given type, queens included
+    private fun sliders(board: Board, type: Int): Long =
+        board.pieceBitboard(PieceCodes.code(PieceCodes.WHITE, type)) or board.pieceBitboard(PieceCodes.code(PieceCodes.BLACK, type)) or
+            board.pieceBitboard(PieceCodes.code(PieceCodes.WHITE, PieceCodes.QUEEN)) or
+            board.pieceBitboard(PieceCodes.code(PieceCodes.BLACK, PieceCodes.QUEEN))
+}
@@ -0,0 +1,20 @@
+package com.chessapp.api.board
+
+/**
+ * The outcome of validating a game: the number of moves that could be played, and if the game
+ * has an illegal move, its ply and why. A bad starting position is reported at ply 0
+ */
+class ValidationResult(
+    val legalPlies: Int,
+    val illegalPly: Int = NO_ERROR,
+    val error: String? = null
+) {
+    val isValid: Boolean get() = illegalPly == NO_ERROR
+
+    override fun toString(): String =
+        if (isValid) "ValidationResult(plies=$legalPlies)" else "ValidationResult(illegal ply $illegalPly: $error)"
+
+    companion object {
+        const val NO_ERROR = -1
+    }
+}
@@ -0,0 +1,95 @@
+package com.chessapp.api.board
+
+/**
+ * Zobrist hashing: every (piece, square) pair and every bit of game state gets a random 64-bit
+ * key, and a position's key is the XOR of the keys of everything in it. Because XOR undoes
+ * itself, the boards keep their key up to date by XORing keys in and out as pieces and state
+ * change, rather than rehashing the whole position.
+ *
+ * The keys come from a fixed seed, so a position has the same key in every run
+ */
+object Zobrist {
+
+    private val pieceSquareKeys = LongArray(PieceCodes.PIECE_CODE_COUNT * 64)
+    private val castlingKeys = LongArray(16)
+    private val enPassantFileKeys = LongArray(8)
+    // The pawn entries of pieceSquareKeys, and 0 for every other piece
+    private val pawnSquareKeys = LongArray(PieceCodes.PIECE_CODE_COUNT * 64)
+    val SIDE_TO_MOVE: Long
+
+    init {
+        var state = SEED
+        fun next(): Long {
+            // SplitMix64
+            state += 0x9E3779B97F4A7C15uL.toLong()
+            var z = state
+            z = (z xor (z ushr 30)) * 0xBF58476D1CE4E5B9uL.toLong()
+            z = (z xor (z ushr 27)) * 0x94D049BB133111EBuL.toLong()
+            return z xor (z ushr 31)
+        }
+
+        for (i in pieceSquareKeys.indices) pieceSquareKeys[i] = next()
+        // one key per castling right, so a rights set hashes the same however it was reached
+        val rightKeys = LongArray(4) { next() }
+        for (rights in castlingKeys.indices) {
+            for (bit in 0 until 4) {
+                if ((rights and (1 shl bit)) != 0) castlingKeys[rights] = castlingKeys[rights] xor rightKeys[bit]
+            }
+        }
+        for (i in enPassantFileKeys.indices) enPassantFileKeys[i] = next()
+        SIDE_TO_MOVE = next()
+        for (color in PieceCodes.WHITE..PieceCodes.BLACK) {
+            val start = PieceCodes.code(color, PieceCodes.PAWN) * 64
+            pieceSquareKeys.copyInto(pawnSquareKeys, start, start, start + 64)
+        }
+    }
+
+    fun pieceSquare(pieceCode: Int, square: Int): Long = pieceSquareKeys[pieceCode * 64 + square]
+
+    /**
+     * The key of a (piece, square) pair in the pawn key, which hashes only the pawns: the same as
+     * pieceSquare for pawns and 0 for other pieces, so boards can apply it to every piece
+     */
+    fun pawnSquare(pieceCode: Int, square: Int): Long = pawnSquareKeys[pieceCode * 64 + square]
+
+    fun castling(castlingRights: Int): Long = castlingKeys[castlingRights]
+
+    /**
+     * The key for an en passant target square, or 0 if there is none. Only the file is hashed
+     */
+    fun enPassant(enPassantSquare: Int): Long =
+        if (enPassantSquare == BitboardPosition.NO_SQUARE) 0L else enPassantFileKeys[enPassantSquare and 7]
+
+    /**
+     * The key of a board computed from scratch, for checking the incrementally updated one
+     */
+    fun computeKey(board: Board): Long {
+        var key = 0L
+        var pieces = board.occupancy()
+        while (pieces != 0L) {
+            val square = Bitboards.lowestSquare(pieces)
+            key = key xor pieceSquare(board.pieceCodeAt(square), square)
+            pieces = pieces and (pieces - 1)
+        }
+        if (board.sideToMove == PieceCodes.BLACK) key = key xor SIDE_TO_MOVE
+        return key xor castling(board.castlingRights) xor enPassant(board.enPassantSquare)
+    }
+
+    /**
+     * The pawn key of a board computed from scratch, for checking the incrementally updated one
+     */
+    fun computePawnKey(board: Board): Long {
+        var key = 0L
+        for (color in PieceCodes.WHITE..PieceCodes.BLACK) {
+            val code = PieceCodes.code(color, PieceCodes.PAWN)
+            var pawns = board.pieceBitboard(code)
+            while (pawns != 0L) {
+                key = key xor pieceSquare(code, Bitboards.lowestSquare(pawns))
+                pawns = pawns and (pawns - 1)
+            }
+        }
+        return key
+    }
+
+    private const val SEED = 0x3C6EF372FE94F82AL
+}
@@ -0,0 +1,162 @@
+package com.chessapp.api.book
+
+import com.chessapp.api.board.Board
+import com.chessapp.api.board.Move
+import com.chessapp.api.board.MoveList
+import java.io.Closeable
+import java.io.IOException
+import java.nio.MappedByteBuffer
+import java.nio.channels.FileChannel
+import java.nio.file.Path
+import java.nio.file.StandardOpenOption
+import kotlin.random.Random
+
+/**
+ * An opening book in the Polyglot .bin format, read through a memory mapping.
+ *
+ * The file is a run of 16-byte big-endian entries sorted by position key: the key (8 bytes),
+ * the move (2), its weight (2) and a learning value (4) that is ignored here. A probe is a
+ * binary search for the first entry of the key and a scan over the entries after it, so it
+ * allocates nothing. Moves are matched against the legal moves of the position, which must be
+ * passed in already generated; a book move that is not legal there is skipped.
+ *
+ * The book can be shared between threads
+ */
+class PolyglotBook(path: Path, val keys: PolyglotKeys = PolyglotKeys.DEFAULT) : Closeable {
+
+    /**
+     * A move from the book with its weight
+     */
+    data class BookMove(val move: Int, val weight: Int)
+
+    private val channel = FileChannel.open(path, StandardOpenOption.READ)
+    private val entries: MappedByteBuffer
+
+    val entryCount: Int
+
+    init {
+        try {
+            val size = channel.size()
+            if (size % ENTRY_SIZE != 0L) throw IOException("$path is not a Polyglot book, its size is not a multiple of $ENTRY_SIZE")
+            if (size > Int.MAX_VALUE) throw IOException("$path is too large for a Polyglot book")
+            entries = channel.map(FileChannel.MapMode.READ_ONLY, 0, size)
+            entryCount = (size / ENTRY_SIZE).toInt()
+        } catch (e: Exception) {
+            channel.close()
+            throw e
+        }
+    }
+
+    /**
+     * Picks one of the book moves for the position at random, each with a chance in proportion
+     * to its weight, or returns Move.NONE if the position is not in the book
+     */
+    fun pickMove(board: Board, legalMoves: MoveList, random: Random = Random.Default): Int {
+        val key = keys.key(board)
+        val first = firstEntry(key)
+        if (first < 0) return Move.NONE
+
+        var totalWeight = 0L
+        var end = first
+        while (end < entryCount && keyAt(end) == key) {
+            if (legalMove(end, legalMoves) != Move.NONE) totalWeight += weightAt(end)
+            end++
+        }
+        if (totalWeight == 0L) return Move.NONE
+
+        var pick = random.nextLong(totalWeight)
+        for (entry in first until end) {
+            val move = legalMove(entry, legalMoves)
+            if (move == Move.NONE) continue
+            pick -= weightAt(entry)
+            if (pick < 0) return move
+        }
+        return Move.NONE
+    }
+
+    /**
+     * The book move with the highest weight, or Move.NONE if the position is not in the book
+     */
+    fun bestMove(board: Board, legalMoves: MoveList): Int {
+        val key = keys.key(board)
+        var best = Move.NONE
+        var bestWeight = -1
+        var entry = firstEntry(key)
+        if (entry < 0) return Move.NONE
+        while (entry < entryCount && keyAt(entry) == key) {
+            val move = legalMove(entry, legalMoves)
+            if (move != Move.NONE && weightAt(entry) > bestWeight) {
+                best = move
+                bestWeight = weightAt(entry)
+            }
+            entry++
+        }
+        return best
+    }
+
+    /**
+     * All the legal book moves for the position, in book order
+     */
+    fun moves(board: Board, legalMoves: MoveList): List<BookMove> {
+        val key = keys.key(board)
+        val moves = mutableListOf<BookMove>()
+        var entry = firstEntry(key)
+        if (entry < 0) return moves
+        while (entry < entryCount && keyAt(entry) == key) {
+            val move = legalMove(entry, legalMoves)
+            if (move != Move.NONE) moves.add(BookMove(move, weightAt(entry)))
+            entry++
+        }
+        return moves
+    }
+
+    override fun close() {
+        channel.close()
+    }
+
+    // Binary search for the first entry with the key, in unsigned order; -1 if there is none
+    private fun firstEntry(key: Long): Int {
+        var low = 0
+        var high = entryCount
+        while (low < high) {
+            val mid = (low + high) ushr 1
+            if (java.lang.Long.compareUnsigned(keyAt(mid), key) < 0) low = mid + 1 else high = mid
+        }
+        return if (low < entryCount && keyAt(low) == key) low else -1
+    }
+
+    private fun keyAt(entry: Int): Long = entries.getLong(entry * ENTRY_SIZE)
+
+    private fun weightAt(entry: Int): Int = entries.getShort(entry * ENTRY_SIZE + 10).toInt() and 0xFFFF
+
+    private fun legalMove(entry: Int, legalMoves: MoveList): Int =
+        fromPolyglotMove(entries.getShort(entry * ENTRY_SIZE + 8).toInt() and 0xFFFF, legalMoves)
+
+    companion object {
+        const val ENTRY_SIZE = 16
+
+        /**
+         * A move in the Polyglot encoding: to square in bits 0-5, from square in bits 6-11 and the
+         * promotion piece in bits 12-14 (knight 1 to queen 4). Castling is written as the king
+         * taking its own rook
+         */
+        fun toPolyglotMove(move: Int): Int {
+            val from = Move.from(move)
+            var to = Move.to(move)
+            if (Move.hasFlag(move, Move.FLAG_CASTLING)) {
+                to = (to and 0x38) or (if ((to and 7) > (from and 7)) 7 else 0)
+            }
+            return to or (from shl 6) or (Move.promotion(move) shl 12)
+        }
+
+        /**
+         * The legal move matching a Polyglot move, or Move.NONE if none of them does
+         */
+        fun fromPolyglotMove(polyglotMove: Int, legalMoves: MoveList): Int {
+            for (i in 0 until legalMoves.size) {
+                if (toPolyglotMove(legalMoves[i]) == polyglotMove) return legalMoves[i]
+            }
+            return Move.NONE
+        }
+    }
+}
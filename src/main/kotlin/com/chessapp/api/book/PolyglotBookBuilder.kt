@@ -0,0 +1,234 @@
+package com.chessapp.api.book
+
+import com.chessapp.api.archive.LongPairSort
+import com.chessapp.api.board.BitboardPosition
+import com.chessapp.api.board.Fen
+import com.chessapp.api.board.LegalMoveGenerator
+import com.chessapp.api.board.Move
+import com.chessapp.api.board.MoveList
+import com.chessapp.api.board.PieceCodes
+import com.chessapp.api.pgn.PgnGame
+import com.chessapp.api.pgn.PgnReader
+import java.nio.ByteBuffer
+import java.nio.channels.FileChannel
+import java.nio.file.Path
+import java.nio.file.StandardOpenOption
+import java.util.concurrent.Callable
+import java.util.concurrent.ExecutionException
+import java.util.concurrent.Executors
+
+/**
+ * Builds a Polyglot opening book from PGN games.
+ *
+ * Counting threads take games from one shared reader, replay the first maxPly moves of each and
+ * count every (position, move) pair in a table of their own, together with the score the move
+ * earned for the side that played it: 2 for a win, 1 for a draw or an unfinished game, 0 for a
+ * loss. The tables are then merged by sorting all their pairs by key and move, pairs played in
+ * fewer than minGames games are dropped, and the rest are written with their score as weight,
+ * best first within each position. Weights are halved as many times as needed to fit in 16 bits.
+ *
+ * Games with a move that cannot be played are counted up to that move
+ */
+class PolyglotBookBuilder(
+    private val threads: Int = Runtime.getRuntime().availableProcessors(),
+    private val keys: PolyglotKeys = PolyglotKeys.DEFAULT,
+    private val maxPly: Int = DEFAULT_MAX_PLY,
+    private val minGames: Int = 1
+) {
+
+    init {
+        require(threads >= 1) { "At least one thread is needed, got: $threads" }
+        require(maxPly >= 1) { "Max ply must be positive, got: $maxPly" }
+        require(minGames >= 1) { "Min games must be positive, got: $minGames" }
+    }
+
+    data class Stats(val games: Long, val entries: Int)
+
+    fun build(pgn: Path, output: Path): Stats {
+        val tables = FileChannel.open(pgn, StandardOpenOption.READ).use { channel ->
+            val reader = PgnReader(channel)
+            val executor = Executors.newFixedThreadPool(threads) { task -> Thread(task, "book-builder").apply { isDaemon = true } }
+            try {
+                executor.invokeAll((0 until threads).map {
+                    Callable {
+                        val counter = GameCounter()
+                        while (true) counter.count(synchronized(reader) { reader.next() } ?: break)
+                        counter.table
+                    }
+                }).map {
+                    try {
+                        it.get()
+                    } catch (e: ExecutionException) {
+                        throw e.cause ?: e
+                    }
+                }
+            } finally {
+                executor.shutdownNow()
+            }
+        }
+        val entries = merge(tables)
+        write(output, entries)
+        return Stats(tables.sumOf { it.gameCount }, entries.size)
+    }
+
+    private inner class GameCounter {
+        val table = CountTable()
+        private val board = BitboardPosition()
+        private val generator = LegalMoveGenerator(board)
+        private val legalMoves = MoveList()
+
+        fun count(game: PgnGame) {
+            table.gameCount++
+            try {
+                Fen.readChecked(game.startingFen, board)
+            } catch (e: IllegalArgumentException) {
+                return
+            }
+            val whiteScore = when (game.result) {
+                "1-0" -> 2
+                "0-1" -> 0
+                else -> 1
+            }
+            for (i in 0 until minOf(game.moveCount, maxPly)) {
+                generator.generateLegalMoves(legalMoves)
+                val move = game.resolve(i, legalMoves)
+                if (move == Move.NONE) return
+                val score = if (board.sideToMove == PieceCodes.WHITE) whiteScore else 2 - whiteScore
+                table.add(keys.key(board), PolyglotBook.toPolyglotMove(move), score)
+                board.makeMove(move)
+            }
+        }
+    }
+
+    private class Entry(val key: Long, val move: Int, val weight: Int)
+
+    /**
+     * Sums the counts of every table by key and move and returns the book entries in file order
+     */
+    private fun merge(tables: List<CountTable>): List<Entry> {
+        val size = tables.sumOf { it.size }
+        val keys = LongArray(size)
+        // the move above the index of the pair's counts, so sorting orders by key, then move
+        val movesAndIndexes = LongArray(size)
+        val games = IntArray(size)
+        val scores = IntArray(size)
+        var n = 0
+        for (table in tables) {
+            for (slot in table.moves.indices) {
+                if (table.moves[slot] == 0) continue
+                keys[n] = table.keys[slot]
+                movesAndIndexes[n] = (table.moves[slot].toLong() shl 32) or n.toLong()
+                games[n] = table.games[slot]
+                scores[n] = table.scores[slot]
+                n++
+            }
+        }
+        LongPairSort.sort(keys, movesAndIndexes, 0, size)
+
+        val entries = ArrayList<Entry>()
+        var i = 0
+        while (i < size) {
+            val key = keys[i]
+            val firstOfKey = entries.size
+            while (i < size && keys[i] == key) {
+                val move = (movesAndIndexes[i] ushr 32).toInt()
+                var moveGames = 0
+                var moveScore = 0L
+                while (i < size && keys[i] == key && (movesAndIndexes[i] ushr 32).toInt() == move) {
+                    val index = movesAndIndexes[i].toInt()
+                    moveGames += games[index]
+                    moveScore += scores[index]
+                    i++
+                }
+                if (moveGames >= minGames && moveScore > 0) {
+                    entries.add(Entry(key, move, minOf(moveScore, Int.MAX_VALUE.toLong()).toInt()))
+                }
+            }
+            entries.subList(firstOfKey, entries.size).sortByDescending { it.weight }
+        }
+
+        var shift = 0
+        val maxWeight = entries.maxOfOrNull { it.weight } ?: 0
+        while ((maxWeight ushr shift) > 0xFFFF) shift++
+        if (shift == 0) return entries
+        // keep every entry at weight 1 or more, so no move drops out of the book when scaling
+        return entries.map { Entry(it.key, it.move, maxOf(1, it.weight ushr shift)) }
+    }
+
+    private fun write(output: Path, entries: List<Entry>) {
+        FileChannel.open(output, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE).use { channel ->
+            val buffer = ByteBuffer.allocateDirect(WRITE_BUFFER_SIZE)
+            for (entry in entries) {
+                if (buffer.remaining() < PolyglotBook.ENTRY_SIZE) flush(channel, buffer)
+                buffer.putLong(entry.key).putShort(entry.move.toShort()).putShort(entry.weight.toShort()).putInt(0)
+            }
+            flush(channel, buffer)
+        }
+    }
+
+    private fun flush(channel: FileChannel, buffer: ByteBuffer) {
+        buffer.flip()
+        while (buffer.hasRemaining()) channel.write(buffer)
+        buffer.clear()
+    }
+
+    /**
+     * Open-addressing counts of (key, move) pairs. A Polyglot move is never 0, so a move of 0
+     * marks a free slot
+     */
+    private class CountTable {
+        var keys = LongArray(INITIAL_CAPACITY)
+        var moves = IntArray(INITIAL_CAPACITY)
+        var games = IntArray(INITIAL_CAPACITY)
+        var scores = IntArray(INITIAL_CAPACITY)
+        var size = 0
+        var gameCount = 0L
+
+        fun add(key: Long, move: Int, score: Int) {
+            if (size * 2 >= moves.size) grow()
+            val slot = find(keys, moves, key, move)
+            if (moves[slot] == 0) {
+                keys[slot] = key
+                moves[slot] = move
+                size++
+            }
+            games[slot]++
+            scores[slot] += score
+        }
+
+        private fun grow() {
+            val oldKeys = keys
+            val oldMoves = moves
+            val oldGames = games
+            val oldScores = scores
+            keys = LongArray(oldKeys.size * 2)
+            moves = IntArray(oldKeys.size * 2)
+            games = IntArray(oldKeys.size * 2)
+            scores = IntArray(oldKeys.size * 2)
+            for (old in oldMoves.indices) {
+                if (oldMoves[old] == 0) continue
+                val slot = find(keys, moves, oldKeys[old], oldMoves[old])
+                keys[slot] = oldKeys[old]
+                moves[slot] = oldMoves[old]
+                games[slot] = oldGames[old]
+                scores[slot] = oldScores[old]
+            }
+        }
+
+        private fun find(keys: LongArray, moves: IntArray, key: Long, move: Int): Int {
+            val mask = moves.size - 1
+            var slot = (((key xor move.toLong()) * 0x9E3779B97F4A7C15uL.toLong()) ushr 32).toInt() and mask
+            while (moves[slot] != 0 && (keys[slot] != key || moves[slot] != move)) slot = (slot + 1) and mask
+            return slot
+        }
+
+        companion object {
+            private const val INITIAL_CAPACITY = 1 shl 12
+        }
+    }
+
+    companion object {
+        const val DEFAULT_MAX_PLY = 24
+        private const val WRITE_BUFFER_SIZE = 1 shl 16
+    }
+}
@@ -0,0 +1,106 @@
+package com.chessapp.api.book
+
+import com.chessapp.api.board.BitboardPosition
+import com.chessapp.api.board.Bitboards
+import com.chessapp.api.board.Board
+import com.chessapp.api.board.PieceCodes
+import java.io.InputStream
+
+/**
+ * Position keys as Polyglot books compute them. These differ from the board's own Zobrist keys,
+ * both in their random numbers and in how they are combined:
+ *  - each piece hashes as 64 * kind + 8 * rank + file, where kind counts black pawn 0, white
+ *    pawn 1, black knight 2 and so on up to white king 11
+ *  - castling rights at 768 to 771, in the order white kingside, white queenside, black
+ *    kingside, black queenside
+ *  - the en passant file at 772 to 779, only when a pawn of the side to move stands ready to
+ *    capture there
+ *  - 780 when white is to move
+ *
+ * DEFAULT uses the 781 random numbers of the Random64 array published with the Polyglot book
+ * format, read from the RESOURCE text file of hexadecimal values, so books from other tools can
+ * be read and books built here can be read by them. seeded keys are only for callers that ask
+ * for them, as books built with them are unreadable anywhere else
+ */
+class PolyglotKeys(private val random64: LongArray) {
+
+    init {
+        require(random64.size == RANDOM_COUNT) { "Polyglot keys need $RANDOM_COUNT random numbers, got: ${random64.size}" }
+    }
+
+    /**
+     * The Polyglot key of the position on the board
+     */
+    fun key(board: Board): Long {
+        var key = 0L
+        var pieces = board.occupancy()
+        while (pieces != 0L) {
+            val square = Bitboards.lowestSquare(pieces)
+            val pieceCode = board.pieceCodeAt(square)
+            val kind = 2 * PieceCodes.typeOf(pieceCode) + (if (PieceCodes.colorOf(pieceCode) == PieceCodes.WHITE) 1 else 0)
+            key = key xor random64[64 * kind + square]
+            pieces = pieces and (pieces - 1)
+        }
+
+        val castlingRights = board.castlingRights
+        for (right in 0 until 4) {
+            if ((castlingRights and (1 shl right)) != 0) key = key xor random64[CASTLING_OFFSET + right]
+        }
+
+        val enPassantSquare = board.enPassantSquare
+        if (enPassantSquare != BitboardPosition.NO_SQUARE) {
+            val us = board.sideToMove
+            val capturers = Bitboards.PAWN_ATTACKS[PieceCodes.opposite(us)][enPassantSquare] and
+                board.pieceBitboard(PieceCodes.code(us, PieceCodes.PAWN))
+            if (capturers != 0L) key = key xor random64[EN_PASSANT_OFFSET + (enPassantSquare and 7)]
+        }
+
+        if (board.sideToMove == PieceCodes.WHITE) key = key xor random64[TURN_OFFSET]
+        return key
+    }
+
+    companion object {
+        const val RANDOM_COUNT = 781
+        const val RESOURCE = "/com/chessapp/api/book/polyglot-random64.txt"
+
+        private const val CASTLING_OFFSET = 768
+        private const val EN_PASSANT_OFFSET = 772
+        private const val TURN_OFFSET = 780
+
+        /**
+         * The standard Polyglot keys
+         */
+        val DEFAULT: PolyglotKeys by lazy {
+            val input = PolyglotKeys::class.java.getResourceAsStream(RESOURCE)
+                ?: throw IllegalStateException("Polyglot random numbers not on the classpath: $RESOURCE")
+            input.use { read(it) }
+        }
+
+        /**
+         * Keys from 781 hexadecimal numbers, with or without a 0x prefix, separated by whitespace
+         * or commas
+         */
+        fun read(input: InputStream): PolyglotKeys {
+            val values = input.bufferedReader().readText()
+                .split(Regex("[\\s,]+"))
+                .filter { it.isNotEmpty() }
+                .map { java.lang.Long.parseUnsignedLong(it.removePrefix("0x").removePrefix("0X").removeSuffix("ULL"), 16) }
+            return PolyglotKeys(values.toLongArray())
+        }
+
+        /**
+         * Keys from a SplitMix64 stream with the given seed, for books that never leave this project.
+         * Such books cannot be read with DEFAULT keys, nor by any other Polyglot reader
+         */
+        fun seeded(seed: Long): PolyglotKeys {
+            var state = seed
+            return PolyglotKeys(LongArray(RANDOM_COUNT) {
+                state += 0x9E3779B97F4A7C15uL.toLong()
+                var z = state
+                z = (z xor (z ushr 30)) * 0xBF58476D1CE4E5B9uL.toLong()
+                z = (z xor (z ushr 27)) * 0x94D049BB133111EBuL.toLong()
+                z xor (z ushr 31)
+            })
+        }
+    }
+}
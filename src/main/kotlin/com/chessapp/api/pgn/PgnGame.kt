@@ -0,0 +1,41 @@
+package com.chessapp.api.pgn
+
+import com.chessapp.api.board.Fen
+import com.chessapp.api.board.MoveList
+
+/**
+ * One game as read from a PGN file: its tag pairs, its result and its mainline moves in SAN.
+ * The moves are kept as the ASCII bytes of the movetext tokens, back to back in one array, so
+ * a game costs a handful of allocations however long it is; comments, variations and
+ * annotations are dropped while reading
+ */
+class PgnGame internal constructor(
+    val id: Long,
+    val tags: Map<String, String>,
+    val result: String,
+    private val sanText: ByteArray,
+    private val sanEnds: IntArray,
+    val moveCount: Int
+) {
+    /**
+     * The FEN the game starts from: its FEN tag if there is one, else the standard starting position
+     */
+    val startingFen: String get() = tags["FEN"] ?: Fen.STARTING_POSITION
+
+    fun san(index: Int): String {
+        val start = sanStart(index)
+        return String(sanText, start, sanEnds[index] - start, Charsets.US_ASCII)
+    }
+
+    /**
+     * The legal move the SAN of the given move names, see San.resolve
+     */
+    fun resolve(index: Int, legalMoves: MoveList): Int = San.resolve(sanText, sanStart(index), sanEnds[index], legalMoves)
+
+    private fun sanStart(index: Int): Int {
+        require(index in 0 until moveCount) { "Move index $index out of range for a game of $moveCount moves" }
+        return if (index == 0) 0 else sanEnds[index - 1]
+    }
+
+    override fun toString(): String = "PgnGame(id=$id, tags=$tags, moves=${(0 until moveCount).joinToString(" ") { san(it) }}, result=$result)"
+}
@@ -0,0 +1,118 @@
+package com.chessapp.api.pgn
+
+import java.nio.channels.FileChannel
+import java.nio.channels.ReadableByteChannel
+import java.nio.file.Path
+import java.nio.file.StandardOpenOption
+import java.util.concurrent.ArrayBlockingQueue
+import java.util.concurrent.ExecutionException
+import java.util.concurrent.ExecutorCompletionService
+import java.util.concurrent.ExecutorService
+import java.util.concurrent.Executors
+import java.util.concurrent.atomic.AtomicLong
+
+/**
+ * Replays a PGN stream through three stages running on a thread pool: one parser thread reading
+ * games, a configurable number of validator threads replaying them, and one sink thread handing
+ * the results to the caller's sink. The stages are joined by bounded queues, so a slow stage
+ * blocks the ones before it instead of letting games pile up in memory.
+ *
+ * Games reach the sink in the order validators finish them, which is not necessarily the order
+ * of the file; PgnGame.id gives the original order. If any stage throws, the pipeline is shut
+ * down and run rethrows the failure
+ */
+class PgnPipeline(
+    private val validatorThreads: Int = Runtime.getRuntime().availableProcessors(),
+    private val queueCapacity: Int = DEFAULT_QUEUE_CAPACITY,
+    private val bufferSize: Int = PgnReader.DEFAULT_BUFFER_SIZE
+) {
+
+    init {
+        require(validatorThreads >= 1) { "At least one validator thread is needed, got: $validatorThreads" }
+        require(queueCapacity >= 1) { "Queue capacity must be positive, got: $queueCapacity" }
+    }
+
+    /**
+     * Totals for one run. Games per second is over the whole run, from the first read to the
+     * last game leaving the sink
+     */
+    data class Stats(val games: Long, val invalidGames: Long, val moves: Long, val elapsedNanos: Long) {
+        val gamesPerSecond: Double get() = if (elapsedNanos == 0L) 0.0 else games * 1e9 / elapsedNanos
+    }
+
+    fun run(path: Path, sink: (ValidatedGame) -> Unit): Stats =
+        FileChannel.open(path, StandardOpenOption.READ).use { run(it, sink) }
+
+    fun run(channel: ReadableByteChannel, sink: (ValidatedGame) -> Unit): Stats {
+        val parsed = ArrayBlockingQueue<PgnGame>(queueCapacity)
+        val validated = ArrayBlockingQueue<ValidatedGame>(queueCapacity)
+        val games = AtomicLong()
+        val invalidGames = AtomicLong()
+        val moves = AtomicLong()
+        val start = System.nanoTime()
+
+        val executor: ExecutorService = Executors.newFixedThreadPool(validatorThreads + 2) { task ->
+            Thread(task, "pgn-pipeline").apply { isDaemon = true }
+        }
+        val stages = ExecutorCompletionService<Unit>(executor)
+        try {
+            stages.submit {
+                try {
+                    val reader = PgnReader(channel, bufferSize)
+                    while (true) parsed.put(reader.next() ?: break)
+                } finally {
+                    // let every validator know there is no more input, even if reading failed
+                    repeat(validatorThreads) { parsed.put(END_OF_GAMES) }
+                }
+            }
+            repeat(validatorThreads) {
+                stages.submit {
+                    val validator = PgnValidator()
+                    try {
+                        while (true) {
+                            val game = parsed.take()
+                            if (game === END_OF_GAMES) break
+                            validated.put(validator.validate(game))
+                        }
+                    } finally {
+                        validated.put(END_OF_RESULTS)
+                    }
+                }
+            }
+            stages.submit {
+                var finishedValidators = 0
+                while (finishedValidators < validatorThreads) {
+                    val result = validated.take()
+                    if (result === END_OF_RESULTS) {
+                        finishedValidators++
+                        continue
+                    }
+                    games.incrementAndGet()
+                    if (!result.isValid) invalidGames.incrementAndGet()
+                    moves.addAndGet(result.moves.size.toLong())
+                    sink(result)
+                }
+            }
+
+            // wait for the stages in the order they finish, so the first failure stops the rest at once
+            repeat(validatorThreads + 2) {
+                try {
+                    stages.take().get()
+                } catch (e: ExecutionException) {
+                    throw e.cause ?: e
+                }
+            }
+        } finally {
+            executor.shutdownNow()
+        }
+        return Stats(games.get(), invalidGames.get(), moves.get(), System.nanoTime() - start)
+    }
+
+    companion object {
+        const val DEFAULT_QUEUE_CAPACITY = 1024
+
+        // Markers passed down the queues when a stage has finished
+        private val END_OF_GAMES = PgnGame(-1, emptyMap(), "*", ByteArray(0), IntArray(0), 0)
+        private val END_OF_RESULTS = ValidatedGame(END_OF_GAMES, IntArray(0))
+    }
+}
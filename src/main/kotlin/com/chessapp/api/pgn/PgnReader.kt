@@ -0,0 +1,222 @@
+package com.chessapp.api.pgn
+
+import java.io.Closeable
+import java.nio.ByteBuffer
+import java.nio.channels.FileChannel
+import java.nio.channels.ReadableByteChannel
+import java.nio.file.Path
+import java.nio.file.StandardOpenOption
+
+/**
+ * Reads games one at a time from a PGN stream of any size.
+ *
+ * Bytes are read from the channel into one direct buffer and tokenized in place: tag pairs become
+ * the tag map, SAN tokens are copied into the game's move bytes, and move numbers, comments,
+ * variations, NAGs and results are skipped over. No text is held beyond the game being read.
+ * Tag values are decoded as UTF-8; movetext is treated as ASCII.
+ *
+ * The reader is lenient: text that is not a move is passed on as a SAN token, and it is up to
+ * whoever resolves the moves to reject it. A reader is not thread safe
+ */
+class PgnReader(private val channel: ReadableByteChannel, bufferSize: Int = DEFAULT_BUFFER_SIZE) : Closeable {
+
+    private val buffer = ByteBuffer.allocateDirect(bufferSize).apply { flip() }
+    private var endOfStream = false
+    private var nextId = 0L
+
+    // Scratch space for the game being read
+    private var sanText = ByteArray(4096)
+    private var sanLength = 0
+    private var sanEnds = IntArray(256)
+    private var moveCount = 0
+    private var token = ByteArray(256)
+
+    /**
+     * The next game in the stream, or null at the end of it
+     */
+    fun next(): PgnGame? {
+        sanLength = 0
+        moveCount = 0
+        val tags = LinkedHashMap<String, String>()
+        var result = "*"
+
+        // tag pairs
+        while (true) {
+            val c = skipWhitespace()
+            if (c < 0) break
+            if (c != '['.code) break
+            read()
+            readTag(tags)
+        }
+
+        // movetext, up to a result token, the start of the next game's tags or the end of the stream
+        movetext@ while (true) {
+            val c = skipWhitespace()
+            when {
+                c < 0 -> break@movetext
+                c == '['.code -> break@movetext
+                c == '{'.code -> skipPast('}'.code)
+                c == ';'.code -> skipPast('\n'.code)
+                c == '('.code -> skipVariation()
+                c == ')'.code -> read()
+                else -> {
+                    val length = readToken()
+                    if (length == 0) continue@movetext
+                    if (isResult(length)) {
+                        result = String(token, 0, length, Charsets.US_ASCII)
+                        break@movetext
+                    }
+                    addMoveToken(length)
+                }
+            }
+        }
+
+        if (tags.isEmpty() && moveCount == 0) return null
+        return PgnGame(nextId++, tags, result, sanText.copyOf(sanLength), sanEnds.copyOf(moveCount), moveCount)
+    }
+
+    override fun close() {
+        channel.close()
+    }
+
+    private fun readTag(tags: MutableMap<String, String>) {
+        skipWhitespace()
+        var nameLength = 0
+        while (true) {
+            val c = peek()
+            if (c < 0 || c == ' '.code || c == '\t'.code || c == '"'.code || c == ']'.code) break
+            appendToken(nameLength++, read())
+        }
+        val name = String(token, 0, nameLength, Charsets.US_ASCII)
+
+        skipWhitespace()
+        var valueLength = 0
+        if (peek() == '"'.code) {
+            read()
+            while (true) {
+                var c = read()
+                if (c < 0 || c == '"'.code) break
+                if (c == '\\'.code) c = read()
+                if (c < 0) break
+                appendToken(valueLength++, c)
+            }
+        }
+        val value = String(token, 0, valueLength, Charsets.UTF_8)
+        skipPast(']'.code)
+        if (name.isNotEmpty()) tags[name] = value
+    }
+
+    /**
+     * Reads a movetext token into the token buffer, dropping any move number in front of it,
+     * and returns its length
+     */
+    private fun readToken(): Int {
+        var length = 0
+        while (true) {
+            val c = peek()
+            if (c < 0 || isWhitespace(c) || c == '{'.code || c == '('.code || c == ')'.code || c == ';'.code || c == '['.code) break
+            appendToken(length++, read())
+        }
+
+        // NAGs, and a bare move number like "12." or "12..."
+        if (length > 0 && token[0] == '$'.code.toByte()) return 0
+        var digits = 0
+        while (digits < length && token[digits] in DIGIT_0..DIGIT_9) digits++
+        var dots = digits
+        while (dots < length && token[dots] == '.'.code.toByte()) dots++
+        if (dots > digits || (digits == 0 && dots > 0)) {
+            // "12.e4" with no space after the number: keep what follows the dots
+            System.arraycopy(token, dots, token, 0, length - dots)
+            length -= dots
+        }
+        return length
+    }
+
+    private fun isResult(length: Int): Boolean {
+        if (length == 1) return token[0] == '*'.code.toByte()
+        return matches(length, WHITE_WINS) || matches(length, BLACK_WINS) || matches(length, DRAW)
+    }
+
+    private fun matches(length: Int, expected: ByteArray): Boolean {
+        if (length != expected.size) return false
+        for (i in 0 until length) if (token[i] != expected[i]) return false
+        return true
+    }
+
+    private fun addMoveToken(length: Int) {
+        if (sanLength + length > sanText.size) sanText = sanText.copyOf(maxOf(sanText.size * 2, sanLength + length))
+        if (moveCount == sanEnds.size) sanEnds = sanEnds.copyOf(sanEnds.size * 2)
+        System.arraycopy(token, 0, sanText, sanLength, length)
+        sanLength += length
+        sanEnds[moveCount++] = sanLength
+    }
+
+    private fun appendToken(index: Int, c: Int) {
+        if (index == token.size) token = token.copyOf(token.size * 2)
+        token[index] = c.toByte()
+    }
+
+    private fun skipVariation() {
+        var depth = 0
+        while (true) {
+            when (read()) {
+                -1 -> return
+                '('.code -> depth++
+                ')'.code -> if (--depth == 0) return
+                '{'.code -> skipPast('}'.code)
+                ';'.code -> skipPast('\n'.code)
+            }
+        }
+    }
+
+    private fun skipPast(terminator: Int) {
+        while (true) {
+            val c = read()
+            if (c < 0 || c == terminator) return
+        }
+    }
+
+    // Skips whitespace and returns the next byte without consuming it, or -1 at the end of the stream
+    private fun skipWhitespace(): Int {
+        while (true) {
+            val c = peek()
+            if (c < 0 || !isWhitespace(c)) return c
+            read()
+        }
+    }
+
+    private fun isWhitespace(c: Int) = c == ' '.code || c == '\n'.code || c == '\r'.code || c == '\t'.code
+
+    private fun peek(): Int {
+        if (!buffer.hasRemaining() && !fill()) return -1
+        return buffer.get(buffer.position()).toInt() and 0xFF
+    }
+
+    private fun read(): Int {
+        if (!buffer.hasRemaining() && !fill()) return -1
+        return buffer.get().toInt() and 0xFF
+    }
+
+    private fun fill(): Boolean {
+        if (endOfStream) return false
+        buffer.clear()
+        var read = 0
+        while (read == 0) read = channel.read(buffer)
+        buffer.flip()
+        if (read < 0) endOfStream = true
+        return read > 0
+    }
+
+    companion object {
+        const val DEFAULT_BUFFER_SIZE = 1 shl 20
+
+        private val WHITE_WINS = "1-0".toByteArray(Charsets.US_ASCII)
+        private val BLACK_WINS = "0-1".toByteArray(Charsets.US_ASCII)
+        private val DRAW = "1/2-1/2".toByteArray(Charsets.US_ASCII)
+        private const val DIGIT_0 = '0'.code.toByte()
+        private const val DIGIT_9 = '9'.code.toByte()
+
+        fun open(path: Path, bufferSize: Int = DEFAULT_BUFFER_SIZE): PgnReader =
+            PgnReader(FileChannel.open(path, StandardOpenOption.READ), bufferSize)
+    }
+}
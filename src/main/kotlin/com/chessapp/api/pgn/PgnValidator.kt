@@ -0,0 +1,38 @@
+package com.chessapp.api.pgn
+
+import com.chessapp.api.board.BitboardPosition
+import com.chessapp.api.board.Fen
+import com.chessapp.api.board.LegalMoveGenerator
+import com.chessapp.api.board.Move
+import com.chessapp.api.board.MoveList
+
+/**
+ * Replays PGN games move by move, resolving each SAN token against the legal moves of the
+ * position it is played in. One board and move list are reused for every game, so a validator
+ * should be used by one thread at a time
+ */
+class PgnValidator {
+    private val board = BitboardPosition()
+    private val generator = LegalMoveGenerator(board)
+    private val legalMoves = MoveList()
+
+    fun validate(game: PgnGame): ValidatedGame {
+        try {
+            Fen.readChecked(game.startingFen, board)
+        } catch (e: IllegalArgumentException) {
+            return ValidatedGame(game, IntArray(0), 0, e.message)
+        }
+
+        val moves = IntArray(game.moveCount)
+        for (i in 0 until game.moveCount) {
+            generator.generateLegalMoves(legalMoves)
+            val move = game.resolve(i, legalMoves)
+            if (move == Move.NONE) {
+                return ValidatedGame(game, moves.copyOf(i), i, "'${game.san(i)}' is not a legal move in ${Fen.write(board)}")
+            }
+            board.makeMove(move)
+            moves[i] = move
+        }
+        return ValidatedGame(game, moves)
+    }
+}
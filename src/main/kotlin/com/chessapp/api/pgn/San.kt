@@ -0,0 +1,173 @@
+package com.chessapp.api.pgn
+
+import com.chessapp.api.board.BitboardPosition
+import com.chessapp.api.board.Bitboards
+import com.chessapp.api.board.LegalMoveGenerator
+import com.chessapp.api.board.Move
+import com.chessapp.api.board.MoveList
+import com.chessapp.api.board.PieceCodes
+
+/**
+ * Standard Algebraic Notation, as used in PGN movetext.
+ *
+ * SAN names a move by its piece, target square and just enough of its origin to tell it apart,
+ * so it can only be read against the legal moves of a position. resolve matches the text against
+ * a list of legal moves instead of parsing it into a move of its own, which keeps it allocation
+ * free and means anything it accepts is legal
+ */
+object San {
+
+    /**
+     * The legal move the SAN names, or Move.NONE if it names none or is ambiguous. Check and
+     * annotation suffixes (+ # ! ?) are ignored, and castling may be written with O or 0
+     */
+    fun resolve(san: CharSequence, legalMoves: MoveList): Int {
+        val bytes = ByteArray(san.length) { san[it].code.toByte() }
+        return resolve(bytes, 0, bytes.size, legalMoves)
+    }
+
+    /**
+     * As resolve, for SAN stored as ASCII bytes in text[start, end)
+     */
+    fun resolve(text: ByteArray, start: Int, end: Int, legalMoves: MoveList): Int {
+        var last = end
+        while (last > start && isSuffix(text[last - 1])) last--
+        if (last - start < 2) return Move.NONE
+
+        if (isCastlingChar(text[start])) return resolveCastling(text, start, last, legalMoves)
+
+        var i = start
+        var type = PieceCodes.PAWN
+        val pieceType = pieceType(text[i])
+        if (pieceType > 0) {
+            type = pieceType
+            i++
+        }
+
+        // promotion: "=Q", or a bare piece letter after the square
+        var promotion = 0
+        if (type == PieceCodes.PAWN && last - i >= 3 && pieceType(text[last - 1]) > 0) {
+            promotion = pieceType(text[last - 1])
+            last--
+            if (text[last - 1] == '='.code.toByte()) last--
+        }
+
+        if (last - i < 2) return Move.NONE
+        val targetFile = text[last - 2] - 'a'.code.toByte()
+        val targetRank = text[last - 1] - '1'.code.toByte()
+        if (targetFile !in 0..7 || targetRank !in 0..7) return Move.NONE
+        val target = targetRank * 8 + targetFile
+
+        // whatever sits between the piece and the target: origin file and/or rank, and 'x'
+        var fromFile = -1
+        var fromRank = -1
+        for (j in i until last - 2) {
+            val c = text[j].toInt().toChar()
+            when (c) {
+                in 'a'..'h' -> fromFile = c - 'a'
+                in '1'..'8' -> fromRank = c - '1'
+                'x', ':', '-' -> {}
+                else -> return Move.NONE
+            }
+        }
+
+        var match = Move.NONE
+        for (k in 0 until legalMoves.size) {
+            val move = legalMoves[k]
+            if (Move.to(move) != target || PieceCodes.typeOf(Move.piece(move)) != type || Move.promotion(move) != promotion) continue
+            if (Move.hasFlag(move, Move.FLAG_CASTLING)) continue
+            val from = Move.from(move)
+            if (fromFile >= 0 && (from and 7) != fromFile) continue
+            if (fromRank >= 0 && (from ushr 3) != fromRank) continue
+            if (match != Move.NONE) return Move.NONE // ambiguous
+            match = move
+        }
+        return match
+    }
+
+    /**
+     * The SAN of a legal move in the position, with a + or # suffix for check or mate
+     */
+    fun toSan(board: BitboardPosition, move: Int): String {
+        val generator = LegalMoveGenerator(board)
+        val legalMoves = MoveList()
+        generator.generateLegalMoves(legalMoves)
+        require(legalMoves.contains(move)) { "${Move.toUci(move)} is not a legal move in this position" }
+
+        val san = StringBuilder()
+        val from = Move.from(move)
+        val to = Move.to(move)
+        val type = PieceCodes.typeOf(Move.piece(move))
+        if (Move.hasFlag(move, Move.FLAG_CASTLING)) {
+            san.append(if (to > from) "O-O" else "O-O-O")
+        } else if (type == PieceCodes.PAWN) {
+            if (Move.isCapture(move)) san.append('a' + (from and 7)).append('x')
+            san.append(Move.squareName(to))
+            if (Move.isPromotion(move)) san.append('=').append(PieceCodes.toChar(PieceCodes.code(PieceCodes.WHITE, Move.promotion(move))))
+        } else {
+            san.append(PieceCodes.toChar(PieceCodes.code(PieceCodes.WHITE, type)))
+            // disambiguate by file if that is enough, else by rank, else by both
+            var sameTarget = 0
+            var sameFile = 0
+            var sameRank = 0
+            for (k in 0 until legalMoves.size) {
+                val other = legalMoves[k]
+                if (other == move || Move.to(other) != to || Move.piece(other) != Move.piece(move)) continue
+                sameTarget++
+                if ((Move.from(other) and 7) == (from and 7)) sameFile++
+                if ((Move.from(other) ushr 3) == (from ushr 3)) sameRank++
+            }
+            if (sameTarget > 0) {
+                if (sameFile == 0) {
+                    san.append('a' + (from and 7))
+                } else if (sameRank == 0) {
+                    san.append('1' + (from ushr 3))
+                } else {
+                    san.append(Move.squareName(from))
+                }
+            }
+            if (Move.isCapture(move)) san.append('x')
+            san.append(Move.squareName(to))
+        }
+
+        board.makeMove(move)
+        generator.generateLegalMoves(legalMoves)
+        if (generator.checkers != Bitboards.EMPTY) san.append(if (legalMoves.isEmpty()) '#' else '+')
+        board.unmakeMove()
+        return san.toString()
+    }
+
+    private fun resolveCastling(text: ByteArray, start: Int, end: Int, legalMoves: MoveList): Int {
+        var castlingChars = 0
+        for (j in start until end) {
+            val c = text[j].toInt().toChar()
+            if (isCastlingChar(text[j])) castlingChars++ else if (c != '-') return Move.NONE
+        }
+        val kingside = when (castlingChars) {
+            2 -> true
+            3 -> false
+            else -> return Move.NONE
+        }
+        for (k in 0 until legalMoves.size) {
+            val move = legalMoves[k]
+            if (Move.hasFlag(move, Move.FLAG_CASTLING) && (Move.to(move) > Move.from(move)) == kingside) return move
+        }
+        return Move.NONE
+    }
+
+    private fun pieceType(c: Byte): Int = when (c.toInt().toChar()) {
+        'N' -> PieceCodes.KNIGHT
+        'B' -> PieceCodes.BISHOP
+        'R' -> PieceCodes.ROOK
+        'Q' -> PieceCodes.QUEEN
+        'K' -> PieceCodes.KING
+        else -> 0
+    }
+
+    private fun isCastlingChar(c: Byte) = c == 'O'.code.toByte() || c == '0'.code.toByte()
+
+    private fun isSuffix(c: Byte) = when (c.toInt().toChar()) {
+        '+', '#', '!', '?' -> true
+        else -> false
+    }
+}
@@ -0,0 +1,21 @@
+package com.chessapp.api.pgn
+
+/**
+ * A PGN game after replaying its moves: the moves as packed Move ints, and if a move could not
+ * be played, the index of that move and why. moves holds the moves up to the first bad one
+ */
+class ValidatedGame(
+    val game: PgnGame,
+    val moves: IntArray,
+    val errorIndex: Int = NO_ERROR,
+    val error: String? = null
+) {
+    val isValid: Boolean get() = errorIndex == NO_ERROR
+
+    override fun toString(): String =
+        if (isValid) "ValidatedGame(id=${game.id}, moves=${moves.size})" else "ValidatedGame(id=${game.id}, error at move $errorIndex: $error)"
+
+    companion object {
+        const val NO_ERROR = -1
+    }
+}
@@ -6,7 +6,12 @@ import com.chessapp.api.pieces.utils.InvalidPositionException
 /**
  * The template for creating Bishop pieces
  */
-class Bishop(color: PieceColor, file: File, rank: Int) : ChessPiece(PieceName.BISHOP, color, file, rank) {
+class Bishop(
+    color: PieceColor,
+    file: File,
+    rank: Int,
+    checkStartingPosition: Boolean = true
+) : ChessPiece(PieceName.BISHOP, color, file, rank, checkStartingPosition) {
     override fun validateStartingPosition() {
         PieceUtils.validatePieceStartingOnCorrectFile(this)
         if (this.file != File.C && this.file != File.F) {
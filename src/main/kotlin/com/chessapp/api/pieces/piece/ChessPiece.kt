@@ -14,7 +14,8 @@ abstract class ChessPiece(
     private val name: PieceName,
     protected val color: PieceColor,
     protected var file: File,
-    protected var rank: Int
+    protected var rank: Int,
+    checkStartingPosition: Boolean = true
 ) {
 
     fun name() = name
@@ -23,7 +24,7 @@ abstract class ChessPiece(
     fun rank() = rank
 
     init {
-        safeValidateStartingPosition()
+        if (checkStartingPosition) safeValidateStartingPosition()
     }
 
     fun getFormattedName(capitalized: Boolean): String {
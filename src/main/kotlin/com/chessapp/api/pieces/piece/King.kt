@@ -6,7 +6,12 @@ import com.chessapp.api.pieces.utils.InvalidPositionException
 /**
  * The template for creating King pieces
  */
-class King(color: PieceColor, file: File, rank: Int) : ChessPiece(PieceName.KING, color, file, rank) {
+class King(
+    color: PieceColor,
+    file: File,
+    rank: Int,
+    checkStartingPosition: Boolean = true
+) : ChessPiece(PieceName.KING, color, file, rank, checkStartingPosition) {
     override fun validateStartingPosition() {
        PieceUtils.validatePieceStartingOnCorrectFile(this)
        if (this.file != File.E) {
@@ -7,7 +7,12 @@ import com.chessapp.api.pieces.utils.InvalidPositionException
  * This is an example implementation of a ChessPiece, using
  * the Knight and its properties
  */
-class Knight(color: PieceColor, file: File, rank: Int) : ChessPiece(PieceName.KNIGHT, color, file, rank) {
+class Knight(
+    color: PieceColor,
+    file: File,
+    rank: Int,
+    checkStartingPosition: Boolean = true
+) : ChessPiece(PieceName.KNIGHT, color, file, rank, checkStartingPosition) {
     override fun validateStartingPosition() {
         PieceUtils.validatePieceStartingOnCorrectFile(this)
         if (this.file != File.B && this.file != File.G) {
@@ -5,7 +5,12 @@ import com.chessapp.api.board.File
 /**
  * Template for pawn pieces
  */
-class Pawn(color: PieceColor, file: File, rank: Int): ChessPiece(PieceName.PAWN, color, file, rank) {
+class Pawn(
+    color: PieceColor,
+    file: File,
+    rank: Int,
+    checkStartingPosition: Boolean = true
+): ChessPiece(PieceName.PAWN, color, file, rank, checkStartingPosition) {
     private var hasMovedOnce = false
 
     override fun validateStartingPosition() {
@@ -1,5 +1,6 @@
 package com.chessapp.api.pieces.piece
 
+import com.chessapp.api.board.File
 import com.chessapp.api.pieces.utils.InvalidPositionException
 
 object PieceUtils {
@@ -31,6 +32,19 @@ object PieceUtils {
             }
         }
     }
+
+    /**
+     * Creates a piece on an arbitrary square, skipping the starting position checks.
+     * Used by boards that store pieces as codes and only hand out piece objects on request
+     */
+    fun createPiece(name: PieceName, color: PieceColor, file: File, rank: Int): ChessPiece = when (name) {
+        PieceName.KNIGHT -> Knight(color, file, rank, checkStartingPosition = false)
+        PieceName.ROOK -> Rook(color, file, rank, checkStartingPosition = false)
+        PieceName.PAWN -> Pawn(color, file, rank, checkStartingPosition = false)
+        PieceName.KING -> King(color, file, rank, checkStartingPosition = false)
+        PieceName.QUEEN -> Queen(color, file, rank, checkStartingPosition = false)
+        PieceName.BISHOP -> Bishop(color, file, rank, checkStartingPosition = false)
+    }
 }
 
 enum class PieceColor {
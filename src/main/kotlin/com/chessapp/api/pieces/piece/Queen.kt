@@ -6,7 +6,12 @@ import com.chessapp.api.pieces.utils.InvalidPositionException
 /**
  * The template for creating Queen pieces
  */
-class Queen(color: PieceColor, file: File, rank: Int) : ChessPiece(PieceName.QUEEN, color, file, rank) {
+class Queen(
+    color: PieceColor,
+    file: File,
+    rank: Int,
+    checkStartingPosition: Boolean = true
+) : ChessPiece(PieceName.QUEEN, color, file, rank, checkStartingPosition) {
     override fun validateStartingPosition() {
         PieceUtils.validatePieceStartingOnCorrectFile(this)
         if (this.file != File.D) {
@@ -6,7 +6,12 @@ import com.chessapp.api.pieces.utils.InvalidPositionException
 /**
  * The template for creating Rook pieces
  */
-class Rook(color: PieceColor, file: File, rank: Int) : ChessPiece(PieceName.ROOK, color, file, rank) {
+class Rook(
+    color: PieceColor,
+    file: File,
+    rank: Int,
+    checkStartingPosition: Boolean = true
+) : ChessPiece(PieceName.ROOK, color, file, rank, checkStartingPosition) {
     override fun validateStartingPosition() {
         PieceUtils.validatePieceStartingOnCorrectFile(this)
         if (this.file != File.A && this.file != File.H) {
@@ -0,0 +1,160 @@
+package com.chessapp.engine
+
+import com.chessapp.api.board.BitboardPosition
+import com.chessapp.api.board.Bitboards
+import com.chessapp.api.board.LegalMoveGenerator
+import com.chessapp.api.board.Move
+import com.chessapp.api.board.MoveList
+import com.chessapp.engine.nnue.NnueNetwork
+
+/**
+ * A chess engine that searches with Lazy SMP: every worker thread runs its own iterative
+ * deepening search of the same position, and the threads share nothing but the lock-free
+ * transposition table. Each thread's results land in the table and prune the others' trees,
+ * so more threads reach greater depth without any explicit splitting of work.
+ *
+ * The result reported is that of the main worker. An engine runs one search at a time;
+ * stop can be called from another thread to end a running search early.
+ *
+ * Positions are evaluated with the network if one is given, each worker keeping its own
+ * NnueAccumulator, and with the handcrafted Evaluation otherwise
+ */
+class Engine(threads: Int = 1, hashSizeMb: Int = DEFAULT_HASH_MB, internal val network: NnueNetwork? = null) {
+
+    internal val table = TranspositionTable(hashSizeMb)
+    private val workers: Array<SearchWorker>
+
+    @Volatile
+    internal var stopped = false
+        private set
+
+    // Written by updateLimits from outside the search while the workers read them
+    @Volatile
+    private var limits = SearchLimits()
+    @Volatile
+    private var startNanos = 0L
+
+    /**
+     * Called on the searching thread after every completed iteration of the main worker, with the
+     * result of that iteration
+     */
+    @Volatile
+    var iterationListener: ((SearchResult) -> Unit)? = null
+
+    init {
+        require(threads in 1..MAX_THREADS) { "Thread count must be between 1 and $MAX_THREADS, got: $threads" }
+        workers = Array(threads) { SearchWorker(this, it) }
+    }
+
+    val threadCount: Int get() = workers.size
+
+    /**
+     * Searches the position until one of the limits is reached and returns the best move found.
+     * The position is copied, along with the moves already made on it, and is not modified
+     */
+    fun search(position: BitboardPosition, limits: SearchLimits): SearchResult {
+        prepareSearch(limits)
+        return runPreparedSearch(position)
+    }
+
+    /**
+     * Sets up the next search: clears the stop flag, takes the limits and starts the clock. A
+     * search that will run on another thread must be prepared on the calling thread before that
+     * thread starts, so that a stop or updateLimits sent right after it is not lost
+     */
+    internal fun prepareSearch(limits: SearchLimits) {
+        this.limits = limits
+        stopped = false
+        startNanos = System.nanoTime()
+    }
+
+    /**
+     * Runs the search set up by prepareSearch; stop and updateLimits calls made since apply to it
+     */
+    internal fun runPreparedSearch(position: BitboardPosition): SearchResult {
+        table.newSearch()
+
+        val rootMoves = MoveList()
+        val generator = LegalMoveGenerator(position)
+        generator.generateLegalMoves(rootMoves)
+        if (rootMoves.isEmpty()) {
+            val score = if (generator.checkers != Bitboards.EMPTY) -Search.MATE else Search.DRAW
+            return SearchResult(Move.NONE, score, 0, 0, 0, emptyList())
+        }
+
+        val helpers = (1 until workers.size).map { index ->
+            Thread({ workers[index].iterativeDeepening(position, limits.depth) }, "search-helper-$index").apply {
+                isDaemon = true
+                start()
+            }
+        }
+        val main = workers[0]
+        main.iterativeDeepening(position, limits.depth)
+
+        stopped = true
+        helpers.forEach { it.join() }
+
+        val elapsedMillis = (System.nanoTime() - startNanos) / 1_000_000
+        val pv = (0 until main.principalVariation.size).map { main.principalVariation[it] }
+        // if even the first iteration was cut short, fall back to any legal move
+        val bestMove = pv.firstOrNull() ?: rootMoves[0]
+        return SearchResult(bestMove, main.bestScore, main.completedDepth, totalNodes(), elapsedMillis, pv.ifEmpty { listOf(bestMove) })
+    }
+
+    /**
+     * Replaces the time and node limits of the running search, with the time counted from now,
+     * e.g. when a search started on the opponent's time becomes the search for our own move.
+     * The depth limit a search started with stays
+     */
+    fun updateLimits(limits: SearchLimits) {
+        startNanos = System.nanoTime()
+        this.limits = limits
+    }
+
+    /**
+     * Ends the running search as soon as possible; search then returns the best move found so far
+     */
+    fun stop() {
+        stopped = true
+    }
+
+    /**
+     * How full the transposition table is with entries from the latest search, in permille
+     */
+    fun hashfull(): Int = table.hashfull()
+
+    /**
+     * Forgets everything learned in earlier searches, e.g. before starting a new game
+     */
+    fun clear() {
+        table.clear()
+        workers.forEach { it.history.clear() }
+    }
+
+    internal fun onIterationComplete(worker: SearchWorker) {
+        iterationListener?.let { listener ->
+            val pv = (0 until worker.principalVariation.size).map { worker.principalVariation[it] }
+            listener(SearchResult(pv.firstOrNull() ?: Move.NONE, worker.bestScore, worker.completedDepth, totalNodes(), elapsedMillis(), pv))
+        }
+        // stop early if the next iteration cannot finish in the time left anyway
+        if (limits.moveTimeMillis > 0 && elapsedMillis() * 2 > limits.moveTimeMillis) stopped = true
+    }
+
+    /**
+     * Called by the main worker every few thousand nodes to enforce the time and node limits
+     */
+    internal fun checkLimits(worker: SearchWorker) {
+        if (worker.id != 0) return
+        if (limits.moveTimeMillis > 0 && elapsedMillis() >= limits.moveTimeMillis) stopped = true
+        if (limits.nodes > 0 && totalNodes() >= limits.nodes) stopped = true
+    }
+
+    private fun totalNodes(): Long = workers.sumOf { it.nodes }
+
+    private fun elapsedMillis(): Long = (System.nanoTime() - startNanos) / 1_000_000
+
+    companion object {
+        const val DEFAULT_HASH_MB = 16
+        const val MAX_THREADS = 512
+    }
+}
@@ -0,0 +1,38 @@
+package com.chessapp.engine
+
+import com.chessapp.api.board.Bitboards
+import com.chessapp.api.board.Board
+import com.chessapp.api.board.PieceCodes
+import com.chessapp.api.board.PieceSquareTables
+
+/**
+ * Static evaluation of a position, in centipawns from the side to move's point of view.
+ *
+ * The board keeps its material and piece-square sums for the middlegame and the endgame, and its
+ * game phase, up to date as moves are made (see PieceSquareTables), so evaluating is a blend of
+ * the two sums by phase and costs the same whatever is on the board. Pawn structure and king
+ * shelter (see PawnStructure) are added from a PawnHashTable when one is given
+ */
+object Evaluation {
+
+    // Indexed by PieceCodes piece type, for ordering captures; kings are never traded off, so they count for nothing
+    val PIECE_VALUES = intArrayOf(100, 320, 330, 500, 900, 0)
+
+    fun evaluate(board: Board, pawnTable: PawnHashTable? = null): Int {
+        val score = board.pieceSquareScore() + (pawnTable?.probe(board) ?: pawnStructure(board))
+        val phase = minOf(board.phase(), PieceSquareTables.MAX_PHASE)
+        val blended = (PieceSquareTables.middlegame(score) * phase +
+            PieceSquareTables.endgame(score) * (PieceSquareTables.MAX_PHASE - phase)) / PieceSquareTables.MAX_PHASE
+        return if (board.sideToMove == PieceCodes.WHITE) blended else -blended
+    }
+
+    // The pawn terms worked out in full, for evaluations without a table
+    private fun pawnStructure(board: Board): Int {
+        val whitePawns = board.pieceBitboard(PieceCodes.code(PieceCodes.WHITE, PieceCodes.PAWN))
+        val blackPawns = board.pieceBitboard(PieceCodes.code(PieceCodes.BLACK, PieceCodes.PAWN))
+        return PawnStructure.evaluate(whitePawns, blackPawns) + PawnStructure.shelter(
+            Bitboards.lowestSquare(board.pieceBitboard(PieceCodes.code(PieceCodes.WHITE, PieceCodes.KING))),
+            Bitboards.lowestSquare(board.pieceBitboard(PieceCodes.code(PieceCodes.BLACK, PieceCodes.KING))),
+            whitePawns, blackPawns)
+    }
+}
@@ -0,0 +1,77 @@
+package com.chessapp.engine
+
+import com.chessapp.api.board.Move
+import com.chessapp.api.board.PieceCodes
+import kotlin.math.abs
+
+/**
+ * What one search thread has learned about quiet moves, for ordering them before the search
+ * reaches them: two killer moves per ply, which caused a cutoff in a sibling node at that ply;
+ * the countermove to each move, by the piece that made it and its to square; and a history score
+ * per side, from and to square, raised for quiet moves that cause a cutoff and lowered for the
+ * quiet moves searched before them.
+ *
+ * Every table is a flat IntArray, so looking up and updating never allocates. History scores
+ * are kept within MAX_SCORE by letting each update shrink the score it adds to
+ */
+class MoveHistory {
+    private val killers = IntArray((Search.MAX_PLY + 1) * KILLER_SLOTS)
+    private val counterMoves = IntArray(PieceCodes.PIECE_CODE_COUNT * 64)
+    private val butterfly = IntArray(2 * 64 * 64)
+
+    fun killer(ply: Int, slot: Int): Int = killers[ply * KILLER_SLOTS + slot]
+
+    /**
+     * The move that last refuted the previous move, Move.NONE if there is none or no previous move
+     */
+    fun counterMove(previous: Int): Int =
+        if (previous == Move.NONE) Move.NONE else counterMoves[Move.piece(previous) * 64 + Move.to(previous)]
+
+    fun score(move: Int): Int = butterfly[butterflyIndex(move)]
+
+    /**
+     * Records that the quiet move caused a beta cutoff at the given ply and depth, after the
+     * quiet moves in tried, the first triedCount of them, had failed to
+     */
+    fun onCutoff(ply: Int, previous: Int, move: Int, depth: Int, tried: IntArray, triedCount: Int) {
+        val slot = ply * KILLER_SLOTS
+        if (killers[slot] != move) {
+            killers[slot + 1] = killers[slot]
+            killers[slot] = move
+        }
+        if (previous != Move.NONE) counterMoves[Move.piece(previous) * 64 + Move.to(previous)] = move
+
+        val bonus = minOf(depth * depth, MAX_BONUS)
+        update(butterflyIndex(move), bonus)
+        for (i in 0 until triedCount) update(butterflyIndex(tried[i]), -bonus)
+    }
+
+    /**
+     * Forgets the killers, which belong to the plies of the previous search, and halves the
+     * history scores so that the new search can outweigh them
+     */
+    fun newSearch() {
+        killers.fill(Move.NONE)
+        for (i in butterfly.indices) butterfly[i] /= 2
+    }
+
+    fun clear() {
+        killers.fill(Move.NONE)
+        counterMoves.fill(Move.NONE)
+        butterfly.fill(0)
+    }
+
+    private fun update(index: Int, bonus: Int) {
+        val score = butterfly[index]
+        butterfly[index] = score + bonus - score * abs(bonus) / MAX_SCORE
+    }
+
+    private fun butterflyIndex(move: Int): Int =
+        (PieceCodes.colorOf(Move.piece(move)) shl 12) or (Move.from(move) shl 6) or Move.to(move)
+
+    companion object {
+        const val KILLER_SLOTS = 2
+        const val MAX_SCORE = 1 shl 14
+        private const val MAX_BONUS = 1200
+    }
+}
@@ -0,0 +1,169 @@
+package com.chessapp.engine
+
+import com.chessapp.api.board.BitboardPosition
+import com.chessapp.api.board.LegalMoveGenerator
+import com.chessapp.api.board.Move
+import com.chessapp.api.board.MoveList
+import com.chessapp.api.board.PieceCodes
+import com.chessapp.api.board.StaticExchange
+
+/**
+ * Hands out the legal moves of a position one at a time, best guesses first, in stages:
+ *  - the hash move, if it is legal here
+ *  - captures and promotions that do not lose material by static exchange evaluation, most
+ *    valuable victim first and then least valuable attacker
+ *  - the two killer moves of the ply, then the countermove to the previous move, if legal here
+ *  - the remaining quiet moves, by history score
+ *  - the captures that lose material, in the order they came up
+ *
+ * Each stage is generated only when the one before it runs out, so a cutoff on the hash move
+ * or a capture costs no quiet move generation at all, and moves within a stage are picked one
+ * selection step at a time. A picker is reused for every node at one ply of one search thread;
+ * reset starts it on the current position
+ */
+class MovePicker(
+    private val board: BitboardPosition,
+    private val generator: LegalMoveGenerator,
+    private val history: MoveHistory
+) {
+    private val moves = MoveList()
+    private val scores = IntArray(MoveList.MAX_MOVES)
+    private val losingCaptures = MoveList()
+
+    // The hash, killer and countermoves handed out before the quiet moves were generated
+    private val handedOut = IntArray(1 + MoveHistory.KILLER_SLOTS + 1)
+    private var handedOutCount = 0
+
+    private var stage = STAGE_DONE
+    private var index = 0
+    private var hashMove = Move.NONE
+    private var ply = 0
+    private var previous = Move.NONE
+    private var noisyOnly = false
+
+    /**
+     * Starts over on the position now on the board. hashMove may be any move, Move.NONE
+     * included; it is handed out first only if legal. previous is the move that led to this
+     * position, for the countermove. With noisyOnly only the captures and promotions that do not
+     * lose material are handed out, as a quiescence search wants
+     */
+    fun reset(hashMove: Int, ply: Int, previous: Int, noisyOnly: Boolean = false) {
+        this.hashMove = hashMove
+        this.ply = ply
+        this.previous = previous
+        this.noisyOnly = noisyOnly
+        handedOutCount = 0
+        losingCaptures.clear()
+        stage = STAGE_HASH
+    }
+
+    /**
+     * The next move to search, or Move.NONE when every move has been handed out
+     */
+    fun next(): Int {
+        while (true) {
+            when (stage) {
+                STAGE_HASH -> {
+                    stage = STAGE_GENERATE_NOISY
+                    if (hashMove != Move.NONE && (!noisyOnly || isNoisy(hashMove)) && generator.isLegal(hashMove)) {
+                        handedOut[handedOutCount++] = hashMove
+                        return hashMove
+                    }
+                    hashMove = Move.NONE
+                }
+                STAGE_GENERATE_NOISY -> {
+                    generator.generateNoisy(moves)
+                    for (i in 0 until moves.size) scores[i] = mvvLva(moves[i])
+                    index = 0
+                    stage = STAGE_GOOD_NOISY
+                }
+                STAGE_GOOD_NOISY -> {
+                    if (index == moves.size) {
+                        stage = if (noisyOnly) STAGE_DONE else STAGE_KILLER
+                        index = 0
+                        continue
+                    }
+                    val move = pickNext()
+                    if (move == hashMove) continue
+                    if (!StaticExchange.see(board, move, 0)) {
+                        losingCaptures.add(move)
+                        continue
+                    }
+                    return move
+                }
+                STAGE_KILLER -> {
+                    // the killers, then the countermove, each only once and only while legal here
+                    val candidate = when (index) {
+                        0, 1 -> history.killer(ply, index)
+                        else -> history.counterMove(previous)
+                    }
+                    if (index == MoveHistory.KILLER_SLOTS) stage = STAGE_GENERATE_QUIETS else index++
+                    if (candidate != Move.NONE && !isNoisy(candidate) && !wasHandedOut(candidate) && generator.isLegal(candidate)) {
+                        handedOut[handedOutCount++] = candidate
+                        return candidate
+                    }
+                }
+                STAGE_GENERATE_QUIETS -> {
+                    generator.generateQuiets(moves)
+                    for (i in 0 until moves.size) scores[i] = history.score(moves[i])
+                    index = 0
+                    stage = STAGE_QUIETS
+                }
+                STAGE_QUIETS -> {
+                    if (index == moves.size) {
+                        stage = STAGE_LOSING_NOISY
+                        index = 0
+                        continue
+                    }
+                    val move = pickNext()
+                    if (!wasHandedOut(move)) return move
+                }
+                STAGE_LOSING_NOISY -> {
+                    if (index < losingCaptures.size) return losingCaptures[index++]
+                    stage = STAGE_DONE
+                }
+                else -> return Move.NONE
+            }
+        }
+    }
+
+    private fun isNoisy(move: Int) = Move.isCapture(move) || Move.isPromotion(move)
+
+    private fun wasHandedOut(move: Int): Boolean {
+        for (i in 0 until handedOutCount) if (handedOut[i] == move) return true
+        return false
+    }
+
+    // Captures by victim value first and then by the cheapest attacker; promotions add the piece gained
+    private fun mvvLva(move: Int): Int {
+        val victim = if (Move.isCapture(move)) Evaluation.PIECE_VALUES[PieceCodes.typeOf(Move.captured(move))] else 0
+        val promotion = if (Move.isPromotion(move)) Evaluation.PIECE_VALUES[Move.promotion(move)] else 0
+        return victim * 8 + promotion - PieceCodes.typeOf(Move.piece(move))
+    }
+
+    // Selection sort one step at a time: later moves are often never looked at after a cutoff
+    private fun pickNext(): Int {
+        var best = index
+        for (i in index + 1 until moves.size) {
+            if (scores[i] > scores[best]) best = i
+        }
+        if (best != index) {
+            moves.swap(index, best)
+            val score = scores[index]
+            scores[index] = scores[best]
+            scores[best] = score
+        }
+        return moves[index++]
+    }
+
+    companion object {
+        private const val STAGE_HASH = 0
+        private const val STAGE_GENERATE_NOISY = 1
+        private const val STAGE_GOOD_NOISY = 2
+        private const val STAGE_KILLER = 3
+        private const val STAGE_GENERATE_QUIETS = 4
+        private const val STAGE_QUIETS = 5
+        private const val STAGE_LOSING_NOISY = 6
+        private const val STAGE_DONE = 7
+    }
+}
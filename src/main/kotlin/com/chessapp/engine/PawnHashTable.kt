@@ -0,0 +1,85 @@
+package com.chessapp.engine
+
+import com.chessapp.api.board.Bitboards
+import com.chessapp.api.board.Board
+import com.chessapp.api.board.PieceCodes
+
+/**
+ * A fixed-size cache of PawnStructure scores by pawn key. Pawns move far less often than the
+ * other pieces, so almost every evaluation in a search finds its pawn structure here and skips
+ * the analysis. The king shelter is cached alongside, for the king squares it was worked out
+ * for, and only worked out again when a king has moved.
+ *
+ * Entries are always replaced. A table is meant for one search thread and is not thread safe
+ */
+class PawnHashTable(entries: Int = DEFAULT_ENTRIES) {
+
+    private val mask: Int
+    private val keys: LongArray
+    private val pawnScores: IntArray
+    private val kingSquares: IntArray
+    private val shelterScores: IntArray
+
+    var probes = 0L
+        private set
+    var hits = 0L
+        private set
+
+    init {
+        require(entries > 0 && entries and (entries - 1) == 0) { "Entry count must be a power of two, got: $entries" }
+        mask = entries - 1
+        keys = LongArray(entries)
+        // a zeroed entry is a correct one for the key 0 of a board without pawns
+        pawnScores = IntArray(entries)
+        kingSquares = IntArray(entries) { NO_KINGS }
+        shelterScores = IntArray(entries)
+    }
+
+    /**
+     * The pawn structure and king shelter score of the board, packed as by PieceSquareTables.pack,
+     * white's minus black's
+     */
+    fun probe(board: Board): Int {
+        val key = board.pawnKey()
+        val index = key.toInt() and mask
+        val whitePawns = board.pieceBitboard(WHITE_PAWN)
+        val blackPawns = board.pieceBitboard(BLACK_PAWN)
+        probes++
+        if (keys[index] == key) {
+            hits++
+        } else {
+            keys[index] = key
+            pawnScores[index] = PawnStructure.evaluate(whitePawns, blackPawns)
+            kingSquares[index] = NO_KINGS
+        }
+
+        val whiteKing = Bitboards.lowestSquare(board.pieceBitboard(WHITE_KING))
+        val blackKing = Bitboards.lowestSquare(board.pieceBitboard(BLACK_KING))
+        val kings = whiteKing or (blackKing shl 7)
+        if (kingSquares[index] != kings) {
+            kingSquares[index] = kings
+            shelterScores[index] = PawnStructure.shelter(whiteKing, blackKing, whitePawns, blackPawns)
+        }
+        return pawnScores[index] + shelterScores[index]
+    }
+
+    fun clear() {
+        keys.fill(0L)
+        pawnScores.fill(0)
+        kingSquares.fill(NO_KINGS)
+        probes = 0L
+        hits = 0L
+    }
+
+    companion object {
+        const val DEFAULT_ENTRIES = 1 shl 14
+
+        private val WHITE_PAWN = PieceCodes.code(PieceCodes.WHITE, PieceCodes.PAWN)
+        private val BLACK_PAWN = PieceCodes.code(PieceCodes.BLACK, PieceCodes.PAWN)
+        private val WHITE_KING = PieceCodes.code(PieceCodes.WHITE, PieceCodes.KING)
+        private val BLACK_KING = PieceCodes.code(PieceCodes.BLACK, PieceCodes.KING)
+
+        // Both king squares packed 7 bits each, where 64 means no king; no real pair packs to -1
+        private const val NO_KINGS = -1
+    }
+}
@@ -0,0 +1,104 @@
+package com.chessapp.engine
+
+import com.chessapp.api.board.Bitboards
+import com.chessapp.api.board.PieceCodes
+import com.chessapp.api.board.PieceSquareTables
+
+/**
+ * Pawn structure terms of the evaluation: passed, isolated, doubled and backward pawns, which
+ * depend on the pawns alone, and the pawn shelter in front of each king. Scores are packed as by
+ * PieceSquareTables.pack, white's terms minus black's. PawnHashTable caches them by pawn key
+ */
+object PawnStructure {
+
+    // Indexed by the pawn's rank counted from its own side, 0 to 7
+    private val PASSED = intArrayOf(0, pack(5, 10), pack(10, 15), pack(15, 25), pack(30, 45), pack(50, 75), pack(80, 120), 0)
+    private val DOUBLED = pack(-10, -25)
+    private val ISOLATED = pack(-12, -15)
+    private val BACKWARD = pack(-8, -12)
+
+    // Shelter, middlegame only, for each of the three files around the king: an own pawn one
+    // or two ranks in front of the king, or none within reach
+    private const val SHELTER_NEAR = 12
+    private const val SHELTER_FAR = 6
+    private const val SHELTER_MISSING = -12
+
+    private val ADJACENT_FILES = LongArray(8) { file ->
+        (if (file > 0) Bitboards.FILE_A shl (file - 1) else 0L) or (if (file < 7) Bitboards.FILE_A shl (file + 1) else 0L)
+    }
+
+    // Per color and square: the squares ahead on the same file, ahead on the same and adjacent
+    // files, and level with or behind on the adjacent files
+    private val FRONT_SPAN = Array(2) { color -> LongArray(64) { ranksAhead(color, it) and (Bitboards.FILE_A shl (it and 7)) } }
+    private val PASSED_SPAN = Array(2) { color ->
+        LongArray(64) { ranksAhead(color, it) and ((Bitboards.FILE_A shl (it and 7)) or ADJACENT_FILES[it and 7]) }
+    }
+    private val SUPPORT_SPAN = Array(2) { color -> LongArray(64) { ranksAhead(color, it).inv() and ADJACENT_FILES[it and 7] } }
+
+    /**
+     * The pawn-only terms for the given pawn bitboards
+     */
+    fun evaluate(whitePawns: Long, blackPawns: Long): Int =
+        evaluateSide(PieceCodes.WHITE, whitePawns, blackPawns) - evaluateSide(PieceCodes.BLACK, blackPawns, whitePawns)
+
+    /**
+     * The shelter of both kings, white's minus black's; a side without a king has no shelter
+     */
+    fun shelter(whiteKing: Int, blackKing: Int, whitePawns: Long, blackPawns: Long): Int =
+        pack(shelter(PieceCodes.WHITE, whiteKing, whitePawns) - shelter(PieceCodes.BLACK, blackKing, blackPawns), 0)
+
+    private fun evaluateSide(color: Int, own: Long, enemy: Long): Int {
+        var score = 0
+        var pawns = own
+        while (pawns != 0L) {
+            val square = Bitboards.lowestSquare(pawns)
+            pawns = pawns and (pawns - 1)
+            val file = square and 7
+
+            if (FRONT_SPAN[color][square] and own != 0L) {
+                score += DOUBLED
+            } else if (PASSED_SPAN[color][square] and enemy == 0L) {
+                // only the front pawn of a doubled pair can be passed
+                score += PASSED[relativeRank(color, square)]
+            }
+            if (ADJACENT_FILES[file] and own == 0L) {
+                score += ISOLATED
+            } else if (SUPPORT_SPAN[color][square] and own == 0L) {
+                val stop = if (color == PieceCodes.WHITE) square + 8 else square - 8
+                if (stop in 0 until 64 && Bitboards.PAWN_ATTACKS[color][stop] and enemy != 0L) score += BACKWARD
+            }
+        }
+        return score
+    }
+
+    private fun shelter(color: Int, king: Int, own: Long): Int {
+        if (king >= 64) return 0
+        val kingFile = (king and 7).coerceIn(1, 6)
+        val forward = if (color == PieceCodes.WHITE) 8 else -8
+        var score = 0
+        for (file in kingFile - 1..kingFile + 1) {
+            val near = king - (king and 7) + file + forward
+            val far = near + forward
+            score += when {
+                near in 0 until 64 && Bitboards.isSet(own, near) -> SHELTER_NEAR
+                far in 0 until 64 && Bitboards.isSet(own, far) -> SHELTER_FAR
+                else -> SHELTER_MISSING
+            }
+        }
+        return score
+    }
+
+    private fun relativeRank(color: Int, square: Int): Int = if (color == PieceCodes.WHITE) square ushr 3 else 7 - (square ushr 3)
+
+    // The ranks beyond the square's, as seen from the given side
+    private fun ranksAhead(color: Int, square: Int): Long {
+        val rank = square ushr 3
+        return if (color == PieceCodes.WHITE) {
+            if (rank == 7) 0L else Bitboards.ALL shl (8 * (rank + 1))
+        } else {
+            (1L shl (8 * rank)) - 1
+        }
+    }
+
+    private fun pack(middlegame: Int, endgame: Int) = PieceSquareTables.pack(middlegame, endgame)
+}
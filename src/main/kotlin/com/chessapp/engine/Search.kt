@@ -0,0 +1,33 @@
+package com.chessapp.engine
+
+/**
+ * Score conventions shared by the search and the transposition table. Mate scores count down
+ * from MATE by the number of plies to the mate, so a shorter mate always scores higher
+ */
+object Search {
+    const val MAX_PLY = 128
+    const val MATE = 32000
+    const val INFINITY = 32001
+    const val DRAW = 0
+
+    // Any score beyond this is a mate found within the search
+    const val MATE_BOUND = MATE - MAX_PLY
+
+    fun isMateScore(score: Int) = score >= MATE_BOUND || score <= -MATE_BOUND
+
+    /**
+     * A mate score relative to the root turned into one relative to the given ply, for storing
+     * in the transposition table, where the same position may be reached at a different ply
+     */
+    fun scoreToTable(score: Int, ply: Int): Int = when {
+        score >= MATE_BOUND -> score + ply
+        score <= -MATE_BOUND -> score - ply
+        else -> score
+    }
+
+    fun scoreFromTable(score: Int, ply: Int): Int = when {
+        score >= MATE_BOUND -> score - ply
+        score <= -MATE_BOUND -> score + ply
+        else -> score
+    }
+}
@@ -0,0 +1,17 @@
+package com.chessapp.engine
+
+/**
+ * When a search should stop. A search ends at whichever limit it reaches first;
+ * zero means that limit is not set
+ */
+data class SearchLimits(
+    val depth: Int = Search.MAX_PLY - 1,
+    val moveTimeMillis: Long = 0,
+    val nodes: Long = 0
+) {
+    init {
+        require(depth in 1 until Search.MAX_PLY) { "Search depth must be between 1 and ${Search.MAX_PLY - 1}, got: $depth" }
+        require(moveTimeMillis >= 0) { "Move time must not be negative, got: $moveTimeMillis" }
+        require(nodes >= 0) { "Node limit must not be negative, got: $nodes" }
+    }
+}
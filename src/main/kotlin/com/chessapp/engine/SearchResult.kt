@@ -0,0 +1,22 @@
+package com.chessapp.engine
+
+import com.chessapp.api.board.Move
+
+/**
+ * The outcome of a search: the best move found (Move.NONE if the side to move has no legal move),
+ * its score in centipawns from the side to move's point of view, and the line the search expects
+ */
+data class SearchResult(
+    val bestMove: Int,
+    val score: Int,
+    val depth: Int,
+    val nodes: Long,
+    val timeMillis: Long,
+    val principalVariation: List<Int>
+) {
+    val isMateScore: Boolean get() = Search.isMateScore(score)
+
+    override fun toString(): String =
+        "bestmove ${if (bestMove == Move.NONE) "(none)" else Move.toUci(bestMove)} score $score depth $depth " +
+            "nodes $nodes time $timeMillis pv ${principalVariation.joinToString(" ") { Move.toUci(it) }}"
+}
@@ -0,0 +1,211 @@
+package com.chessapp.engine
+
+import com.chessapp.api.board.AttackDetector
+import com.chessapp.api.board.BitboardPosition
+import com.chessapp.api.board.LegalMoveGenerator
+import com.chessapp.api.board.Move
+import com.chessapp.api.board.MoveList
+import com.chessapp.engine.nnue.NnueAccumulator
+
+/**
+ * One search thread: an iterative deepening negamax alpha-beta search with a quiescence search
+ * at the leaves, on its own copy of the position. Workers share only the transposition table and
+ * the stop flag of the Engine that owns them; everything else is preallocated per worker so a
+ * search does not allocate per node. Moves are ordered by a MovePicker per ply, from what the
+ * worker's own MoveHistory has learned
+ */
+internal class SearchWorker(private val engine: Engine, val id: Int) {
+
+    private val board = BitboardPosition()
+    private val generator = LegalMoveGenerator(board)
+    private val pawnTable = PawnHashTable()
+    private val nnue = engine.network?.let { NnueAccumulator(it, board) }
+    val history = MoveHistory()
+    private val pickers = Array(Search.MAX_PLY + 1) { MovePicker(board, generator, history) }
+
+    // The move searched at each ply, and the quiet moves searched at each ply that did not cut off
+    private val currentMoves = IntArray(Search.MAX_PLY + 1)
+    private val quietsTried = Array(Search.MAX_PLY + 1) { IntArray(MoveList.MAX_MOVES) }
+
+    // Triangular principal variation table: row ply holds the best line found from that ply
+    private val pvTable = Array(Search.MAX_PLY + 1) { IntArray(Search.MAX_PLY + 1) }
+    private val pvLength = IntArray(Search.MAX_PLY + 1)
+
+    // Read by the main worker for the node limit; a slightly stale count is good enough there
+    var nodes = 0L
+        private set
+
+    // Result of the last completed iteration
+    var completedDepth = 0
+        private set
+    var bestScore = 0
+        private set
+    val principalVariation = MoveList(Search.MAX_PLY + 1)
+
+    /**
+     * Runs iterative deepening from the root until the depth limit or the engine says stop.
+     * Helper workers start one ply deeper on odd ids so that the threads spread over different
+     * depths and fill the shared table with each other's results
+     */
+    fun iterativeDeepening(root: BitboardPosition, maxDepth: Int) {
+        board.copyFrom(root)
+        nodes = 0L
+        completedDepth = 0
+        bestScore = 0
+        principalVariation.clear()
+        history.newSearch()
+
+        var depth = 1 + (id and 1)
+        if (depth > maxDepth) depth = maxDepth
+        while (depth <= maxDepth) {
+            val score = negamax(depth, 0, -Search.INFINITY, Search.INFINITY)
+            if (engine.stopped) break
+
+            completedDepth = depth
+            bestScore = score
+            principalVariation.clear()
+            for (i in 0 until pvLength[0]) principalVariation.add(pvTable[0][i])
+            if (id == 0) engine.onIterationComplete(this)
+            depth++
+        }
+    }
+
+    private fun negamax(depth: Int, ply: Int, alphaIn: Int, beta: Int): Int {
+        pvLength[ply] = 0
+        if (ply > 0 && (board.halfmoveClock >= 100 || board.isRepetition())) return Search.DRAW
+        if (depth <= 0) return quiescence(ply, alphaIn, beta)
+        if (ply >= Search.MAX_PLY) return evaluate()
+        countNode()
+
+        val inCheck = AttackDetector.isInCheck(board, board.sideToMove)
+        // Searching one ply deeper out of check keeps forcing lines from being cut off at the horizon
+        val searchDepth = if (inCheck) depth + 1 else depth
+
+        var alpha = alphaIn
+        val key = board.zobristKey()
+        val entry = engine.table.probe(key)
+        var hashMove = Move.NONE
+        if (entry != 0L) {
+            hashMove = TranspositionTable.move(entry)
+            if (ply > 0 && TranspositionTable.depth(entry) >= searchDepth) {
+                val score = Search.scoreFromTable(TranspositionTable.score(entry), ply)
+                when (TranspositionTable.bound(entry)) {
+                    TranspositionTable.BOUND_EXACT -> return score
+                    TranspositionTable.BOUND_LOWER -> if (score >= beta) return score
+                    TranspositionTable.BOUND_UPPER -> if (score <= alpha) return score
+                }
+            }
+        }
+
+        val picker = pickers[ply]
+        val previous = previousMove(ply)
+        picker.reset(hashMove, ply, previous)
+        val quiets = quietsTried[ply]
+        var quietCount = 0
+        var moveCount = 0
+        var bestScore = -Search.INFINITY
+        var bestMove = Move.NONE
+        while (true) {
+            val move = picker.next()
+            if (move == Move.NONE) break
+            moveCount++
+            currentMoves[ply] = move
+            board.makeMove(move)
+            val score = -negamax(searchDepth - 1, ply + 1, -beta, -alpha)
+            board.unmakeMove()
+            if (engine.stopped) return 0
+
+            val quiet = !Move.isCapture(move) && !Move.isPromotion(move)
+            if (score > bestScore) {
+                bestScore = score
+                bestMove = move
+                if (score > alpha) {
+                    alpha = score
+                    updatePv(ply, move)
+                    if (alpha >= beta) {
+                        if (quiet) history.onCutoff(ply, previous, move, searchDepth, quiets, quietCount)
+                        break
+                    }
+                }
+            }
+            if (quiet) quiets[quietCount++] = move
+        }
+        if (moveCount == 0) return if (inCheck) -Search.MATE + ply else Search.DRAW
+
+        val bound = when {
+            bestScore >= beta -> TranspositionTable.BOUND_LOWER
+            bestScore > alphaIn -> TranspositionTable.BOUND_EXACT
+            else -> TranspositionTable.BOUND_UPPER
+        }
+        engine.table.store(key, bestMove, Search.scoreToTable(bestScore, ply), searchDepth, bound)
+        return bestScore
+    }
+
+    /**
+     * Searches captures and promotions only until the position is quiet, so the static evaluation
+     * is never taken in the middle of an exchange; captures that lose material by static exchange
+     * evaluation are pruned. In check every evasion is searched instead. Out of check, a position
+     * without captures stands pat even if it is stalemate, since telling would mean generating
+     * its quiet moves too
+     */
+    private fun quiescence(ply: Int, alphaIn: Int, beta: Int): Int {
+        pvLength[ply] = 0
+        countNode()
+        if (ply >= Search.MAX_PLY) return evaluate()
+
+        val inCheck = AttackDetector.isInCheck(board, board.sideToMove)
+        var alpha = alphaIn
+        var bestScore = -Search.INFINITY
+        if (!inCheck) {
+            // "stand pat": the side to move can usually do at least as well as its static evaluation
+            bestScore = evaluate()
+            if (bestScore >= beta) return bestScore
+            if (bestScore > alpha) alpha = bestScore
+        }
+
+        val picker = pickers[ply]
+        picker.reset(Move.NONE, ply, previousMove(ply), noisyOnly = !inCheck)
+        while (true) {
+            val move = picker.next()
+            if (move == Move.NONE) break
+            currentMoves[ply] = move
+            board.makeMove(move)
+            val score = -quiescence(ply + 1, -beta, -alpha)
+            board.unmakeMove()
+            if (engine.stopped) return 0
+
+            if (score > bestScore) {
+                bestScore = score
+                if (score > alpha) {
+                    alpha = score
+                    updatePv(ply, move)
+                    if (alpha >= beta) break
+                }
+            }
+        }
+        // in check every evasion was searched, so none means mate
+        if (inCheck && bestScore == -Search.INFINITY) return -Search.MATE + ply
+        return bestScore
+    }
+
+    private fun previousMove(ply: Int): Int = if (ply > 0) currentMoves[ply - 1] else Move.NONE
+
+    private fun updatePv(ply: Int, move: Int) {
+        val row = pvTable[ply]
+        row[0] = move
+        val childLength = pvLength[ply + 1]
+        pvTable[ply + 1].copyInto(row, 1, 0, childLength)
+        pvLength[ply] = childLength + 1
+    }
+
+    private fun evaluate(): Int = nnue?.evaluate() ?: Evaluation.evaluate(board, pawnTable)
+
+    private fun countNode() {
+        nodes++
+        if ((nodes and CHECK_INTERVAL_MASK) == 0L) engine.checkLimits(this)
+    }
+
+    companion object {
+        private const val CHECK_INTERVAL_MASK = 2047L
+    }
+}
@@ -0,0 +1,141 @@
+package com.chessapp.engine
+
+/**
+ * A fixed-size transposition table in one flat LongArray, shared by all search threads without locks.
+ *
+ * Each entry is two longs: the packed entry data, and the position key XORed with that data.
+ * Two threads writing the same entry at once can leave the halves mismatched, but then the
+ * stored key no longer checks out on probe and the torn entry is treated as a miss, so no
+ * lock is needed.
+ *
+ * Entries are grouped in buckets of four, 64 bytes, so a probe touches one cache line. With the
+ * DEPTH_PREFERRED policy the first three entries of a bucket keep the deepest results, discounted
+ * by how many searches ago they were written, and the fourth is always overwritten so recent
+ * results always find a place. With ALWAYS_REPLACE a new entry simply evicts the least valuable one.
+ *
+ * Entry data, from the lowest bit: best move (26 bits), score (16 bits, signed), depth (8 bits),
+ * bound (2 bits) and the generation it was written in (6 bits). A bound is never 0 on a stored
+ * entry, so data of 0 means "no entry"
+ */
+class TranspositionTable(val sizeMb: Int, private val replacement: Replacement = Replacement.DEPTH_PREFERRED) {
+
+    enum class Replacement { DEPTH_PREFERRED, ALWAYS_REPLACE }
+
+    private val table: LongArray
+    private val bucketCount: Long
+
+    // Bumped by newSearch; entries from earlier searches lose value as it moves on
+    private var generation = 0
+
+    init {
+        require(sizeMb in 1..MAX_SIZE_MB) { "Transposition table size must be between 1 and $MAX_SIZE_MB MB, got: $sizeMb" }
+        bucketCount = sizeMb.toLong() * 1024 * 1024 / BUCKET_BYTES
+        table = LongArray((bucketCount * BUCKET_ENTRIES * 2).toInt())
+    }
+
+    /**
+     * The entry data stored for the key, or 0 if there is none
+     */
+    fun probe(key: Long): Long {
+        val bucket = bucketIndex(key)
+        for (slot in bucket until bucket + BUCKET_ENTRIES * 2 step 2) {
+            val data = table[slot + 1]
+            if ((table[slot] xor data) == key && data != 0L) return data
+        }
+        return 0L
+    }
+
+    fun store(key: Long, move: Int, score: Int, depth: Int, bound: Int) {
+        val bucket = bucketIndex(key)
+
+        var target = -1
+        var targetValue = Int.MAX_VALUE
+        val preferredEntries = if (replacement == Replacement.DEPTH_PREFERRED) BUCKET_ENTRIES - 1 else BUCKET_ENTRIES
+        for (i in 0 until BUCKET_ENTRIES) {
+            val slot = bucket + i * 2
+            val data = table[slot + 1]
+            if ((table[slot] xor data) == key && data != 0L) {
+                // same position: refresh it, keeping the old best move if the new result has none
+                write(slot, key, if (move == 0) move(data) else move, score, depth, bound)
+                return
+            }
+            if (i < preferredEntries) {
+                val value = if (data == 0L) Int.MIN_VALUE else value(data)
+                if (value < targetValue) {
+                    target = slot
+                    targetValue = value
+                }
+            }
+        }
+
+        // a depth-preferred entry worth more than the new result stays; the always-replace entry takes it instead
+        if (replacement == Replacement.DEPTH_PREFERRED && targetValue > depth) {
+            target = bucket + (BUCKET_ENTRIES - 1) * 2
+        }
+        write(target, key, move, score, depth, bound)
+    }
+
+    /**
+     * Marks the start of a new search, so that entries from earlier ones are replaced first
+     */
+    fun newSearch() {
+        generation = (generation + 1) and GENERATION_MASK
+    }
+
+    /**
+     * How full the table is with entries from the current search, in permille, estimated from
+     * the first thousand entries as in the UCI hashfull statistic
+     */
+    fun hashfull(): Int {
+        val sampled = minOf(HASHFULL_SAMPLE, table.size / 2)
+        var used = 0
+        for (entry in 0 until sampled) {
+            val data = table[entry * 2 + 1]
+            if (data != 0L && generation(data) == generation) used++
+        }
+        return used * 1000 / sampled
+    }
+
+    fun clear() {
+        table.fill(0L)
+        generation = 0
+    }
+
+    private fun write(slot: Int, key: Long, move: Int, score: Int, depth: Int, bound: Int) {
+        val data = pack(move, score, depth, bound, generation)
+        table[slot] = key xor data
+        table[slot + 1] = data
+    }
+
+    // Depth, less eight plies for every search since the entry was written
+    private fun value(data: Long): Int = depth(data) - 8 * ((generation - generation(data)) and GENERATION_MASK)
+
+    // Scales the high half of the key to the bucket count, so any size in MB can be used in full
+    private fun bucketIndex(key: Long): Int = (((key ushr 32) * bucketCount) ushr 32).toInt() * BUCKET_ENTRIES * 2
+
+    companion object {
+        const val BOUND_UPPER = 1
+        const val BOUND_LOWER = 2
+        const val BOUND_EXACT = 3
+
+        const val MAX_SIZE_MB = 8 * 1024
+        private const val BUCKET_ENTRIES = 4
+        private const val BUCKET_BYTES = BUCKET_ENTRIES * 16
+        private const val GENERATION_MASK = 63
+        private const val HASHFULL_SAMPLE = 1000
+
+        fun pack(move: Int, score: Int, depth: Int, bound: Int, generation: Int = 0): Long =
+            move.toLong() or ((score.toLong() and 0xFFFF) shl 26) or (depth.toLong() shl 42) or
+                (bound.toLong() shl 50) or (generation.toLong() shl 52)
+
+        fun move(data: Long): Int = (data and 0x3FFFFFF).toInt()
+
+        fun score(data: Long): Int = ((data ushr 26) and 0xFFFF).toInt().toShort().toInt()
+
+        fun depth(data: Long): Int = ((data ushr 42) and 0xFF).toInt()
+
+        fun bound(data: Long): Int = ((data ushr 50) and 0x3).toInt()
+
+        fun generation(data: Long): Int = ((data ushr 52) and GENERATION_MASK.toLong()).toInt()
+    }
+}
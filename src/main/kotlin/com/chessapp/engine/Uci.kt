@@ -0,0 +1,249 @@
+package com.chessapp.engine
+
+import com.chessapp.api.board.BitboardPosition
+import com.chessapp.api.board.Fen
+import com.chessapp.api.board.LegalMoveGenerator
+import com.chessapp.api.board.Move
+import com.chessapp.api.board.MoveList
+import com.chessapp.api.board.PieceCodes
+import com.chessapp.engine.nnue.NnueNetwork
+import java.io.BufferedReader
+import java.io.IOException
+import java.io.PrintStream
+import java.nio.file.Paths
+import java.util.concurrent.CountDownLatch
+
+/**
+ * Speaks the Universal Chess Interface, so the engine can be run by chess GUIs and match runners.
+ *
+ * Commands are read on the calling thread and every search runs on a thread of its own, so the
+ * reader is always free to take stop, ponderhit or isready while a search is running; stop only
+ * sets the engine's stop flag, which the search checks after every node. Supported commands:
+ * uci, isready, ucinewgame, setoption (Hash, Threads, Ponder, EvalFile), position, go (depth,
+ * movetime, wtime, btime, winc, binc, movestogo, nodes, infinite, ponder), stop, ponderhit and
+ * quit. Anything else is ignored, as the protocol asks
+ */
+class Uci(private val input: BufferedReader, private val output: PrintStream) {
+
+    private var threads = 1
+    private var hashSizeMb = Engine.DEFAULT_HASH_MB
+    private var network: NnueNetwork? = null
+    private var engine: Engine? = null
+
+    private val position = BitboardPosition.startingPosition()
+    private val legalMoves = MoveList()
+
+    private var searchThread: Thread? = null
+
+    // Holds bestmove back while an infinite or ponder search waits for stop or ponderhit
+    @Volatile
+    private var release = CountDownLatch(0)
+    @Volatile
+    private var ponderLimits: SearchLimits? = null
+
+    /**
+     * Handles commands until quit or the end of the input
+     */
+    fun run() {
+        while (true) {
+            val line = input.readLine() ?: break
+            if (!handle(line)) break
+        }
+        stopSearch()
+    }
+
+    /**
+     * Handles one command line; false once the command was quit
+     */
+    fun handle(line: String): Boolean {
+        val tokens = line.trim().split(WHITESPACE)
+        when (tokens[0]) {
+            "uci" -> {
+                send("id name $NAME")
+                send("id author $AUTHOR")
+                send("option name Hash type spin default ${Engine.DEFAULT_HASH_MB} min 1 max ${TranspositionTable.MAX_SIZE_MB}")
+                send("option name Threads type spin default 1 min 1 max ${Engine.MAX_THREADS}")
+                send("option name Ponder type check default false")
+                send("option name EvalFile type string default <empty>")
+                send("uciok")
+            }
+            "isready" -> send("readyok")
+            "ucinewgame" -> {
+                stopSearch()
+                engine?.clear()
+            }
+            "setoption" -> setOption(tokens)
+            "position" -> {
+                stopSearch()
+                setPosition(tokens)
+            }
+            "go" -> {
+                stopSearch()
+                go(tokens)
+            }
+            "stop" -> stopSearch()
+            "ponderhit" -> ponderhit()
+            "quit" -> return false
+        }
+        return true
+    }
+
+    private fun setOption(tokens: List<String>) {
+        val nameAt = tokens.indexOf("name")
+        val valueAt = tokens.indexOf("value")
+        if (nameAt < 0 || valueAt < nameAt) return
+        val name = tokens.subList(nameAt + 1, valueAt).joinToString(" ")
+        val value = tokens.drop(valueAt + 1).joinToString(" ")
+        stopSearch()
+        when (name.lowercase()) {
+            "hash" -> value.toIntOrNull()?.takeIf { it in 1..TranspositionTable.MAX_SIZE_MB }?.let {
+                hashSizeMb = it
+                engine = null
+            } ?: info("Hash must be between 1 and ${TranspositionTable.MAX_SIZE_MB}, got: $value")
+            "threads" -> value.toIntOrNull()?.takeIf { it in 1..Engine.MAX_THREADS }?.let {
+                threads = it
+                engine = null
+            } ?: info("Threads must be between 1 and ${Engine.MAX_THREADS}, got: $value")
+            // pondering needs nothing beyond go ponder and ponderhit
+            "ponder" -> Unit
+            "evalfile" -> {
+                network = if (value.isEmpty() || value == "<empty>") null else try {
+                    NnueNetwork.load(Paths.get(value))
+                } catch (e: IOException) {
+                    info("Could not load network $value: ${e.message}")
+                    return
+                }
+                engine = null
+            }
+            else -> info("Unknown option: $name")
+        }
+    }
+
+    private fun setPosition(tokens: List<String>) {
+        val movesAt = tokens.indexOf("moves").let { if (it < 0) tokens.size else it }
+        try {
+            when (tokens.getOrNull(1)) {
+                "startpos" -> Fen.read(Fen.STARTING_POSITION, position)
+                "fen" -> Fen.readChecked(tokens.subList(2, movesAt).joinToString(" "), position)
+                else -> {
+                    info("Expected startpos or fen after position")
+                    return
+                }
+            }
+        } catch (e: IllegalArgumentException) {
+            info(e.message ?: "Invalid FEN")
+            Fen.read(Fen.STARTING_POSITION, position)
+            return
+        }
+
+        val generator = LegalMoveGenerator(position)
+        for (uci in tokens.drop(movesAt + 1)) {
+            generator.generateLegalMoves(legalMoves)
+            val move = (0 until legalMoves.size).map { legalMoves[it] }.firstOrNull { Move.toUci(it) == uci }
+            if (move == null) {
+                info("Illegal move $uci in ${Fen.write(position)}")
+                return
+            }
+            position.makeMove(move)
+        }
+    }
+
+    private fun go(tokens: List<String>) {
+        fun long(name: String): Long = tokens.indexOf(name).let { if (it < 0) 0L else tokens.getOrNull(it + 1)?.toLongOrNull() ?: 0L }
+
+        val infinite = "infinite" in tokens
+        val ponder = "ponder" in tokens
+        val depth = long("depth").toInt().coerceIn(0, Search.MAX_PLY - 1).let { if (it == 0) Search.MAX_PLY - 1 else it }
+        val white = position.sideToMove == PieceCodes.WHITE
+        val moveTime = when {
+            infinite -> 0L
+            long("movetime") > 0 -> long("movetime")
+            else -> moveTime(long(if (white) "wtime" else "btime"), long(if (white) "winc" else "binc"), long("movestogo"))
+        }
+        val limits = SearchLimits(depth, moveTime, if (infinite) 0 else long("nodes"))
+
+        val engine = engine ?: Engine(threads, hashSizeMb, network).also { engine = it }
+        engine.iterationListener = ::sendInfo
+        // a ponder search runs without limits until ponderhit hands it the real ones
+        ponderLimits = if (ponder) limits else null
+        release = CountDownLatch(if (infinite || ponder) 1 else 0)
+        val latch = release
+        // prepared here rather than on the search thread, so a stop or ponderhit right behind go applies to it
+        engine.prepareSearch(if (ponder) SearchLimits(depth) else limits)
+        searchThread = Thread({
+            val result = engine.runPreparedSearch(position)
+            // the protocol only allows bestmove after stop or ponderhit in these modes
+            latch.await()
+            val best = if (result.bestMove == Move.NONE) "0000" else Move.toUci(result.bestMove)
+            val ponderMove = result.principalVariation.getOrNull(1)?.let { " ponder ${Move.toUci(it)}" } ?: ""
+            send("bestmove $best$ponderMove")
+        }, "uci-search").apply {
+            isDaemon = true
+            start()
+        }
+    }
+
+    private fun ponderhit() {
+        val limits = ponderLimits ?: return
+        ponderLimits = null
+        engine?.updateLimits(limits)
+        release.countDown()
+    }
+
+    // Stops a running search and waits for its bestmove to be sent
+    private fun stopSearch() {
+        val thread = searchThread ?: return
+        engine?.stop()
+        release.countDown()
+        thread.join()
+        searchThread = null
+    }
+
+    private fun sendInfo(result: SearchResult) {
+        val score = when {
+            result.score >= Search.MATE_BOUND -> "mate ${(Search.MATE - result.score + 1) / 2}"
+            result.score <= -Search.MATE_BOUND -> "mate -${(Search.MATE + result.score) / 2}"
+            else -> "cp ${result.score}"
+        }
+        val nps = if (result.timeMillis > 0) result.nodes * 1000 / result.timeMillis else 0
+        send("info depth ${result.depth} score $score nodes ${result.nodes} nps $nps time ${result.timeMillis} " +
+            "hashfull ${engine?.hashfull() ?: 0} pv ${result.principalVariation.joinToString(" ") { Move.toUci(it) }}")
+    }
+
+    private fun info(message: String) = send("info string $message")
+
+    private fun send(line: String) {
+        synchronized(output) {
+            output.println(line)
+            output.flush()
+        }
+    }
+
+    companion object {
+        const val NAME = "ChessApp"
+        const val AUTHOR = "the ChessApp developers"
+
+        // Kept back from the clock for the GUI and the operating system
+        const val MOVE_OVERHEAD_MILLIS = 30L
+        private const val DEFAULT_MOVES_TO_GO = 30L
+        private val WHITESPACE = Regex("\\s+")
+
+        /**
+         * The time to spend on a move, given the time left on our clock, our increment and the
+         * moves to the next time control (0 if unknown); 0 if there is no clock at all
+         */
+        fun moveTime(timeLeft: Long, increment: Long, movesToGo: Long): Long {
+            if (timeLeft <= 0) return 0
+            val moves = if (movesToGo > 0) movesToGo else DEFAULT_MOVES_TO_GO
+            val budget = timeLeft / moves + increment * 3 / 4
+            return budget.coerceAtMost(timeLeft - MOVE_OVERHEAD_MILLIS).coerceAtLeast(1)
+        }
+    }
+}
+
+/**
+ * Runs the engine as a UCI engine on standard input and output
+ */
+fun main() {
+    Uci(System.`in`.bufferedReader(), System.out).run()
+}
@@ -0,0 +1,140 @@
+package com.chessapp.engine.nnue
+
+import com.chessapp.api.board.BitboardPosition
+import com.chessapp.api.board.Bitboards
+import com.chessapp.api.board.BoardListener
+import com.chessapp.api.board.PieceCodes
+
+/**
+ * Evaluates one board with an NnueNetwork, keeping the feature transformer's output for both
+ * sides up to date as the board changes: it listens to the board, and every piece put, removed
+ * or moved adds or subtracts one or two rows of weights instead of summing all active features
+ * again. Taking a move back is just the reverse changes, so no stack of accumulators is needed.
+ * Only a king move starts its own side's accumulator over, since every feature of that side
+ * depends on where its king stands.
+ *
+ * An accumulator replaces any other listener of its board; like the board, it is for one thread
+ */
+class NnueAccumulator(
+    private val network: NnueNetwork,
+    private val board: BitboardPosition,
+    private val kernels: NnueKernels = NnueKernels.BEST
+) : BoardListener {
+
+    private val size = network.accumulatorSize
+
+    // Both sides' transformer output, white's first, and the king squares it was built for; 64
+    // when that side has no king, and its half of the accumulator is not kept up to date
+    private val accumulator = ShortArray(2 * size)
+    private val kingSquares = IntArray(2)
+
+    // Activations of each layer, reused by evaluate
+    private val input = IntArray(2 * size)
+    private val hidden1 = IntArray(network.hidden1Size)
+    private val hidden2 = IntArray(network.hidden2Size)
+
+    init {
+        board.listener = this
+        refresh(PieceCodes.WHITE)
+        refresh(PieceCodes.BLACK)
+    }
+
+    /**
+     * The score of the board in centipawns from the side to move's point of view, or null if a
+     * side has no king, which the features cannot describe
+     */
+    fun evaluate(): Int? {
+        if (kingSquares[PieceCodes.WHITE] >= 64 || kingSquares[PieceCodes.BLACK] >= 64) return null
+        val us = board.sideToMove
+        activate(us * size, 0)
+        activate(PieceCodes.opposite(us) * size, size)
+
+        for (j in hidden1.indices) {
+            val sum = network.hidden1Biases[j] + kernels.dot(input, network.hidden1Weights, j * input.size, input.size)
+            hidden1[j] = clip(sum shr NnueNetwork.WEIGHT_SHIFT)
+        }
+        for (k in hidden2.indices) {
+            val sum = network.hidden2Biases[k] + kernels.dot(hidden1, network.hidden2Weights, k * hidden1.size, hidden1.size)
+            hidden2[k] = clip(sum shr NnueNetwork.WEIGHT_SHIFT)
+        }
+        return (network.outputBias + kernels.dot(hidden2, network.outputWeights, 0, hidden2.size)) / NnueNetwork.OUTPUT_SCALE
+    }
+
+    /**
+     * A copy of one side's half of the accumulator, for checking it against a rebuilt one
+     */
+    fun accumulatorOf(color: Int): ShortArray = accumulator.copyOfRange(color * size, (color + 1) * size)
+
+    override fun piecePut(pieceCode: Int, square: Int) {
+        if (PieceCodes.typeOf(pieceCode) == PieceCodes.KING) {
+            refresh(PieceCodes.colorOf(pieceCode))
+            return
+        }
+        for (side in PieceCodes.WHITE..PieceCodes.BLACK) {
+            if (kingSquares[side] < 64) kernels.add(accumulator, side * size, network.transformerWeights, weightRow(side, pieceCode, square), size)
+        }
+    }
+
+    override fun pieceRemoved(pieceCode: Int, square: Int) {
+        if (PieceCodes.typeOf(pieceCode) == PieceCodes.KING) {
+            kingSquares[PieceCodes.colorOf(pieceCode)] = NO_KING
+            return
+        }
+        for (side in PieceCodes.WHITE..PieceCodes.BLACK) {
+            if (kingSquares[side] < 64) kernels.subtract(accumulator, side * size, network.transformerWeights, weightRow(side, pieceCode, square), size)
+        }
+    }
+
+    override fun pieceMoved(pieceCode: Int, from: Int, to: Int) {
+        if (PieceCodes.typeOf(pieceCode) == PieceCodes.KING) {
+            refresh(PieceCodes.colorOf(pieceCode))
+            return
+        }
+        for (side in PieceCodes.WHITE..PieceCodes.BLACK) {
+            if (kingSquares[side] < 64) {
+                kernels.addSubtract(accumulator, side * size, network.transformerWeights,
+                    weightRow(side, pieceCode, to), weightRow(side, pieceCode, from), size)
+            }
+        }
+    }
+
+    override fun boardReset() {
+        refresh(PieceCodes.WHITE)
+        refresh(PieceCodes.BLACK)
+    }
+
+    // Rebuilds one side's accumulator from the biases and every piece on the board
+    private fun refresh(side: Int) {
+        val king = Bitboards.lowestSquare(board.pieceBitboard(PieceCodes.code(side, PieceCodes.KING)))
+        kingSquares[side] = king
+        network.transformerBiases.copyInto(accumulator, side * size)
+        if (king >= 64) return
+        var pieces = board.occupancy()
+        while (pieces != 0L) {
+            val square = Bitboards.lowestSquare(pieces)
+            pieces = pieces and (pieces - 1)
+            val pieceCode = board.pieceCodeAt(square)
+            if (PieceCodes.typeOf(pieceCode) != PieceCodes.KING) {
+                kernels.add(accumulator, side * size, network.transformerWeights, weightRow(side, pieceCode, square), size)
+            }
+        }
+    }
+
+    // Where the weights of a feature start: black sees the board flipped, with the colors swapped
+    private fun weightRow(side: Int, pieceCode: Int, square: Int): Int {
+        val flip = if (side == PieceCodes.WHITE) 0 else 56
+        val kind = PieceCodes.typeOf(pieceCode) * 2 + (if (PieceCodes.colorOf(pieceCode) == side) 0 else 1)
+        val feature = ((kingSquares[side] xor flip) * NnueNetwork.PIECE_KINDS + kind) * 64 + (square xor flip)
+        return feature * size
+    }
+
+    private fun activate(from: Int, to: Int) {
+        for (i in 0 until size) input[to + i] = clip(accumulator[from + i].toInt())
+    }
+
+    private fun clip(value: Int): Int = value.coerceIn(0, NnueNetwork.ACTIVATION_MAX)
+
+    private companion object {
+        const val NO_KING = 64
+    }
+}
@@ -0,0 +1,70 @@
+package com.chessapp.engine.nnue
+
+/**
+ * The arithmetic of network inference: adding and subtracting rows of feature weights to and
+ * from an accumulator, and the dot products of the dense layers. Implemented with the Vector API
+ * (VectorKernels) where it is available, and in plain loops (ScalarKernels) everywhere else;
+ * both give exactly the same results
+ */
+interface NnueKernels {
+    /**
+     * accumulator[accumulatorOffset + i] += weights[weightOffset + i] for i below size
+     */
+    fun add(accumulator: ShortArray, accumulatorOffset: Int, weights: ShortArray, weightOffset: Int, size: Int)
+
+    /**
+     * accumulator[accumulatorOffset + i] -= weights[weightOffset + i] for i below size
+     */
+    fun subtract(accumulator: ShortArray, accumulatorOffset: Int, weights: ShortArray, weightOffset: Int, size: Int)
+
+    /**
+     * One add and one subtract in a single pass, for a piece moving from one feature to another
+     */
+    fun addSubtract(accumulator: ShortArray, accumulatorOffset: Int, weights: ShortArray, addOffset: Int, subtractOffset: Int, size: Int)
+
+    /**
+     * The sum of input[i] * weights[weightOffset + i] for i below size
+     */
+    fun dot(input: IntArray, weights: IntArray, weightOffset: Int, size: Int): Int
+
+    companion object {
+        /**
+         * VectorKernels if the jdk.incubator.vector module is present (run with
+         * --add-modules jdk.incubator.vector), ScalarKernels otherwise
+         */
+        val BEST: NnueKernels by lazy {
+            try {
+                VectorKernels.also { it.lanes() }
+            } catch (e: LinkageError) {
+                ScalarKernels
+            }
+        }
+    }
+}
+
+object ScalarKernels : NnueKernels {
+    override fun add(accumulator: ShortArray, accumulatorOffset: Int, weights: ShortArray, weightOffset: Int, size: Int) {
+        for (i in 0 until size) {
+            accumulator[accumulatorOffset + i] = (accumulator[accumulatorOffset + i] + weights[weightOffset + i]).toShort()
+        }
+    }
+
+    override fun subtract(accumulator: ShortArray, accumulatorOffset: Int, weights: ShortArray, weightOffset: Int, size: Int) {
+        for (i in 0 until size) {
+            accumulator[accumulatorOffset + i] = (accumulator[accumulatorOffset + i] - weights[weightOffset + i]).toShort()
+        }
+    }
+
+    override fun addSubtract(accumulator: ShortArray, accumulatorOffset: Int, weights: ShortArray, addOffset: Int, subtractOffset: Int, size: Int) {
+        for (i in 0 until size) {
+            accumulator[accumulatorOffset + i] =
+                (accumulator[accumulatorOffset + i] + weights[addOffset + i] - weights[subtractOffset + i]).toShort()
+        }
+    }
+
+    override fun dot(input: IntArray, weights: IntArray, weightOffset: Int, size: Int): Int {
+        var sum = 0
+        for (i in 0 until size) sum += input[i] * weights[weightOffset + i]
+        return sum
+    }
+}
@@ -0,0 +1,168 @@
+package com.chessapp.engine.nnue
+
+import java.io.IOException
+import java.nio.ByteBuffer
+import java.nio.ByteOrder
+import java.nio.channels.FileChannel
+import java.nio.file.Path
+import java.nio.file.StandardOpenOption
+import kotlin.random.Random
+
+/**
+ * The weights of an efficiently updatable network: a HalfKP feature transformer and three small
+ * dense layers.
+ *
+ * Each side sees the board as (own king square, piece, square) features: 64 king squares times
+ * 10 non-king pieces times 64 squares. Black sees the board flipped vertically, with "own" and
+ * "enemy" pieces swapped, so both sides share one set of transformer weights. The transformer
+ * sums the weights of the active features into an int16 accumulator of accumulatorSize per side
+ * (see NnueAccumulator). Inference then concatenates the side to move's accumulator with the
+ * other side's, clipped to 0..127, and runs it through two hidden layers of int8 weights, each
+ * followed by a shift of WEIGHT_SHIFT and a clip to 0..127, and an output neuron whose value
+ * divided by OUTPUT_SCALE is the score in centipawns.
+ *
+ * File layout, little-endian: magic "CHNN", version, accumulatorSize, hidden1Size, hidden2Size
+ * (ints), padded to HEADER_SIZE; then transformer biases (int16) and weights (int16, one row of
+ * accumulatorSize per feature); then for each dense layer its biases (int32) and weights (int8,
+ * one row of inputs per neuron). The file is memory-mapped and each array is read from the
+ * mapping in one bulk copy; the dense weights are widened to ints on the way, for the kernels.
+ * A network is immutable and can be shared between threads
+ */
+class NnueNetwork(
+    val accumulatorSize: Int,
+    val hidden1Size: Int,
+    val hidden2Size: Int,
+    internal val transformerBiases: ShortArray,
+    internal val transformerWeights: ShortArray,
+    internal val hidden1Biases: IntArray,
+    internal val hidden1Weights: IntArray,
+    internal val hidden2Biases: IntArray,
+    internal val hidden2Weights: IntArray,
+    internal val outputBias: Int,
+    internal val outputWeights: IntArray
+) {
+    init {
+        require(accumulatorSize > 0 && hidden1Size > 0 && hidden2Size > 0) { "Layer sizes must be positive" }
+        require(transformerBiases.size == accumulatorSize && transformerWeights.size == FEATURE_COUNT * accumulatorSize)
+        require(hidden1Biases.size == hidden1Size && hidden1Weights.size == hidden1Size * 2 * accumulatorSize)
+        require(hidden2Biases.size == hidden2Size && hidden2Weights.size == hidden2Size * hidden1Size)
+        require(outputWeights.size == hidden2Size)
+        for (weights in listOf(hidden1Weights, hidden2Weights, outputWeights)) {
+            require(weights.all { it in Byte.MIN_VALUE..Byte.MAX_VALUE }) { "Dense weights must fit in a byte" }
+        }
+    }
+
+    fun writeTo(path: Path) {
+        val size = fileSize(accumulatorSize, hidden1Size, hidden2Size)
+        FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.READ,
+            StandardOpenOption.WRITE).use { channel ->
+            val buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, size).order(ByteOrder.LITTLE_ENDIAN)
+            buffer.putInt(MAGIC).putInt(VERSION).putInt(accumulatorSize).putInt(hidden1Size).putInt(hidden2Size)
+            buffer.position(HEADER_SIZE)
+            buffer.asShortBuffer().put(transformerBiases).put(transformerWeights)
+            buffer.position(buffer.position() + (transformerBiases.size + transformerWeights.size) * 2)
+            writeLayer(buffer, hidden1Biases, hidden1Weights)
+            writeLayer(buffer, hidden2Biases, hidden2Weights)
+            writeLayer(buffer, intArrayOf(outputBias), outputWeights)
+        }
+    }
+
+    private fun writeLayer(buffer: ByteBuffer, biases: IntArray, weights: IntArray) {
+        buffer.asIntBuffer().put(biases)
+        buffer.position(buffer.position() + biases.size * 4)
+        for (weight in weights) buffer.put(weight.toByte())
+    }
+
+    companion object {
+        const val MAGIC = 0x4E4E4843 // "CHNN" read little-endian
+        const val VERSION = 1
+        const val HEADER_SIZE = 32
+
+        const val KING_SQUARES = 64
+        const val PIECE_KINDS = 10
+        const val FEATURE_COUNT = KING_SQUARES * PIECE_KINDS * 64
+
+        const val WEIGHT_SHIFT = 6
+        const val OUTPUT_SCALE = 16
+        const val ACTIVATION_MAX = 127
+
+        const val DEFAULT_ACCUMULATOR_SIZE = 256
+        const val DEFAULT_HIDDEN1_SIZE = 32
+        const val DEFAULT_HIDDEN2_SIZE = 32
+
+        /**
+         * Maps the network file and reads the weights from it
+         */
+        fun load(path: Path): NnueNetwork = FileChannel.open(path, StandardOpenOption.READ).use { channel ->
+            if (channel.size() < HEADER_SIZE) throw IOException("$path is not a network file")
+            val buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()).order(ByteOrder.LITTLE_ENDIAN)
+            if (buffer.getInt(0) != MAGIC) throw IOException("$path is not a network file")
+            val version = buffer.getInt(4)
+            if (version != VERSION) throw IOException("Unsupported network version $version in $path")
+            val accumulatorSize = buffer.getInt(8)
+            val hidden1Size = buffer.getInt(12)
+            val hidden2Size = buffer.getInt(16)
+            if (accumulatorSize !in 1..MAX_LAYER_SIZE || hidden1Size !in 1..MAX_LAYER_SIZE || hidden2Size !in 1..MAX_LAYER_SIZE) {
+                throw IOException("Bad layer sizes $accumulatorSize, $hidden1Size, $hidden2Size in $path")
+            }
+            val expected = fileSize(accumulatorSize, hidden1Size, hidden2Size)
+            if (channel.size() != expected) throw IOException("$path has ${channel.size()} bytes, expected $expected")
+
+            buffer.position(HEADER_SIZE)
+            val transformerBiases = ShortArray(accumulatorSize)
+            val transformerWeights = ShortArray(FEATURE_COUNT * accumulatorSize)
+            buffer.asShortBuffer().get(transformerBiases).get(transformerWeights)
+            buffer.position(buffer.position() + (transformerBiases.size + transformerWeights.size) * 2)
+            val hidden1Biases = readInts(buffer, hidden1Size)
+            val hidden1Weights = readBytes(buffer, hidden1Size * 2 * accumulatorSize)
+            val hidden2Biases = readInts(buffer, hidden2Size)
+            val hidden2Weights = readBytes(buffer, hidden2Size * hidden1Size)
+            val outputBias = readInts(buffer, 1)[0]
+            val outputWeights = readBytes(buffer, hidden2Size)
+            NnueNetwork(accumulatorSize, hidden1Size, hidden2Size, transformerBiases, transformerWeights,
+                hidden1Biases, hidden1Weights, hidden2Biases, hidden2Weights, outputBias, outputWeights)
+        }
+
+        /**
+         * A network of random weights, for tests and benchmarks; it plays no better than chance
+         */
+        fun random(
+            seed: Long,
+            accumulatorSize: Int = DEFAULT_ACCUMULATOR_SIZE,
+            hidden1Size: Int = DEFAULT_HIDDEN1_SIZE,
+            hidden2Size: Int = DEFAULT_HIDDEN2_SIZE
+        ): NnueNetwork {
+            val random = Random(seed)
+            fun shorts(size: Int, range: Int) = ShortArray(size) { random.nextInt(-range, range + 1).toShort() }
+            fun ints(size: Int, range: Int) = IntArray(size) { random.nextInt(-range, range + 1) }
+            return NnueNetwork(
+                accumulatorSize, hidden1Size, hidden2Size,
+                shorts(accumulatorSize, 32), shorts(FEATURE_COUNT * accumulatorSize, 8),
+                ints(hidden1Size, 512), ints(hidden1Size * 2 * accumulatorSize, 32),
+                ints(hidden2Size, 512), ints(hidden2Size * hidden1Size, 32),
+                random.nextInt(-256, 257), ints(hidden2Size, 127)
+            )
+        }
+
+        fun fileSize(accumulatorSize: Int, hidden1Size: Int, hidden2Size: Int): Long =
+            HEADER_SIZE + (accumulatorSize + FEATURE_COUNT.toLong() * accumulatorSize) * 2 +
+                hidden1Size * 4L + hidden1Size.toLong() * 2 * accumulatorSize +
+                hidden2Size * 4L + hidden2Size.toLong() * hidden1Size +
+                4L + hidden2Size
+
+        private const val MAX_LAYER_SIZE = 4096
+
+        private fun readInts(buffer: ByteBuffer, count: Int): IntArray {
+            val values = IntArray(count)
+            buffer.asIntBuffer().get(values)
+            buffer.position(buffer.position() + count * 4)
+            return values
+        }
+
+        private fun readBytes(buffer: ByteBuffer, count: Int): IntArray {
+            val bytes = ByteArray(count)
+            buffer.get(bytes)
+            return IntArray(count) { bytes[it].toInt() }
+        }
+    }
+}
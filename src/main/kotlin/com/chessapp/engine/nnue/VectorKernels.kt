@@ -0,0 +1,74 @@
+package com.chessapp.engine.nnue
+
+import jdk.incubator.vector.IntVector
+import jdk.incubator.vector.ShortVector
+import jdk.incubator.vector.VectorOperators
+
+/**
+ * NnueKernels on the Vector API, at the widest vector size the CPU supports: 256-bit AVX2 or
+ * 512-bit AVX-512 on x86, 128-bit NEON on ARM. Whatever does not fill a whole vector at the end
+ * of a row is done one element at a time. Loading this class fails with a LinkageError when
+ * the jdk.incubator.vector module is not present; NnueKernels.BEST falls back to ScalarKernels then
+ */
+object VectorKernels : NnueKernels {
+    private val SHORTS = ShortVector.SPECIES_PREFERRED
+    private val INTS = IntVector.SPECIES_PREFERRED
+
+    /**
+     * The number of 16-bit lanes in a vector
+     */
+    fun lanes(): Int = SHORTS.length()
+
+    override fun add(accumulator: ShortArray, accumulatorOffset: Int, weights: ShortArray, weightOffset: Int, size: Int) {
+        var i = 0
+        val bound = SHORTS.loopBound(size)
+        while (i < bound) {
+            ShortVector.fromArray(SHORTS, accumulator, accumulatorOffset + i)
+                .add(ShortVector.fromArray(SHORTS, weights, weightOffset + i))
+                .intoArray(accumulator, accumulatorOffset + i)
+            i += SHORTS.length()
+        }
+        ScalarKernels.add(accumulator, accumulatorOffset + i, weights, weightOffset + i, size - i)
+    }
+
+    override fun subtract(accumulator: ShortArray, accumulatorOffset: Int, weights: ShortArray, weightOffset: Int, size: Int) {
+        var i = 0
+        val bound = SHORTS.loopBound(size)
+        while (i < bound) {
+            ShortVector.fromArray(SHORTS, accumulator, accumulatorOffset + i)
+                .sub(ShortVector.fromArray(SHORTS, weights, weightOffset + i))
+                .intoArray(accumulator, accumulatorOffset + i)
+            i += SHORTS.length()
+        }
+        ScalarKernels.subtract(accumulator, accumulatorOffset + i, weights, weightOffset + i, size - i)
+    }
+
+    override fun addSubtract(accumulator: ShortArray, accumulatorOffset: Int, weights: ShortArray, addOffset: Int, subtractOffset: Int, size: Int) {
+        var i = 0
+        val bound = SHORTS.loopBound(size)
+        while (i < bound) {
+            ShortVector.fromArray(SHORTS, accumulator, accumulatorOffset + i)
+                .add(ShortVector.fromArray(SHORTS, weights, addOffset + i))
+                .sub(ShortVector.fromArray(SHORTS, weights, subtractOffset + i))
+                .intoArray(accumulator, accumulatorOffset + i)
+            i += SHORTS.length()
+        }
+        ScalarKernels.addSubtract(accumulator, accumulatorOffset + i, weights, addOffset + i, subtractOffset + i, size - i)
+    }
+
+    override fun dot(input: IntArray, weights: IntArray, weightOffset: Int, size: Int): Int {
+        var sums = IntVector.zero(INTS)
+        var i = 0
+        val bound = INTS.loopBound(size)
+        while (i < bound) {
+            sums = IntVector.fromArray(INTS, input, i).mul(IntVector.fromArray(INTS, weights, weightOffset + i)).add(sums)
+            i += INTS.length()
+        }
+        var sum = sums.reduceLanes(VectorOperators.ADD)
+        while (i < size) {
+            sum += input[i] * weights[weightOffset + i]
+            i++
+        }
+        return sum
+    }
+}
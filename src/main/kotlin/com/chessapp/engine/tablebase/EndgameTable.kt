@@ -0,0 +1,216 @@
+package com.chessapp.engine.tablebase
+
+import com.chessapp.api.board.Bitboards
+import com.chessapp.api.board.Board
+import com.chessapp.api.board.PieceCodes
+import java.io.IOException
+import java.nio.ByteBuffer
+import java.nio.ByteOrder
+import java.nio.channels.FileChannel
+import java.nio.file.Path
+import java.nio.file.StandardOpenOption
+
+/**
+ * The distance-to-mate table of one material, a byte per position.
+ *
+ * Positions are indexed by the squares of their pieces in Material slot order and the side to
+ * move, after a symmetry that moves the white king into a corner: without pawns one of the eight
+ * board symmetries puts it in the a1-d1-d4 triangle (10 squares), and for a king on the diagonal
+ * the position or its mirror across the diagonal is taken, whichever has the lower index; with
+ * pawns a left-right mirror puts it on files a to d (32 squares). Identical pieces, such as the
+ * two bishops of KBBK, then have their squares put in rising order. Every position thus has one
+ * index, and indexes no position maps to are marked ILLEGAL. The index is then
+ * ((king index * 64 + square of slot 1) * 64 + ...) * 2 + side to move.
+ *
+ * A value is 0 for a draw, n for a win in n plies by the side to move, -(n + 1) for a loss in n
+ * plies (-1 is checkmated), and ILLEGAL for squares that hold no legal position. Tables are held
+ * in a ByteBuffer, either on the heap while generating or mapped from a file written by writeTo
+ */
+class EndgameTable internal constructor(val material: Material, private val values: ByteBuffer) {
+
+    val size: Int = values.limit()
+
+    init {
+        require(size == size(material)) { "A ${material.name} table has ${size(material)} positions, got: $size" }
+    }
+
+    fun value(index: Int): Int = values.get(index).toInt()
+
+    /**
+     * The index of the position with these squares, in slot order, and side to move. The squares
+     * are normalized by the table's symmetry in place
+     */
+    fun index(squares: IntArray, sideToMove: Int): Int = index(material, squares, sideToMove)
+
+    /**
+     * The index of the position on the board, whose material must be this table's. With flip the
+     * board is read with its colors swapped and ranks mirrored, for a board where black has the
+     * stronger side. squares is scratch space of at least pieceCount entries
+     */
+    fun index(board: Board, flip: Boolean, squares: IntArray): Int {
+        val slotCodes = material.slotCodes
+        var remaining = 0L
+        for (slot in 0 until material.pieceCount) {
+            val code = if (flip) PieceCodes.code(PieceCodes.opposite(PieceCodes.colorOf(slotCodes[slot])), PieceCodes.typeOf(slotCodes[slot])) else slotCodes[slot]
+            // pieces of one code take consecutive slots, each the next square of the bitboard
+            if (slot == 0 || slotCodes[slot] != slotCodes[slot - 1]) remaining = board.pieceBitboard(code)
+            val square = Bitboards.lowestSquare(remaining)
+            remaining = remaining and (remaining - 1)
+            squares[slot] = if (flip) square xor 56 else square
+        }
+        val sideToMove = if (flip) PieceCodes.opposite(board.sideToMove) else board.sideToMove
+        return index(squares, sideToMove)
+    }
+
+    /**
+     * Writes the table to a file that read can map back
+     */
+    fun writeTo(path: Path) {
+        FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE).use { channel ->
+            val header = ByteBuffer.allocate(HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN)
+            val name = material.name.toByteArray(Charsets.US_ASCII)
+            header.putInt(MAGIC).putInt(VERSION).putInt(size).put(name.size.toByte()).put(name)
+            header.position(HEADER_SIZE).flip()
+            while (header.hasRemaining()) channel.write(header)
+            val data = values.duplicate()
+            data.clear()
+            while (data.hasRemaining()) channel.write(data)
+        }
+    }
+
+    companion object {
+        const val DRAW = 0
+        const val ILLEGAL = -128
+        const val MAX_PLIES = 126
+
+        const val MAGIC = 0x42544843 // "CHTB"
+        const val VERSION = 2
+        const val HEADER_SIZE = 32
+        const val FILE_EXTENSION = ".chtb"
+
+        fun win(plies: Int): Int = plies
+
+        fun loss(plies: Int): Int = -(plies + 1)
+
+        fun isWin(value: Int): Boolean = value > 0
+
+        fun isLoss(value: Int): Boolean = value < 0 && value != ILLEGAL
+
+        /**
+         * Plies to mate of a win or loss value
+         */
+        fun plies(value: Int): Int = if (value > 0) value else -value - 1
+
+        /**
+         * The number of positions in a table for the material
+         */
+        fun size(material: Material): Int {
+            var size = if (material.hasPawns) PAWN_KING_SQUARES else TRIANGLE_KING_SQUARES
+            repeat(material.pieceCount - 1) { size *= 64 }
+            return size * 2
+        }
+
+        /**
+         * Maps a table file written by writeTo
+         */
+        fun read(path: Path): EndgameTable = FileChannel.open(path, StandardOpenOption.READ).use { channel ->
+            val header = ByteBuffer.allocate(HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN)
+            while (header.hasRemaining() && channel.read(header) >= 0) continue
+            header.flip()
+            if (header.remaining() < HEADER_SIZE || header.getInt() != MAGIC) throw IOException("$path is not an endgame table")
+            val version = header.getInt()
+            if (version != VERSION) throw IOException("Unsupported endgame table version $version in $path")
+            val size = header.getInt()
+            val name = ByteArray(header.get().toInt()).also { header.get(it) }
+            val material = Material.parse(String(name, Charsets.US_ASCII))
+            if (channel.size() != HEADER_SIZE.toLong() + size) throw IOException("$path is truncated")
+            EndgameTable(material, channel.map(FileChannel.MapMode.READ_ONLY, HEADER_SIZE.toLong(), size.toLong()))
+        }
+
+        /**
+         * Squares of the slots for the index, in slot order, with the side to move returned
+         */
+        fun decode(material: Material, index: Int, squares: IntArray): Int {
+            var rest = index ushr 1
+            for (slot in material.pieceCount - 1 downTo 1) {
+                squares[slot] = rest and 63
+                rest = rest ushr 6
+            }
+            squares[0] = if (material.hasPawns) (rest / 4) * 8 + rest % 4 else TRIANGLE_SQUARES[rest]
+            return index and 1
+        }
+
+        internal fun index(material: Material, squares: IntArray, sideToMove: Int): Int {
+            val count = material.pieceCount
+            var king = squares[0]
+            if ((king and 7) > 3) {
+                for (slot in 0 until count) squares[slot] = squares[slot] xor 7
+            }
+            if (!material.hasPawns) {
+                king = squares[0]
+                if ((king ushr 3) > 3) {
+                    for (slot in 0 until count) squares[slot] = squares[slot] xor 56
+                }
+                king = squares[0]
+                if ((king ushr 3) > (king and 7)) {
+                    for (slot in 0 until count) squares[slot] = transpose(squares[slot])
+                } else if ((king ushr 3) == (king and 7)) {
+                    // on the diagonal both the position and its transpose qualify: take the lower index
+                    sortIdenticalPieces(material, squares)
+                    val index = rawIndex(material, squares)
+                    for (slot in 0 until count) squares[slot] = transpose(squares[slot])
+                    sortIdenticalPieces(material, squares)
+                    if (index < rawIndex(material, squares)) {
+                        for (slot in 0 until count) squares[slot] = transpose(squares[slot])
+                    }
+                }
+            }
+            sortIdenticalPieces(material, squares)
+            return rawIndex(material, squares) * 2 + sideToMove
+        }
+
+        /**
+         * Whether the squares of pieces of one code, which take consecutive slots, rise in slot
+         * order, as index puts them
+         */
+        internal fun identicalPiecesSorted(material: Material, squares: IntArray): Boolean {
+            val slotCodes = material.slotCodes
+            for (slot in 1 until material.pieceCount) {
+                if (slotCodes[slot] == slotCodes[slot - 1] && squares[slot] <= squares[slot - 1]) return false
+            }
+            return true
+        }
+
+        // Pieces of one code are interchangeable, so their squares are put in rising order
+        private fun sortIdenticalPieces(material: Material, squares: IntArray) {
+            val slotCodes = material.slotCodes
+            for (slot in 1 until material.pieceCount) {
+                var i = slot
+                while (i > 0 && slotCodes[i] == slotCodes[i - 1] && squares[i] < squares[i - 1]) {
+                    val square = squares[i]
+                    squares[i] = squares[i - 1]
+                    squares[i - 1] = square
+                    i--
+                }
+            }
+        }
+
+        private fun rawIndex(material: Material, squares: IntArray): Int {
+            val king = squares[0]
+            var index = if (material.hasPawns) (king ushr 3) * 4 + (king and 7) else TRIANGLE_INDEX[king]
+            for (slot in 1 until material.pieceCount) index = index * 64 + squares[slot]
+            return index
+        }
+
+        private fun transpose(square: Int): Int = ((square and 7) shl 3) or (square ushr 3)
+
+        private const val PAWN_KING_SQUARES = 32
+        private const val TRIANGLE_KING_SQUARES = 10
+
+        // a1, b1, c1, d1, b2, c2, d2, c3, d3, d4
+        private val TRIANGLE_SQUARES = intArrayOf(0, 1, 2, 3, 9, 10, 11, 18, 19, 27)
+        private val TRIANGLE_INDEX = IntArray(64) { -1 }.also { index ->
+            TRIANGLE_SQUARES.forEachIndexed { i, square -> index[square] = i }
+        }
+    }
+}
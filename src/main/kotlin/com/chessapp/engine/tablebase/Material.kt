@@ -0,0 +1,144 @@
+package com.chessapp.engine.tablebase
+
+import com.chessapp.api.board.Bitboards
+import com.chessapp.api.board.Board
+import com.chessapp.api.board.PieceCodes
+
+/**
+ * A set of pieces a table is generated for, such as KQK or KBNK: the white pieces after the
+ * first K, the black ones after the second. The stronger side is always white, with more pieces
+ * or, for as many pieces, the more valuable ones first, so "KKQ" and "KQK" name the same table.
+ *
+ * A position in a table is laid out as the squares of its pieces in slot order: the white king,
+ * the black king, then the white and black pieces from most to least valuable
+ */
+class Material private constructor(val white: IntArray, val black: IntArray) {
+
+    val name: String = "K" + white.joinToString("") { NAMES[it].toString() } + "K" + black.joinToString("") { NAMES[it].toString() }
+
+    val pieceCount: Int get() = 2 + white.size + black.size
+
+    val hasPawns: Boolean = PieceCodes.PAWN in white || PieceCodes.PAWN in black
+
+    /**
+     * The piece code in each slot
+     */
+    val slotCodes: IntArray = intArrayOf(PieceCodes.code(PieceCodes.WHITE, PieceCodes.KING), PieceCodes.code(PieceCodes.BLACK, PieceCodes.KING)) +
+        white.map { PieceCodes.code(PieceCodes.WHITE, it) } + black.map { PieceCodes.code(PieceCodes.BLACK, it) }
+
+    /**
+     * Every other material a move can turn this one into: a capture removes a piece, a
+     * promotion replaces a pawn, and a pawn capturing onto the last rank does both
+     */
+    fun conversions(): Set<Material> {
+        val result = LinkedHashSet<Material>()
+        val sides = arrayOf(white, black)
+        for (side in 0..1) {
+            val own = sides[side]
+            val other = sides[1 - side]
+            for (i in other.indices) result.add(of(own, other.removedAt(i), side))
+            for (i in own.indices) {
+                if (own[i] != PieceCodes.PAWN) continue
+                for (promotion in PieceCodes.KNIGHT..PieceCodes.QUEEN) {
+                    val promoted = own.copyOf().also { it[i] = promotion }
+                    result.add(of(promoted, other, side))
+                    for (j in other.indices) result.add(of(promoted, other.removedAt(j), side))
+                }
+            }
+        }
+        result.remove(this)
+        return result
+    }
+
+    override fun equals(other: Any?): Boolean = other is Material && other.name == name
+
+    override fun hashCode(): Int = name.hashCode()
+
+    override fun toString(): String = name
+
+    companion object {
+        const val MAX_PIECES = 4
+
+        // Piece letters by PieceCodes type; types are ordered from most to least valuable by VALUE_ORDER
+        private const val NAMES = "PNBRQK"
+        private val VALUE_ORDER = intArrayOf(4, 3, 2, 1, 0, 5)
+
+        /**
+         * The material named like "KQK" or "KRKP", in either order of the sides
+         */
+        fun parse(name: String): Material {
+            val upper = name.uppercase()
+            require(upper.length >= 2 && upper[0] == 'K' && upper.indexOf('K', 1) > 0) { "Material must be like KQK or KBNK, got: $name" }
+            val second = upper.indexOf('K', 1)
+            fun pieces(text: String) = text.map { c ->
+                val type = NAMES.indexOf(c)
+                require(type in PieceCodes.PAWN until PieceCodes.KING) { "Unknown piece '$c' in material $name" }
+                type
+            }.toIntArray()
+            val material = canonical(pieces(upper.substring(1, second)), pieces(upper.substring(second + 1)))
+            require(material.pieceCount <= MAX_PIECES) { "Tables are generated for up to $MAX_PIECES pieces, got: $name" }
+            return material
+        }
+
+        /**
+         * A number for the pieces of each color on the board, for looking up its table without
+         * allocating. A table is registered under the signatures of both color orders, see signature
+         */
+        fun signature(board: Board): Int {
+            var signature = 0
+            var weight = 1
+            for (color in PieceCodes.WHITE..PieceCodes.BLACK) {
+                for (type in PieceCodes.PAWN until PieceCodes.KING) {
+                    val count = Bitboards.count(board.pieceBitboard(PieceCodes.code(color, type)))
+                    if (count >= SIGNATURE_BASE) return NO_SIGNATURE
+                    signature += count * weight
+                    weight *= SIGNATURE_BASE
+                }
+            }
+            return signature
+        }
+
+        /**
+         * The signature of a board with these white and black pieces
+         */
+        fun signature(white: IntArray, black: IntArray): Int {
+            var signature = 0
+            for (type in white) signature += pow(type)
+            for (type in black) signature += pow(type + PieceCodes.KING)
+            return signature
+        }
+
+        // Up to two pieces of a type per side fit in a table, so counts are digits in base 3
+        private const val SIGNATURE_BASE = 3
+        const val SIGNATURE_COUNT = 59049 // SIGNATURE_BASE to the power of 10
+        const val NO_SIGNATURE = -1
+
+        private fun pow(exponent: Int): Int {
+            var result = 1
+            repeat(exponent) { result *= SIGNATURE_BASE }
+            return result
+        }
+
+        // The material with the given pieces for the side at index side (0 white, 1 black) and the other
+        private fun of(own: IntArray, other: IntArray, side: Int): Material =
+            if (side == 0) canonical(own, other) else canonical(other, own)
+
+        private fun canonical(white: IntArray, black: IntArray): Material {
+            val sortedWhite = sorted(white)
+            val sortedBlack = sorted(black)
+            return if (compareStrength(sortedWhite, sortedBlack) >= 0) Material(sortedWhite, sortedBlack) else Material(sortedBlack, sortedWhite)
+        }
+
+        private fun sorted(pieces: IntArray): IntArray = pieces.sortedBy { VALUE_ORDER[it] }.toIntArray()
+
+        private fun compareStrength(a: IntArray, b: IntArray): Int {
+            if (a.size != b.size) return a.size - b.size
+            for (i in a.indices) {
+                if (a[i] != b[i]) return VALUE_ORDER[b[i]] - VALUE_ORDER[a[i]]
+            }
+            return 0
+        }
+
+        private fun IntArray.removedAt(index: Int): IntArray = filterIndexed { i, _ -> i != index }.toIntArray()
+    }
+}
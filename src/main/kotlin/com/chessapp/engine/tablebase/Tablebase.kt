@@ -0,0 +1,93 @@
+package com.chessapp.engine.tablebase
+
+import com.chessapp.api.board.BitboardPosition
+import com.chessapp.api.board.Bitboards
+import com.chessapp.api.board.Board
+import com.chessapp.api.board.CastlingRights
+import com.chessapp.api.board.PieceCodes
+import com.chessapp.engine.Search
+import java.nio.file.Files
+import java.nio.file.Path
+import java.util.stream.Collectors
+
+/**
+ * A set of endgame tables, probed by the material on the board.
+ *
+ * A probe finds the table by the board's material signature, with colors swapped when black has
+ * the stronger side, and reads one byte, so it allocates nothing beyond the scratch squares it
+ * is given. Tables do not know about castling or en passant, so positions with castling rights
+ * or an en passant capture on offer are not probed. Tablebases can be shared between threads
+ */
+class Tablebase(tables: Collection<EndgameTable>) {
+
+    private val bySignature = arrayOfNulls<EndgameTable>(Material.SIGNATURE_COUNT)
+    private val flipped = BooleanArray(Material.SIGNATURE_COUNT)
+
+    val tables: Map<String, EndgameTable> = tables.associateBy { it.material.name }
+
+    init {
+        for (table in tables) {
+            val material = table.material
+            // black holding the stronger side is the same table with colors swapped
+            val swapped = Material.signature(material.black, material.white)
+            if (bySignature[swapped] == null) {
+                bySignature[swapped] = table
+                flipped[swapped] = true
+            }
+            bySignature[Material.signature(material.white, material.black)] = table
+            flipped[Material.signature(material.white, material.black)] = false
+        }
+    }
+
+    /**
+     * The score of the position for the side to move, in Search terms: Search.MATE less the plies
+     * to mate for a win, the negative of that for a loss, Search.DRAW for a draw, or UNKNOWN if
+     * no table covers the position
+     */
+    fun probe(board: Board, squares: IntArray = IntArray(Material.MAX_PIECES)): Int {
+        val value = probeValue(board, squares)
+        return when {
+            value == UNKNOWN -> UNKNOWN
+            EndgameTable.isWin(value) -> Search.MATE - EndgameTable.plies(value)
+            EndgameTable.isLoss(value) -> -(Search.MATE - EndgameTable.plies(value))
+            else -> Search.DRAW
+        }
+    }
+
+    /**
+     * The raw table value of the position, see EndgameTable, or UNKNOWN if no table covers it
+     */
+    fun probeValue(board: Board, squares: IntArray): Int {
+        if (board.castlingRights != CastlingRights.NONE || canCaptureEnPassant(board)) return UNKNOWN
+        val signature = Material.signature(board)
+        if (signature == Material.NO_SIGNATURE) return UNKNOWN
+        val table = bySignature[signature] ?: return UNKNOWN
+        return table.value(table.index(board, flipped[signature], squares))
+    }
+
+    private fun canCaptureEnPassant(board: Board): Boolean {
+        val square = board.enPassantSquare
+        if (square == BitboardPosition.NO_SQUARE) return false
+        val us = board.sideToMove
+        return (Bitboards.PAWN_ATTACKS[PieceCodes.opposite(us)][square] and board.pieceBitboard(PieceCodes.code(us, PieceCodes.PAWN))) != 0L
+    }
+
+    /**
+     * Writes every table into the directory, one file per material
+     */
+    fun save(directory: Path) {
+        Files.createDirectories(directory)
+        for ((name, table) in tables) table.writeTo(directory.resolve(name + EndgameTable.FILE_EXTENSION))
+    }
+
+    companion object {
+        const val UNKNOWN = Int.MIN_VALUE
+
+        /**
+         * Maps every table file in the directory
+         */
+        fun load(directory: Path): Tablebase = Files.list(directory).use { files ->
+            Tablebase(files.filter { it.fileName.toString().endsWith(EndgameTable.FILE_EXTENSION) }.map { EndgameTable.read(it) }.collect(Collectors.toList()))
+        }
+    }
+}
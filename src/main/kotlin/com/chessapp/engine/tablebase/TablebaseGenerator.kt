@@ -0,0 +1,283 @@
+package com.chessapp.engine.tablebase
+
+import com.chessapp.api.board.AttackDetector
+import com.chessapp.api.board.BitboardPosition
+import com.chessapp.api.board.Bitboards
+import com.chessapp.api.board.LegalMoveGenerator
+import com.chessapp.api.board.Move
+import com.chessapp.api.board.MoveList
+import com.chessapp.api.board.PieceCodes
+import com.chessapp.api.board.SlidingAttacks
+import java.nio.ByteBuffer
+import java.util.concurrent.ForkJoinPool
+import java.util.concurrent.RecursiveAction
+import java.util.concurrent.atomic.AtomicBoolean
+import java.util.concurrent.atomic.AtomicInteger
+
+/**
+ * Generates endgame tables by retrograde analysis, together with every smaller table their
+ * captures and promotions lead into.
+ *
+ * A table is built in passes over index ranges, split across a fork/join pool:
+ *  - the first pass plays every legal move of every position. Mates and stalemates are settled
+ *    here, as are positions whose moves all leave the table, since captures and promotions are
+ *    looked up in the tables already built. A position that wins by leaving the table is marked
+ *    as that win, to be shortened later if a move inside the table mates sooner
+ *  - pass n then walks back from the positions settled at n - 1 plies by taking back moves of
+ *    the side that just moved. For odd n every such predecessor wins in n plies; for even n a
+ *    predecessor loses in n plies if every one of its moves leads to a win for the opponent.
+ *    Positions whose moves out of the table all lose are checked again at the pass where the
+ *    longest of those losses is due
+ *  - the passes stop once one settles nothing and nothing from the first pass is still due;
+ *    positions never settled are draws
+ *
+ * Within a pass, threads only read values settled in earlier passes and only write values of the
+ * current one, which never alter another thread's decision, so the table is shared without locks.
+ *
+ * Taken-back moves are quiet moves and pawn pushes only. Captures and promotions change the
+ * material, and en passant is not part of a table position, so it is never considered
+ */
+class TablebaseGenerator(private val pool: ForkJoinPool = ForkJoinPool.commonPool()) {
+
+    /**
+     * Generates the tables for the materials, named like "KQK", and all the tables they depend on
+     */
+    fun generate(vararg materials: String): Tablebase {
+        val tables = LinkedHashMap<Material, EndgameTable>()
+        for (name in materials) generate(Material.parse(name), tables)
+        return Tablebase(tables.values)
+    }
+
+    private fun generate(material: Material, tables: MutableMap<Material, EndgameTable>) {
+        if (material in tables) return
+        for (conversion in material.conversions()) generate(conversion, tables)
+        tables[material] = Generation(material, Tablebase(tables.values)).run()
+    }
+
+    private inner class Generation(private val material: Material, private val smaller: Tablebase) {
+        private val values = ByteArray(EndgameTable.size(material))
+        private val table = EndgameTable(material, ByteBuffer.wrap(values))
+
+        // Plies of a loss due once every move that leaves the table has been found to lose, for
+        // positions that also have moves inside it
+        private val pendingLosses = ByteArray(values.size)
+        private val longestFirstPassValue = AtomicInteger()
+
+        fun run(): EndgameTable {
+            pool.invoke(Pass(0, values.size) { worker, index -> worker.settle(index) })
+
+            var plies = 1
+            while (true) {
+                if (plies > EndgameTable.MAX_PLIES) throw IllegalStateException("${material.name} has mates longer than ${EndgameTable.MAX_PLIES} plies")
+                val settled = AtomicBoolean()
+                // positions settled in the previous pass, as wins for even passes and losses for odd ones
+                val previous = if (plies % 2 == 0) EndgameTable.win(plies - 1) else EndgameTable.loss(plies - 1)
+                val current = plies
+                pool.invoke(Pass(0, values.size) { worker, index ->
+                    val value = values[index].toInt()
+                    if (value == previous && worker.retract(index, current)) settled.set(true)
+                    if (value == EndgameTable.DRAW && pendingLosses[index].toInt() == current && worker.settleLoss(index, current)) settled.set(true)
+                })
+                if (!settled.get() && plies > longestFirstPassValue.get()) break
+                plies++
+            }
+            return table
+        }
+
+        private inner class Pass(
+            private val from: Int,
+            private val to: Int,
+            private val action: (Worker, Int) -> Unit
+        ) : RecursiveAction() {
+            override fun compute() {
+                if (to - from <= SPLIT_THRESHOLD) {
+                    val worker = Worker()
+                    for (index in from until to) action(worker, index)
+                    return
+                }
+                val middle = (from + to) ushr 1
+                invokeAll(Pass(from, middle, action), Pass(middle, to, action))
+            }
+        }
+
+        // Scratch state for one thread
+        private inner class Worker {
+            private val board = BitboardPosition()
+            private val generator = LegalMoveGenerator(board)
+            private val moves = MoveList()
+            // a second board for checking predecessors while the first still holds the position they lead to
+            private val scratch = BitboardPosition()
+            private val scratchGenerator = LegalMoveGenerator(scratch)
+            private val scratchMoves = MoveList()
+            private val squares = IntArray(Material.MAX_PIECES)
+            private val childSquares = IntArray(Material.MAX_PIECES)
+
+            /**
+             * First pass: marks illegal positions, mates, stalemates and positions settled by
+             * leaving the table
+             */
+            fun settle(index: Int) {
+                if (!setUp(index)) {
+                    values[index] = EndgameTable.ILLEGAL.toByte()
+                    return
+                }
+                generator.generateLegalMoves(moves)
+                if (moves.isEmpty()) {
+                    val inCheck = AttackDetector.isInCheck(board, board.sideToMove)
+                    values[index] = (if (inCheck) EndgameTable.loss(0) else EndgameTable.DRAW).toByte()
+                    return
+                }
+
+                var quietMoves = false
+                var shortestWin = Int.MAX_VALUE
+                var longestLoss = -1
+                var allLose = true
+                for (i in 0 until moves.size) {
+                    val move = moves[i]
+                    if (!leavesTable(move)) {
+                        quietMoves = true
+                        continue
+                    }
+                    board.makeMove(move)
+                    val child = smaller.probeValue(board, childSquares)
+                    board.unmakeMove()
+                    when {
+                        EndgameTable.isLoss(child) -> shortestWin = minOf(shortestWin, EndgameTable.plies(child) + 1)
+                        EndgameTable.isWin(child) -> longestLoss = maxOf(longestLoss, EndgameTable.plies(child) + 1)
+                        else -> allLose = false
+                    }
+                }
+
+                if (shortestWin == Int.MAX_VALUE && quietMoves) {
+                    // the moves inside the table decide, but cannot lose sooner than the ones leaving it
+                    if (allLose && longestLoss > 0) {
+                        pendingLosses[index] = longestLoss.toByte()
+                        longestFirstPassValue.accumulateAndGet(longestLoss, ::maxOf)
+                    }
+                    return
+                }
+                val value = when {
+                    shortestWin != Int.MAX_VALUE -> EndgameTable.win(shortestWin)
+                    allLose -> EndgameTable.loss(longestLoss)
+                    else -> EndgameTable.DRAW
+                }
+                values[index] = value.toByte()
+                longestFirstPassValue.accumulateAndGet(EndgameTable.plies(value), ::maxOf)
+            }
+
+            /**
+             * Pass for plies: takes back every move that could have led to the position at index,
+             * settling the predecessors that become wins or losses in plies. Whether any was settled
+             */
+            fun retract(index: Int, plies: Int): Boolean {
+                setUp(index)
+                val mover = PieceCodes.opposite(board.sideToMove)
+                val opponent = board.sideToMove
+                val occupancy = board.occupancy()
+                var settled = false
+
+                var pieces = board.occupancy(mover)
+                while (pieces != 0L) {
+                    val to = Bitboards.lowestSquare(pieces)
+                    pieces = pieces and (pieces - 1)
+                    var origins = origins(board.pieceCodeAt(to), to, occupancy)
+                    while (origins != 0L) {
+                        val from = Bitboards.lowestSquare(origins)
+                        origins = origins and (origins - 1)
+
+                        board.relocatePiece(to, from)
+                        board.sideToMove = mover
+                        // the side that did not move cannot be left in check
+                        if (!AttackDetector.isInCheck(board, opponent)) {
+                            val predecessor = table.index(board, false, squares)
+                            if (settlePredecessor(predecessor, plies)) settled = true
+                        }
+                        board.sideToMove = opponent
+                        board.relocatePiece(from, to)
+                    }
+                }
+                return settled
+            }
+
+            private fun settlePredecessor(predecessor: Int, plies: Int): Boolean {
+                val current = values[predecessor].toInt()
+                if (plies % 2 == 1) {
+                    // wins found in the first pass by leaving the table give way to shorter ones
+                    if (current != EndgameTable.DRAW && !(EndgameTable.isWin(current) && EndgameTable.plies(current) > plies)) return false
+                    values[predecessor] = EndgameTable.win(plies).toByte()
+                    return true
+                }
+                return current == EndgameTable.DRAW && settleLoss(predecessor, plies)
+            }
+
+            /**
+             * Settles the position as a loss in plies if every one of its moves leads to a win
+             * for the opponent within plies - 1. Whether it did
+             */
+            fun settleLoss(index: Int, plies: Int): Boolean {
+                setUp(scratch, index)
+                scratchGenerator.generateLegalMoves(scratchMoves)
+                for (i in 0 until scratchMoves.size) {
+                    val move = scratchMoves[i]
+                    scratch.makeMove(move)
+                    val child = if (leavesTable(move)) smaller.probeValue(scratch, childSquares) else values[table.index(scratch, false, childSquares)].toInt()
+                    scratch.unmakeMove()
+                    if (!EndgameTable.isWin(child) || EndgameTable.plies(child) >= plies) return false
+                }
+                values[index] = EndgameTable.loss(plies).toByte()
+                return true
+            }
+
+            // Squares a piece now on to could have come from with a quiet move or pawn push
+            private fun origins(pieceCode: Int, to: Int, occupancy: Long): Long {
+                val empty = occupancy.inv()
+                return when (PieceCodes.typeOf(pieceCode)) {
+                    PieceCodes.PAWN -> {
+                        val white = PieceCodes.colorOf(pieceCode) == PieceCodes.WHITE
+                        val single = if (white) to - 8 else to + 8
+                        // pawns never stand on their first rank
+                        if (single !in 8..55 || Bitboards.isSet(occupancy, single)) return 0L
+                        var origins = Bitboards.squareBit(single)
+                        val double = if (white) to - 16 else to + 16
+                        if ((to ushr 3) == (if (white) 3 else 4) && !Bitboards.isSet(occupancy, double)) origins = origins or Bitboards.squareBit(double)
+                        origins
+                    }
+                    PieceCodes.KNIGHT -> Bitboards.KNIGHT_ATTACKS[to] and empty
+                    PieceCodes.BISHOP -> SlidingAttacks.bishopAttacks(to, occupancy) and empty
+                    PieceCodes.ROOK -> SlidingAttacks.rookAttacks(to, occupancy) and empty
+                    PieceCodes.QUEEN -> SlidingAttacks.queenAttacks(to, occupancy) and empty
+                    else -> Bitboards.KING_ATTACKS[to] and empty
+                }
+            }
+
+            private fun leavesTable(move: Int) = Move.isCapture(move) || Move.isPromotion(move)
+
+            private fun setUp(index: Int): Boolean = setUp(board, index)
+
+            // Places the position on the board; false if it is not a legal one or not the index symmetry and
+            // the order of identical pieces give it
+            private fun setUp(target: BitboardPosition, index: Int): Boolean {
+                val sideToMove = EndgameTable.decode(material, index, squares)
+                if (!EndgameTable.identicalPiecesSorted(material, squares)) return false
+                squares.copyInto(childSquares)
+                if (EndgameTable.index(material, childSquares, sideToMove) != index) return false
+                target.clear()
+                var occupied = 0L
+                val slotCodes = material.slotCodes
+                for (slot in 0 until material.pieceCount) {
+                    val square = squares[slot]
+                    if (Bitboards.isSet(occupied, square)) return false
+                    if (PieceCodes.typeOf(slotCodes[slot]) == PieceCodes.PAWN && (square < 8 || square >= 56)) return false
+                    occupied = occupied or Bitboards.squareBit(square)
+                    target.putPiece(square, slotCodes[slot])
+                }
+                target.sideToMove = sideToMove
+                return !AttackDetector.isInCheck(target, PieceCodes.opposite(sideToMove))
+            }
+        }
+    }
+
+    companion object {
+        private const val SPLIT_THRESHOLD = 1 shl 14
+    }
+}
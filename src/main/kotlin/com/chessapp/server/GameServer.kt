@@ -0,0 +1,172 @@
+package com.chessapp.server
+
+import com.chessapp.api.board.Fen
+import com.chessapp.api.board.GameSession
+import com.chessapp.api.board.GameSessionFactory
+import com.chessapp.api.board.LegalMoveGenerator
+import com.chessapp.api.board.Move
+import com.chessapp.api.board.MoveList
+import java.io.BufferedReader
+import java.io.BufferedWriter
+import java.io.Closeable
+import java.io.IOException
+import java.io.InputStreamReader
+import java.io.OutputStreamWriter
+import java.net.InetAddress
+import java.net.ServerSocket
+import java.net.Socket
+import java.net.SocketException
+import java.util.concurrent.ExecutorService
+import java.util.concurrent.Executors
+import java.util.concurrent.TimeUnit
+
+/**
+ * Hosts one game per TCP connection, speaking a line based protocol. Every connection gets a
+ * virtual thread and a GameSession of its own, so thousands of games run side by side while
+ * each is handled by plain blocking code; the only state the games share is the read-only
+ * attack tables behind the move generation, and the pool the sessions come from. Moves are
+ * generated by LegalMoveGenerator straight from the session's BitboardPosition.
+ *
+ * Requests and their replies, one line each:
+ *  - move e2e4: plays the move if it is a legal move of the side to move (see
+ *    LegalMoveGenerator), replying ok, or illegal followed by the move
+ *  - moves: the legal moves of the side to move, as moves followed by the moves in UCI
+ *    notation; none once the game has ended in checkmate or stalemate
+ *  - undo: takes back the last move, replying ok followed by it
+ *  - fen: the position, as fen followed by its FEN
+ *  - new: starts a new game on the same connection, replying ok
+ *  - quit: replies bye and closes the connection
+ *
+ * Anything else is answered with error followed by a reason
+ */
+class GameServer(
+    port: Int = DEFAULT_PORT,
+    private val sessions: GameSessionFactory = GameSessionFactory()
+) : Closeable {
+
+    private val serverSocket = ServerSocket(port, BACKLOG, InetAddress.getLoopbackAddress())
+    private val executor: ExecutorService = Executors.newVirtualThreadPerTaskExecutor()
+
+    /**
+     * The port the server listens on, useful when it was started on port 0
+     */
+    val port: Int get() = serverSocket.localPort
+
+    /**
+     * Starts accepting connections in the background and returns
+     */
+    fun start(): GameServer {
+        executor.execute {
+            while (!serverSocket.isClosed) {
+                val socket = try {
+                    serverSocket.accept()
+                } catch (e: SocketException) {
+                    break
+                }
+                executor.execute { serve(socket) }
+            }
+        }
+        return this
+    }
+
+    /**
+     * Stops accepting connections, closes the open ones and waits for their threads to end
+     */
+    override fun close() {
+        serverSocket.close()
+        executor.shutdownNow()
+        executor.awaitTermination(10, TimeUnit.SECONDS)
+    }
+
+    private fun serve(socket: Socket) {
+        val session = sessions.acquire()
+        try {
+            socket.use {
+                socket.tcpNoDelay = true
+                val input = BufferedReader(InputStreamReader(socket.getInputStream(), Charsets.US_ASCII))
+                val output = BufferedWriter(OutputStreamWriter(socket.getOutputStream(), Charsets.US_ASCII))
+                val connection = Connection(session)
+                while (!Thread.currentThread().isInterrupted) {
+                    val line = input.readLine() ?: break
+                    val reply = connection.handle(line)
+                    output.write(reply)
+                    output.newLine()
+                    output.flush()
+                    if (reply == BYE) break
+                }
+            }
+        } catch (e: IOException) {
+            // the client went away; its game simply ends
+        } finally {
+            sessions.release(session)
+        }
+    }
+
+    /**
+     * The protocol state of one connection. Not thread safe; used only by the connection's thread
+     */
+    internal class Connection(private val session: GameSession) {
+        private val generator = LegalMoveGenerator(session.boardPosition())
+        private val moves = MoveList()
+        private val reply = StringBuilder()
+
+        fun handle(line: String): String {
+            val command = line.trim()
+            val space = command.indexOf(' ')
+            val name = if (space < 0) command else command.substring(0, space)
+            val argument = if (space < 0) "" else command.substring(space + 1).trim()
+            return when (name) {
+                "move" -> play(argument)
+                "moves" -> possibleMoves()
+                "undo" -> session.undo().let { if (it == Move.NONE) "error no move to undo" else "ok ${Move.toUci(it)}" }
+                "fen" -> "fen ${Fen.write(session.boardPosition())}"
+                "new" -> {
+                    session.reset()
+                    "ok"
+                }
+                "quit" -> BYE
+                else -> "error unknown command: $name"
+            }
+        }
+
+        private fun play(uci: String): String {
+            generateMoves()
+            if (moves.size == 0) return "error the game is over"
+            for (i in 0 until moves.size) {
+                if (Move.toUci(moves[i]) == uci) {
+                    session.play(moves[i])
+                    return "ok"
+                }
+            }
+            return "illegal $uci"
+        }
+
+        private fun possibleMoves(): String {
+            reply.setLength(0)
+            reply.append("moves")
+            generateMoves()
+            for (i in 0 until moves.size) reply.append(' ').append(Move.toUci(moves[i]))
+            return reply.toString()
+        }
+
+        private fun generateMoves() {
+            generator.generateLegalMoves(moves)
+        }
+    }
+
+    companion object {
+        const val DEFAULT_PORT = 7878
+        const val BYE = "bye"
+        private const val BACKLOG = 4096
+    }
+}
+
+/**
+ * Runs a game server on the loopback interface until the process is killed; the port is
+ * the first argument, or DEFAULT_PORT
+ */
+fun main(args: Array<String>) {
+    val server = GameServer(args.firstOrNull()?.toInt() ?: GameServer.DEFAULT_PORT).start()
+    println("Game server listening on port ${server.port}")
+    Thread.currentThread().join()
+}
@@ -0,0 +1,117 @@
+package com.chessapp.server
+
+import java.io.BufferedReader
+import java.io.BufferedWriter
+import java.io.IOException
+import java.io.InputStreamReader
+import java.io.OutputStreamWriter
+import java.net.InetAddress
+import java.net.Socket
+import java.util.concurrent.Executors
+import java.util.concurrent.Future
+import kotlin.random.Random
+
+/**
+ * Drives a GameServer with simulated clients, each on a virtual thread of its own, that play
+ * random possible moves and start a new game whenever one ends. Only the round trip of each
+ * move request is timed: from writing the move to reading its reply
+ */
+class LoadGenerator(
+    private val port: Int,
+    private val clients: Int,
+    private val movesPerClient: Int,
+    private val seed: Long = 1
+) {
+    init {
+        require(clients >= 1) { "Client count must be at least 1, got: $clients" }
+        require(movesPerClient >= 1) { "Moves per client must be at least 1, got: $movesPerClient" }
+    }
+
+    data class Report(val moves: Long, val elapsedMillis: Long, val p50Micros: Long, val p99Micros: Long, val maxMicros: Long) {
+        val movesPerSecond: Long get() = if (elapsedMillis > 0) moves * 1000 / elapsedMillis else 0
+
+        override fun toString(): String =
+            "$moves moves in $elapsedMillis ms ($movesPerSecond moves/s), round trip p50 $p50Micros us, p99 $p99Micros us, max $maxMicros us"
+    }
+
+    fun run(): Report {
+        val start = System.nanoTime()
+        val latencies = Executors.newVirtualThreadPerTaskExecutor().use { executor ->
+            val results: List<Future<LongArray>> = (0 until clients).map { client ->
+                executor.submit<LongArray> { playClient(Random(seed + client)) }
+            }
+            results.map { it.get() }
+        }
+        val elapsedMillis = (System.nanoTime() - start) / 1_000_000
+
+        val all = LongArray(latencies.sumOf { it.size })
+        var offset = 0
+        for (client in latencies) {
+            client.copyInto(all, offset)
+            offset += client.size
+        }
+        all.sort()
+        return Report(all.size.toLong(), elapsedMillis, percentile(all, 50) / 1000, percentile(all, 99) / 1000,
+            (all.lastOrNull() ?: 0) / 1000)
+    }
+
+    // The round trip of every move the client played, in nanoseconds
+    private fun playClient(random: Random): LongArray {
+        val latencies = LongArray(movesPerClient)
+        Socket(InetAddress.getLoopbackAddress(), port).use { socket ->
+            socket.tcpNoDelay = true
+            val input = BufferedReader(InputStreamReader(socket.getInputStream(), Charsets.US_ASCII))
+            val output = BufferedWriter(OutputStreamWriter(socket.getOutputStream(), Charsets.US_ASCII))
+            fun request(line: String): String {
+                output.write(line)
+                output.newLine()
+                output.flush()
+                return input.readLine() ?: throw IOException("The server closed the connection")
+            }
+
+            var played = 0
+            while (played < movesPerClient) {
+                val moves = request("moves").split(' ').drop(1)
+                if (moves.isEmpty()) {
+                    request("new")
+                    continue
+                }
+                val move = moves[random.nextInt(moves.size)]
+                val sent = System.nanoTime()
+                val reply = request("move $move")
+                latencies[played++] = System.nanoTime() - sent
+                if (reply != "ok") throw IOException("Move $move was refused: $reply")
+            }
+            request("quit")
+        }
+        return latencies
+    }
+
+    companion object {
+        /**
+         * The value below which the given percentage of the sorted values fall
+         */
+        fun percentile(sorted: LongArray, percent: Int): Long {
+            if (sorted.isEmpty()) return 0
+            val rank = (sorted.size.toLong() * percent + 99) / 100
+            return sorted[(rank - 1).toInt().coerceIn(0, sorted.size - 1)]
+        }
+    }
+}
+
+/**
+ * Runs the load generator, e.g. ./gradlew loadtest -PloadArgs="1000 200": clients, moves per
+ * client and optionally the port of a running server; without a port a server is started in
+ * process
+ */
+fun main(args: Array<String>) {
+    val clients = args.getOrNull(0)?.toInt() ?: 100
+    val moves = args.getOrNull(1)?.toInt() ?: 100
+    val port = args.getOrNull(2)?.toInt()
+    val server = if (port == null) GameServer(0).start() else null
+    try {
+        println(LoadGenerator(port ?: server!!.port, clients, moves).run())
+    } finally {
+        server?.close()
+    }
+}
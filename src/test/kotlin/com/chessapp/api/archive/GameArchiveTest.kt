@@ -0,0 +1,123 @@
+package com.chessapp.api.archive
+
+import com.chessapp.api.board.Fen
+import com.chessapp.api.board.LegalMoveGenerator
+import com.chessapp.api.board.Move
+import com.chessapp.api.board.MoveList
+import org.junit.jupiter.api.AfterEach
+import org.junit.jupiter.api.Assertions.assertArrayEquals
+import org.junit.jupiter.api.Assertions.assertEquals
+import org.junit.jupiter.api.Assertions.assertTrue
+import org.junit.jupiter.api.BeforeEach
+import org.junit.jupiter.api.Test
+import org.junit.jupiter.api.assertThrows
+import java.io.IOException
+import java.nio.file.Files
+import java.nio.file.Path
+import kotlin.random.Random
+
+class GameArchiveTest {
+    private lateinit var file: Path
+
+    @BeforeEach
+    fun setup() {
+        file = Files.createTempFile("games", ".chga")
+    }
+
+    @AfterEach
+    fun cleanup() {
+        Files.deleteIfExists(file)
+    }
+
+    private fun randomGame(random: Random, fen: String, maxPlies: Int): IntArray {
+        val board = Fen.toBitboardPosition(fen)
+        val generator = LegalMoveGenerator(board)
+        val moves = MoveList()
+        val played = mutableListOf<Int>()
+        val plies = random.nextInt(maxPlies + 1)
+        while (played.size < plies) {
+            generator.generateLegalMoves(moves)
+            if (moves.isEmpty()) break
+            val move = moves[random.nextInt(moves.size)]
+            board.makeMove(move)
+            played.add(move)
+        }
+        return played.toIntArray()
+    }
+
+    @Test
+    fun testRoundTripWithRandomAccess() {
+        val random = Random(3)
+        val fens = listOf(Fen.STARTING_POSITION, "r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1")
+        val results = listOf("*", "1-0", "0-1", "1/2-1/2")
+        val games = (0 until 300).map { Triple(fens[it % 7 / 6], randomGame(random, fens[it % 7 / 6], 120), results[it % 4]) }
+
+        GameArchiveWriter(file, gamesPerBlock = 16).use { writer ->
+            games.forEach { (fen, moves, result) -> writer.append(fen, moves, result) }
+            assertEquals(300L, writer.gamesWritten)
+        }
+
+        GameArchiveReader(file).use { reader ->
+            assertEquals(300L, reader.gameCount)
+            // out of order, across blocks, and repeated
+            for (number in listOf(0L, 299L, 17L, 16L, 15L, 150L, 151L, 152L, 0L, 31L, 32L)) {
+                val game = reader.read(number)
+                val (fen, moves, result) = games[number.toInt()]
+                assertEquals(number, game.number)
+                assertEquals(fen, game.startingFen)
+                assertArrayEquals(moves, game.moves, "Game $number")
+                assertEquals(result, game.result)
+            }
+
+            var count = 0
+            reader.forEach { game ->
+                assertArrayEquals(games[count].second, game.moves)
+                count++
+            }
+            assertEquals(300, count)
+        }
+    }
+
+    @Test
+    fun testMovesTakeAFewBitsEach() {
+        val random = Random(5)
+        var totalMoves = 0L
+        GameArchiveWriter(file).use { writer ->
+            repeat(200) {
+                val moves = randomGame(random, Fen.STARTING_POSITION, 80)
+                totalMoves += moves.size
+                writer.append(Fen.STARTING_POSITION, moves)
+            }
+        }
+        val bytesPerMove = (Files.size(file) - GameArchive.HEADER_SIZE).toDouble() / totalMoves
+        assertTrue(bytesPerMove < 1.0, "$bytesPerMove bytes per move")
+    }
+
+    @Test
+    fun testEmptyArchive() {
+        GameArchiveWriter(file).close()
+        GameArchiveReader(file).use { reader ->
+            assertEquals(0L, reader.gameCount)
+            assertThrows<IllegalArgumentException> { reader.read(0) }
+        }
+    }
+
+    @Test
+    fun testRejectsIllegalMovesAndForeignFiles() {
+        GameArchiveWriter(file).use { writer ->
+            val illegal = Move.encode(12, 36, 0)
+            assertThrows<IllegalArgumentException> { writer.append(Fen.STARTING_POSITION, intArrayOf(illegal)) }
+        }
+
+        Files.write(file, ByteArray(64) { 7 })
+        assertThrows<IOException> { GameArchiveReader(file) }
+    }
+
+    @Test
+    fun testBadArgumentsLeaveTheFileAlone() {
+        Files.write(file, ByteArray(64) { 7 })
+        assertThrows<IllegalArgumentException> { GameArchiveWriter(file, gamesPerBlock = 0) }
+        assertThrows<IllegalArgumentException> { GameArchiveWriter(file, bufferSize = -1) }
+        assertEquals(64L, Files.size(file))
+    }
+}
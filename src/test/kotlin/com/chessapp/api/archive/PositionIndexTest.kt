@@ -0,0 +1,157 @@
+package com.chessapp.api.archive
+
+import com.chessapp.api.board.Fen
+import com.chessapp.api.board.LegalMoveGenerator
+import com.chessapp.api.board.Move
+import com.chessapp.api.board.MoveList
+import org.junit.jupiter.api.AfterEach
+import org.junit.jupiter.api.Assertions.assertArrayEquals
+import org.junit.jupiter.api.Assertions.assertEquals
+import org.junit.jupiter.api.Assertions.assertTrue
+import org.junit.jupiter.api.BeforeEach
+import org.junit.jupiter.api.Test
+import org.junit.jupiter.api.assertThrows
+import java.io.IOException
+import java.nio.file.Files
+import java.nio.file.Path
+import kotlin.random.Random
+
+class PositionIndexTest {
+    private lateinit var archive: Path
+    private lateinit var index: Path
+
+    // every position key reached in the archive, with its postings in game and ply order
+    private val expected = HashMap<Long, MutableList<Long>>()
+
+    @BeforeEach
+    fun setup() {
+        archive = Files.createTempFile("games", ".chga")
+        index = Files.createTempFile("positions", ".chpi")
+
+        val random = Random(11)
+        val moves = MoveList()
+        GameArchiveWriter(archive, gamesPerBlock = 8).use { writer ->
+            for (number in 0L until GAME_COUNT) {
+                val fen = if (number % 5 == 4L) KIWIPETE else Fen.STARTING_POSITION
+                val board = Fen.toBitboardPosition(fen)
+                val generator = LegalMoveGenerator(board)
+                val played = mutableListOf<Int>()
+                expected.getOrPut(board.zobristKey()) { mutableListOf() }.add(PositionIndex.posting(number, 0))
+                repeat(random.nextInt(60)) {
+                    generator.generateLegalMoves(moves)
+                    if (moves.isEmpty()) return@repeat
+                    val move = moves[random.nextInt(moves.size)]
+                    board.makeMove(move)
+                    played.add(move)
+                    expected.getOrPut(board.zobristKey()) { mutableListOf() }.add(PositionIndex.posting(number, played.size))
+                }
+                writer.append(fen, played.toIntArray(), "*")
+            }
+        }
+    }
+
+    @AfterEach
+    fun cleanup() {
+        Files.deleteIfExists(archive)
+        Files.deleteIfExists(index)
+    }
+
+    @Test
+    fun testLookupMatchesEveryPositionReached() {
+        val postings = PositionIndexBuilder(threads = 3, partitionBits = 2).build(archive, index)
+        assertEquals(expected.values.sumOf { it.size }.toLong(), postings)
+
+        PositionIndex(index).use { positions ->
+            assertEquals(expected.size.toLong(), positions.keyCount)
+            assertEquals(postings, positions.postingCount)
+            for ((key, list) in expected) {
+                assertArrayEquals(list.toLongArray(), positions.lookup(key), "Key $key")
+                assertEquals(list.size, positions.count(key))
+            }
+        }
+    }
+
+    @Test
+    fun testStartingPositionIsReachedAtPlyZeroOfEveryGameFromIt() {
+        PositionIndexBuilder(threads = 2).build(archive, index)
+        PositionIndex(index).use { positions ->
+            val postings = positions.lookup(Fen.toBitboardPosition(Fen.STARTING_POSITION).zobristKey())
+            val atPlyZero = postings.filter { PositionIndex.ply(it) == 0 }.map { PositionIndex.game(it) }
+            assertEquals((0L until GAME_COUNT).filter { it % 5 != 4L }, atPlyZero)
+        }
+    }
+
+    @Test
+    fun testMissingPositionHasNoPostings() {
+        PositionIndexBuilder(threads = 1).build(archive, index)
+        PositionIndex(index).use { positions ->
+            // bare kings never come up in short random games
+            val key = Fen.toBitboardPosition("8/8/4k3/8/8/4K3/8/8 w - - 0 1").zobristKey()
+            assertEquals(0, positions.lookup(key).size)
+            assertEquals(0, positions.count(key))
+        }
+    }
+
+    @Test
+    fun testBuildIsTheSameForAnyThreadAndPartitionCount() {
+        PositionIndexBuilder(threads = 1, partitionBits = 0).build(archive, index)
+        val single = Files.readAllBytes(index)
+        PositionIndexBuilder(threads = 4, partitionBits = 8).build(archive, index)
+        assertArrayEquals(single, Files.readAllBytes(index))
+    }
+
+    @Test
+    fun testKeyTableIsInUnsignedOrder() {
+        PositionIndexBuilder(threads = 2).build(archive, index)
+        val bytes = java.nio.ByteBuffer.wrap(Files.readAllBytes(index))
+        val keyCount = bytes.getLong(8)
+        var previous = bytes.getLong(PositionIndex.HEADER_SIZE)
+        for (entry in 1 until keyCount) {
+            val key = bytes.getLong(PositionIndex.HEADER_SIZE + (entry * PositionIndex.KEY_ENTRY_SIZE).toInt())
+            assertTrue(java.lang.Long.compareUnsigned(previous, key) < 0)
+            previous = key
+        }
+        // both halves of the key space are present, so signed order would have failed
+        assertTrue(expected.keys.any { it < 0 } && expected.keys.any { it >= 0 })
+    }
+
+    @Test
+    fun testTranspositionsShareOneKey() {
+        // the same French Defence position, once with an en passant square no pawn can use
+        val orders = listOf(listOf("d2d4", "d7d5", "e2e4", "e7e6"), listOf("e2e4", "e7e6", "d2d4", "d7d5"))
+        GameArchiveWriter(archive, gamesPerBlock = 8).use { writer ->
+            for (order in orders) {
+                val board = Fen.toBitboardPosition(Fen.STARTING_POSITION)
+                val generator = LegalMoveGenerator(board)
+                val moves = MoveList()
+                val played = order.map { uci ->
+                    generator.generateLegalMoves(moves)
+                    (0 until moves.size).map { moves[it] }.single { Move.toUci(it) == uci }.also { board.makeMove(it) }
+                }
+                writer.append(Fen.STARTING_POSITION, played.toIntArray(), "*")
+            }
+        }
+        PositionIndexBuilder(threads = 1).build(archive, index)
+        PositionIndex(index).use { positions ->
+            val french = Fen.toBitboardPosition("rnbqkbnr/ppp2ppp/4p3/3p4/3PP3/8/PPP2PPP/RNBQKBNR w KQkq - 0 3").zobristKey()
+            assertArrayEquals(longArrayOf(PositionIndex.posting(0, 4), PositionIndex.posting(1, 4)), positions.lookup(french))
+        }
+    }
+
+    @Test
+    fun testRejectsOtherFiles() {
+        assertThrows<IOException> { PositionIndex(archive) }
+    }
+
+    @Test
+    fun testPostingPacking() {
+        val posting = PositionIndex.posting(123_456_789L, 301)
+        assertEquals(123_456_789L, PositionIndex.game(posting))
+        assertEquals(301, PositionIndex.ply(posting))
+    }
+
+    companion object {
+        private const val GAME_COUNT = 200L
+        private const val KIWIPETE = "r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1"
+    }
+}
@@ -0,0 +1,95 @@
+package com.chessapp.api.board
+
+import com.chessapp.api.pieces.piece.DefaultPieces
+import org.junit.jupiter.api.Assertions.assertEquals
+import org.junit.jupiter.api.Assertions.assertFalse
+import org.junit.jupiter.api.Assertions.assertTrue
+import org.junit.jupiter.params.ParameterizedTest
+import org.junit.jupiter.params.provider.Arguments
+import org.junit.jupiter.params.provider.MethodSource
+import java.util.stream.Stream
+
+class AttackDetectorTest {
+
+    @ParameterizedTest(name = "{0}")
+    @MethodSource("provideBoards")
+    fun testStartingPositionIsNotCheck(name: String, board: Board) {
+        DefaultPieces.allPieces().forEach { board.occupyPosition(it) }
+        assertFalse(AttackDetector.isInCheck(board, PieceCodes.WHITE))
+        assertFalse(AttackDetector.isInCheck(board, PieceCodes.BLACK))
+
+        // the third rank is covered by white pawns and knights, the middle of the board by nobody
+        assertTrue(AttackDetector.isSquareAttacked(board, PositionUtils.getSquareFromFileRank(File.D, 3), PieceCodes.WHITE))
+        assertFalse(AttackDetector.isSquareAttacked(board, PositionUtils.getSquareFromFileRank(File.D, 4), PieceCodes.WHITE))
+        assertTrue(AttackDetector.isSquareAttacked(board, PositionUtils.getSquareFromFileRank(File.F, 6), PieceCodes.BLACK))
+    }
+
+    @ParameterizedTest(name = "{0}")
+    @MethodSource("provideBoards")
+    fun testSlidingChecksAreBlocked(name: String, board: Board) {
+        val king = DefaultPieces.blackKing().also { board.occupyPosition(it) }
+        val rook = DefaultPieces.whiteQueensideRook().also { board.occupyPosition(it) }
+        val bishop = DefaultPieces.whiteQueensideBishop().also { board.occupyPosition(it) }
+        assertFalse(AttackDetector.isInCheck(board, king))
+
+        // rook along the e-file
+        board.movePiece(rook, File.E, 1)
+        assertTrue(AttackDetector.isInCheck(board, king))
+        assertTrue(AttackDetector.isInCheck(board, PieceCodes.BLACK))
+
+        // a pawn in between blocks the check
+        val pawn = DefaultPieces.blackPawns()[4].also { board.occupyPosition(it) }
+        assertFalse(AttackDetector.isInCheck(board, king))
+
+        // bishop on the a4-e8 diagonal
+        board.movePiece(bishop, File.A, 4)
+        assertTrue(AttackDetector.isInCheck(board, king))
+        board.removePiece(rook)
+        board.movePiece(pawn, File.D, 7)
+        assertFalse(AttackDetector.isInCheck(board, king))
+    }
+
+    @ParameterizedTest(name = "{0}")
+    @MethodSource("provideBoards")
+    fun testAttackersToBothColors(name: String, board: Board) {
+        Fen.read("4k3/4r3/8/3p4/2N1R3/5B2/4R3/4K3 w - - 0 1", board)
+        val e5 = PositionUtils.getSquareFromFileRank(File.E, 5)
+        assertEquals(squares("e4", "e7", "c4"), AttackDetector.attackersTo(board, e5))
+
+        // lifting the rook off e4 reveals the one on e2 behind it
+        val e4 = squares("e4")
+        assertEquals(squares("e2", "e7", "c4"), AttackDetector.attackersTo(board, e5, board.occupancy() xor e4))
+    }
+
+    @ParameterizedTest(name = "{0}")
+    @MethodSource("provideBoards")
+    fun testLeaperChecks(name: String, board: Board) {
+        val king = DefaultPieces.whiteKing().also { board.occupyPosition(it) }
+        val knight = DefaultPieces.blackKingsideKnight().also { board.occupyPosition(it) }
+        val pawn = DefaultPieces.blackPawns()[0].also { board.occupyPosition(it) }
+        assertFalse(AttackDetector.isInCheck(board, king))
+
+        board.movePiece(knight, File.F, 3)
+        assertTrue(AttackDetector.isInCheck(board, king))
+        board.movePiece(knight, File.F, 4)
+        assertFalse(AttackDetector.isInCheck(board, king))
+
+        // black pawns capture downwards, so a pawn on d2 checks the king but a pawn on d1 does not
+        board.movePiece(pawn, File.D, 2)
+        assertTrue(AttackDetector.isInCheck(board, king))
+        board.movePiece(pawn, File.D, 1)
+        assertFalse(AttackDetector.isInCheck(board, king))
+    }
+
+    private fun squares(vararg names: String): Long = names.fold(Bitboards.EMPTY) { bits, name ->
+        bits or Bitboards.squareBit((name[0] - 'a') + (name[1] - '1') * 8)
+    }
+
+    companion object {
+        @JvmStatic
+        fun provideBoards(): Stream<Arguments> = Stream.of(
+            Arguments.of("Array board", BoardPosition()),
+            Arguments.of("Bitboard board", BitboardPosition())
+        )
+    }
+}
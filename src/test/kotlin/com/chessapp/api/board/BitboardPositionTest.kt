@@ -0,0 +1,210 @@
+package com.chessapp.api.board
+
+import com.chessapp.api.pieces.piece.DefaultPieces
+import com.chessapp.api.pieces.utils.InvalidPositionException
+import org.junit.jupiter.api.Assertions.assertEquals
+import org.junit.jupiter.api.Assertions.assertFalse
+import org.junit.jupiter.api.Assertions.assertNotNull
+import org.junit.jupiter.api.Assertions.assertNull
+import org.junit.jupiter.api.Assertions.assertTrue
+import org.junit.jupiter.api.BeforeEach
+import org.junit.jupiter.api.Test
+import org.junit.jupiter.api.assertThrows
+import kotlin.random.Random
+
+class BitboardPositionTest {
+    private lateinit var bitboardPosition: BitboardPosition
+    private lateinit var arrayPosition: BoardPosition
+
+    @BeforeEach
+    fun setup() {
+        bitboardPosition = BitboardPosition()
+        arrayPosition = BoardPosition()
+        DefaultPieces.allPieces().forEach { bitboardPosition.occupyPosition(it) }
+        DefaultPieces.allPieces().forEach { arrayPosition.occupyPosition(it) }
+    }
+
+    @Test
+    fun testOccupyPosition() {
+        assertThrows<InvalidPositionException> {
+            DefaultPieces.allPieces().forEach { piece -> bitboardPosition.occupyPosition(piece) }
+        }
+    }
+
+    @Test
+    fun testGetPieceAtPosition() {
+        DefaultPieces.allPieces().forEach { piece ->
+            val gotPiece = bitboardPosition.getPieceAtPosition(piece.file(), piece.rank())
+            assertNotNull(gotPiece)
+            assertEquals(piece, gotPiece)
+            assertEquals(piece.file(), gotPiece?.file())
+        }
+        assertNull(bitboardPosition.getPieceAtPosition(File.E, 4))
+    }
+
+    @Test
+    fun testRemovePiece() {
+        DefaultPieces.allPieces().forEach { piece ->
+            assertEquals(piece, bitboardPosition.removePiece(piece))
+            assertFalse(bitboardPosition.isPositionOccupiedByPiece(piece.file(), piece.rank()))
+        }
+        assertEquals(Bitboards.EMPTY, bitboardPosition.occupancy())
+    }
+
+    @Test
+    fun testMovePiece() {
+        val knight = DefaultPieces.whiteKingsideKnight()
+        bitboardPosition.movePiece(knight, File.F, 3)
+        assertEquals(File.F, knight.file())
+        assertEquals(3, knight.rank())
+        assertNull(bitboardPosition.getPieceAtPosition(File.G, 1))
+        assertEquals(knight, bitboardPosition.getPieceAtPosition(File.F, 3))
+
+        // moving onto an occupied square, or moving a piece that is not where it says it is, should fail
+        assertThrows<InvalidPositionException> { bitboardPosition.movePiece(knight, File.E, 1) }
+        assertThrows<InvalidPositionException> { bitboardPosition.movePiece(DefaultPieces.whiteKingsideKnight(), File.H, 3) }
+    }
+
+    @Test
+    fun testSquareQueriesMatchArrayBackend() {
+        for (square in 0 until 64) {
+            assertEquals(arrayPosition.pieceCodeAt(square), bitboardPosition.pieceCodeAt(square), "Square $square")
+        }
+        for (pieceCode in 0 until PieceCodes.PIECE_CODE_COUNT) {
+            assertEquals(arrayPosition.pieceBitboard(pieceCode), bitboardPosition.pieceBitboard(pieceCode))
+        }
+        assertEquals(Bitboards.RANK_1 or Bitboards.RANK_2, bitboardPosition.occupancy(PieceCodes.WHITE))
+        assertEquals(Bitboards.RANK_7 or Bitboards.RANK_8, bitboardPosition.occupancy(PieceCodes.BLACK))
+        assertEquals(arrayPosition.occupancy(), bitboardPosition.occupancy())
+        assertEquals(arrayPosition.toString(), bitboardPosition.toString())
+    }
+
+    @Test
+    fun testPossibleMovesMatchArrayBackend() {
+        // shuffle a few pieces into the middle of the board on both backends
+        val moves = listOf(
+            (File.D to 1) to (File.D to 4),
+            (File.F to 1) to (File.C to 4),
+            (File.B to 8) to (File.C to 6),
+            (File.H to 8) to (File.H to 5),
+            (File.E to 2) to (File.E to 4)
+        )
+        listOf(arrayPosition, bitboardPosition).forEach { board ->
+            moves.forEach { (from, to) ->
+                val piece = board.getPieceAtPosition(from.first, from.second)
+                assertNotNull(piece)
+                piece?.let { board.movePiece(it, to.first, to.second) }
+            }
+        }
+
+        File.entries.forEach { file ->
+            (1..8).forEach { rank ->
+                arrayPosition.getPieceAtPosition(file, rank)?.let { piece ->
+                    assertEquals(
+                        PossibleMoveCalculator(arrayPosition).getPossibleMovesForPiece(piece),
+                        PossibleMoveCalculator(bitboardPosition).getPossibleMovesForPiece(piece),
+                        "Moves for $piece on $file$rank"
+                    )
+                }
+            }
+        }
+    }
+
+    @Test
+    fun testMakeAndUnmakeRestoreThePosition() {
+        val random = Random(11)
+        val moves = MoveList()
+        for (fen in listOf(Perft.STARTING_POSITION_FEN, KIWIPETE, PROMOTIONS)) {
+            val board = BitboardPosition.fromFen(fen)
+            val generator = LegalMoveGenerator(board)
+            val snapshots = mutableListOf<String>()
+            val keys = mutableListOf<Long>()
+
+            repeat(60) {
+                generator.generateLegalMoves(moves)
+                if (moves.isEmpty()) return@repeat
+                snapshots.add(describe(board))
+                keys.add(board.zobristKey())
+                board.makeMove(moves[random.nextInt(moves.size)])
+            }
+            assertEquals(snapshots.size, board.undoDepth)
+
+            while (board.undoDepth > 0) {
+                board.unmakeMove()
+                assertEquals(snapshots.removeAt(snapshots.size - 1), describe(board))
+                assertEquals(keys.removeAt(keys.size - 1), board.zobristKey())
+            }
+        }
+    }
+
+    @Test
+    fun testUnmakeSpecialMoves() {
+        // castling, en passant and a capturing promotion, each taken back
+        val board = BitboardPosition.fromFen("r3k2r/1P6/8/3pP3/8/8/8/R3K2R w KQkq d6 0 1")
+        val before = describe(board)
+        val generator = LegalMoveGenerator(board)
+        val moves = MoveList()
+        generator.generateLegalMoves(moves)
+
+        for (uci in listOf("e1g1", "e1c1", "e5d6", "b7a8q", "b7a8n")) {
+            val move = (0 until moves.size).map { moves[it] }.first { Move.toUci(it) == uci }
+            board.makeMove(move)
+            board.unmakeMove()
+            assertEquals(before, describe(board), "After unmaking $uci")
+        }
+    }
+
+    @Test
+    fun testHalfmoveClock() {
+        val board = BitboardPosition.startingPosition()
+        val generator = LegalMoveGenerator(board)
+        val moves = MoveList()
+        for (uci in listOf("g1f3", "g8f6", "f3g1")) {
+            generator.generateLegalMoves(moves)
+            board.makeMove((0 until moves.size).map { moves[it] }.first { Move.toUci(it) == uci })
+        }
+        assertEquals(3, board.halfmoveClock)
+
+        generator.generateLegalMoves(moves)
+        board.makeMove((0 until moves.size).map { moves[it] }.first { Move.toUci(it) == "e7e5" })
+        assertEquals(0, board.halfmoveClock)
+
+        board.unmakeMove()
+        assertEquals(3, board.halfmoveClock)
+    }
+
+    @Test
+    fun testRepetition() {
+        val board = BitboardPosition.startingPosition()
+        val generator = LegalMoveGenerator(board)
+        val moves = MoveList()
+        for (uci in listOf("g1f3", "g8f6", "f3g1", "f6g8")) {
+            assertFalse(board.isRepetition())
+            generator.generateLegalMoves(moves)
+            board.makeMove((0 until moves.size).map { moves[it] }.first { Move.toUci(it) == uci })
+        }
+        assertTrue(board.isRepetition())
+
+        // the copy brings the history along
+        val copy = BitboardPosition()
+        copy.copyFrom(board)
+        assertTrue(copy.isRepetition())
+        copy.unmakeMove()
+        assertFalse(copy.isRepetition())
+    }
+
+    @Test
+    fun testUnmakeWithoutMoveFails() {
+        assertThrows<IllegalStateException> { BitboardPosition.startingPosition().unmakeMove() }
+    }
+
+    private fun describe(board: BitboardPosition) =
+        "$board ${board.sideToMove} ${board.castlingRights} ${board.enPassantSquare} ${board.halfmoveClock} " +
+            (0 until PieceCodes.PIECE_CODE_COUNT).joinToString { board.pieceBitboard(it).toString() } +
+            " ${board.occupancy(PieceCodes.WHITE)} ${board.occupancy(PieceCodes.BLACK)} ${board.occupancy()}"
+
+    companion object {
+        private const val KIWIPETE = "r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1"
+        private const val PROMOTIONS = "n1n5/PPPk4/8/8/8/8/4Kppp/5N1N b - - 0 1"
+    }
+}
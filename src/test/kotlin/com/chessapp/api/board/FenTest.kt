@@ -0,0 +1,138 @@
+package com.chessapp.api.board
+
+import com.chessapp.api.pieces.piece.PieceColor
+import com.chessapp.api.pieces.piece.PieceName
+import org.junit.jupiter.api.Assertions.assertEquals
+import org.junit.jupiter.api.Assertions.assertNull
+import org.junit.jupiter.api.Assertions.assertTrue
+import org.junit.jupiter.api.Test
+import org.junit.jupiter.api.assertThrows
+import org.junit.jupiter.params.ParameterizedTest
+import org.junit.jupiter.params.provider.ValueSource
+
+class FenTest {
+
+    @ParameterizedTest
+    @ValueSource(strings = [
+        Fen.STARTING_POSITION,
+        "r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1",
+        "8/2p5/3p4/KP5r/1R3p1k/8/4P1P1/8 w - - 0 1",
+        "r2q1rk1/pP1p2pp/Q4n2/bbp1p3/Np6/1B3NBn/pPPP1PPP/R3K2R b KQ - 0 1",
+        "rnbqkb1r/pp1p1ppp/4pn2/2pP4/2P5/8/PP2PPPP/RNBQKBNR w KQkq c6 0 4",
+        "8/8/8/3k4/8/3K4/8/8 b - - 57 113"
+    ])
+    fun testRoundTripBothBackends(fen: String) {
+        val bitboardPosition = Fen.toBitboardPosition(fen)
+        val arrayPosition = Fen.toBoardPosition(fen)
+        assertEquals(fen, Fen.write(bitboardPosition))
+        assertEquals(fen, Fen.write(arrayPosition))
+        assertEquals(bitboardPosition.zobristKey(), arrayPosition.zobristKey())
+        assertEquals(Zobrist.computeKey(arrayPosition), arrayPosition.zobristKey())
+    }
+
+    @Test
+    fun testReadsMidgamePositionIntoBoardPosition() {
+        // pieces off their starting squares would be rejected by the ChessPiece constructors
+        val board = Fen.toBoardPosition("r1bqkbnr/pppp1ppp/2n5/4p3/4P3/5N2/PPPP1PPP/RNBQKB1R w KQkq - 2 3")
+
+        val pawn = board.getPieceAtPosition(File.E, 4)!!
+        assertEquals(PieceName.PAWN, pawn.name())
+        assertEquals(PieceColor.WHITE, pawn.color())
+        assertEquals(PieceName.KNIGHT, board.getPieceAtPosition(File.C, 6)!!.name())
+        assertNull(board.getPieceAtPosition(File.G, 1))
+        assertEquals(PieceCodes.WHITE, board.sideToMove)
+        assertEquals(CastlingRights.ALL, board.castlingRights)
+        assertEquals(2, board.halfmoveClock)
+        assertEquals(3, board.fullmoveNumber)
+    }
+
+    @Test
+    fun testClocksAreOptionalAndTracked() {
+        val board = Fen.toBitboardPosition("rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq -")
+        assertEquals(Fen.STARTING_POSITION, Fen.write(board))
+
+        val moves = MoveList()
+        val generator = LegalMoveGenerator(board)
+        for (uci in listOf("e2e4", "c7c5", "g1f3")) {
+            generator.generateLegalMoves(moves)
+            board.makeMove((0 until moves.size).map { moves[it] }.first { Move.toUci(it) == uci })
+        }
+        assertEquals("rnbqkbnr/pp1ppppp/8/2p5/4P3/5N2/PPPP1PPP/RNBQKB1R b KQkq - 1 2", Fen.write(board))
+
+        board.unmakeMove()
+        board.unmakeMove()
+        // no black pawn can take on e3, so no en passant square is kept
+        assertEquals("rnbqkbnr/pppppppp/8/8/4P3/8/PPPP1PPP/RNBQKBNR b KQkq - 0 1", Fen.write(board))
+    }
+
+    @Test
+    fun testReadingReusesBoard() {
+        val board = BitboardPosition()
+        Fen.read("8/8/8/3k4/8/3K4/8/8 b - - 5 60", board)
+        Fen.read(Fen.STARTING_POSITION, board)
+        assertEquals(Fen.STARTING_POSITION, Fen.write(board))
+        assertEquals(BitboardPosition.startingPosition().zobristKey(), board.zobristKey())
+    }
+
+    @Test
+    fun testWriteIntoBuilder() {
+        val out = StringBuilder()
+        Fen.write(BitboardPosition.startingPosition(), out)
+        out.append('\n')
+        Fen.write(Fen.toBoardPosition("8/8/8/3k4/8/3K4/8/8 w - - 0 1"), out)
+        assertEquals(Fen.STARTING_POSITION + "\n8/8/8/3k4/8/3K4/8/8 w - - 0 1", out.toString())
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = [
+        "",
+        "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP w KQkq - 0 1",
+        "rnbqkbnr/pppppppp/9/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 1",
+        "rnbqkbnr/ppppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 1",
+        "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNX w KQkq - 0 1",
+        "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR x KQkq - 0 1",
+        "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkx - 0 1",
+        "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq e4 0 1",
+        "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - a 1",
+        "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 1 extra",
+        "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w"
+    ])
+    fun testInvalidFen(fen: String) {
+        assertThrows<IllegalArgumentException> { Fen.toBitboardPosition(fen) }
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = [
+        "8/8/8/3k4/8/8/8/8 w - - 0 1",
+        "8/8/8/3k4/8/3K4/8/4K3 w - - 0 1",
+        "4k3/8/8/8/8/8/8/P3K3 w - - 0 1",
+        "p3k3/8/8/8/8/8/8/4K3 w - - 0 1",
+        "4k3/8/8/8/8/8/8/4K2r b - - 0 1",
+        // en passant squares no pawn has just passed
+        "4k3/8/8/3P4/8/8/8/4K3 w - e6 0 1",
+        "4k3/8/8/3Pp3/8/8/8/4K3 w - e3 0 1",
+        "4k3/8/8/3Pp3/8/8/8/4K3 b - e6 0 1",
+        "4k3/8/4p3/3Pp3/8/8/8/4K3 w - e6 0 1",
+        "4k3/4p3/8/3Pp3/8/8/8/4K3 w - e6 0 1",
+        "4k3/8/8/8/3pP3/8/8/4K3 b - e6 0 1",
+        "4k3/8/8/8/3pP3/8/4P3/4K3 b - e3 0 1"
+    ])
+    fun testImpossiblePositions(fen: String) {
+        // readable, but not a position from a game
+        val board = Fen.toBitboardPosition(fen)
+        assertTrue(Fen.positionError(board) != null)
+        assertThrows<IllegalArgumentException> { Fen.readChecked(fen, BitboardPosition()) }
+        assertThrows<IllegalArgumentException> { Fen.readChecked(fen, BoardPosition()) }
+    }
+
+    @Test
+    fun testReadCheckedAcceptsGamePositions() {
+        for (fen in listOf(Fen.STARTING_POSITION, "4k3/8/8/8/8/8/8/4K2r w - - 0 1", "8/P6k/8/8/8/8/6Kp/8 w - - 0 1",
+                "4k3/8/8/3Pp3/8/8/8/4K3 w - e6 0 1", "4k3/8/8/8/3pP3/8/8/4K3 b - e3 0 1")) {
+            val board = BitboardPosition()
+            Fen.readChecked(fen, board)
+            assertEquals(fen, Fen.write(board))
+            assertNull(Fen.positionError(board))
+        }
+    }
+}
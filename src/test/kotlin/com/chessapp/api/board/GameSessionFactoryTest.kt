@@ -0,0 +1,37 @@
+package com.chessapp.api.board
+
+import org.junit.jupiter.api.Assertions.assertEquals
+import org.junit.jupiter.api.Assertions.assertNotEquals
+import org.junit.jupiter.api.Assertions.assertNotSame
+import org.junit.jupiter.api.Assertions.assertSame
+import org.junit.jupiter.api.Test
+import org.junit.jupiter.api.assertThrows
+
+class GameSessionFactoryTest {
+
+    @Test
+    fun testRecyclesResetSessions() {
+        val factory = GameSessionFactory(poolSize = 2)
+        val session = factory.acquire()
+        val id = session.id
+        session.movePiece(session.boardPosition().getPieceAtPosition(File.D, 2)!!, File.D, 4)
+        factory.release(session)
+        assertEquals(1, factory.pooled)
+
+        val reused = factory.acquire()
+        assertSame(session, reused)
+        assertEquals(0, reused.moveCount)
+        assertEquals(PieceCodes.WHITE, reused.sideToMove)
+        assertNotEquals(id, reused.id)
+        assertEquals(Fen.STARTING_POSITION, Fen.write(reused.boardPosition()))
+        assertNotSame(reused, factory.acquire())
+    }
+
+    @Test
+    fun testPoolIsBounded() {
+        val factory = GameSessionFactory(poolSize = 2)
+        repeat(5) { factory.release(GameSession()) }
+        assertEquals(2, factory.pooled)
+        assertThrows<IllegalArgumentException> { GameSessionFactory(0) }
+    }
+}
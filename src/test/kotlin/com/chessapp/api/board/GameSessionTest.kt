@@ -0,0 +1,110 @@
+package com.chessapp.api.board
+
+import com.chessapp.api.pieces.utils.InvalidPositionException
+import org.junit.jupiter.api.Assertions.assertArrayEquals
+import org.junit.jupiter.api.Assertions.assertEquals
+import org.junit.jupiter.api.Assertions.assertNotEquals
+import org.junit.jupiter.api.Test
+import org.junit.jupiter.api.assertThrows
+import java.util.concurrent.Executors
+import java.util.concurrent.TimeUnit
+
+class GameSessionTest {
+
+    private fun GameSession.piece(square: String) =
+        boardPosition().getPieceAtPosition(File.valueOf(square[0].uppercase()), square[1].digitToInt())!!
+
+    private fun GameSession.move(from: String, to: String) =
+        movePiece(piece(from), File.valueOf(to[0].uppercase()), to[1].digitToInt())
+
+    @Test
+    fun testStartsAtTheStartingPosition() {
+        val session = GameSession()
+        assertEquals(32, session.allPieces().size)
+        assertEquals(PieceCodes.WHITE, session.sideToMove)
+        assertEquals(0, session.moveCount)
+        session.allPieces().forEach { assertEquals(it, session.boardPosition().getPieceAtPosition(it.file(), it.rank())) }
+        assertEquals(Fen.STARTING_POSITION, Fen.write(session.boardPosition()))
+    }
+
+    @Test
+    fun testSessionsAreIndependent() {
+        val first = GameSession()
+        val second = GameSession()
+        assertNotEquals(first.id, second.id)
+        first.move("e2", "e4")
+        assertEquals(PieceCodes.BLACK, first.sideToMove)
+        assertEquals(PieceCodes.WHITE, second.sideToMove)
+        assertEquals(null, second.boardPosition().getPieceAtPosition(File.E, 4))
+        assertEquals(File.E, second.piece("e2").file())
+    }
+
+    @Test
+    fun testHistoryUndoAndReset() {
+        val session = GameSession()
+        val startKey = session.boardPosition().zobristKey()
+        session.move("e2", "e4")
+        session.move("e7", "e5")
+        session.move("g1", "f3")
+        assertEquals(listOf("e2e4", "e7e5", "g1f3"), session.history().map { Move.toUci(it) })
+        assertThrows<InvalidPositionException> { session.move("f3", "g5") }
+
+        assertEquals("g1f3", Move.toUci(session.undo()))
+        assertArrayEquals(intArrayOf(Move.encode(12, 28, PieceCodes.code(PieceCodes.WHITE, PieceCodes.PAWN)), Move.encode(52, 36, PieceCodes.code(PieceCodes.BLACK, PieceCodes.PAWN))), session.history())
+        assertEquals(PieceCodes.WHITE, session.sideToMove)
+
+        val id = session.id
+        session.move("b1", "c3")
+        session.reset()
+        assertEquals(0, session.moveCount)
+        assertNotEquals(id, session.id)
+        assertEquals(PieceCodes.code(PieceCodes.WHITE, PieceCodes.KNIGHT), session.boardPosition().pieceCodeAt(1))
+        assertEquals(startKey, session.boardPosition().zobristKey())
+        assertEquals(Move.NONE, session.undo())
+    }
+
+    @Test
+    fun testCapturesAndPromotionsAreTakenBack() {
+        val session = GameSession()
+        val startFen = Fen.write(session.boardPosition())
+        val calculator = PossibleMoveCalculator(session.boardPosition())
+        val moves = MoveList()
+        fun play(uci: String) {
+            moves.clear()
+            calculator.generateAllMoves(session.sideToMove, moves)
+            session.play((0 until moves.size).map { moves[it] }.single { Move.toUci(it) == uci })
+        }
+
+        val line = listOf("h2h4", "g7g5", "h4g5", "h7h6", "g5h6", "f8g7", "h6g7", "g8f6", "g7h8q", "e8f8", "h8f6")
+        line.forEach(::play)
+        assertEquals("rnbq1k2/pppppp2/5Q2/8/8/8/PPPPPPP1/RNBQKBNR b KQ - 0 6", Fen.write(session.boardPosition()))
+        assertThrows<InvalidPositionException> { session.play(Move.encode(4, 12, PieceCodes.code(PieceCodes.WHITE, PieceCodes.KING))) }
+
+        repeat(line.size) { session.undo() }
+        assertEquals(startFen, Fen.write(session.boardPosition()))
+        assertEquals(GameSession().boardPosition().zobristKey(), session.boardPosition().zobristKey())
+    }
+
+    @Test
+    fun testManyGamesInParallel() {
+        val executor = Executors.newFixedThreadPool(4)
+        val sessions = (0 until 200).map { GameSession() }
+        sessions.forEach { session ->
+            executor.execute {
+                repeat(50) {
+                    session.move("g1", "f3")
+                    session.move("g8", "f6")
+                    session.move("f3", "g1")
+                    session.move("f6", "g8")
+                }
+            }
+        }
+        executor.shutdown()
+        executor.awaitTermination(1, TimeUnit.MINUTES)
+        val startKey = GameSession().boardPosition().zobristKey()
+        sessions.forEach {
+            assertEquals(200, it.moveCount)
+            assertEquals(startKey, it.boardPosition().zobristKey())
+        }
+    }
+}
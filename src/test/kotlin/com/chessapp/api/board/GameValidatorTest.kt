@@ -0,0 +1,108 @@
+package com.chessapp.api.board
+
+import org.junit.jupiter.api.Assertions.assertEquals
+import org.junit.jupiter.api.Assertions.assertFalse
+import org.junit.jupiter.api.Assertions.assertTrue
+import org.junit.jupiter.api.Test
+import org.junit.jupiter.api.assertThrows
+import java.util.concurrent.ForkJoinPool
+import kotlin.random.Random
+
+class GameValidatorTest {
+
+    private fun randomGame(random: Random, plies: Int): IntArray {
+        val board = BitboardPosition.startingPosition()
+        val generator = LegalMoveGenerator(board)
+        val moves = MoveList()
+        val played = mutableListOf<Int>()
+        while (played.size < plies) {
+            generator.generateLegalMoves(moves)
+            if (moves.isEmpty()) break
+            val move = moves[random.nextInt(moves.size)]
+            board.makeMove(move)
+            played.add(move)
+        }
+        return played.toIntArray()
+    }
+
+    @Test
+    fun testValidGames() {
+        val validator = GameValidator()
+        val random = Random(7)
+        repeat(50) {
+            val moves = randomGame(random, 150)
+            val result = validator.validateGame(Fen.STARTING_POSITION, moves)
+            assertTrue(result.isValid, result.toString())
+            assertEquals(moves.size, result.legalPlies)
+        }
+    }
+
+    @Test
+    fun testMatchesOnSquaresAndPromotionOnly() {
+        // bare squares, with no piece, capture or flag bits: castling, en passant and a promotion
+        val fen = "r3k2r/1P6/8/3pP3/8/8/8/R3K2R w KQkq d6 0 1"
+        val moves = intArrayOf(Move.encode(36, 43, 0), Move.encode(60, 62, 0), Move.encode(4, 2, 0),
+            Move.encode(56, 48, 0), Move.encode(49, 57, 0, promotion = PieceCodes.KNIGHT))
+        val result = GameValidator().validateGame(fen, moves)
+        assertTrue(result.isValid, result.toString())
+    }
+
+    @Test
+    fun testReportsTheFirstIllegalPly() {
+        val validator = GameValidator()
+        val moves = randomGame(Random(3), 40)
+        // a move into check: the black king's own square is never a legal target
+        val bad = moves.copyOf()
+        bad[21] = Move.encode(Move.from(bad[21]), Move.from(bad[21]) xor 1, 0)
+        val result = validator.validateGame(Fen.STARTING_POSITION, bad)
+        assertFalse(result.isValid)
+        assertEquals(21, result.illegalPly)
+        assertEquals(21, result.legalPlies)
+
+        // the validator is reusable after a failure
+        assertTrue(validator.validateGame(Fen.STARTING_POSITION, moves).isValid)
+
+        val badFen = validator.validateGame("not a fen", moves)
+        assertEquals(0, badFen.illegalPly)
+        assertEquals(0, validator.validateGame(Fen.STARTING_POSITION, intArrayOf(Move.encode(12, 36, 0))).illegalPly)
+    }
+
+    @Test
+    fun testReportsImpossibleStartingPositions() {
+        val validator = GameValidator()
+        val kingMove = intArrayOf(Move.encode(4, 12, 0))
+        for (fen in listOf("8/8/8/8/8/8/8/4K3 w - - 0 1", "4k3/8/8/8/8/8/8/P3K3 w - - 0 1", "4k3/8/8/8/8/8/8/4K2r b - - 0 1")) {
+            val result = validator.validateGame(fen, kingMove)
+            assertFalse(result.isValid, fen)
+            assertEquals(0, result.illegalPly)
+            assertEquals(0, result.legalPlies)
+        }
+
+        // one kingless game does not take the rest of its batch down with it
+        val starts = List(200) { if (it == 150) "8/8/8/8/8/8/8/4K3 w - - 0 1" else Fen.STARTING_POSITION }
+        val results = GameValidator.validateGames(starts, List(200) { intArrayOf(Move.encode(12, 28, 0)) })
+        assertEquals(listOf(150), results.indices.filter { !results[it].isValid })
+    }
+
+    @Test
+    fun testBatchMatchesOneByOne() {
+        val random = Random(11)
+        val games = (0 until 500).map { randomGame(random, 80) }.mapIndexed { i, moves ->
+            if (i % 7 == 3 && moves.size > 10) moves.copyOf().also { it[10] = it[9] } else moves
+        }
+        val starts = List(games.size) { Fen.STARTING_POSITION }
+        val pool = ForkJoinPool(4)
+        val results = GameValidator.validateGames(starts, games, pool)
+        pool.shutdown()
+
+        val validator = GameValidator()
+        assertEquals(games.size, results.size)
+        for (i in games.indices) {
+            val expected = validator.validateGame(starts[i], games[i])
+            assertEquals(expected.illegalPly, results[i].illegalPly, "Game $i")
+            assertEquals(expected.legalPlies, results[i].legalPlies, "Game $i")
+        }
+        assertTrue(results.any { !it.isValid })
+        assertThrows<IllegalArgumentException> { GameValidator.validateGames(starts, games.drop(1)) }
+    }
+}
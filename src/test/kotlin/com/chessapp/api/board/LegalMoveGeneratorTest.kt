@@ -0,0 +1,162 @@
+package com.chessapp.api.board
+
+import org.junit.jupiter.api.Assertions.assertEquals
+import org.junit.jupiter.api.Assertions.assertFalse
+import org.junit.jupiter.api.Assertions.assertTrue
+import org.junit.jupiter.api.Test
+import kotlin.random.Random
+
+class LegalMoveGeneratorTest {
+    private val moves = MoveList()
+
+    @Test
+    fun testStartingPosition() {
+        val generator = LegalMoveGenerator(BitboardPosition.startingPosition())
+        generator.generateLegalMoves(moves)
+        assertEquals(20, moves.size)
+        assertEquals(Bitboards.EMPTY, generator.checkers)
+        assertFalse(generator.isCheckmate())
+        assertFalse(generator.isStalemate())
+    }
+
+    @Test
+    fun testPinnedPiecesStayOnPinRay() {
+        val board = boardOf("Ke1", "Nd2", "Re2", "kh8", "ba5", "re8")
+        LegalMoveGenerator(board).generateLegalMoves(moves)
+
+        // the knight is pinned by the bishop and cannot move; the rook may only slide along the e-file
+        assertTrue(movesFrom("d2").isEmpty())
+        assertEquals(setOf("e2e3", "e2e4", "e2e5", "e2e6", "e2e7", "e2e8"), movesFrom("e2"))
+    }
+
+    @Test
+    fun testSingleCheckEvasions() {
+        val board = boardOf("Ke1", "Rh2", "Nb3", "ke8", "ra1")
+        val generator = LegalMoveGenerator(board)
+        generator.generateLegalMoves(moves)
+        assertEquals(Bitboards.squareBit(square("a1")), generator.checkers)
+
+        // the king steps off the rank, or the knight captures the rook or blocks; the other rook cannot help
+        assertEquals(setOf("e1d2", "e1e2", "e1f2", "b3a1", "b3c1"), allMoves())
+    }
+
+    @Test
+    fun testDoubleCheckOnlyKingMoves() {
+        val board = boardOf("Ke1", "Qd1", "Rh7", "ke8", "re6", "nd3")
+        LegalMoveGenerator(board).generateLegalMoves(moves)
+        assertTrue((0 until moves.size).all { Move.from(moves[it]) == square("e1") })
+        assertEquals(setOf("e1d2", "e1f1"), allMoves())
+    }
+
+    @Test
+    fun testEnPassant() {
+        val board = boardOf("Ke1", "Pe5", "ke8", "pd5")
+        board.enPassantSquare = square("d6")
+        LegalMoveGenerator(board).generateLegalMoves(moves)
+        val enPassant = (0 until moves.size).map { moves[it] }.single { Move.hasFlag(it, Move.FLAG_EN_PASSANT) }
+        assertEquals("e5d6", Move.toUci(enPassant))
+        assertEquals(PieceCodes.code(PieceCodes.BLACK, PieceCodes.PAWN), Move.captured(enPassant))
+
+        // taking en passant would clear both pawns off the fifth rank and expose the king to the rook
+        val pinned = boardOf("Ka5", "Pb5", "kh8", "pc5", "rh5")
+        pinned.enPassantSquare = square("c6")
+        LegalMoveGenerator(pinned).generateLegalMoves(moves)
+        assertTrue((0 until moves.size).none { Move.hasFlag(moves[it], Move.FLAG_EN_PASSANT) })
+    }
+
+    @Test
+    fun testCastling() {
+        val board = boardOf("Ke1", "Ra1", "Rh1", "ke8")
+        board.castlingRights = CastlingRights.WHITE_KINGSIDE or CastlingRights.WHITE_QUEENSIDE
+        LegalMoveGenerator(board).generateLegalMoves(moves)
+        assertTrue(allMoves().containsAll(setOf("e1g1", "e1c1")))
+
+        // the king may not castle through an attacked square, but the rook may pass one
+        board.putPiece(square("f8"), PieceCodes.code(PieceCodes.BLACK, PieceCodes.ROOK))
+        board.putPiece(square("b8"), PieceCodes.code(PieceCodes.BLACK, PieceCodes.ROOK))
+        LegalMoveGenerator(board).generateLegalMoves(moves)
+        assertFalse(allMoves().contains("e1g1"))
+        assertTrue(allMoves().contains("e1c1"))
+
+        // without the rights there is no castling at all
+        board.castlingRights = CastlingRights.NONE
+        LegalMoveGenerator(board).generateLegalMoves(moves)
+        assertTrue((0 until moves.size).none { Move.hasFlag(moves[it], Move.FLAG_CASTLING) })
+    }
+
+    @Test
+    fun testCheckmateAndStalemate() {
+        // fool's mate
+        val mated = BitboardPosition.startingPosition()
+        mated.relocatePiece(square("f2"), square("f3"))
+        mated.relocatePiece(square("g2"), square("g4"))
+        mated.relocatePiece(square("e7"), square("e5"))
+        mated.relocatePiece(square("d8"), square("h4"))
+        assertTrue(LegalMoveGenerator(mated).isCheckmate())
+        assertFalse(LegalMoveGenerator(mated).isStalemate())
+
+        val stalemated = boardOf("Kc7", "Qb6", "ka8")
+        stalemated.sideToMove = PieceCodes.BLACK
+        assertTrue(LegalMoveGenerator(stalemated).isStalemate())
+        assertFalse(LegalMoveGenerator(stalemated).isCheckmate())
+    }
+
+    @Test
+    fun testNoisyAndQuietMovesSplitTheLegalMoves() {
+        val noisy = MoveList()
+        val quiets = MoveList()
+        val random = Random(11)
+        for (fen in listOf(Fen.STARTING_POSITION, KIWIPETE, "r3k2r/1P4P1/8/3pP3/8/8/6p1/R3K2R w KQkq d6 0 1", "4k3/8/8/8/1b6/8/3P4/4K2R w K - 0 1")) {
+            val board = BitboardPosition.fromFen(fen)
+            val generator = LegalMoveGenerator(board)
+            repeat(40) {
+                generator.generateLegalMoves(moves)
+                if (moves.isEmpty()) return@repeat
+                val legal = (0 until moves.size).map { moves[it] }
+                val checkers = generator.checkers
+
+                generator.generateNoisy(noisy)
+                assertEquals(checkers, generator.checkers)
+                generator.generateQuiets(quiets)
+                val noisyMoves = (0 until noisy.size).map { noisy[it] }
+                val quietMoves = (0 until quiets.size).map { quiets[it] }
+                assertTrue(noisyMoves.all { Move.isCapture(it) || Move.isPromotion(it) }, fen)
+                assertTrue(quietMoves.none { Move.isCapture(it) || Move.isPromotion(it) }, fen)
+                assertEquals(legal.sorted(), (noisyMoves + quietMoves).sorted(), Fen.write(board))
+
+                board.makeMove(legal[random.nextInt(legal.size)])
+            }
+        }
+    }
+
+    @Test
+    fun testIsLegal() {
+        val board = BitboardPosition.fromFen(KIWIPETE)
+        val generator = LegalMoveGenerator(board)
+        generator.generateLegalMoves(moves)
+        for (i in 0 until moves.size) assertTrue(generator.isLegal(moves[i]), Move.toUci(moves[i]))
+
+        // a sliding move through a piece, a move of the wrong side, a capture of the wrong piece and a pinned piece
+        assertFalse(generator.isLegal(Move.encode(square("a1"), square("a8"), PieceCodes.fromChar('R'), PieceCodes.fromChar('r'))))
+        assertFalse(generator.isLegal(Move.encode(square("a6"), square("e2"), PieceCodes.fromChar('b'), PieceCodes.fromChar('B'))))
+        assertFalse(generator.isLegal(Move.encode(square("e5"), square("f7"), PieceCodes.fromChar('N'), PieceCodes.fromChar('n'))))
+        assertFalse(generator.isLegal(Move.NONE))
+        val pinned = LegalMoveGenerator(boardOf("Ke1", "Nd2", "kh8", "ba5"))
+        assertFalse(pinned.isLegal(Move.encode(square("d2"), square("f3"), PieceCodes.fromChar('N'))))
+        assertTrue(pinned.isLegal(Move.encode(square("e1"), square("e2"), PieceCodes.fromChar('K'))))
+    }
+
+    private fun boardOf(vararg pieces: String) = BitboardPosition().apply {
+        pieces.forEach { putPiece(square(it.substring(1)), PieceCodes.fromChar(it[0])) }
+    }
+
+    private fun square(name: String) = (name[0] - 'a') + (name[1] - '1') * 8
+
+    private fun allMoves() = (0 until moves.size).map { Move.toUci(moves[it]) }.toSet()
+
+    private fun movesFrom(square: String) = allMoves().filter { it.startsWith(square) }.toSet()
+
+    companion object {
+        private const val KIWIPETE = "r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1"
+    }
+}
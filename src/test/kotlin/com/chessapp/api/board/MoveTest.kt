@@ -0,0 +1,48 @@
+package com.chessapp.api.board
+
+import org.junit.jupiter.api.Assertions.assertEquals
+import org.junit.jupiter.api.Assertions.assertFalse
+import org.junit.jupiter.api.Assertions.assertTrue
+import org.junit.jupiter.api.Test
+
+class MoveTest {
+
+    @Test
+    fun testEncodeAndDecode() {
+        for (from in 0 until 64) {
+            for (to in 0 until 64) {
+                val move = Move.encode(from, to, PieceCodes.code(PieceCodes.BLACK, PieceCodes.PAWN),
+                    PieceCodes.code(PieceCodes.WHITE, PieceCodes.QUEEN), PieceCodes.KNIGHT, Move.FLAG_EN_PASSANT)
+                assertEquals(from, Move.from(move))
+                assertEquals(to, Move.to(move))
+                assertEquals(PieceCodes.code(PieceCodes.BLACK, PieceCodes.PAWN), Move.piece(move))
+                assertEquals(PieceCodes.code(PieceCodes.WHITE, PieceCodes.QUEEN), Move.captured(move))
+                assertEquals(PieceCodes.KNIGHT, Move.promotion(move))
+                assertTrue(Move.hasFlag(move, Move.FLAG_EN_PASSANT))
+                assertFalse(Move.hasFlag(move, Move.FLAG_CASTLING))
+            }
+        }
+    }
+
+    @Test
+    fun testQuietMove() {
+        val move = Move.encode(12, 28, PieceCodes.code(PieceCodes.WHITE, PieceCodes.PAWN), flags = Move.FLAG_DOUBLE_PUSH)
+        assertFalse(Move.isCapture(move))
+        assertFalse(Move.isPromotion(move))
+        assertEquals("e2e4", Move.toUci(move))
+        assertEquals("h7h8q", Move.toUci(Move.encode(55, 63, PieceCodes.code(PieceCodes.WHITE, PieceCodes.PAWN), promotion = PieceCodes.QUEEN)))
+    }
+
+    @Test
+    fun testMoveList() {
+        val moves = MoveList()
+        assertTrue(moves.isEmpty())
+        moves.add(Move.encode(1, 18, PieceCodes.code(PieceCodes.WHITE, PieceCodes.KNIGHT)))
+        moves.add(Move.encode(6, 21, PieceCodes.code(PieceCodes.WHITE, PieceCodes.KNIGHT)))
+        assertEquals(2, moves.size)
+        moves.swap(0, 1)
+        assertEquals("[g1f3, b1c3]", moves.toString())
+        moves.clear()
+        assertTrue(moves.isEmpty())
+    }
+}
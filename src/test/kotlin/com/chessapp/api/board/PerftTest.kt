@@ -0,0 +1,52 @@
+package com.chessapp.api.board
+
+import org.junit.jupiter.api.Assertions.assertEquals
+import org.junit.jupiter.api.Test
+import org.junit.jupiter.params.ParameterizedTest
+import org.junit.jupiter.params.provider.Arguments
+import org.junit.jupiter.params.provider.MethodSource
+import java.util.stream.Stream
+
+class PerftTest {
+
+    @ParameterizedTest(name = "{0}")
+    @MethodSource("providePerftPositions")
+    fun testPerftPositions(name: String, fen: String, expectedCounts: List<Long>) {
+        val perft = Perft(BitboardPosition.fromFen(fen))
+        expectedCounts.forEachIndexed { i, expected ->
+            assertEquals(expected, perft.count(i + 1), "$name at depth ${i + 1}")
+        }
+    }
+
+    @Test
+    fun testBulkCountingMatchesFullCounting() {
+        val perft = Perft(BitboardPosition.fromFen(KIWIPETE))
+        assertEquals(perft.count(3, bulk = false), perft.count(3, bulk = true))
+        assertEquals(1L, perft.count(0))
+    }
+
+    @Test
+    fun testDivide() {
+        val divide = Perft(BitboardPosition.startingPosition()).divide(3)
+        assertEquals(20, divide.size)
+        assertEquals(8902L, divide.values.sum())
+        assertEquals(600L, divide["e2e4"])
+        assertEquals(440L, divide["g1f3"])
+    }
+
+    companion object {
+        private const val KIWIPETE = "r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1"
+
+        // Positions and counts from the Chess Programming Wiki "Perft Results" page
+        @JvmStatic
+        fun providePerftPositions(): Stream<Arguments> = Stream.of(
+            Arguments.of("Starting position", Perft.STARTING_POSITION_FEN, listOf(20L, 400L, 8902L, 197281L)),
+            Arguments.of("Kiwipete", KIWIPETE, listOf(48L, 2039L, 97862L)),
+            Arguments.of("Position 3", "8/2p5/3p4/KP5r/1R3p1k/8/4P1P1/8 w - - 0 1", listOf(14L, 191L, 2812L, 43238L)),
+            Arguments.of("Position 4", "r3k2r/Pppp1ppp/1b3nbN/nP6/BBP1P3/q4N2/Pp1P2PP/R2Q1RK1 w kq - 0 1", listOf(6L, 264L, 9467L)),
+            Arguments.of("Position 4 mirrored", "r2q1rk1/pP1p2pp/Q4n2/bbp1p3/Np6/1B3NBn/pPPP1PPP/R3K2R b KQ - 0 1", listOf(6L, 264L, 9467L)),
+            Arguments.of("Position 5", "rnbq1k1r/pp1Pbppp/2p5/8/2B5/8/PPP1NnPP/RNBQK2R w KQ - 1 8", listOf(44L, 1486L, 62379L)),
+            Arguments.of("Position 6", "r4rk1/1pp1qppp/p1np1n2/2b1p1B1/2B1P1b1/P1NP1N2/1PP1QPPP/R4RK1 w - - 0 10", listOf(46L, 2079L, 89890L))
+        )
+    }
+}
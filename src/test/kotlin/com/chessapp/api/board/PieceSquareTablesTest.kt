@@ -0,0 +1,89 @@
+package com.chessapp.api.board
+
+import com.chessapp.api.pieces.piece.DefaultPieces
+import org.junit.jupiter.api.Assertions.assertEquals
+import org.junit.jupiter.api.Assertions.assertNotEquals
+import org.junit.jupiter.api.Test
+import org.junit.jupiter.params.ParameterizedTest
+import org.junit.jupiter.params.provider.CsvSource
+import kotlin.random.Random
+
+class PieceSquareTablesTest {
+
+    @ParameterizedTest
+    @CsvSource("0, 0", "82, 94", "-82, 94", "82, -94", "-1, -1", "-32000, 32000", "1200, -3000")
+    fun testPacking(middlegame: Int, endgame: Int) {
+        val packed = PieceSquareTables.pack(middlegame, endgame)
+        assertEquals(middlegame, PieceSquareTables.middlegame(packed))
+        assertEquals(endgame, PieceSquareTables.endgame(packed))
+        val sum = packed + PieceSquareTables.pack(-middlegame / 2, 17)
+        assertEquals(middlegame - middlegame / 2, PieceSquareTables.middlegame(sum))
+        assertEquals(endgame + 17, PieceSquareTables.endgame(sum))
+    }
+
+    @Test
+    fun testStartingPositionIsSymmetric() {
+        val bitboardPosition = BitboardPosition.startingPosition()
+        val arrayPosition = BoardPosition()
+        DefaultPieces.allPieces().forEach { arrayPosition.occupyPosition(it) }
+
+        for (board in listOf<Board>(bitboardPosition, arrayPosition)) {
+            assertEquals(0, board.pieceSquareScore())
+            assertEquals(PieceSquareTables.MAX_PHASE, board.phase())
+        }
+        // mirrored squares score the same for both colors
+        val whiteKnight = PieceCodes.code(PieceCodes.WHITE, PieceCodes.KNIGHT)
+        val blackKnight = PieceCodes.code(PieceCodes.BLACK, PieceCodes.KNIGHT)
+        assertEquals(PieceSquareTables.score(whiteKnight, 21), -PieceSquareTables.score(blackKnight, 21 xor 56))
+        assertNotEquals(PieceSquareTables.score(whiteKnight, 21), PieceSquareTables.score(whiteKnight, 0))
+    }
+
+    @Test
+    fun testBoardPositionUpdatesIncrementally() {
+        val position = BoardPosition()
+        DefaultPieces.allPieces().forEach { position.occupyPosition(it) }
+
+        val knight = position.getPieceAtPosition(File.G, 1)!!
+        position.movePiece(knight, File.F, 3)
+        assertEquals(PieceSquareTables.computeScore(position), position.pieceSquareScore())
+        assertEquals(true, PieceSquareTables.middlegame(position.pieceSquareScore()) > 0)
+
+        position.removePiece(position.getPieceAtPosition(File.D, 8)!!)
+        assertEquals(PieceSquareTables.computeScore(position), position.pieceSquareScore())
+        assertEquals(PieceSquareTables.MAX_PHASE - 4, position.phase())
+
+        position.clear()
+        assertEquals(0, position.pieceSquareScore())
+        assertEquals(0, position.phase())
+    }
+
+    @Test
+    fun testIncrementalScoreMatchesRecomputeOverRandomGames() {
+        val random = Random(21)
+        val moves = MoveList()
+        for (fen in listOf(Perft.STARTING_POSITION_FEN, "r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1", "8/P6k/8/8/8/8/6Kp/8 w - - 0 1")) {
+            repeat(20) {
+                val board = BitboardPosition.fromFen(fen)
+                val startScore = board.pieceSquareScore()
+                val startPhase = board.phase()
+                val generator = LegalMoveGenerator(board)
+                var plies = 0
+                while (plies < 80) {
+                    generator.generateLegalMoves(moves)
+                    if (moves.isEmpty()) break
+                    board.makeMove(moves[random.nextInt(moves.size)])
+                    plies++
+                    assertEquals(PieceSquareTables.computeScore(board), board.pieceSquareScore())
+                    assertEquals(PieceSquareTables.computePhase(board), board.phase())
+                }
+                repeat(plies) { board.unmakeMove() }
+                assertEquals(startScore, board.pieceSquareScore())
+                assertEquals(startPhase, board.phase())
+
+                val copy = BitboardPosition()
+                copy.copyFrom(board)
+                assertEquals(startScore, copy.pieceSquareScore())
+            }
+        }
+    }
+}
@@ -299,14 +299,66 @@ class PossibleMoveCalculatorTest {
         )))
     }
 
-//    @Test
-//    fun testPossibleMovesPawnInCenter() {
-//        val pawn = DefaultPieces.whitePawns()[0].also { boardPosition.occupyPosition(it) }
-//
-//        // test pawn in the center with no blocking pieces
-//        boardPosition.movePiece(pawn, File.E, 5)
-//        getPossibleMovesAndAssertEqualsExpectedMoveSet(legalMoveCalculator, pawn, )
-//    }
+    @Test
+    fun testPossibleMovesPawnInCenter() {
+        val pawn = DefaultPieces.whitePawns()[4].also { boardPosition.occupyPosition(it) }
+        getPossibleMovesAndAssertEqualsExpectedMoveSet(possibleMoveCalculator, pawn, setOf(File.E to 3, File.E to 4))
+
+        // test pawn in the center with no blocking pieces, it can no longer move two squares
+        boardPosition.movePiece(pawn, File.E, 5)
+        getPossibleMovesAndAssertEqualsExpectedMoveSet(possibleMoveCalculator, pawn, setOf(File.E to 6))
+
+        // pawns cannot push into any piece, but capture diagonally onto opposite color pieces
+        val blackPawns = DefaultPieces.blackPawns().onEach { boardPosition.occupyPosition(it) }
+        boardPosition.movePiece(blackPawns[4], File.E, 6)
+        boardPosition.movePiece(blackPawns[3], File.D, 6)
+        getPossibleMovesAndAssertEqualsExpectedMoveSet(possibleMoveCalculator, pawn, setOf(File.D to 6))
+
+        val whiteKnight = DefaultPieces.whiteKingsideKnight().also { boardPosition.occupyPosition(it) }
+        boardPosition.movePiece(whiteKnight, File.F, 6)
+        getPossibleMovesAndAssertEqualsExpectedMoveSet(possibleMoveCalculator, pawn, setOf(File.D to 6))
+    }
+
+    @Test
+    fun testGenerateMovesIntoMoveList() {
+        val moves = MoveList()
+        val possibleMoveCalculator = PossibleMoveCalculator(BitboardPosition().also { board ->
+            DefaultPieces.allPieces().forEach { board.occupyPosition(it) }
+        })
+
+        possibleMoveCalculator.generateAllMoves(PieceCodes.WHITE, moves)
+        assertEquals(20, moves.size)
+        assertEquals(8, (0 until moves.size).count { Move.hasFlag(moves[it], Move.FLAG_DOUBLE_PUSH) })
+        assertTrue((0 until moves.size).none { Move.isCapture(moves[it]) })
+
+        // the same list can be cleared and refilled
+        moves.clear()
+        possibleMoveCalculator.generateMovesForSquare(PositionUtils.getSquareFromFileRank(File.B, 8), moves)
+        assertEquals(2, moves.size)
+        assertTrue(moves.contains(Move.encode(
+            PositionUtils.getSquareFromFileRank(File.B, 8),
+            PositionUtils.getSquareFromFileRank(File.C, 6),
+            PieceCodes.code(PieceCodes.BLACK, PieceCodes.KNIGHT)
+        )))
+    }
+
+    @Test
+    fun testGeneratePawnPromotions() {
+        val board = BitboardPosition()
+        val a7 = PositionUtils.getSquareFromFileRank(File.A, 7)
+        val b8 = PositionUtils.getSquareFromFileRank(File.B, 8)
+        board.putPiece(a7, PieceCodes.code(PieceCodes.WHITE, PieceCodes.PAWN))
+        board.putPiece(b8, PieceCodes.code(PieceCodes.BLACK, PieceCodes.ROOK))
+
+        val moves = MoveList()
+        PossibleMoveCalculator(board).generateMovesForSquare(a7, moves)
+
+        // four promotions straight ahead and four capturing the rook
+        assertEquals(8, moves.size)
+        assertTrue((0 until moves.size).all { Move.isPromotion(moves[it]) })
+        assertEquals(4, (0 until moves.size).count { Move.captured(moves[it]) == PieceCodes.code(PieceCodes.BLACK, PieceCodes.ROOK) })
+        assertTrue(moves.toString().contains("a7b8n"))
+    }
 
     private fun getPossibleMovesAndAssertEqualsExpectedMoveSet(
         possibleMoveCalculator: PossibleMoveCalculator,
@@ -0,0 +1,47 @@
+package com.chessapp.api.board
+
+import org.junit.jupiter.api.Assertions.assertEquals
+import org.junit.jupiter.api.Test
+import java.util.Random
+
+class SlidingAttacksTest {
+
+    @Test
+    fun testAttacksOnEmptyBoard() {
+        val a1 = PositionUtils.getSquareFromFileRank(File.A, 1)
+        assertEquals((Bitboards.FILE_A or Bitboards.RANK_1) and Bitboards.squareBit(a1).inv(), SlidingAttacks.rookAttacks(a1, Bitboards.EMPTY))
+        assertEquals(14, Bitboards.count(SlidingAttacks.rookAttacks(PositionUtils.getSquareFromFileRank(File.E, 5), Bitboards.EMPTY)))
+        assertEquals(13, Bitboards.count(SlidingAttacks.bishopAttacks(PositionUtils.getSquareFromFileRank(File.E, 5), Bitboards.EMPTY)))
+        assertEquals(7, Bitboards.count(SlidingAttacks.bishopAttacks(PositionUtils.getSquareFromFileRank(File.H, 8), Bitboards.EMPTY)))
+    }
+
+    @Test
+    fun testAttacksStopAtBlockers() {
+        val d4 = PositionUtils.getSquareFromFileRank(File.D, 4)
+        val blockers = toBitboard(listOf(File.D to 6, File.F to 4, File.B to 2, File.E to 5))
+
+        val expectedRook = listOf(File.D to 5, File.D to 6, File.E to 4, File.F to 4, File.D to 3, File.D to 2, File.D to 1,
+            File.C to 4, File.B to 4, File.A to 4)
+        val expectedBishop = listOf(File.E to 5, File.C to 5, File.B to 6, File.A to 7, File.E to 3, File.F to 2, File.G to 1,
+            File.C to 3, File.B to 2)
+        assertEquals(toBitboard(expectedRook), SlidingAttacks.rookAttacks(d4, blockers))
+        assertEquals(toBitboard(expectedBishop), SlidingAttacks.bishopAttacks(d4, blockers))
+        assertEquals(toBitboard(expectedRook + expectedBishop), SlidingAttacks.queenAttacks(d4, blockers))
+    }
+
+    @Test
+    fun testTablesMatchRayWalk() {
+        val random = Random(42)
+        for (square in 0 until 64) {
+            repeat(200) {
+                // vary the density so that both open and crowded boards are covered
+                val occupancy = random.nextLong() and random.nextLong() and (if (it % 2 == 0) random.nextLong() else -1L)
+                assertEquals(Bitboards.rookAttacksByRayWalk(square, occupancy), SlidingAttacks.rookAttacks(square, occupancy))
+                assertEquals(Bitboards.bishopAttacksByRayWalk(square, occupancy), SlidingAttacks.bishopAttacks(square, occupancy))
+            }
+        }
+    }
+
+    private fun toBitboard(squares: List<Pair<File, Int>>): Long =
+        squares.fold(Bitboards.EMPTY) { bitboard, (file, rank) -> bitboard or Bitboards.squareBit(PositionUtils.getSquareFromFileRank(file, rank)) }
+}
@@ -0,0 +1,111 @@
+package com.chessapp.api.board
+
+import org.junit.jupiter.api.Assertions.assertEquals
+import org.junit.jupiter.api.Assertions.assertFalse
+import org.junit.jupiter.api.Assertions.assertTrue
+import org.junit.jupiter.api.Test
+import kotlin.random.Random
+
+class StaticExchangeTest {
+
+    @Test
+    fun testUndefendedAndDefendedCaptures() {
+        assertExchange("1k1r4/1pp4p/p7/4p3/8/P5P1/1PP4P/2K1R3 w - - 0 1", "e1e5", 100)
+        // knight takes pawn, knight takes knight, rook takes, bishop takes, queen takes, queen takes
+        assertExchange("1k1r3q/1ppn3p/p4b2/4p3/8/P2N2P1/1PP1R1BP/2K1Q3 w - - 0 1", "d3e5", -220)
+        // a queen taking a pawn guarded by a pawn
+        assertExchange("4k3/8/4p3/3p4/8/8/8/3QK3 w - - 0 1", "d1d5", -800)
+    }
+
+    @Test
+    fun testXraysBehindSliders() {
+        // the second rook recaptures through the first
+        assertExchange("4k3/4r3/8/4p3/8/8/4R3/4R1K1 w - - 0 1", "e2e5", 100)
+        // a bishop behind the capturing pawn joins in once the pawn has taken
+        assertExchange("4k3/8/2n5/3r4/4P3/5B2/8/4K3 w - - 0 1", "e4d5", 500)
+        // with the queen behind the black rook the white rook is lost
+        assertExchange("4k3/4q3/4r3/8/4p3/8/4R3/4K3 w - - 0 1", "e2e4", -400)
+    }
+
+    @Test
+    fun testKingRecapturesOnlyLast() {
+        assertExchange("8/8/4k3/4p3/8/8/8/4R1K1 w - - 0 1", "e1e5", -400)
+        assertExchange("8/8/4k3/4p3/3P4/8/8/4R1K1 w - - 0 1", "e1e5", 100)
+    }
+
+    @Test
+    fun testSpecialMoves() {
+        assertExchange("4k3/8/8/3pP3/8/8/8/4K3 w - d6 0 1", "e5d6", 100)
+        assertExchange("7k/4P3/8/8/8/8/8/4K3 w - - 0 1", "e7e8q", 800)
+        assertExchange("r6k/4P3/8/8/8/8/8/4K3 w - - 0 1", "e7e8q", -100)
+        assertExchange("4k3/8/8/8/8/8/8/4K2R w K - 0 1", "e1g1", 0)
+        // a quiet move onto an attacked square
+        assertExchange("4k3/8/8/3p4/8/8/8/2B1K3 w - - 0 1", "c1e3", 0)
+        assertExchange("4k3/8/8/3p4/8/8/8/4K2Q w - - 0 1", "h1e4", -900)
+    }
+
+    @Test
+    fun testAgreesWithPlayingOutTheExchange() {
+        // against a brute force minimax over captures on the same square, pins aside
+        val random = Random(21)
+        val moves = MoveList()
+        for (fen in listOf(KIWIPETE, "r1bq1rk1/pp2bppp/2n1pn2/3p4/2PP4/2N1PN2/PP2BPPP/R2QKB1R w KQ - 0 1")) {
+            val board = BitboardPosition.fromFen(fen)
+            val generator = LegalMoveGenerator(board)
+            repeat(30) {
+                generator.generateLegalMoves(moves)
+                if (moves.isEmpty()) return@repeat
+                for (i in 0 until moves.size) {
+                    val move = moves[i]
+                    if (!Move.isCapture(move) || Move.isPromotion(move) || Move.hasFlag(move, Move.FLAG_EN_PASSANT)) continue
+                    val value = exchangeValue(board, move)
+                    assertTrue(StaticExchange.see(board, move, value), "${Fen.write(board)} ${Move.toUci(move)} $value")
+                    assertFalse(StaticExchange.see(board, move, value + 1), "${Fen.write(board)} ${Move.toUci(move)} $value")
+                }
+                board.makeMove(moves[random.nextInt(moves.size)])
+            }
+        }
+    }
+
+    // The move's gain, then the best the opponent can do by recapturing on the square or not
+    private fun exchangeValue(board: BitboardPosition, move: Int): Int {
+        val gain = StaticExchange.PIECE_VALUES[PieceCodes.typeOf(Move.captured(move))]
+        val copy = BitboardPosition().apply { copyFrom(board) }
+        copy.clearSquare(Move.from(move))
+        copy.clearSquare(Move.to(move))
+        copy.putPiece(Move.to(move), Move.piece(move))
+        copy.sideToMove = PieceCodes.opposite(board.sideToMove)
+        return gain - maxOf(0, bestRecapture(copy, Move.to(move)))
+    }
+
+    private fun bestRecapture(board: BitboardPosition, square: Int): Int {
+        val attackers = AttackDetector.attackersTo(board, square) and board.occupancy(board.sideToMove)
+        if (attackers == Bitboards.EMPTY) return 0
+        // least valuable attacker first, as the exchange always takes with it
+        val attacker = (0 until 64).filter { Bitboards.isSet(attackers, it) }
+            .minBy { PieceCodes.typeOf(board.pieceCodeAt(it)) }
+        val piece = board.pieceCodeAt(attacker)
+        val victim = board.pieceCodeAt(square)
+        if (PieceCodes.typeOf(piece) == PieceCodes.KING &&
+            AttackDetector.isSquareAttacked(board, square, PieceCodes.opposite(board.sideToMove))) return 0
+        val copy = BitboardPosition().apply { copyFrom(board) }
+        copy.clearSquare(attacker)
+        copy.clearSquare(square)
+        copy.putPiece(square, piece)
+        copy.sideToMove = PieceCodes.opposite(board.sideToMove)
+        return StaticExchange.PIECE_VALUES[PieceCodes.typeOf(victim)] - maxOf(0, bestRecapture(copy, square))
+    }
+
+    private fun assertExchange(fen: String, uci: String, expected: Int) {
+        val board = BitboardPosition.fromFen(fen)
+        val moves = MoveList()
+        LegalMoveGenerator(board).generateLegalMoves(moves)
+        val move = (0 until moves.size).map { moves[it] }.single { Move.toUci(it) == uci }
+        assertTrue(StaticExchange.see(board, move, expected), "$uci should win $expected")
+        assertFalse(StaticExchange.see(board, move, expected + 1), "$uci should win no more than $expected")
+    }
+
+    companion object {
+        private const val KIWIPETE = "r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1"
+    }
+}
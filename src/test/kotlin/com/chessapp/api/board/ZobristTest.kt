@@ -0,0 +1,149 @@
+package com.chessapp.api.board
+
+import com.chessapp.api.pieces.piece.DefaultPieces
+import org.junit.jupiter.api.Assertions.assertEquals
+import org.junit.jupiter.api.Assertions.assertNotEquals
+import org.junit.jupiter.api.Test
+import kotlin.random.Random
+
+class ZobristTest {
+
+    @Test
+    fun testStartingPositionKeysMatchAcrossBackends() {
+        val arrayPosition = BoardPosition()
+        DefaultPieces.allPieces().forEach { arrayPosition.occupyPosition(it) }
+        arrayPosition.castlingRights = CastlingRights.ALL
+
+        val bitboardPosition = BitboardPosition.startingPosition()
+        assertEquals(Zobrist.computeKey(bitboardPosition), bitboardPosition.zobristKey())
+        assertEquals(Zobrist.computeKey(arrayPosition), arrayPosition.zobristKey())
+        assertEquals(bitboardPosition.zobristKey(), arrayPosition.zobristKey())
+        assertEquals(BitboardPosition.fromFen(Perft.STARTING_POSITION_FEN).zobristKey(), bitboardPosition.zobristKey())
+    }
+
+    @Test
+    fun testBoardPositionUpdatesKeyIncrementally() {
+        val position = BoardPosition()
+        DefaultPieces.allPieces().forEach { position.occupyPosition(it) }
+        val startKey = position.zobristKey()
+
+        val knight = position.getPieceAtPosition(File.G, 1)!!
+        position.movePiece(knight, File.F, 3)
+        assertNotEquals(startKey, position.zobristKey())
+        assertEquals(Zobrist.computeKey(position), position.zobristKey())
+
+        position.movePiece(knight, File.G, 1)
+        assertEquals(startKey, position.zobristKey())
+
+        val pawn = position.getPieceAtPosition(File.E, 2)!!
+        position.removePiece(pawn)
+        assertEquals(Zobrist.computeKey(position), position.zobristKey())
+        position.occupyPosition(pawn)
+        assertEquals(startKey, position.zobristKey())
+    }
+
+    @Test
+    fun testGameStateIsPartOfTheKey() {
+        val position = BitboardPosition.startingPosition()
+        val startKey = position.zobristKey()
+
+        position.sideToMove = PieceCodes.BLACK
+        assertEquals(startKey xor Zobrist.SIDE_TO_MOVE, position.zobristKey())
+        position.sideToMove = PieceCodes.WHITE
+
+        position.castlingRights = CastlingRights.WHITE_KINGSIDE
+        assertNotEquals(startKey, position.zobristKey())
+        assertEquals(Zobrist.computeKey(position), position.zobristKey())
+        position.castlingRights = CastlingRights.ALL
+
+        position.enPassantSquare = PositionUtils.getSquareFromFileRank(File.E, 3)
+        val enPassantKey = position.zobristKey()
+        assertNotEquals(startKey, enPassantKey)
+        assertEquals(Zobrist.computeKey(position), enPassantKey)
+        position.enPassantSquare = BitboardPosition.NO_SQUARE
+
+        assertEquals(startKey, position.zobristKey())
+    }
+
+    @Test
+    fun testTranspositionsHaveTheSameKey() {
+        val viaKnightFirst = BitboardPosition.startingPosition()
+        playUci(viaKnightFirst, "g1f3", "g8f6", "b1c3", "b8c6")
+        val viaOtherKnightFirst = BitboardPosition.startingPosition()
+        playUci(viaOtherKnightFirst, "b1c3", "b8c6", "g1f3", "g8f6")
+
+        assertEquals(viaKnightFirst.zobristKey(), viaOtherKnightFirst.zobristKey())
+
+        // a double push no pawn can capture leaves no en passant file behind
+        val quietDoublePush = BitboardPosition.startingPosition()
+        playUci(quietDoublePush, "e2e4")
+        assertEquals(BitboardPosition.fromFen("rnbqkbnr/pppppppp/8/8/4P3/8/PPPP1PPP/RNBQKBNR b KQkq - 0 1").zobristKey(), quietDoublePush.zobristKey())
+
+        // next to an enemy pawn it does, so the same placement reached without one differs
+        val doublePush = BitboardPosition.fromFen("rnbqkbnr/ppp1pppp/8/8/3p4/8/PPPPPPPP/RNBQKBNR w KQkq - 0 1")
+        playUci(doublePush, "e2e4")
+        val singlePushes = BitboardPosition.fromFen("rnbqkbnr/ppp1pppp/8/8/3pP3/8/PPPP1PPP/RNBQKBNR b KQkq - 0 1")
+        assertNotEquals(doublePush.zobristKey(), singlePushes.zobristKey())
+        doublePush.enPassantSquare = BitboardPosition.NO_SQUARE
+        assertEquals(doublePush.zobristKey(), singlePushes.zobristKey())
+    }
+
+    @Test
+    fun testIncrementalKeyMatchesRecomputeOverRandomGames() {
+        val random = Random(7)
+        val moves = MoveList()
+        for (fen in listOf(Perft.STARTING_POSITION_FEN, KIWIPETE)) {
+            repeat(20) {
+                val board = BitboardPosition.fromFen(fen)
+                val generator = LegalMoveGenerator(board)
+                repeat(80) {
+                    generator.generateLegalMoves(moves)
+                    if (moves.isEmpty()) return@repeat
+                    board.applyMove(moves[random.nextInt(moves.size)])
+                    assertEquals(Zobrist.computeKey(board), board.zobristKey())
+                    assertEquals(Zobrist.computePawnKey(board), board.pawnKey())
+                }
+            }
+        }
+    }
+
+    @Test
+    fun testPawnKeyCoversPawnsOnly() {
+        val position = BitboardPosition.startingPosition()
+        val startPawnKey = position.pawnKey()
+        assertEquals(Zobrist.computePawnKey(position), startPawnKey)
+        playUci(position, "g1f3", "b8c6")
+        assertEquals(startPawnKey, position.pawnKey())
+        playUci(position, "e2e4")
+        assertNotEquals(startPawnKey, position.pawnKey())
+        assertEquals(Zobrist.computePawnKey(position), position.pawnKey())
+
+        val arrayPosition = BoardPosition()
+        DefaultPieces.allPieces().forEach { arrayPosition.occupyPosition(it) }
+        assertEquals(startPawnKey, arrayPosition.pawnKey())
+        arrayPosition.removePiece(arrayPosition.getPieceAtPosition(File.E, 2)!!)
+        assertEquals(Zobrist.computePawnKey(arrayPosition), arrayPosition.pawnKey())
+    }
+
+    @Test
+    fun testCopyFromCopiesKey() {
+        val source = BitboardPosition.fromFen(KIWIPETE)
+        val copy = BitboardPosition()
+        copy.copyFrom(source)
+        assertEquals(source.zobristKey(), copy.zobristKey())
+    }
+
+    private fun playUci(board: BitboardPosition, vararg uciMoves: String) {
+        val moves = MoveList()
+        val generator = LegalMoveGenerator(board)
+        for (uci in uciMoves) {
+            generator.generateLegalMoves(moves)
+            val move = (0 until moves.size).map { moves[it] }.first { Move.toUci(it) == uci }
+            board.applyMove(move)
+        }
+    }
+
+    companion object {
+        private const val KIWIPETE = "r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1"
+    }
+}
@@ -0,0 +1,243 @@
+package com.chessapp.api.book
+
+import com.chessapp.api.board.BitboardPosition
+import com.chessapp.api.board.Fen
+import com.chessapp.api.board.LegalMoveGenerator
+import com.chessapp.api.board.Move
+import com.chessapp.api.board.MoveList
+import org.junit.jupiter.api.AfterEach
+import org.junit.jupiter.api.Assertions.assertArrayEquals
+import org.junit.jupiter.api.Assertions.assertEquals
+import org.junit.jupiter.api.Assertions.assertNotEquals
+import org.junit.jupiter.api.Assertions.assertTrue
+import org.junit.jupiter.api.BeforeEach
+import org.junit.jupiter.api.Test
+import org.junit.jupiter.api.assertThrows
+import org.junit.jupiter.params.ParameterizedTest
+import org.junit.jupiter.params.provider.CsvSource
+import java.io.IOException
+import java.nio.ByteBuffer
+import java.nio.file.Files
+import java.nio.file.Path
+import kotlin.random.Random
+
+class PolyglotBookTest {
+    private lateinit var pgn: Path
+    private lateinit var book: Path
+    private val keys = PolyglotKeys.seeded(42)
+
+    @BeforeEach
+    fun setup() {
+        pgn = Files.createTempFile("games", ".pgn")
+        book = Files.createTempFile("book", ".bin")
+        Files.write(pgn, GAMES.toByteArray())
+    }
+
+    @AfterEach
+    fun cleanup() {
+        Files.deleteIfExists(pgn)
+        Files.deleteIfExists(book)
+    }
+
+    @Test
+    fun testBuiltBookWeighsMovesByTheirResults() {
+        val stats = PolyglotBookBuilder(threads = 2, keys = keys).build(pgn, book)
+        assertEquals(4L, stats.games)
+
+        PolyglotBook(book, keys).use { polyglotBook ->
+            assertEquals(stats.entries, polyglotBook.entryCount)
+            val board = Fen.toBitboardPosition(Fen.STARTING_POSITION)
+            // e4 won twice and lost once, d4 drew once
+            assertEquals(listOf("e2e4" to 4, "d2d4" to 1), bookMoves(polyglotBook, board))
+
+            // black lost both games with 1... e5, so only 1... c5 is worth playing
+            play(board, "e2e4")
+            assertEquals(listOf("c7c5" to 2), bookMoves(polyglotBook, board))
+
+            play(board, "e7e5")
+            assertEquals(listOf("g1f3" to 4), bookMoves(polyglotBook, board))
+        }
+    }
+
+    @Test
+    fun testPickMoveFollowsTheWeights() {
+        PolyglotBookBuilder(threads = 1, keys = keys).build(pgn, book)
+        PolyglotBook(book, keys).use { polyglotBook ->
+            val board = Fen.toBitboardPosition(Fen.STARTING_POSITION)
+            val legalMoves = MoveList()
+            LegalMoveGenerator(board).generateLegalMoves(legalMoves)
+            val random = Random(5)
+            val picks = (0 until 5000).groupingBy { Move.toUci(polyglotBook.pickMove(board, legalMoves, random)) }.eachCount()
+            assertEquals(setOf("e2e4", "d2d4"), picks.keys)
+            assertTrue(picks.getValue("e2e4") in 3800..4200, "e4 picked ${picks["e2e4"]} times")
+            assertEquals("e2e4", Move.toUci(polyglotBook.bestMove(board, legalMoves)))
+        }
+    }
+
+    @Test
+    fun testPositionsOutOfBookGiveNoMove() {
+        PolyglotBookBuilder(threads = 1, keys = keys).build(pgn, book)
+        PolyglotBook(book, keys).use { polyglotBook ->
+            val board = Fen.toBitboardPosition(Fen.STARTING_POSITION)
+            play(board, "a2a3")
+            val legalMoves = MoveList()
+            LegalMoveGenerator(board).generateLegalMoves(legalMoves)
+            assertEquals(Move.NONE, polyglotBook.pickMove(board, legalMoves))
+            assertEquals(Move.NONE, polyglotBook.bestMove(board, legalMoves))
+            assertTrue(polyglotBook.moves(board, legalMoves).isEmpty())
+        }
+    }
+
+    @Test
+    fun testBuildIsTheSameForAnyThreadCount() {
+        val many = Files.createTempFile("book", ".bin")
+        try {
+            Files.write(pgn, (1..50).joinToString("\n") { GAMES }.toByteArray())
+            PolyglotBookBuilder(threads = 1, keys = keys).build(pgn, book)
+            PolyglotBookBuilder(threads = 3, keys = keys).build(pgn, many)
+            assertArrayEquals(Files.readAllBytes(book), Files.readAllBytes(many))
+        } finally {
+            Files.deleteIfExists(many)
+        }
+    }
+
+    @Test
+    fun testMinGamesDropsRareMoves() {
+        PolyglotBookBuilder(threads = 1, keys = keys, minGames = 2).build(pgn, book)
+        PolyglotBook(book, keys).use { polyglotBook ->
+            val board = Fen.toBitboardPosition(Fen.STARTING_POSITION)
+            assertEquals(listOf("e2e4" to 4), bookMoves(polyglotBook, board))
+        }
+    }
+
+    @Test
+    fun testReadsHandWrittenEntriesAndSkipsIllegalMoves() {
+        val startKey = keys.key(Fen.toBitboardPosition(Fen.STARTING_POSITION))
+        val e2e4 = 28 or (12 shl 6)
+        val e2e5 = 36 or (12 shl 6)
+        val g1f3 = 21 or (6 shl 6)
+        // keys on either side of the start position, one of them with the sign bit flipped, written in unsigned order
+        val entries = listOf(
+            startKey - 1 to e2e4,
+            startKey xor Long.MIN_VALUE to e2e4,
+            startKey to g1f3,
+            startKey to e2e5
+        ).sortedWith { a, b -> java.lang.Long.compareUnsigned(a.first, b.first) }
+        val buffer = ByteBuffer.allocate(entries.size * PolyglotBook.ENTRY_SIZE)
+        for ((key, move) in entries) {
+            val weight = if (move == g1f3) 0xFFFF else 9
+            buffer.putLong(key).putShort(move.toShort()).putShort(weight.toShort()).putInt(0)
+        }
+        Files.write(book, buffer.array())
+
+        PolyglotBook(book, keys).use { polyglotBook ->
+            val board = Fen.toBitboardPosition(Fen.STARTING_POSITION)
+            assertEquals(listOf("g1f3" to 65535), bookMoves(polyglotBook, board))
+        }
+    }
+
+    @Test
+    fun testPolyglotMoveEncoding() {
+        val castling = Fen.toBitboardPosition("r3k2r/8/8/8/8/8/8/R3K2R w KQkq - 0 1")
+        val moves = MoveList()
+        LegalMoveGenerator(castling).generateLegalMoves(moves)
+        val kingside = (0 until moves.size).map { moves[it] }.first { Move.toUci(it) == "e1g1" }
+        val queenside = (0 until moves.size).map { moves[it] }.first { Move.toUci(it) == "e1c1" }
+        // the king takes its own rook
+        assertEquals(7 or (4 shl 6), PolyglotBook.toPolyglotMove(kingside))
+        assertEquals(0 or (4 shl 6), PolyglotBook.toPolyglotMove(queenside))
+        assertEquals(kingside, PolyglotBook.fromPolyglotMove(7 or (4 shl 6), moves))
+
+        val promotion = Fen.toBitboardPosition("8/P7/8/8/8/8/8/k1K5 w - - 0 1")
+        LegalMoveGenerator(promotion).generateLegalMoves(moves)
+        val toKnight = (0 until moves.size).map { moves[it] }.first { Move.toUci(it) == "a7a8n" }
+        assertEquals(56 or (48 shl 6) or (1 shl 12), PolyglotBook.toPolyglotMove(toKnight))
+    }
+
+    @Test
+    fun testEnPassantOnlyCountsWhenACaptureIsPossible() {
+        // after 1. e4 nothing can take on e3, so the en passant square is ignored
+        val afterDoublePush = Fen.toBitboardPosition("rnbqkbnr/pppppppp/8/8/4P3/8/PPPP1PPP/RNBQKBNR b KQkq e3 0 1")
+        val withoutSquare = Fen.toBitboardPosition("rnbqkbnr/pppppppp/8/8/4P3/8/PPPP1PPP/RNBQKBNR b KQkq - 0 1")
+        assertEquals(keys.key(withoutSquare), keys.key(afterDoublePush))
+
+        // with a black pawn on d4 it can
+        val capturable = Fen.toBitboardPosition("rnbqkbnr/ppp1pppp/8/8/3pP3/8/PPPP1PPP/RNBQKBNR b KQkq e3 0 1")
+        val notCapturable = Fen.toBitboardPosition("rnbqkbnr/ppp1pppp/8/8/3pP3/8/PPPP1PPP/RNBQKBNR b KQkq - 0 1")
+        assertNotEquals(keys.key(notCapturable), keys.key(capturable))
+
+        val whiteToMove = Fen.toBitboardPosition("rnbqkbnr/pppppppp/8/8/4P3/8/PPPP1PPP/RNBQKBNR w KQkq - 0 1")
+        assertNotEquals(keys.key(withoutSquare), keys.key(whiteToMove))
+    }
+
+    @Test
+    fun testKeysAreTheSameOnBothBoards() {
+        val fen = "r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1"
+        assertEquals(keys.key(Fen.toBitboardPosition(fen)), keys.key(Fen.toBoardPosition(fen)))
+    }
+
+    @Test
+    fun testRejectsFilesThatAreNotBooks() {
+        Files.write(book, ByteArray(17))
+        assertThrows<IOException> { PolyglotBook(book, keys) }
+        assertThrows<IllegalArgumentException> { PolyglotKeys(LongArray(10)) }
+    }
+
+    @Test
+    fun testReadsKeysFromHexText() {
+        val text = (0 until PolyglotKeys.RANDOM_COUNT).joinToString(",\n") { "0x%016X".format(it.toLong() * 0x1111) }
+        val read = PolyglotKeys.read(text.byteInputStream())
+        // only white to move on an empty board: the turn key, number 780
+        assertEquals(780L * 0x1111, read.key(Fen.toBitboardPosition("8/8/8/8/8/8/8/8 w - - 0 1")))
+    }
+
+    @ParameterizedTest
+    @CsvSource(
+        "'', 463b96181691fc9c",
+        "e2e4, 823c9b50fd114196",
+        "e2e4 d7d5, 0756b94461c50fb0",
+        "e2e4 d7d5 e4e5, 662fafb965db29d4",
+        "e2e4 d7d5 e4e5 f7f5, 22a48b5a8e47ff78",
+        "e2e4 d7d5 e4e5 f7f5 e1e2, 652a607ca3f242c1",
+        "e2e4 d7d5 e4e5 f7f5 e1e2 e8f7, 00fdd303c946bdd9",
+        "a2a4 b7b5 h2h4 b5b4 c2c4, 3c8123ea7b067637",
+        "a2a4 b7b5 h2h4 b5b4 c2c4 b4c3 a1a3, 5c3f9b829b279560"
+    )
+    fun testDefaultKeysMatchThePublishedTestPositions(moves: String, key: String) {
+        val board = Fen.toBitboardPosition(Fen.STARTING_POSITION)
+        moves.split(" ").filter { it.isNotEmpty() }.forEach { play(board, it) }
+        assertEquals(java.lang.Long.parseUnsignedLong(key, 16), PolyglotKeys.DEFAULT.key(board))
+    }
+
+    private fun bookMoves(polyglotBook: PolyglotBook, board: BitboardPosition): List<Pair<String, Int>> {
+        val legalMoves = MoveList()
+        LegalMoveGenerator(board).generateLegalMoves(legalMoves)
+        return polyglotBook.moves(board, legalMoves).map { Move.toUci(it.move) to it.weight }
+    }
+
+    private fun play(board: BitboardPosition, uci: String) {
+        val moves = MoveList()
+        LegalMoveGenerator(board).generateLegalMoves(moves)
+        board.makeMove((0 until moves.size).map { moves[it] }.first { Move.toUci(it) == uci })
+    }
+
+    companion object {
+        private val GAMES = """
+            [Result "1-0"]
+
+            1. e4 e5 2. Nf3 Nc6 1-0
+
+            [Result "0-1"]
+
+            1. e4 c5 2. Nf3 d6 0-1
+
+            [Result "1/2-1/2"]
+
+            1. d4 d5 1/2-1/2
+
+            [Result "1-0"]
+
+            1. e4 e5 2. Nf3 Nf6 1-0
+        """.trimIndent() + "\n"
+    }
+}
@@ -0,0 +1,86 @@
+package com.chessapp.api.pgn
+
+import com.chessapp.api.board.Move
+import org.junit.jupiter.api.Assertions.assertEquals
+import org.junit.jupiter.api.Assertions.assertFalse
+import org.junit.jupiter.api.Assertions.assertTrue
+import org.junit.jupiter.api.Test
+import org.junit.jupiter.api.assertThrows
+import java.nio.file.Files
+import java.util.concurrent.ConcurrentHashMap
+
+class PgnPipelineTest {
+
+    @Test
+    fun testValidatesEveryGame() {
+        val file = Files.createTempFile("games", ".pgn")
+        try {
+            Files.write(file, (PgnSamples.ALL + "\n").repeat(250).toByteArray(Charsets.UTF_8))
+            val results = ConcurrentHashMap<Long, ValidatedGame>()
+
+            // a tiny queue capacity forces the stages to wait on each other
+            val stats = PgnPipeline(validatorThreads = 3, queueCapacity = 4).run(file) { results[it.game.id] = it }
+
+            assertEquals(1000L, stats.games)
+            assertEquals(250L, stats.invalidGames)
+            assertEquals(250L * (33 + 1 + 2 + 10), stats.moves)
+            assertEquals(1000, results.size)
+            assertTrue(stats.gamesPerSecond > 0)
+
+            val opera = results[0]!!
+            assertTrue(opera.isValid)
+            assertEquals("d1d8", Move.toUci(opera.moves[32]))
+            assertEquals("a7a8q", Move.toUci(results[1]!!.moves[0]))
+
+            val broken = results[2]!!
+            assertFalse(broken.isValid)
+            assertEquals(2, broken.errorIndex)
+            assertEquals(2, broken.moves.size)
+            assertTrue(broken.error!!.contains("Ke3"))
+        } finally {
+            Files.deleteIfExists(file)
+        }
+    }
+
+    @Test
+    fun testBadFenTagIsAnInvalidGame() {
+        val file = Files.createTempFile("games", ".pgn")
+        try {
+            val kingless = "[Event \"No king\"]\n[SetUp \"1\"]\n[FEN \"8/8/8/8/8/8/8/4K3 w - - 0 1\"]\n\n1. Ke2 *\n"
+            Files.write(file, (PgnSamples.ALL + "\n" + kingless + "\n" + PgnSamples.ALL + "\n").toByteArray(Charsets.UTF_8))
+            val results = ConcurrentHashMap<Long, ValidatedGame>()
+            val stats = PgnPipeline(validatorThreads = 2).run(file) { results[it.game.id] = it }
+
+            // the games after it are still validated
+            assertEquals(9L, stats.games)
+            assertEquals(3L, stats.invalidGames)
+            val bad = results[4]!!
+            assertFalse(bad.isValid)
+            assertEquals(0, bad.errorIndex)
+            assertTrue(bad.error!!.contains("kings"), bad.error)
+            assertTrue(results[8]!!.isValid)
+        } finally {
+            Files.deleteIfExists(file)
+        }
+    }
+
+    @Test
+    fun testSinkFailureStopsThePipeline() {
+        val file = Files.createTempFile("games", ".pgn")
+        try {
+            Files.write(file, (PgnSamples.ALL + "\n").repeat(500).toByteArray(Charsets.UTF_8))
+            val failure = assertThrows<IllegalStateException> {
+                PgnPipeline(validatorThreads = 2, queueCapacity = 2).run(file) { check(it.game.id < 10) { "sink full" } }
+            }
+            assertEquals("sink full", failure.message)
+        } finally {
+            Files.deleteIfExists(file)
+        }
+    }
+
+    @Test
+    fun testInvalidSettings() {
+        assertThrows<IllegalArgumentException> { PgnPipeline(validatorThreads = 0) }
+        assertThrows<IllegalArgumentException> { PgnPipeline(queueCapacity = 0) }
+    }
+}
@@ -0,0 +1,62 @@
+package com.chessapp.api.pgn
+
+import org.junit.jupiter.api.Assertions.assertEquals
+import org.junit.jupiter.api.Assertions.assertNull
+import org.junit.jupiter.api.Test
+import java.io.ByteArrayInputStream
+import java.nio.channels.Channels
+
+class PgnReaderTest {
+
+    private fun readerOf(text: String, bufferSize: Int = PgnReader.DEFAULT_BUFFER_SIZE) =
+        PgnReader(Channels.newChannel(ByteArrayInputStream(text.toByteArray(Charsets.UTF_8))), bufferSize)
+
+    @Test
+    fun testReadsTagsMovesAndResult() {
+        val game = readerOf(PgnSamples.OPERA_GAME).next()!!
+        assertEquals("Paul Morphy", game.tags["White"])
+        assertEquals("1-0", game.result)
+        assertEquals(33, game.moveCount)
+        assertEquals("e4", game.san(0))
+        assertEquals("Nbd7", game.san(21))
+        assertEquals("O-O-O", game.san(22))
+        assertEquals("Rd8#", game.san(32))
+    }
+
+    @Test
+    fun testSkipsCommentsVariationsAndAnnotations() {
+        val game = readerOf(PgnSamples.ANNOTATED).next()!!
+        assertEquals("René", game.tags["White"])
+        assertEquals("1/2-1/2", game.result)
+        assertEquals(listOf("d4", "d5", "c4", "e6", "Nc3", "Nf6", "Bg5", "Be7!?", "e3", "O-O"),
+            (0 until game.moveCount).map { game.san(it) })
+    }
+
+    @Test
+    fun testReadsConsecutiveGamesWithSmallBuffer() {
+        // a buffer smaller than a line makes tokens straddle refills
+        val reader = readerOf(PgnSamples.ALL, bufferSize = 7)
+        val games = generateSequence { reader.next() }.toList()
+        assertEquals(4, games.size)
+        assertEquals(listOf(0L, 1L, 2L, 3L), games.map { it.id })
+        assertEquals(listOf(33, 1, 4, 10), games.map { it.moveCount })
+        assertEquals("8/P7/8/8/8/8/8/k1K5 w - - 0 1", games[1].startingFen)
+        assertNull(reader.next())
+    }
+
+    @Test
+    fun testGameWithoutTagsOrResult() {
+        val reader = readerOf("1. e4 e5 2. Nf3\n\n[Event \"Next\"]\n1. d4 *")
+        val first = reader.next()!!
+        assertEquals(3, first.moveCount)
+        assertEquals("*", first.result)
+        assertEquals("Next", reader.next()!!.tags["Event"])
+        assertNull(reader.next())
+    }
+
+    @Test
+    fun testEmptyStream() {
+        assertNull(readerOf("").next())
+        assertNull(readerOf("  \n\n ").next())
+    }
+}
@@ -0,0 +1,41 @@
+package com.chessapp.api.pgn
+
+// Sample PGN shared by the PGN tests
+internal object PgnSamples {
+    const val OPERA_GAME = """[Event "Paris"]
+[Site "Paris FRA"]
+[Date "1858.??.??"]
+[White "Paul Morphy"]
+[Black "Duke Karl / Count Isouard"]
+[Result "1-0"]
+
+1. e4 e5 2. Nf3 d6 3. d4 Bg4 4. dxe5 Bxf3 5. Qxf3 dxe5 6. Bc4 Nf6 7. Qb3 Qe7
+8. Nc3 c6 9. Bg5 b5 10. Nxb5 cxb5 11. Bxb5+ Nbd7 12. O-O-O Rd8 13. Rxd7 Rxd7
+14. Rd1 Qe6 15. Bxd7+ Nxd7 16. Qb8+ Nxb8 17. Rd8# 1-0
+"""
+
+    const val PROMOTION_FROM_FEN = """[Event "Study"]
+[SetUp "1"]
+[FEN "8/P7/8/8/8/8/8/k1K5 w - - 0 1"]
+[Result "1-0"]
+
+1. a8=Q# 1-0
+"""
+
+    const val ILLEGAL_MOVE = """[Event "Broken"]
+[Result "*"]
+
+1. e4 e5 2. Ke3 Nc6 *
+"""
+
+    const val ANNOTATED = """[Event "Annotated"]
+[White "René"]
+[Result "1/2-1/2"]
+
+1. d4 {a comment with [brackets] and (parentheses)} d5 (1... Nf6 2. c4 (2. Nf3 g6) e6)
+2. c4 ${'$'}1 e6 3.Nc3 Nf6 ; a line comment 4. a4
+4. Bg5 Be7!? 5. e3 O-O 1/2-1/2
+"""
+
+    val ALL = listOf(OPERA_GAME, PROMOTION_FROM_FEN, ILLEGAL_MOVE, ANNOTATED).joinToString("\n")
+}
@@ -0,0 +1,94 @@
+package com.chessapp.api.pgn
+
+import com.chessapp.api.board.BitboardPosition
+import com.chessapp.api.board.Fen
+import com.chessapp.api.board.LegalMoveGenerator
+import com.chessapp.api.board.Move
+import com.chessapp.api.board.MoveList
+import org.junit.jupiter.api.Assertions.assertEquals
+import org.junit.jupiter.api.Test
+import org.junit.jupiter.params.ParameterizedTest
+import org.junit.jupiter.params.provider.ValueSource
+
+class SanTest {
+
+    private fun legalMoves(fen: String): MoveList {
+        val moves = MoveList()
+        LegalMoveGenerator(Fen.toBitboardPosition(fen)).generateLegalMoves(moves)
+        return moves
+    }
+
+    private fun resolveUci(fen: String, san: String): String? =
+        San.resolve(san, legalMoves(fen)).let { if (it == Move.NONE) null else Move.toUci(it) }
+
+    @Test
+    fun testPawnAndPieceMoves() {
+        assertEquals("e2e4", resolveUci(Fen.STARTING_POSITION, "e4"))
+        assertEquals("g1f3", resolveUci(Fen.STARTING_POSITION, "Nf3"))
+        assertEquals("e4d5", resolveUci("rnbqkbnr/ppp1pppp/8/3p4/4P3/8/PPPP1PPP/RNBQKBNR w KQkq d6 0 2", "exd5"))
+        assertEquals("e5d6", resolveUci("rnbqkbnr/ppp1p1pp/8/3pPp2/8/8/PPPP1PPP/RNBQKBNR w KQkq d6 0 3", "exd6"))
+        assertEquals(null, resolveUci(Fen.STARTING_POSITION, "e5"))
+        assertEquals(null, resolveUci(Fen.STARTING_POSITION, "Nd2"))
+        assertEquals(null, resolveUci(Fen.STARTING_POSITION, "xyz"))
+        assertEquals(null, resolveUci(Fen.STARTING_POSITION, ""))
+    }
+
+    @Test
+    fun testDisambiguation() {
+        // knights on b1 and f3 can both reach d2; rooks on a1 and a5 can both reach a3
+        val fen = "4k3/8/8/R7/8/5N2/8/RN2K3 w - - 0 1"
+        assertEquals(null, resolveUci(fen, "Nd2"))
+        assertEquals("b1d2", resolveUci(fen, "Nbd2"))
+        assertEquals("f3d2", resolveUci(fen, "Nfd2"))
+        assertEquals("a1a3", resolveUci(fen, "R1a3"))
+        assertEquals("a5a3", resolveUci(fen, "R5a3"))
+        assertEquals("a5a3", resolveUci(fen, "Ra5a3"))
+    }
+
+    @Test
+    fun testCastlingAndPromotion() {
+        val castling = "r3k2r/8/8/8/8/8/8/R3K2R w KQkq - 0 1"
+        assertEquals("e1g1", resolveUci(castling, "O-O"))
+        assertEquals("e1c1", resolveUci(castling, "O-O-O"))
+        assertEquals("e1g1", resolveUci(castling, "0-0+"))
+
+        val promotion = "8/P7/8/8/8/8/8/k1K5 w - - 0 1"
+        assertEquals("a7a8q", resolveUci(promotion, "a8=Q#"))
+        assertEquals("a7a8n", resolveUci(promotion, "a8N"))
+        assertEquals(null, resolveUci(promotion, "a8"))
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = [
+        Fen.STARTING_POSITION,
+        "r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1",
+        "r2q1rk1/pP1p2pp/Q4n2/bbp1p3/Np6/1B3NBn/pPPP1PPP/R3K2R b KQ - 0 1",
+        "4k3/8/8/R7/8/5N2/8/RN2K3 w - - 0 1",
+        "4k3/8/8/8/8/Q7/8/Q1Q1K3 w - - 0 1"
+    ])
+    fun testToSanRoundTrips(fen: String) {
+        val board = Fen.toBitboardPosition(fen)
+        val moves = legalMoves(fen)
+        for (i in 0 until moves.size) {
+            val san = San.toSan(board, moves[i])
+            assertEquals(moves[i], San.resolve(san, moves), "$san in $fen")
+        }
+        assertEquals(fen, Fen.write(board))
+    }
+
+    @Test
+    fun testToSanSuffixes() {
+        val board = BitboardPosition.fromFen("6k1/5ppp/8/8/8/8/8/R5K1 w - - 0 1")
+        val moves = legalMoves(Fen.write(board))
+        val mate = (0 until moves.size).map { moves[it] }.first { Move.toUci(it) == "a1a8" }
+        assertEquals("Ra8#", San.toSan(board, mate))
+        val check = (0 until moves.size).map { moves[it] }.first { Move.toUci(it) == "g1f1" }
+        assertEquals("Kf1", San.toSan(board, check))
+
+        // three queens reaching b2: two need a file or rank, the corner one needs both
+        val queens = BitboardPosition.fromFen("4k3/8/8/8/8/Q7/8/Q1Q1K3 w - - 0 1")
+        val queenMoves = legalMoves(Fen.write(queens))
+        val toB2 = (0 until queenMoves.size).map { queenMoves[it] }.filter { Move.toUci(it).endsWith("b2") }
+        assertEquals(setOf("Qa1b2", "Qcb2", "Q3b2"), toB2.map { San.toSan(queens, it) }.toSet())
+    }
+}
@@ -0,0 +1,96 @@
+package com.chessapp.engine
+
+import com.chessapp.api.board.BitboardPosition
+import com.chessapp.api.board.LegalMoveGenerator
+import com.chessapp.api.board.Move
+import com.chessapp.api.board.MoveList
+import org.junit.jupiter.api.Assertions.assertEquals
+import org.junit.jupiter.api.Assertions.assertTrue
+import org.junit.jupiter.api.Test
+import org.junit.jupiter.api.assertThrows
+import org.junit.jupiter.params.ParameterizedTest
+import org.junit.jupiter.params.provider.ValueSource
+
+class EngineTest {
+
+    @ParameterizedTest
+    @ValueSource(ints = [1, 4])
+    fun testFindsMateInOne(threads: Int) {
+        val result = Engine(threads).search(BitboardPosition.fromFen("6k1/5ppp/8/8/8/8/8/R5K1 w - - 0 1"), SearchLimits(depth = 3))
+        assertEquals("a1a8", Move.toUci(result.bestMove))
+        assertEquals(Search.MATE - 1, result.score)
+        assertTrue(result.isMateScore)
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = [1, 4])
+    fun testFindsMateInTwo(threads: Int) {
+        val result = Engine(threads).search(BitboardPosition.fromFen("kbK5/pp6/1P6/8/8/8/8/R7 w - - 0 1"), SearchLimits(depth = 5))
+        assertEquals("a1a6", Move.toUci(result.bestMove))
+        assertEquals(Search.MATE - 3, result.score)
+    }
+
+    @Test
+    fun testWinsHangingQueen() {
+        val result = Engine().search(BitboardPosition.fromFen("4k3/8/8/3q4/8/8/3R4/4K3 w - - 0 1"), SearchLimits(depth = 4))
+        assertEquals("d2d5", Move.toUci(result.bestMove))
+        assertTrue(result.score > 400)
+    }
+
+    @Test
+    fun testNoLegalMovesAtRoot() {
+        val stalemate = Engine().search(BitboardPosition.fromFen("7k/5Q2/6K1/8/8/8/8/8 b - - 0 1"), SearchLimits(depth = 3))
+        assertEquals(Move.NONE, stalemate.bestMove)
+        assertEquals(Search.DRAW, stalemate.score)
+
+        val checkmate = Engine().search(BitboardPosition.fromFen("R5k1/5ppp/8/8/8/8/8/6K1 b - - 0 1"), SearchLimits(depth = 3))
+        assertEquals(Move.NONE, checkmate.bestMove)
+        assertEquals(-Search.MATE, checkmate.score)
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = [1, 2, 4])
+    fun testPrincipalVariationIsLegalLine(threads: Int) {
+        val position = BitboardPosition.fromFen(KIWIPETE)
+        val keyBefore = position.zobristKey()
+        val result = Engine(threads).search(position, SearchLimits(depth = 4))
+
+        assertEquals(keyBefore, position.zobristKey())
+        assertEquals(0, position.undoDepth)
+        assertEquals(4, result.depth)
+        assertEquals(result.bestMove, result.principalVariation.first())
+        assertTrue(result.nodes > 0)
+
+        val generator = LegalMoveGenerator(position)
+        val moves = MoveList()
+        for (move in result.principalVariation) {
+            generator.generateLegalMoves(moves)
+            assertTrue(moves.contains(move), "${Move.toUci(move)} is not legal in the principal variation $result")
+            position.makeMove(move)
+        }
+    }
+
+    @Test
+    fun testNodeAndTimeLimitsStopTheSearch() {
+        val engine = Engine()
+        val byNodes = engine.search(BitboardPosition.startingPosition(), SearchLimits(nodes = 20_000))
+        assertTrue(byNodes.nodes < 40_000, "Searched ${byNodes.nodes} nodes")
+        assertTrue(byNodes.bestMove != Move.NONE)
+
+        val start = System.nanoTime()
+        val byTime = engine.search(BitboardPosition.startingPosition(), SearchLimits(moveTimeMillis = 100))
+        assertTrue((System.nanoTime() - start) / 1_000_000 < 2_000)
+        assertTrue(byTime.bestMove != Move.NONE)
+    }
+
+    @Test
+    fun testInvalidSettings() {
+        assertThrows<IllegalArgumentException> { Engine(threads = 0) }
+        assertThrows<IllegalArgumentException> { SearchLimits(depth = 0) }
+        assertThrows<IllegalArgumentException> { SearchLimits(moveTimeMillis = -1) }
+    }
+
+    companion object {
+        private const val KIWIPETE = "r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1"
+    }
+}
@@ -0,0 +1,45 @@
+package com.chessapp.engine
+
+import com.chessapp.api.board.BitboardPosition
+import com.chessapp.api.board.Perft
+import org.junit.jupiter.api.Assertions.assertEquals
+import org.junit.jupiter.api.Assertions.assertTrue
+import org.junit.jupiter.api.Test
+
+class EvaluationTest {
+
+    private fun evaluate(fen: String) = Evaluation.evaluate(BitboardPosition.fromFen(fen))
+
+    @Test
+    fun testStartingPositionIsLevel() {
+        assertEquals(0, evaluate(Perft.STARTING_POSITION_FEN))
+    }
+
+    @Test
+    fun testScoreIsFromTheSideToMove() {
+        val white = evaluate("rnbqkbnr/pppppppp/8/8/4P3/8/PPPP1PPP/RNBQKBNR w KQkq - 0 1")
+        val black = evaluate("rnbqkbnr/pppppppp/8/8/4P3/8/PPPP1PPP/RNBQKBNR b KQkq - 0 1")
+        assertTrue(white > 0)
+        assertEquals(-white, black)
+    }
+
+    @Test
+    fun testMaterialAndPlacement() {
+        // a queen up
+        assertTrue(evaluate("rnb1kbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 1") > 800)
+        // a centralized knight beats one in the corner
+        assertTrue(evaluate("4k3/8/8/8/3N4/8/8/4K3 w - - 0 1") > evaluate("4k3/8/8/8/8/8/8/N3K3 w - - 0 1"))
+    }
+
+    @Test
+    fun testTaperingTowardsTheEndgame() {
+        // with only kings and pawns left the endgame tables alone count: the king belongs in the center
+        val centralKing = evaluate("4k3/pppp4/8/8/3K4/8/PPPP4/8 w - - 0 1")
+        val cornerKing = evaluate("4k3/pppp4/8/8/8/8/PPPP4/K7 w - - 0 1")
+        assertTrue(centralKing > cornerKing)
+        // while with everything on the board the king is safest at home
+        val homeKing = evaluate("rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 1")
+        val wanderingKing = evaluate("rnbqkbnr/pppppppp/8/8/4K3/8/PPPPPPPP/RNBQ1BNR w kq - 0 1")
+        assertTrue(homeKing > wanderingKing)
+    }
+}
@@ -0,0 +1,50 @@
+package com.chessapp.engine
+
+import com.chessapp.api.board.Move
+import com.chessapp.api.board.PieceCodes
+import org.junit.jupiter.api.Assertions.assertEquals
+import org.junit.jupiter.api.Assertions.assertTrue
+import org.junit.jupiter.api.Test
+
+class MoveHistoryTest {
+    private val knight = PieceCodes.code(PieceCodes.WHITE, PieceCodes.KNIGHT)
+    private val first = Move.encode(6, 21, knight)
+    private val second = Move.encode(1, 18, knight)
+    private val third = Move.encode(6, 23, knight)
+
+    @Test
+    fun testKillersAndCountermoves() {
+        val history = MoveHistory()
+        val previous = Move.encode(52, 36, PieceCodes.code(PieceCodes.BLACK, PieceCodes.PAWN))
+        history.onCutoff(3, previous, first, 4, IntArray(0), 0)
+        history.onCutoff(3, Move.NONE, second, 4, IntArray(0), 0)
+        history.onCutoff(3, Move.NONE, second, 4, IntArray(0), 0)
+        assertEquals(second, history.killer(3, 0))
+        assertEquals(first, history.killer(3, 1))
+        assertEquals(Move.NONE, history.killer(4, 0))
+        assertEquals(first, history.counterMove(previous))
+        assertEquals(Move.NONE, history.counterMove(Move.NONE))
+
+        history.newSearch()
+        assertEquals(Move.NONE, history.killer(3, 0))
+        assertEquals(first, history.counterMove(previous))
+        history.clear()
+        assertEquals(Move.NONE, history.counterMove(previous))
+    }
+
+    @Test
+    fun testHistoryScoresStayBounded() {
+        val history = MoveHistory()
+        val tried = intArrayOf(first, third)
+        repeat(1000) { history.onCutoff(1, Move.NONE, second, 40, tried, 2) }
+        assertTrue(history.score(second) in MoveHistory.MAX_SCORE / 2..MoveHistory.MAX_SCORE)
+        assertTrue(history.score(first) in -MoveHistory.MAX_SCORE until 0)
+        assertEquals(history.score(first), history.score(third))
+
+        val before = history.score(second)
+        history.newSearch()
+        assertEquals(before / 2, history.score(second))
+        // the same squares for the other side are scored apart
+        assertEquals(0, history.score(Move.encode(6, 21, PieceCodes.code(PieceCodes.BLACK, PieceCodes.KNIGHT))))
+    }
+}
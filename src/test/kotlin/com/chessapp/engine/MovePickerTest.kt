@@ -0,0 +1,81 @@
+package com.chessapp.engine
+
+import com.chessapp.api.board.BitboardPosition
+import com.chessapp.api.board.Fen
+import com.chessapp.api.board.LegalMoveGenerator
+import com.chessapp.api.board.Move
+import com.chessapp.api.board.MoveList
+import com.chessapp.api.board.PieceCodes
+import com.chessapp.api.board.StaticExchange
+import org.junit.jupiter.api.Assertions.assertEquals
+import org.junit.jupiter.api.Test
+import kotlin.random.Random
+
+class MovePickerTest {
+    private val moves = MoveList()
+
+    @Test
+    fun testHandsOutEveryLegalMoveOnce() {
+        val random = Random(17)
+        val board = BitboardPosition.fromFen(KIWIPETE)
+        val generator = LegalMoveGenerator(board)
+        val history = MoveHistory()
+        val picker = MovePicker(board, generator, history)
+        val tried = IntArray(MoveList.MAX_MOVES)
+        var previous = Move.NONE
+        var stale = Move.NONE
+
+        repeat(200) { ply ->
+            generator.generateLegalMoves(moves)
+            if (moves.isEmpty()) {
+                Fen.read(KIWIPETE, board)
+                return@repeat
+            }
+            val legal = (0 until moves.size).map { moves[it] }
+            // a hash move from this position, or one remembered from an earlier position
+            val hashMove = if (random.nextBoolean()) legal[random.nextInt(legal.size)] else stale
+            val quiets = legal.filter { !Move.isCapture(it) && !Move.isPromotion(it) }
+            if (quiets.isNotEmpty()) history.onCutoff(ply % 4, previous, quiets.random(random), 1 + ply % 6, tried, 0)
+
+            picker.reset(hashMove, ply % 4, previous)
+            val picked = generateSequence { picker.next().takeIf { it != Move.NONE } }.toList()
+            assertEquals(legal.sorted(), picked.sorted(), Fen.write(board))
+            if (hashMove in legal) assertEquals(hashMove, picked.first())
+
+            picker.reset(hashMove, ply % 4, previous, noisyOnly = true)
+            val noisy = generateSequence { picker.next().takeIf { it != Move.NONE } }.toList()
+            val winning = legal.filter { (Move.isCapture(it) || Move.isPromotion(it)) && StaticExchange.see(board, it, 0) }
+            assertEquals((winning - hashMove).sorted(), (noisy - hashMove).sorted())
+
+            stale = legal[random.nextInt(legal.size)]
+            previous = stale
+            board.makeMove(stale)
+        }
+    }
+
+    @Test
+    fun testStageOrder() {
+        val board = BitboardPosition.fromFen("4k3/8/4p3/3p4/r3P3/8/8/3QK3 w - - 0 1")
+        val history = MoveHistory()
+        val picker = MovePicker(board, LegalMoveGenerator(board), history)
+        val none = IntArray(0)
+        val queen = PieceCodes.code(PieceCodes.WHITE, PieceCodes.QUEEN)
+        val blackRook = PieceCodes.code(PieceCodes.BLACK, PieceCodes.ROOK)
+        val previous = Move.encode(0, 8, blackRook)
+
+        history.onCutoff(0, Move.NONE, Move.encode(4, 13, PieceCodes.code(PieceCodes.WHITE, PieceCodes.KING)), 3, none, 0)
+        history.onCutoff(7, previous, Move.encode(3, 30, queen), 3, none, 0)
+        history.onCutoff(5, Move.NONE, Move.encode(3, 39, queen), 10, none, 0)
+
+        picker.reset(Move.encode(3, 19, queen), 0, previous)
+        val picked = generateSequence { picker.next().takeIf { it != Move.NONE } }.map { Move.toUci(it) }.toList()
+        // hash move; captures by victim, then the pawn trade; killer; countermove; history; the losing capture last
+        assertEquals(listOf("d1d3", "d1a4", "e4d5", "e1f2", "d1g4", "d1h5"), picked.take(6))
+        assertEquals("d1d5", picked.last())
+        assertEquals(picked.size, picked.toSet().size)
+    }
+
+    companion object {
+        private const val KIWIPETE = "r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1"
+    }
+}
@@ -0,0 +1,62 @@
+package com.chessapp.engine
+
+import com.chessapp.api.board.BitboardPosition
+import com.chessapp.api.board.LegalMoveGenerator
+import com.chessapp.api.board.Move
+import com.chessapp.api.board.MoveList
+import com.chessapp.api.board.Perft
+import com.chessapp.api.board.PieceCodes
+import org.junit.jupiter.api.Assertions.assertEquals
+import org.junit.jupiter.api.Assertions.assertTrue
+import org.junit.jupiter.api.Test
+import org.junit.jupiter.api.assertThrows
+import kotlin.random.Random
+
+class PawnHashTableTest {
+
+    @Test
+    fun testCachedScoresMatchFullEvaluation() {
+        val table = PawnHashTable(entries = 64)
+        val random = Random(5)
+        val moves = MoveList()
+        repeat(20) {
+            val board = BitboardPosition.fromFen(Perft.STARTING_POSITION_FEN)
+            val generator = LegalMoveGenerator(board)
+            repeat(100) {
+                generator.generateLegalMoves(moves)
+                if (moves.isEmpty()) return@repeat
+                board.makeMove(moves[random.nextInt(moves.size)])
+                assertEquals(Evaluation.evaluate(board), Evaluation.evaluate(board, table))
+            }
+        }
+        assertTrue(table.hits > 0)
+    }
+
+    @Test
+    fun testPieceMovesHitTheCache() {
+        val table = PawnHashTable()
+        val board = BitboardPosition.fromFen("r1bqkb1r/pppp1ppp/2n2n2/4p3/4P3/2N2N2/PPPP1PPP/R1BQKB1R w KQkq - 0 1")
+        val generator = LegalMoveGenerator(board)
+        val moves = MoveList()
+        generator.generateLegalMoves(moves)
+        Evaluation.evaluate(board, table)
+        for (i in 0 until moves.size) {
+            board.makeMove(moves[i])
+            Evaluation.evaluate(board, table)
+            board.unmakeMove()
+        }
+        // only pawn moves and pawn captures change the pawn key
+        val pawnMoves = (0 until moves.size).count {
+            PieceCodes.typeOf(Move.piece(moves[it])) == PieceCodes.PAWN ||
+                (Move.isCapture(moves[it]) && PieceCodes.typeOf(Move.captured(moves[it])) == PieceCodes.PAWN)
+        }
+        assertEquals(moves.size + 1L, table.probes)
+        assertEquals(moves.size - pawnMoves.toLong(), table.hits)
+    }
+
+    @Test
+    fun testSizeMustBeAPowerOfTwo() {
+        assertThrows<IllegalArgumentException> { PawnHashTable(1000) }
+        assertThrows<IllegalArgumentException> { PawnHashTable(0) }
+    }
+}
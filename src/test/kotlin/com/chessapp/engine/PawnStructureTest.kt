@@ -0,0 +1,67 @@
+package com.chessapp.engine
+
+import com.chessapp.api.board.BitboardPosition
+import com.chessapp.api.board.PieceCodes
+import com.chessapp.api.board.PieceSquareTables
+import org.junit.jupiter.api.Assertions.assertEquals
+import org.junit.jupiter.api.Assertions.assertTrue
+import org.junit.jupiter.api.Test
+
+class PawnStructureTest {
+
+    private fun pawns(fen: String): Pair<Long, Long> {
+        val board = BitboardPosition.fromFen(fen)
+        return board.pieceBitboard(PieceCodes.code(PieceCodes.WHITE, PieceCodes.PAWN)) to
+            board.pieceBitboard(PieceCodes.code(PieceCodes.BLACK, PieceCodes.PAWN))
+    }
+
+    private fun endgame(fen: String): Int {
+        val (white, black) = pawns(fen)
+        return PieceSquareTables.endgame(PawnStructure.evaluate(white, black))
+    }
+
+    @Test
+    fun testSymmetricStructuresCancelOut() {
+        assertEquals(0, endgame("4k3/pppppppp/8/8/8/8/PPPPPPPP/4K3 w - - 0 1"))
+        assertEquals(0, endgame("4k3/pp3p1p/2p3p1/8/8/2P3P1/PP3P1P/4K3 w - - 0 1"))
+    }
+
+    @Test
+    fun testPassedPawnsGainValueAsTheyAdvance() {
+        val onFourth = endgame("4k3/8/8/8/P7/8/8/4K3 w - - 0 1")
+        val onSixth = endgame("4k3/8/P7/8/8/8/8/4K3 w - - 0 1")
+        assertTrue(onFourth > 0)
+        assertTrue(onSixth > onFourth)
+        // a pawn on an adjacent file ahead stops it being passed
+        assertTrue(endgame("4k3/1p6/8/8/P7/8/8/4K3 w - - 0 1") < onFourth - endgame("4k3/1p6/8/8/8/8/8/4K3 w - - 0 1"))
+        // black's passers count against white, mirrored
+        assertEquals(-onSixth, endgame("4k3/8/8/8/8/p7/8/4K3 w - - 0 1"))
+    }
+
+    @Test
+    fun testWeakPawns() {
+        // a healthy f-g-h chain for black against an intact, an isolated and a doubled one for white
+        val healthy = endgame("4k3/5ppp/8/8/8/8/5PPP/4K3 w - - 0 1")
+        val isolated = endgame("4k3/5ppp/8/8/8/8/5P1P/4K3 w - - 0 1")
+        val doubled = endgame("4k3/5ppp/8/8/8/7P/5P1P/4K3 w - - 0 1")
+        assertEquals(0, healthy)
+        assertTrue(isolated < 0)
+        assertTrue(doubled < isolated)
+
+        // d3 cannot be supported by c2 any more, and its stop square d4 is covered by e5
+        val backward = endgame("4k3/8/8/2p1p3/8/3P4/8/4K3 w - - 0 1")
+        val supported = endgame("4k3/8/8/2p1p3/8/3P4/2P5/4K3 w - - 0 1")
+        assertTrue(backward < supported)
+    }
+
+    @Test
+    fun testShelter() {
+        val (white, black) = pawns("6k1/5ppp/8/8/8/8/5PPP/6K1 w - - 0 1")
+        assertEquals(0, PawnStructure.shelter(6, 62, white, black))
+        val exposed = PawnStructure.shelter(4 * 8 + 4, 62, white, black)
+        assertTrue(PieceSquareTables.middlegame(exposed) < 0)
+        assertEquals(0, PieceSquareTables.endgame(exposed))
+        // without a king there is nothing to shelter
+        assertTrue(PieceSquareTables.middlegame(PawnStructure.shelter(64, 62, white, black)) < 0)
+    }
+}
@@ -0,0 +1,111 @@
+package com.chessapp.engine
+
+import com.chessapp.api.board.Move
+import com.chessapp.api.board.PieceCodes
+import org.junit.jupiter.api.Assertions.assertEquals
+import org.junit.jupiter.api.Test
+import org.junit.jupiter.api.assertThrows
+
+class TranspositionTableTest {
+
+    @Test
+    fun testStoreAndProbe() {
+        val table = TranspositionTable(1)
+        val move = Move.encode(12, 28, PieceCodes.code(PieceCodes.WHITE, PieceCodes.PAWN), flags = Move.FLAG_DOUBLE_PUSH)
+        val key = 0x1234_5678_9ABC_DEF0L
+
+        table.store(key, move, -Search.MATE + 7, 12, TranspositionTable.BOUND_LOWER)
+        val entry = table.probe(key)
+        assertEquals(move, TranspositionTable.move(entry))
+        assertEquals(-Search.MATE + 7, TranspositionTable.score(entry))
+        assertEquals(12, TranspositionTable.depth(entry))
+        assertEquals(TranspositionTable.BOUND_LOWER, TranspositionTable.bound(entry))
+
+        // same slot, different key: a miss
+        assertEquals(0L, table.probe(key xor 1L))
+
+        table.clear()
+        assertEquals(0L, table.probe(key))
+    }
+
+    @Test
+    fun testSameKeyRefreshKeepsBestMove() {
+        val table = TranspositionTable(1)
+        val move = Move.encode(6, 21, PieceCodes.code(PieceCodes.WHITE, PieceCodes.KNIGHT))
+        table.store(42L, move, 30, 5, TranspositionTable.BOUND_EXACT)
+        table.store(42L, Move.NONE, -10, 6, TranspositionTable.BOUND_UPPER)
+
+        val entry = table.probe(42L)
+        assertEquals(move, TranspositionTable.move(entry))
+        assertEquals(-10, TranspositionTable.score(entry))
+        assertEquals(6, TranspositionTable.depth(entry))
+    }
+
+    @Test
+    fun testDepthPreferredEntriesSurviveShallowWrites() {
+        val table = TranspositionTable(1)
+        // all of these keys share a bucket, since the bucket comes from the high half of the key
+        val deepKeys = longArrayOf(1L, 2L, 3L)
+        deepKeys.forEach { table.store(it, Move.NONE, 0, 20, TranspositionTable.BOUND_EXACT) }
+        for (key in 100L until 200L) {
+            table.store(key, Move.NONE, 0, 1, TranspositionTable.BOUND_EXACT)
+        }
+
+        deepKeys.forEach { assertEquals(20, TranspositionTable.depth(table.probe(it))) }
+        // only the always-replace entry took the shallow writes, so the latest is still there
+        assertEquals(1, TranspositionTable.depth(table.probe(199L)))
+        assertEquals(0L, table.probe(198L))
+    }
+
+    @Test
+    fun testAlwaysReplaceEvictsDeepEntries() {
+        val table = TranspositionTable(1, TranspositionTable.Replacement.ALWAYS_REPLACE)
+        longArrayOf(1L, 2L, 3L, 4L).forEach { table.store(it, Move.NONE, 0, 20, TranspositionTable.BOUND_EXACT) }
+        table.store(5L, Move.NONE, 0, 1, TranspositionTable.BOUND_EXACT)
+        assertEquals(1, TranspositionTable.depth(table.probe(5L)))
+    }
+
+    @Test
+    fun testOldEntriesAgeOut() {
+        val table = TranspositionTable(1)
+        longArrayOf(1L, 2L, 3L).forEach { table.store(it, Move.NONE, 0, 10, TranspositionTable.BOUND_EXACT) }
+        repeat(2) { table.newSearch() }
+
+        // two searches on, a depth 10 entry is worth less than a fresh depth 1 one
+        table.store(4L, Move.NONE, 0, 1, TranspositionTable.BOUND_EXACT)
+        table.store(5L, Move.NONE, 0, 1, TranspositionTable.BOUND_EXACT)
+        assertEquals(1, TranspositionTable.depth(table.probe(4L)))
+        assertEquals(1, TranspositionTable.depth(table.probe(5L)))
+    }
+
+    @Test
+    fun testHashfull() {
+        val table = TranspositionTable(1)
+        assertEquals(0, table.hashfull())
+
+        // spread keys over every bucket by varying the high half of the key
+        val buckets = 1024L * 1024 / 64
+        for (bucket in 0 until buckets) {
+            val highHalf = ((bucket shl 32) + buckets - 1) / buckets
+            table.store(highHalf shl 32, Move.NONE, 0, 1, TranspositionTable.BOUND_EXACT)
+        }
+        assertEquals(250, table.hashfull())
+
+        table.newSearch()
+        assertEquals(0, table.hashfull())
+    }
+
+    @Test
+    fun testMateScoresAreStoredRelativeToPly() {
+        val mateInFiveFromRoot = Search.MATE - 5
+        val stored = Search.scoreToTable(mateInFiveFromRoot, 3)
+        assertEquals(Search.MATE - 2, stored)
+        assertEquals(Search.MATE - 6, Search.scoreFromTable(stored, 4))
+        assertEquals(150, Search.scoreFromTable(Search.scoreToTable(150, 9), 2))
+    }
+
+    @Test
+    fun testInvalidSize() {
+        assertThrows<IllegalArgumentException> { TranspositionTable(0) }
+    }
+}
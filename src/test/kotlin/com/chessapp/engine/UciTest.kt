@@ -0,0 +1,128 @@
+package com.chessapp.engine
+
+import org.junit.jupiter.api.Assertions.assertEquals
+import org.junit.jupiter.api.Assertions.assertFalse
+import org.junit.jupiter.api.Assertions.assertTrue
+import org.junit.jupiter.api.Test
+import java.io.ByteArrayOutputStream
+import java.io.PrintStream
+
+class UciTest {
+    private val bytes = ByteArrayOutputStream()
+    private val uci = Uci("".reader().buffered(), PrintStream(bytes, true))
+
+    private fun lines(): List<String> = synchronized(bytes) { bytes.toString().lines().filter { it.isNotEmpty() } }
+
+    private fun bestMove(): String? = lines().lastOrNull { it.startsWith("bestmove") }
+
+    private fun awaitBestMove(timeoutMillis: Long = 10_000): String {
+        val deadline = System.currentTimeMillis() + timeoutMillis
+        while (System.currentTimeMillis() < deadline) {
+            bestMove()?.let { return it }
+            Thread.sleep(5)
+        }
+        throw AssertionError("No bestmove within $timeoutMillis ms: ${lines()}")
+    }
+
+    @Test
+    fun testHandshake() {
+        uci.handle("uci")
+        uci.handle("isready")
+        val lines = lines()
+        assertTrue(lines.first().startsWith("id name"))
+        assertTrue(lines.any { it.startsWith("option name Hash type spin") })
+        assertTrue(lines.any { it.startsWith("option name Threads type spin") })
+        assertEquals(listOf("uciok", "readyok"), lines.takeLast(2))
+    }
+
+    @Test
+    fun testSearchesAPositionAfterMoves() {
+        uci.handle("position startpos moves e2e4 e7e5 g1f3")
+        uci.handle("go depth 3")
+        val best = awaitBestMove()
+        assertTrue(best.matches(Regex("bestmove [a-h][1-8][a-h][1-8][qrbn]?( ponder [a-h][1-8][a-h][1-8][qrbn]?)?")), best)
+        assertTrue(lines().any { it.startsWith("info depth 3 score cp ") && " pv " in it })
+    }
+
+    @Test
+    fun testReportsMate() {
+        uci.handle("position fen 6k1/5ppp/8/8/8/8/8/R5K1 w - - 0 1")
+        uci.handle("go depth 3")
+        assertEquals("bestmove a1a8", awaitBestMove())
+        assertTrue(lines().any { it.startsWith("info depth 3 score mate 1 ") })
+    }
+
+    @Test
+    fun testInfiniteSearchWaitsForStop() {
+        uci.handle("position startpos")
+        uci.handle("go infinite")
+        Thread.sleep(200)
+        assertEquals(null, bestMove())
+        val start = System.currentTimeMillis()
+        uci.handle("stop")
+        // stop waits for the search, so bestmove is out as soon as it returns
+        assertTrue(System.currentTimeMillis() - start < 2000)
+        assertTrue(bestMove() != null)
+    }
+
+    @Test
+    fun testStopRightAfterGoIsNotLost() {
+        uci.handle("position startpos")
+        // on a thread of its own, so that a lost stop fails the test instead of hanging it
+        val commands = Thread {
+            repeat(20) {
+                uci.handle("go infinite")
+                uci.handle("stop")
+                uci.handle("go ponder wtime 200 btime 200")
+                uci.handle("ponderhit")
+                uci.handle("stop")
+            }
+        }.apply {
+            isDaemon = true
+            start()
+            join(20_000)
+        }
+        assertFalse(commands.isAlive, "A search kept running after stop: ${lines().takeLast(3)}")
+        assertEquals(40, lines().count { it.startsWith("bestmove") })
+    }
+
+    @Test
+    fun testPonderhitSwitchesToTheClock() {
+        uci.handle("position startpos moves e2e4")
+        uci.handle("go ponder wtime 1000 btime 1000")
+        Thread.sleep(100)
+        assertEquals(null, bestMove())
+        uci.handle("ponderhit")
+        awaitBestMove(5_000)
+    }
+
+    @Test
+    fun testTimeControl() {
+        assertEquals(0L, Uci.moveTime(0, 0, 0))
+        assertEquals(2000L + 750, Uci.moveTime(60_000, 1000, 0))
+        assertEquals(10_000L, Uci.moveTime(20_000, 0, 2))
+        // never the whole clock, even with a big increment
+        assertEquals(100L - Uci.MOVE_OVERHEAD_MILLIS, Uci.moveTime(100, 10_000, 1))
+        assertEquals(1L, Uci.moveTime(10, 0, 1))
+    }
+
+    @Test
+    fun testOptionsAndBadInput() {
+        uci.handle("setoption name Hash value 4")
+        uci.handle("setoption name Threads value 2")
+        uci.handle("setoption name Threads value 0")
+        uci.handle("position startpos moves e2e5")
+        uci.handle("frobnicate")
+        // no white king: refused, and the engine falls back to the starting position
+        uci.handle("position fen 4k3/8/8/8/8/8/8/8 w - - 0 1")
+        val lines = lines()
+        assertEquals(3, lines.size)
+        assertTrue(lines[0].startsWith("info string Threads"))
+        assertTrue(lines[1].startsWith("info string Illegal move e2e5"))
+        assertTrue(lines[2].startsWith("info string Invalid FEN, white has 0 kings"), lines[2])
+
+        uci.handle("go nodes 5000")
+        awaitBestMove()
+        assertFalse(uci.handle("quit"))
+    }
+}
@@ -0,0 +1,88 @@
+package com.chessapp.engine.nnue
+
+import com.chessapp.api.board.BitboardPosition
+import com.chessapp.api.board.Fen
+import com.chessapp.api.board.LegalMoveGenerator
+import com.chessapp.api.board.MoveList
+import com.chessapp.api.board.Perft
+import org.junit.jupiter.api.Assertions.assertEquals
+import org.junit.jupiter.api.Assertions.assertNotNull
+import org.junit.jupiter.api.Assertions.assertNull
+import org.junit.jupiter.api.Assertions.assertSame
+import org.junit.jupiter.api.Test
+import kotlin.random.Random
+
+class NnueAccumulatorTest {
+
+    // Small layers keep the network quick to build; 20 is not a multiple of any vector width
+    private val network = NnueNetwork.random(seed = 3, accumulatorSize = 20, hidden1Size = 8, hidden2Size = 4)
+
+    @Test
+    fun testIncrementalUpdatesMatchARebuild() {
+        val random = Random(9)
+        val moves = MoveList()
+        for (fen in listOf(Perft.STARTING_POSITION_FEN, KIWIPETE, "8/P6k/8/8/8/8/6Kp/8 w - - 0 1")) {
+            repeat(10) {
+                val board = BitboardPosition.fromFen(fen)
+                val accumulator = NnueAccumulator(network, board)
+                val startScore = accumulator.evaluate()
+                val generator = LegalMoveGenerator(board)
+                var plies = 0
+                while (plies < 60) {
+                    generator.generateLegalMoves(moves)
+                    if (moves.isEmpty()) break
+                    board.makeMove(moves[random.nextInt(moves.size)])
+                    plies++
+                    val rebuilt = NnueAccumulator(network, BitboardPosition().also { it.copyFrom(board) }, ScalarKernels)
+                    assertEquals(rebuilt.accumulatorOf(0).toList(), accumulator.accumulatorOf(0).toList())
+                    assertEquals(rebuilt.accumulatorOf(1).toList(), accumulator.accumulatorOf(1).toList())
+                    assertEquals(rebuilt.evaluate(), accumulator.evaluate())
+                }
+                repeat(plies) { board.unmakeMove() }
+                assertEquals(startScore, accumulator.evaluate())
+            }
+        }
+    }
+
+    @Test
+    fun testVectorAndScalarKernelsAgree() {
+        val board = BitboardPosition.fromFen(KIWIPETE)
+        val scalar = NnueAccumulator(network, BitboardPosition.fromFen(KIWIPETE), ScalarKernels)
+        val vector = NnueAccumulator(network, board, VectorKernels)
+        assertEquals(scalar.evaluate(), vector.evaluate())
+        assertEquals(scalar.accumulatorOf(1).toList(), vector.accumulatorOf(1).toList())
+        assertSame(VectorKernels, NnueKernels.BEST)
+
+        val full = NnueNetwork.random(seed = 4)
+        assertEquals(NnueAccumulator(full, BitboardPosition.fromFen(KIWIPETE), ScalarKernels).evaluate(),
+            NnueAccumulator(full, BitboardPosition.fromFen(KIWIPETE), VectorKernels).evaluate())
+    }
+
+    @Test
+    fun testMirroredPositionsScoreTheSame() {
+        // the same position with the board flipped and the colors swapped, so the other side to move
+        val white = NnueAccumulator(network, BitboardPosition.fromFen("r3k2r/pp3ppp/2n5/3q4/8/2N2N2/PP3PPP/R2Q1RK1 w kq - 0 1"))
+        val black = NnueAccumulator(network, BitboardPosition.fromFen("r2q1rk1/pp3ppp/2n2n2/8/3Q4/2N5/PP3PPP/R3K2R b KQ - 0 1"))
+        assertEquals(white.evaluate(), black.evaluate())
+    }
+
+    @Test
+    fun testFollowsTheBoardThroughResets() {
+        val board = BitboardPosition.fromFen(KIWIPETE)
+        val accumulator = NnueAccumulator(network, board)
+        val kiwipete = accumulator.evaluate()
+        Fen.read(Perft.STARTING_POSITION_FEN, board)
+        assertEquals(NnueAccumulator(network, BitboardPosition.fromFen(Perft.STARTING_POSITION_FEN)).evaluate(), accumulator.evaluate())
+        board.copyFrom(BitboardPosition.fromFen(KIWIPETE))
+        assertEquals(kiwipete, accumulator.evaluate())
+
+        board.clear()
+        assertNull(accumulator.evaluate())
+        Fen.read("4k3/8/8/8/8/8/8/4K3 w - - 0 1", board)
+        assertNotNull(accumulator.evaluate())
+    }
+
+    companion object {
+        private const val KIWIPETE = "r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1"
+    }
+}
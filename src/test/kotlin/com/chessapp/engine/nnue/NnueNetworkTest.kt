@@ -0,0 +1,62 @@
+package com.chessapp.engine.nnue
+
+import com.chessapp.api.board.BitboardPosition
+import com.chessapp.engine.Engine
+import com.chessapp.engine.SearchLimits
+import org.junit.jupiter.api.AfterEach
+import org.junit.jupiter.api.Assertions.assertEquals
+import org.junit.jupiter.api.Assertions.assertTrue
+import org.junit.jupiter.api.BeforeEach
+import org.junit.jupiter.api.Test
+import org.junit.jupiter.api.assertThrows
+import java.io.IOException
+import java.nio.file.Files
+import java.nio.file.Path
+
+class NnueNetworkTest {
+    private lateinit var file: Path
+
+    @BeforeEach
+    fun setup() {
+        file = Files.createTempFile("network", ".nnue")
+    }
+
+    @AfterEach
+    fun cleanup() {
+        Files.deleteIfExists(file)
+    }
+
+    @Test
+    fun testRoundTrip() {
+        val network = NnueNetwork.random(seed = 5, accumulatorSize = 16, hidden1Size = 8, hidden2Size = 8)
+        network.writeTo(file)
+        assertEquals(NnueNetwork.fileSize(16, 8, 8), Files.size(file))
+
+        val loaded = NnueNetwork.load(file)
+        assertEquals(16, loaded.accumulatorSize)
+        for (fen in listOf("rnbqkbnr/pppppppp/8/8/4P3/8/PPPP1PPP/RNBQKBNR b KQkq - 0 1", "8/8/3k4/8/2R5/8/4K3/8 w - - 0 1")) {
+            assertEquals(NnueAccumulator(network, BitboardPosition.fromFen(fen)).evaluate(),
+                NnueAccumulator(loaded, BitboardPosition.fromFen(fen)).evaluate())
+        }
+    }
+
+    @Test
+    fun testRejectsBadFiles() {
+        NnueNetwork.random(seed = 5, accumulatorSize = 16, hidden1Size = 8, hidden2Size = 8).writeTo(file)
+        val bytes = Files.readAllBytes(file)
+        Files.write(file, bytes.copyOf(bytes.size - 1))
+        assertThrows<IOException> { NnueNetwork.load(file) }
+        Files.write(file, ByteArray(64) { 7 })
+        assertThrows<IOException> { NnueNetwork.load(file) }
+        assertThrows<IllegalArgumentException> { NnueNetwork(4, 1, 1, ShortArray(4), ShortArray(3), IntArray(1), IntArray(8), IntArray(1), IntArray(1), 0, IntArray(1)) }
+    }
+
+    @Test
+    fun testEngineSearchesWithTheNetwork() {
+        // whatever the random network thinks, a mate is a mate
+        val engine = Engine(network = NnueNetwork.random(seed = 6, accumulatorSize = 32, hidden1Size = 8, hidden2Size = 8))
+        val result = engine.search(BitboardPosition.fromFen("6k1/5ppp/8/8/8/8/8/R5K1 w - - 0 1"), SearchLimits(depth = 3))
+        assertTrue(result.isMateScore)
+        assertEquals(3, result.depth)
+    }
+}
@@ -0,0 +1,58 @@
+package com.chessapp.engine.tablebase
+
+import com.chessapp.api.board.Fen
+import com.chessapp.api.board.PieceCodes
+import org.junit.jupiter.api.Assertions.assertEquals
+import org.junit.jupiter.api.Assertions.assertFalse
+import org.junit.jupiter.api.Assertions.assertTrue
+import org.junit.jupiter.api.Test
+import org.junit.jupiter.api.assertThrows
+
+class MaterialTest {
+
+    @Test
+    fun testStrongerSideComesFirst() {
+        assertEquals("KQK", Material.parse("KKQ").name)
+        assertEquals("KRKP", Material.parse("kpkr").name)
+        assertEquals("KBNK", Material.parse("KNBK").name)
+        assertEquals("KPKP", Material.parse("KPKP").name)
+        assertEquals(Material.parse("KQK"), Material.parse("KKQ"))
+    }
+
+    @Test
+    fun testSlotsAreKingsThenPiecesByValue() {
+        val material = Material.parse("KNBK")
+        assertEquals(
+            listOf(PieceCodes.code(PieceCodes.WHITE, PieceCodes.KING), PieceCodes.code(PieceCodes.BLACK, PieceCodes.KING),
+                PieceCodes.code(PieceCodes.WHITE, PieceCodes.BISHOP), PieceCodes.code(PieceCodes.WHITE, PieceCodes.KNIGHT)),
+            material.slotCodes.toList()
+        )
+        assertEquals(4, material.pieceCount)
+        assertFalse(material.hasPawns)
+        assertTrue(Material.parse("KRKP").hasPawns)
+    }
+
+    @Test
+    fun testConversions() {
+        assertEquals(setOf("KK", "KNK", "KBK", "KRK", "KQK"), Material.parse("KPK").conversions().map { it.name }.toSet())
+        assertEquals(setOf("KQK", "KRK"), Material.parse("KQKR").conversions().map { it.name }.toSet())
+        // a pawn taking the rook as it promotes leaves the promoted piece alone
+        assertTrue(Material.parse("KPKR").conversions().map { it.name }.containsAll(listOf("KQK", "KNK", "KRKR", "KQKR", "KPK", "KRK")))
+        assertTrue(Material.parse("KK").conversions().isEmpty())
+    }
+
+    @Test
+    fun testBoardSignatureMatchesPieces() {
+        val board = Fen.toBitboardPosition("8/8/8/3k4/8/2r5/8/1QK5 w - - 0 1")
+        val kqkr = Material.parse("KQKR")
+        assertEquals(Material.signature(kqkr.white, kqkr.black), Material.signature(board))
+        assertEquals(Material.NO_SIGNATURE, Material.signature(Fen.toBitboardPosition(Fen.STARTING_POSITION)))
+    }
+
+    @Test
+    fun testRejectsBadMaterial() {
+        assertThrows<IllegalArgumentException> { Material.parse("QK") }
+        assertThrows<IllegalArgumentException> { Material.parse("KXK") }
+        assertThrows<IllegalArgumentException> { Material.parse("KQRKB") }
+    }
+}
@@ -0,0 +1,130 @@
+package com.chessapp.engine.tablebase
+
+import com.chessapp.api.board.AttackDetector
+import com.chessapp.api.board.BitboardPosition
+import com.chessapp.api.board.Fen
+import com.chessapp.api.board.LegalMoveGenerator
+import com.chessapp.api.board.MoveList
+import com.chessapp.api.board.PieceCodes
+import com.chessapp.engine.Engine
+import com.chessapp.engine.Search
+import com.chessapp.engine.SearchLimits
+import org.junit.jupiter.api.Assertions.assertEquals
+import org.junit.jupiter.api.Assertions.assertTrue
+import org.junit.jupiter.api.Test
+import java.util.concurrent.ForkJoinPool
+
+class TablebaseGeneratorTest {
+
+    @Test
+    fun testLongestMates() {
+        // ten moves for the queen, sixteen for the rook
+        assertEquals(19, longestWhiteWin(kqkAndKrk.tables.getValue("KQK")))
+        assertEquals(31, longestWhiteWin(kqkAndKrk.tables.getValue("KRK")))
+    }
+
+    @Test
+    fun testEveryValueAgreesWithItsMoves() {
+        assertConsistent(kqkAndKrk, "KRK")
+        assertConsistent(kpk, "KPK")
+    }
+
+    @Test
+    fun testIdenticalPiecesHaveOneIndex() {
+        // two bishops, with the positions that were once probed from the wrong one of two indexes
+        assertConsistent(kbbk, "KBBK")
+        assertEquals(Search.MATE - 21, kbbk.probe(Fen.toBitboardPosition("3K2k1/6B1/8/8/8/3B4/8/8 w - - 0 1")))
+    }
+
+    @Test
+    fun testKingAndPawnEndings() {
+        // the king on the sixth rank ahead of its pawn wins whoever is to move
+        assertTrue(kpk.probe(Fen.toBitboardPosition("4k3/8/4K3/4P3/8/8/8/8 w - - 0 1")) > Search.MATE_BOUND)
+        assertTrue(kpk.probe(Fen.toBitboardPosition("4k3/8/4K3/4P3/8/8/8/8 b - - 0 1")) < -Search.MATE_BOUND)
+        // a rook pawn with the defending king in the corner is a draw
+        assertEquals(Search.DRAW, kpk.probe(Fen.toBitboardPosition("k7/8/8/8/8/8/P7/K7 w - - 0 1")))
+        // stalemate
+        assertEquals(Search.DRAW, kpk.probe(Fen.toBitboardPosition("4k3/4P3/4K3/8/8/8/8/8 b - - 0 1")))
+        // the pawn is lost
+        assertEquals(Search.DRAW, kpk.probe(Fen.toBitboardPosition("8/8/8/8/8/8/2kP4/7K b - - 0 1")))
+    }
+
+    @Test
+    fun testShortMatesAgreeWithSearch() {
+        val table = kqkAndKrk.tables.getValue("KRK")
+        val board = BitboardPosition()
+        val squares = IntArray(Material.MAX_PIECES)
+        var checked = 0
+        var index = 0
+        while (checked < 10 && index < table.size) {
+            val value = table.value(index)
+            if (EndgameTable.isWin(value) && EndgameTable.plies(value) in 3..5 && setUp(table, index, board, squares)) {
+                val result = Engine().search(board, SearchLimits(depth = 6))
+                assertEquals(Search.MATE - EndgameTable.plies(value), result.score, Fen.write(board))
+                checked++
+            }
+            index += 97
+        }
+        assertEquals(10, checked)
+    }
+
+    @Test
+    fun testParallelGenerationMatchesSequential() {
+        val sequential = TablebaseGenerator(ForkJoinPool(1)).generate("KRK").tables.getValue("KRK")
+        val parallel = TablebaseGenerator(ForkJoinPool(4)).generate("KRK").tables.getValue("KRK")
+        for (index in 0 until sequential.size) assertEquals(sequential.value(index), parallel.value(index))
+    }
+
+    private fun longestWhiteWin(table: EndgameTable): Int =
+        (0 until table.size step 2).map { table.value(it) }.filter { EndgameTable.isWin(it) }.maxOf { EndgameTable.plies(it) }
+
+    // Every legal position's value is the best over its moves, looking one ply ahead
+    private fun assertConsistent(tablebase: Tablebase, name: String) {
+        val table = tablebase.tables.getValue(name)
+        val board = BitboardPosition()
+        val generator = LegalMoveGenerator(board)
+        val moves = MoveList()
+        val squares = IntArray(Material.MAX_PIECES)
+        for (index in 0 until table.size) {
+            if (!setUp(table, index, board, squares)) continue
+            generator.generateLegalMoves(moves)
+            var expected = if (AttackDetector.isInCheck(board, board.sideToMove)) EndgameTable.loss(0) else EndgameTable.DRAW
+            var shortestWin = Int.MAX_VALUE
+            var longestLoss = -1
+            var allLose = true
+            for (i in 0 until moves.size) {
+                board.makeMove(moves[i])
+                val child = tablebase.probeValue(board, squares)
+                board.unmakeMove()
+                when {
+                    EndgameTable.isLoss(child) -> shortestWin = minOf(shortestWin, EndgameTable.plies(child) + 1)
+                    EndgameTable.isWin(child) -> longestLoss = maxOf(longestLoss, EndgameTable.plies(child) + 1)
+                    else -> allLose = false
+                }
+            }
+            if (!moves.isEmpty()) {
+                expected = when {
+                    shortestWin != Int.MAX_VALUE -> EndgameTable.win(shortestWin)
+                    allLose -> EndgameTable.loss(longestLoss)
+                    else -> EndgameTable.DRAW
+                }
+            }
+            assertEquals(expected, table.value(index), Fen.write(board))
+        }
+    }
+
+    private fun setUp(table: EndgameTable, index: Int, board: BitboardPosition, squares: IntArray): Boolean {
+        if (table.value(index) == EndgameTable.ILLEGAL) return false
+        val sideToMove = EndgameTable.decode(table.material, index, squares)
+        board.clear()
+        for (slot in 0 until table.material.pieceCount) board.putPiece(squares[slot], table.material.slotCodes[slot])
+        board.sideToMove = sideToMove
+        return !AttackDetector.isInCheck(board, PieceCodes.opposite(sideToMove))
+    }
+
+    companion object {
+        private val kqkAndKrk by lazy { TablebaseGenerator().generate("KQK", "KRK") }
+        private val kpk by lazy { TablebaseGenerator().generate("KPK") }
+        private val kbbk by lazy { TablebaseGenerator().generate("KBBK") }
+    }
+}
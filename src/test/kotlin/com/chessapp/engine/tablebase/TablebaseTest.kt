@@ -0,0 +1,82 @@
+package com.chessapp.engine.tablebase
+
+import com.chessapp.api.board.Fen
+import com.chessapp.engine.Search
+import org.junit.jupiter.api.AfterEach
+import org.junit.jupiter.api.Assertions.assertEquals
+import org.junit.jupiter.api.Assertions.assertTrue
+import org.junit.jupiter.api.BeforeEach
+import org.junit.jupiter.api.Test
+import org.junit.jupiter.api.assertThrows
+import java.io.IOException
+import java.nio.file.Files
+import java.nio.file.Path
+
+class TablebaseTest {
+    private lateinit var directory: Path
+
+    @BeforeEach
+    fun setup() {
+        directory = Files.createTempDirectory("tables")
+    }
+
+    @AfterEach
+    fun cleanup() {
+        Files.list(directory).use { files -> files.forEach { Files.delete(it) } }
+        Files.delete(directory)
+    }
+
+    @Test
+    fun testProbeScores() {
+        // mate in one, checkmated, and a draw by taking the rook
+        assertEquals(Search.MATE - 1, krk.probe(Fen.toBitboardPosition("k7/8/1K6/8/8/8/8/7R w - - 0 1")))
+        assertEquals(-Search.MATE, krk.probe(Fen.toBitboardPosition("R1k5/8/2K5/8/8/8/8/8 b - - 0 1")))
+        assertEquals(Search.DRAW, krk.probe(Fen.toBitboardPosition("kR6/8/8/8/8/8/8/7K b - - 0 1")))
+    }
+
+    @Test
+    fun testBlackWithTheStrongerSideIsProbedWithColorsSwapped() {
+        val white = krk.probe(Fen.toBitboardPosition("k7/8/1K6/8/8/8/8/7R w - - 0 1"))
+        val black = krk.probe(Fen.toBitboardPosition("7r/8/8/8/8/1k6/8/K7 b - - 0 1"))
+        assertEquals(white, black)
+        assertEquals(Search.MATE - 1, black)
+    }
+
+    @Test
+    fun testPositionsOutsideTheTablesAreUnknown() {
+        assertEquals(Tablebase.UNKNOWN, krk.probe(Fen.toBitboardPosition("k7/8/1K6/8/8/8/8/7Q w - - 0 1")))
+        assertEquals(Tablebase.UNKNOWN, krk.probe(Fen.toBitboardPosition(Fen.STARTING_POSITION)))
+        assertEquals(Tablebase.UNKNOWN, krk.probe(Fen.toBitboardPosition("k7/8/1K6/8/8/8/8/4K2R w K - 0 1")))
+    }
+
+    @Test
+    fun testEnPassantSquareWithoutACaptureIsIgnored() {
+        val kpk = TablebaseGenerator().generate("KPK")
+        val afterDoublePush = kpk.probe(Fen.toBitboardPosition("8/8/8/8/4P3/8/8/k1K5 b - e3 0 1"))
+        assertEquals(kpk.probe(Fen.toBitboardPosition("8/8/8/8/4P3/8/8/k1K5 b - - 0 1")), afterDoublePush)
+        assertTrue(afterDoublePush < -Search.MATE_BOUND)
+    }
+
+    @Test
+    fun testSavedTablesAreMappedBack() {
+        krk.save(directory)
+        val loaded = Tablebase.load(directory)
+        assertEquals(krk.tables.keys, loaded.tables.keys)
+        for ((name, table) in krk.tables) {
+            val mapped = loaded.tables.getValue(name)
+            for (index in 0 until table.size) assertEquals(table.value(index), mapped.value(index))
+        }
+        assertEquals(Search.MATE - 1, loaded.probe(Fen.toBitboardPosition("k7/8/1K6/8/8/8/8/7R w - - 0 1")))
+    }
+
+    @Test
+    fun testRejectsOtherFiles() {
+        val file = directory.resolve("KRK" + EndgameTable.FILE_EXTENSION)
+        Files.write(file, ByteArray(64))
+        assertThrows<IOException> { EndgameTable.read(file) }
+    }
+
+    companion object {
+        private val krk by lazy { TablebaseGenerator().generate("KRK") }
+    }
+}
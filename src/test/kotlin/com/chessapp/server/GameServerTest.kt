@@ -0,0 +1,91 @@
+package com.chessapp.server
+
+import com.chessapp.api.board.Fen
+import org.junit.jupiter.api.AfterEach
+import org.junit.jupiter.api.Assertions.assertEquals
+import org.junit.jupiter.api.Assertions.assertTrue
+import org.junit.jupiter.api.BeforeEach
+import org.junit.jupiter.api.Test
+import java.io.BufferedReader
+import java.io.PrintWriter
+import java.net.InetAddress
+import java.net.Socket
+
+class GameServerTest {
+    private lateinit var server: GameServer
+
+    @BeforeEach
+    fun setup() {
+        server = GameServer(0).start()
+    }
+
+    @AfterEach
+    fun cleanup() {
+        server.close()
+    }
+
+    private class Client(port: Int) : AutoCloseable {
+        private val socket = Socket(InetAddress.getLoopbackAddress(), port)
+        private val input: BufferedReader = socket.getInputStream().bufferedReader()
+        private val output = PrintWriter(socket.getOutputStream(), true)
+
+        fun request(line: String): String? {
+            output.println(line)
+            return input.readLine()
+        }
+
+        override fun close() = socket.close()
+    }
+
+    @Test
+    fun testPlaysAGame() {
+        Client(server.port).use { client ->
+            val moves = client.request("moves")!!.split(' ')
+            assertEquals("moves", moves[0])
+            assertEquals(20, moves.size - 1)
+            assertEquals("ok", client.request("move e2e4"))
+            assertEquals("illegal e2e4", client.request("move e2e4"))
+            assertEquals("ok", client.request("move d7d5"))
+            assertEquals("ok", client.request("move e4d5"))
+            assertEquals("fen rnbqkbnr/ppp1pppp/8/3P4/8/8/PPPP1PPP/RNBQKBNR b KQkq - 0 2", client.request("fen"))
+            assertEquals("ok e4d5", client.request("undo"))
+            assertTrue(client.request("frobnicate")!!.startsWith("error"))
+            assertEquals("ok", client.request("new"))
+            assertEquals("fen ${Fen.STARTING_POSITION}", client.request("fen"))
+            assertEquals(GameServer.BYE, client.request("quit"))
+            assertEquals(null, client.request("moves"))
+        }
+    }
+
+    @Test
+    fun testGamesAreIsolated() {
+        Client(server.port).use { first ->
+            Client(server.port).use { second ->
+                assertEquals("ok", first.request("move g1f3"))
+                assertEquals("illegal g8f6", second.request("move g8f6"))
+                assertEquals("ok", second.request("move b1c3"))
+                assertEquals("ok", first.request("move g8f6"))
+                assertTrue(first.request("fen")!!.contains("5N2"))
+                assertTrue(second.request("fen")!!.contains("2N5"))
+            }
+        }
+    }
+
+    @Test
+    fun testGameEndsInCheckmate() {
+        Client(server.port).use { client ->
+            listOf("f2f3", "e7e5", "g2g4").forEach { assertEquals("ok", client.request("move $it")) }
+            assertEquals("ok", client.request("move d8h4"))
+            assertEquals("moves", client.request("moves"))
+            assertTrue(client.request("move a2a3")!!.startsWith("error"))
+        }
+    }
+
+    @Test
+    fun testCastlingMovesTheRook() {
+        Client(server.port).use { client ->
+            listOf("e2e4", "e7e5", "g1f3", "b8c6", "f1c4", "g8f6", "e1g1").forEach { assertEquals("ok", client.request("move $it")) }
+            assertTrue(client.request("fen")!!.contains("/RNBQ1RK1 b kq "))
+        }
+    }
+}
@@ -0,0 +1,28 @@
+package com.chessapp.server
+
+import org.junit.jupiter.api.Assertions.assertEquals
+import org.junit.jupiter.api.Assertions.assertTrue
+import org.junit.jupiter.api.Test
+
+class LoadGeneratorTest {
+
+    @Test
+    fun testManyConcurrentGames() {
+        GameServer(0).use { server ->
+            server.start()
+            val report = LoadGenerator(server.port, clients = 200, movesPerClient = 100).run()
+            assertEquals(20_000L, report.moves)
+            assertTrue(report.p50Micros <= report.p99Micros)
+            assertTrue(report.p99Micros <= report.maxMicros)
+        }
+    }
+
+    @Test
+    fun testPercentile() {
+        val values = LongArray(100) { it + 1L }
+        assertEquals(50L, LoadGenerator.percentile(values, 50))
+        assertEquals(99L, LoadGenerator.percentile(values, 99))
+        assertEquals(7L, LoadGenerator.percentile(longArrayOf(7), 99))
+        assertEquals(0L, LoadGenerator.percentile(LongArray(0), 50))
+    }
+}